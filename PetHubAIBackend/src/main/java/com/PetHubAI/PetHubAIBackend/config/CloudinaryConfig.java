@@ -9,13 +9,14 @@ import org.springframework.context.annotation.Configuration;
 @Configuration
 public class CloudinaryConfig {
 
-    @Value("${cloudinary.cloud.name}")
+    // Defaults allow running with images.storage=local and no Cloudinary account
+    @Value("${cloudinary.cloud.name:}")
     private String cloudName;
 
-    @Value("${cloudinary.api.key}")
+    @Value("${cloudinary.api.key:}")
     private String apiKey;
 
-    @Value("${cloudinary.api.secret}")
+    @Value("${cloudinary.api.secret:}")
     private String apiSecret;
 
     @Bean
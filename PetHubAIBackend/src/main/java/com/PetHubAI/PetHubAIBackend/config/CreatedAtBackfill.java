@@ -0,0 +1,30 @@
+package com.PetHubAI.PetHubAIBackend.config;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// Keyset feeds page on (created_at, id), so a row without created_at cannot be a cursor. Rows saved before
+// the column was filled on insert get their updated_at, or now. Runs before the product catalog loads.
+@Component
+public class CreatedAtBackfill {
+
+    private static final List<String> TABLES = List.of("products", "orders", "adoption_requests");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    public void backfill() {
+        for (String table : TABLES) {
+            int updated = jdbcTemplate.update("UPDATE " + table
+                    + " SET created_at = COALESCE(updated_at, CURRENT_TIMESTAMP) WHERE created_at IS NULL");
+            if (updated > 0) {
+                System.out.println("📦 Filled in created_at for " + updated + " " + table + " rows");
+            }
+        }
+    }
+}
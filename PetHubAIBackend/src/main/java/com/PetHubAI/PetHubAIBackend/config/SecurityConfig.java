@@ -12,6 +12,7 @@ import com.PetHubAI.PetHubAIBackend.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
@@ -28,6 +29,7 @@ import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.security.web.authentication.SimpleUrlAuthenticationSuccessHandler;
 
+import jakarta.servlet.DispatcherType;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.security.core.Authentication;
@@ -86,6 +88,11 @@ public class SecurityConfig {
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth ->
                         auth.requestMatchers("/auth/**", "/oauth2/**", "/login/oauth2/code/**").permitAll()
+                                // SSE streams re-dispatch asynchronously; the original request was already authorized
+                                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+                                // Locally stored images are public, like their Cloudinary counterparts
+                                .requestMatchers(HttpMethod.GET, "/media/**").permitAll()
+                                .requestMatchers(HttpMethod.HEAD, "/media/**").permitAll()
                                 .requestMatchers("/admin/**").hasRole("ADMIN")
                                 .anyRequest().authenticated()
                 )
@@ -209,6 +216,8 @@ public class SecurityConfig {
         configuration.setAllowedOriginPatterns(java.util.List.of("*"));
         configuration.setAllowedMethods(java.util.List.of("GET", "POST", "PUT", "DELETE", "OPTIONS"));
         configuration.setAllowedHeaders(java.util.List.of("*"));
+        // Lets browser clients tell a replayed order/payment response from a fresh one
+        configuration.setExposedHeaders(java.util.List.of(com.PetHubAI.PetHubAIBackend.service.IdempotencyService.REPLAYED_HEADER));
         configuration.setAllowCredentials(true);
 
         org.springframework.web.cors.UrlBasedCorsConfigurationSource source = new org.springframework.web.cors.UrlBasedCorsConfigurationSource();
@@ -4,6 +4,7 @@ package com.PetHubAI.PetHubAIBackend.controller;
 import com.PetHubAI.PetHubAIBackend.dto.adoption.AdoptionRequestDto;
 import com.PetHubAI.PetHubAIBackend.dto.adoption.AdoptionRequestResponse;
 import com.PetHubAI.PetHubAIBackend.dto.response.ApiResponse;
+import com.PetHubAI.PetHubAIBackend.dto.response.CursorPage;
 import com.PetHubAI.PetHubAIBackend.entity.User;
 import com.PetHubAI.PetHubAIBackend.service.AdminService;
 import jakarta.validation.Valid;
@@ -43,6 +44,22 @@ public class AdminController {
         }
     }
 
+    // Keyset feed of adoption requests: opaque cursor, no COUNT unless includeTotal=true
+    @GetMapping("/feed")
+    public ResponseEntity<ApiResponse<CursorPage<AdoptionRequestResponse>>> getRequestsFeed(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
+        try {
+            CursorPage<AdoptionRequestResponse> requests = adminService.getAllRequestsFeed(cursor, size, includeTotal);
+            return ResponseEntity.ok(ApiResponse.success("All adoption requests retrieved successfully", requests));
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("Failed to fetch adoption requests: " + e.getMessage()));
+        }
+    }
+
     // Get adoption request by ID
     @GetMapping("/{id}")
     public ResponseEntity<ApiResponse<AdoptionRequestResponse>> getRequestById(@PathVariable Long id) {
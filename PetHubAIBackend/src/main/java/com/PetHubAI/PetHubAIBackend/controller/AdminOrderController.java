@@ -0,0 +1,69 @@
+package com.PetHubAI.PetHubAIBackend.controller;
+
+import com.PetHubAI.PetHubAIBackend.dto.product.OrderResponse;
+import com.PetHubAI.PetHubAIBackend.dto.response.ApiResponse;
+import com.PetHubAI.PetHubAIBackend.dto.response.CursorPage;
+import com.PetHubAI.PetHubAIBackend.service.OrderService;
+import com.PetHubAI.PetHubAIBackend.service.StockReservationService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/admin/orders")
+@CrossOrigin(origins = "*", maxAge = 3600)
+@PreAuthorize("hasRole('ADMIN')")
+public class AdminOrderController {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private StockReservationService stockReservationService;
+
+    // Get all orders with pagination
+    @GetMapping
+    public ResponseEntity<ApiResponse<Page<OrderResponse>>> getAllOrders(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size) {
+        try {
+            Pageable pageable = PageRequest.of(page, size);
+            Page<OrderResponse> orders = orderService.getAllOrders(pageable);
+            return ResponseEntity.ok(ApiResponse.success("All orders retrieved successfully", orders));
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError()
+                    .body(ApiResponse.error("Failed to fetch orders: " + e.getMessage()));
+        }
+    }
+
+    // Keyset feed of all orders: opaque cursor, no COUNT unless includeTotal=true
+    @GetMapping("/feed")
+    public ResponseEntity<ApiResponse<CursorPage<OrderResponse>>> getOrdersFeed(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
+        try {
+            CursorPage<OrderResponse> orders = orderService.getAllOrdersFeed(cursor, size, includeTotal);
+            return ResponseEntity.ok(ApiResponse.success("All orders retrieved successfully", orders));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("Failed to fetch orders: " + e.getMessage()));
+        }
+    }
+
+    // Stock currently held for unpaid online orders, and how many holds expired or were released
+    @GetMapping("/stock-reservations/stats")
+    public ResponseEntity<ApiResponse<StockReservationService.ReservationStats>> getStockReservationStats() {
+        try {
+            return ResponseEntity.ok(ApiResponse.success("Stock reservation stats retrieved successfully",
+                    stockReservationService.getStats()));
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError()
+                    .body(ApiResponse.error("Failed to fetch stock reservation stats: " + e.getMessage()));
+        }
+    }
+}
@@ -4,6 +4,7 @@ import com.PetHubAI.PetHubAIBackend.dto.PetResponse;
 import com.PetHubAI.PetHubAIBackend.dto.response.ApiResponse;
 import com.PetHubAI.PetHubAIBackend.entity.Pet;
 import com.PetHubAI.PetHubAIBackend.service.PetService;
+import com.PetHubAI.PetHubAIBackend.service.SuggestionTrie;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -77,6 +78,19 @@ public class AdminPetController {
         }
     }
 
+    // Typeahead trie size and estimated heap footprint
+    @GetMapping("/suggestions/stats")
+    public ResponseEntity<ApiResponse<SuggestionTrie.Stats>> getSuggestionStats() {
+        try {
+            SuggestionTrie.Stats stats = petService.getSuggestionStats();
+            return ResponseEntity.ok(ApiResponse.success("Suggestion index statistics retrieved successfully", stats));
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.internalServerError()
+                    .body(ApiResponse.error("Failed to fetch suggestion statistics: " + e.getMessage()));
+        }
+    }
+
     // Get pet by ID for admin
     @GetMapping("/{id}")
     @Transactional(readOnly = true)
@@ -3,14 +3,24 @@ package com.PetHubAI.PetHubAIBackend.controller;
 import com.PetHubAI.PetHubAIBackend.dto.product.ProductRequest;
 import com.PetHubAI.PetHubAIBackend.dto.product.ProductResponse;
 import com.PetHubAI.PetHubAIBackend.dto.response.ApiResponse;
+import com.PetHubAI.PetHubAIBackend.dto.response.CursorPage;
 import com.PetHubAI.PetHubAIBackend.entity.User;
 import com.PetHubAI.PetHubAIBackend.service.CloudinaryImageService;
+import com.PetHubAI.PetHubAIBackend.service.ImageAssetService;
+import com.PetHubAI.PetHubAIBackend.service.ImageJobService;
+import com.PetHubAI.PetHubAIBackend.service.LowStockMonitor;
+import com.PetHubAI.PetHubAIBackend.service.OrphanImageSweeper;
+import com.PetHubAI.PetHubAIBackend.service.ProductImportService;
+import com.PetHubAI.PetHubAIBackend.service.ProductInventoryService;
+import com.PetHubAI.PetHubAIBackend.service.ProductRecommendationService;
 import com.PetHubAI.PetHubAIBackend.service.ProductService;
+import com.PetHubAI.PetHubAIBackend.service.SuggestionTrie;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -18,9 +28,13 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.net.URI;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/admin/products")
@@ -34,14 +48,35 @@ public class AdminProductController {
     @Autowired
     private CloudinaryImageService cloudinaryImageService;
 
-    // Get all products for admin (including inactive)
+    @Autowired
+    private ProductImportService productImportService;
+
+    @Autowired
+    private ProductInventoryService productInventoryService;
+
+    @Autowired
+    private ProductRecommendationService productRecommendationService;
+
+    @Autowired
+    private ImageJobService imageJobService;
+
+    @Autowired
+    private OrphanImageSweeper orphanImageSweeper;
+
+    @Autowired
+    private ImageAssetService imageAssetService;
+
+    // Get all products for admin (including inactive). A Page with totals; includeTotal=false skips the
+    // COUNT and returns a Slice (hasNext only)
     @GetMapping
-    public ResponseEntity<ApiResponse<Page<ProductResponse>>> getAllProducts(
+    public ResponseEntity<ApiResponse<Slice<ProductResponse>>> getAllProducts(
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String brand,
+            @RequestParam(defaultValue = "true") boolean includeTotal) {
         try {
             Pageable pageable = PageRequest.of(page, size);
-            Page<ProductResponse> products = productService.getAllProductsForAdmin(pageable);
+            Slice<ProductResponse> products = productService.getAllProductsForAdmin(brand, pageable, includeTotal);
             return ResponseEntity.ok(ApiResponse.success("All products retrieved successfully", products));
         } catch (Exception e) {
             return ResponseEntity.internalServerError()
@@ -49,6 +84,21 @@ public class AdminProductController {
         }
     }
 
+    // Keyset feed of all products (including inactive)
+    @GetMapping("/feed")
+    public ResponseEntity<ApiResponse<CursorPage<ProductResponse>>> getAllProductsFeed(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
+        try {
+            CursorPage<ProductResponse> products = productService.getAllProductsFeedForAdmin(cursor, size, includeTotal);
+            return ResponseEntity.ok(ApiResponse.success("All products retrieved successfully", products));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("Failed to fetch products: " + e.getMessage()));
+        }
+    }
+
     // Create new product
     @PostMapping
     public ResponseEntity<ApiResponse<ProductResponse>> createProduct(
@@ -124,6 +174,14 @@ public class AdminProductController {
                 product = productService.updateProduct(id, request, admin);
             }
 
+            // Partial upload failures still update the product; imageUploads says which files failed
+            if (product.getImageUploads() != null) {
+                long failed = product.getImageUploads().stream().filter(upload -> !upload.isSuccess()).count();
+                if (failed > 0) {
+                    return ResponseEntity.ok(ApiResponse.success("Product updated, but " + failed + " of "
+                            + product.getImageUploads().size() + " images failed to upload", product));
+                }
+            }
             return ResponseEntity.ok(ApiResponse.success("Product updated successfully", product));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
@@ -131,6 +189,70 @@ public class AdminProductController {
         }
     }
 
+    // Appends images in the background: 202 with a job id, poll /admin/products/image-jobs/{jobId}
+    @PostMapping(value = "/{id}/images", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ApiResponse<ImageJobService.ImageJob>> addProductImages(
+            @PathVariable Long id,
+            @RequestPart("images") List<MultipartFile> imageFiles) {
+        try {
+            ImageJobService.ImageJob job = imageJobService.submitProductImages(id, imageFiles);
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .location(URI.create("/admin/products/image-jobs/" + job.getJobId()))
+                    .body(ApiResponse.success("Product image upload queued", job));
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(ApiResponse.error(e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("Failed to queue product images: " + e.getMessage()));
+        }
+    }
+
+    @GetMapping("/image-jobs/{jobId}")
+    public ResponseEntity<ApiResponse<ImageJobService.ImageJob>> getImageJob(@PathVariable String jobId) {
+        ImageJobService.ImageJob job = imageJobService.getJob(jobId);
+        if (job == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(ApiResponse.error("Image job not found: " + jobId));
+        }
+        return ResponseEntity.ok(ApiResponse.success("Image job status retrieved successfully", job));
+    }
+
+    // Queue depth, retry counts and latency percentiles for pet and product image jobs
+    @GetMapping("/image-jobs/metrics")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getImageJobMetrics() {
+        return ResponseEntity.ok(ApiResponse.success("Image job metrics retrieved successfully", imageJobService.getMetrics()));
+    }
+
+    // Stored files vs. image rows using them, i.e. how many uploads deduplication saved
+    @GetMapping("/image-assets/stats")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getImageAssetStats() {
+        return ResponseEntity.ok(ApiResponse.success("Image asset stats retrieved successfully", imageAssetService.getStats()));
+    }
+
+    // Delete stored images no row references (runs nightly too); dryRun only reports what would go
+    @PostMapping("/image-assets/sweep")
+    public ResponseEntity<ApiResponse<OrphanImageSweeper.SweepReport>> sweepOrphanedImages(
+            @RequestParam(defaultValue = "false") boolean dryRun) {
+        try {
+            OrphanImageSweeper.SweepReport report = orphanImageSweeper.sweep(dryRun);
+            return ResponseEntity.ok(ApiResponse.success("Orphaned image sweep completed", report));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(ApiResponse.error("Failed to sweep orphaned images: " + e.getMessage()));
+        }
+    }
+
+    @GetMapping("/image-assets/sweep")
+    public ResponseEntity<ApiResponse<OrphanImageSweeper.SweepReport>> getLastImageSweep() {
+        OrphanImageSweeper.SweepReport report = orphanImageSweeper.getLastReport();
+        if (report == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(ApiResponse.error("No image sweep has run yet"));
+        }
+        return ResponseEntity.ok(ApiResponse.success("Last image sweep retrieved successfully", report));
+    }
+
     // Get product statistics
     @GetMapping("/statistics")
     public ResponseEntity<ApiResponse<ProductService.ProductStatistics>> getProductStatistics() {
@@ -144,6 +266,105 @@ public class AdminProductController {
     }
 
 
+    // Bulk upsert by SKU from a CSV (header row) or NDJSON request body, streamed rather than buffered.
+    // Pass importId to poll progress from another request while a large file is running; an importId
+    // that is already in use is a 409.
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson", "text/plain", "application/octet-stream"})
+    public ResponseEntity<ApiResponse<ProductImportService.ImportReport>> importProducts(
+            @RequestParam(required = false) String format,
+            @RequestParam(required = false) String importId,
+            HttpServletRequest request,
+            Authentication authentication) {
+        try {
+            User admin = (User) authentication.getPrincipal();
+            String resolvedFormat = format != null ? format.toLowerCase()
+                    : request.getContentType() != null && request.getContentType().contains("ndjson")
+                    ? ProductImportService.FORMAT_NDJSON : ProductImportService.FORMAT_CSV;
+
+            ProductImportService.ImportReport report = productImportService.importProducts(
+                    request.getInputStream(), resolvedFormat, importId, admin);
+            if ("FAILED".equals(report.getStatus())) {
+                return ResponseEntity.badRequest()
+                        .body(new ApiResponse<>(false, "Product import stopped: " + report.getMessage(), report));
+            }
+            return ResponseEntity.ok(ApiResponse.success("Product import completed", report));
+        } catch (ProductImportService.DuplicateImportException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(ApiResponse.error("Failed to import products: " + e.getMessage()));
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("Failed to import products: " + e.getMessage()));
+        }
+    }
+
+    @GetMapping("/import/{importId}")
+    public ResponseEntity<ApiResponse<ProductImportService.ImportReport>> getImportReport(@PathVariable String importId) {
+        ProductImportService.ImportReport report = productImportService.getImportReport(importId);
+        if (report == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(ApiResponse.error("Import not found: " + importId));
+        }
+        return ResponseEntity.ok(ApiResponse.success("Import progress retrieved successfully", report));
+    }
+
+    // Warehouse sync: a JSON array or NDJSON stream of {id|sku, stockQuantity, price, discountPercentage}.
+    // Omitted fields are left unchanged; the response carries one result per item in input order.
+    @PutMapping(value = "/inventory", consumes = {MediaType.APPLICATION_JSON_VALUE, "application/x-ndjson"})
+    public ResponseEntity<ApiResponse<ProductInventoryService.BulkUpdateReport>> bulkUpdateInventory(HttpServletRequest request) {
+        try {
+            ProductInventoryService.BulkUpdateReport report = productInventoryService.applyUpdates(request.getInputStream());
+            return ResponseEntity.ok(ApiResponse.success(
+                    report.getUpdated() + " products updated, " + report.getFailed() + " failed", report));
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("Failed to update inventory: " + e.getMessage()));
+        }
+    }
+
+    // Rebuild the cached category tree after categories were changed in the database
+    @PostMapping("/categories/reload")
+    public ResponseEntity<ApiResponse<String>> reloadCategories() {
+        try {
+            productService.reloadCategories();
+            return ResponseEntity.ok(ApiResponse.success("Category tree reloaded successfully"));
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError()
+                    .body(ApiResponse.error("Failed to reload categories: " + e.getMessage()));
+        }
+    }
+
+    // Rebuild "frequently bought together" from order history; runs in the request thread
+    @PostMapping("/recommendations/backfill")
+    public ResponseEntity<ApiResponse<ProductRecommendationService.BackfillStatus>> backfillRecommendations() {
+        try {
+            ProductRecommendationService.BackfillStatus status = productRecommendationService.backfill();
+            return ResponseEntity.ok(ApiResponse.success("Recommendations rebuilt successfully", status));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("Failed to rebuild recommendations: " + e.getMessage()));
+        }
+    }
+
+    @GetMapping("/recommendations/stats")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getRecommendationStats() {
+        return ResponseEntity.ok(ApiResponse.success("Recommendation statistics retrieved successfully",
+                productRecommendationService.getStats()));
+    }
+
+    // Typeahead trie size and estimated heap footprint
+    @GetMapping("/suggestions/stats")
+    public ResponseEntity<ApiResponse<SuggestionTrie.Stats>> getSuggestionStats() {
+        try {
+            SuggestionTrie.Stats stats = productService.getSuggestionStats();
+            return ResponseEntity.ok(ApiResponse.success("Suggestion index statistics retrieved successfully", stats));
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError()
+                    .body(ApiResponse.error("Failed to fetch suggestion statistics: " + e.getMessage()));
+        }
+    }
+
     // Delete product
     @DeleteMapping("/{id}")
     public ResponseEntity<ApiResponse<String>> deleteProduct(@PathVariable Long id) {
@@ -182,7 +403,7 @@ public class AdminProductController {
         }
     }
 
-    // Get low stock products
+    // Get low stock products (stock at or below each product's minStockLevel)
     @GetMapping("/low-stock")
     public ResponseEntity<ApiResponse<List<ProductResponse>>> getLowStockProducts() {
         try {
@@ -193,4 +414,22 @@ public class AdminProductController {
                     .body(ApiResponse.error("Failed to fetch low stock products: " + e.getMessage()));
         }
     }
+
+    // Current alerts with the stock level and minimum that triggered them
+    @GetMapping("/low-stock/alerts")
+    public ResponseEntity<ApiResponse<List<LowStockMonitor.LowStockAlert>>> getLowStockAlerts() {
+        try {
+            List<LowStockMonitor.LowStockAlert> alerts = productService.getLowStockAlerts();
+            return ResponseEntity.ok(ApiResponse.success("Low stock alerts retrieved successfully", alerts));
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError()
+                    .body(ApiResponse.error("Failed to fetch low stock alerts: " + e.getMessage()));
+        }
+    }
+
+    // Server-sent events: a "snapshot" of the low-stock set, then LOW_STOCK / OUT_OF_STOCK / RESTOCKED as stock crosses
+    @GetMapping(value = "/low-stock/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamLowStock() {
+        return productService.subscribeToLowStock();
+    }
 }
@@ -2,9 +2,11 @@ package com.PetHubAI.PetHubAIBackend.controller;
 
 import com.PetHubAI.PetHubAIBackend.dto.product.CartItemRequest;
 import com.PetHubAI.PetHubAIBackend.dto.product.CartItemResponse;
+import com.PetHubAI.PetHubAIBackend.dto.product.ProductResponse;
 import com.PetHubAI.PetHubAIBackend.dto.response.ApiResponse;
 import com.PetHubAI.PetHubAIBackend.entity.User;
 import com.PetHubAI.PetHubAIBackend.service.CartService;
+import com.PetHubAI.PetHubAIBackend.service.ProductRecommendationService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -21,6 +23,9 @@ public class CartController {
     @Autowired
     private CartService cartService;
 
+    @Autowired
+    private ProductRecommendationService productRecommendationService;
+
     // Get cart items
     @GetMapping
     public ResponseEntity<ApiResponse<List<CartItemResponse>>> getCartItems(Authentication authentication) {
@@ -34,6 +39,21 @@ public class CartController {
         }
     }
 
+    // Products often bought together with what is in the cart
+    @GetMapping("/recommendations")
+    public ResponseEntity<ApiResponse<List<ProductResponse>>> getCartRecommendations(
+            @RequestParam(defaultValue = "6") int limit,
+            Authentication authentication) {
+        try {
+            User user = (User) authentication.getPrincipal();
+            List<ProductResponse> products = productRecommendationService.getCartRecommendations(user, limit);
+            return ResponseEntity.ok(ApiResponse.success("Cart recommendations retrieved successfully", products));
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError()
+                    .body(ApiResponse.error("Failed to fetch cart recommendations: " + e.getMessage()));
+        }
+    }
+
     // Add item to cart
     @PostMapping
     public ResponseEntity<ApiResponse<CartItemResponse>> addToCart(
@@ -0,0 +1,30 @@
+package com.PetHubAI.PetHubAIBackend.controller;
+
+import com.PetHubAI.PetHubAIBackend.service.ResourceVersion;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+
+// Shared If-None-Match / If-Modified-Since handling for read endpoints. When it returns true the 304 and its
+// headers are already on the response and the handler returns null, before any mapping or serialization.
+final class ConditionalGet {
+
+    // Clients may keep a copy but must revalidate; private because every endpoint here is authenticated.
+    // Set explicitly so Spring Security's default no-store does not stop clients from caching at all.
+    private static final String REVALIDATE = CacheControl.noCache().cachePrivate().getHeaderValue();
+
+    private ConditionalGet() {}
+
+    static boolean notModified(WebRequest request, ResourceVersion version) {
+        if (version == null) {
+            return false;
+        }
+        if (request instanceof ServletWebRequest servletRequest && servletRequest.getResponse() != null) {
+            servletRequest.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, REVALIDATE);
+        }
+        return version.getLastModified() > 0
+                ? request.checkNotModified(version.getEtag(), version.getLastModified())
+                : request.checkNotModified(version.getEtag());
+    }
+}
@@ -0,0 +1,151 @@
+package com.PetHubAI.PetHubAIBackend.controller;
+
+import com.PetHubAI.PetHubAIBackend.service.LocalImageStorage;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Serves files of the local image backend. Keys are content hashes, so a key's bytes never change: responses
+// are cacheable forever and the hash is the ETag. Bodies go out with sendfile when Tomcat offers it, else
+// through FileChannel.transferTo; either way the file is never copied onto the heap. Single byte ranges
+// are honoured; multi-range requests get the whole file.
+@RestController
+@RequestMapping("/media")
+@CrossOrigin(origins = "*", maxAge = 3600)
+public class MediaController {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private static final String CACHE_FOREVER = "public, max-age=31536000, immutable";
+    private static final long[] UNSATISFIABLE = new long[0];
+
+    @Autowired
+    private LocalImageStorage localImageStorage;
+
+    @GetMapping("/**")
+    public void serve(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String key = request.getRequestURI().substring(request.getContextPath().length() + "/media/".length());
+        Path file = localImageStorage.find(key);
+        if (file == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        String fileName = file.getFileName().toString();
+        String etag = "\"" + fileName.substring(0, fileName.lastIndexOf('.')) + "\"";
+        long size = Files.size(file);
+
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_FOREVER);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, Files.getLastModifiedTime(file).toMillis());
+
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null && (ifNoneMatch.contains(etag) || ifNoneMatch.trim().equals("*"))) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        // If-Range with a different validator means the client's partial copy is stale: send everything
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        long[] range = ifRange == null || ifRange.equals(etag) ? parseRange(request.getHeader(HttpHeaders.RANGE), size) : null;
+        if (range == UNSATISFIABLE) {
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+            response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            return;
+        }
+
+        long start = range != null ? range[0] : 0;
+        long length = range != null ? range[1] - range[0] + 1 : size;
+        if (range != null) {
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + range[0] + "-" + range[1] + "/" + size);
+        }
+        response.setContentType(contentType(fileName));
+        response.setContentLengthLong(length);
+        if ("HEAD".equals(request.getMethod()) || length == 0) {
+            return;
+        }
+
+        // Tomcat writes the file itself with sendfile(2) after this method returns
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, start + length);
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = length;
+            while (remaining > 0) {
+                long sent = channel.transferTo(position, remaining, out);
+                if (sent <= 0) {
+                    break;
+                }
+                position += sent;
+                remaining -= sent;
+            }
+        }
+    }
+
+    // Helper methods
+    // {start, end} inclusive; null means serve the whole file
+    private static long[] parseRange(String header, long size) {
+        if (header == null || !header.startsWith("bytes=") || header.contains(",")) {
+            return null;
+        }
+        String spec = header.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            if (first.isEmpty()) {
+                // bytes=-N: the last N bytes
+                long suffix = last.isEmpty() ? 0 : Long.parseLong(last);
+                if (suffix <= 0 || size == 0) {
+                    return UNSATISFIABLE;
+                }
+                return new long[]{Math.max(0, size - suffix), size - 1};
+            }
+            long start = Long.parseLong(first);
+            long end = last.isEmpty() ? size - 1 : Math.min(Long.parseLong(last), size - 1);
+            if (start >= size || end < start) {
+                return UNSATISFIABLE;
+            }
+            return new long[]{start, end};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static String contentType(String fileName) {
+        if (fileName.endsWith(".png")) {
+            return "image/png";
+        }
+        if (fileName.endsWith(".gif")) {
+            return "image/gif";
+        }
+        if (fileName.endsWith(".webp")) {
+            return "image/webp";
+        }
+        return "image/jpeg";
+    }
+}
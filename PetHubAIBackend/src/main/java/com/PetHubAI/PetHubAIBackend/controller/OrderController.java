@@ -4,12 +4,15 @@ import com.PetHubAI.PetHubAIBackend.dto.product.OrderRequest;
 import com.PetHubAI.PetHubAIBackend.dto.product.OrderResponse;
 import com.PetHubAI.PetHubAIBackend.dto.response.ApiResponse;
 import com.PetHubAI.PetHubAIBackend.entity.User;
+import com.PetHubAI.PetHubAIBackend.exception.InsufficientStockException;
+import com.PetHubAI.PetHubAIBackend.service.IdempotencyService;
 import com.PetHubAI.PetHubAIBackend.service.OrderService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
@@ -22,14 +25,29 @@ public class OrderController {
     @Autowired
     private OrderService orderService;
 
-    // ✅ NEW: Create COD Order
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    // ✅ NEW: Create COD Order. With an Idempotency-Key header a retried or double-submitted request
+    // places the order once and gets the first response back.
     @PostMapping("/cod")
-    public ResponseEntity<ApiResponse<OrderResponse>> createCODOrder(
+    public ResponseEntity<?> createCODOrder(
             @Valid @RequestBody OrderRequest request,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
             Authentication authentication) {
         try {
             User user = (User) authentication.getPrincipal();
+            return idempotencyService.execute(idempotencyKey, "POST /orders/cod", user, request,
+                    () -> placeCODOrder(request, user));
+        } catch (Exception e) {
+            System.err.println("❌ COD Order creation failed: " + e.getMessage());
+            return ResponseEntity.internalServerError()
+                    .body(ApiResponse.error("Failed to place order: " + e.getMessage()));
+        }
+    }
 
+    private ResponseEntity<ApiResponse<OrderResponse>> placeCODOrder(OrderRequest request, User user) {
+        try {
             System.out.println("🔍 COD Order Request from: " + user.getEmail());
             System.out.println("🔍 Payment Method: COD");
 
@@ -38,6 +56,9 @@ public class OrderController {
             return ResponseEntity.ok(ApiResponse.success(
                     "Order placed successfully! You will pay cash on delivery.", order));
 
+        } catch (InsufficientStockException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(ApiResponse.error("Failed to place order: " + e.getMessage()));
         } catch (Exception e) {
             System.err.println("❌ COD Order creation failed: " + e.getMessage());
             e.printStackTrace();
@@ -55,6 +76,9 @@ public class OrderController {
             User user = (User) authentication.getPrincipal();
             OrderResponse order = orderService.createOrder(request, user);
             return ResponseEntity.ok(ApiResponse.success("Order created successfully", order));
+        } catch (InsufficientStockException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(ApiResponse.error("Failed to create order: " + e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
                     .body(ApiResponse.error("Failed to create order: " + e.getMessage()));
@@ -93,17 +117,41 @@ public class OrderController {
         }
     }
 
-    // Confirm payment
+    // Confirm payment (Idempotency-Key supported, as for COD orders)
     @PostMapping("/confirm-payment")
-    public ResponseEntity<ApiResponse<OrderResponse>> confirmPayment(
-            @RequestBody PaymentConfirmationRequest request) {
+    public ResponseEntity<?> confirmPayment(
+            @RequestBody PaymentConfirmationRequest request,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            Authentication authentication) {
+        try {
+            User user = authentication != null && authentication.getPrincipal() instanceof User
+                    ? (User) authentication.getPrincipal() : null;
+            return idempotencyService.execute(idempotencyKey, "POST /orders/confirm-payment", user, request,
+                    () -> applyPaymentConfirmation(request));
+        } catch (Exception e) {
+            System.err.println("❌ Payment confirmation failed: " + e.getMessage());
+            return ResponseEntity.internalServerError()
+                    .body(ApiResponse.error("Payment confirmation failed: " + e.getMessage()));
+        }
+    }
+
+    private ResponseEntity<ApiResponse<OrderResponse>> applyPaymentConfirmation(PaymentConfirmationRequest request) {
         try {
             OrderResponse order = orderService.confirmPayment(
                     request.getRazorpayOrderId(),
                     request.getRazorpayPaymentId(),
                     request.getRazorpaySignature()
             );
+            // Paid after the stock hold lapsed and the items sold out: the order was cancelled and refunded
+            if ("CANCELLED".equals(order.getStatus())) {
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(ApiResponse.error(
+                        "Items sold out before payment completed. The order was cancelled and your payment refunded.",
+                        order));
+            }
             return ResponseEntity.ok(ApiResponse.success("Payment confirmed successfully", order));
+        } catch (InsufficientStockException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(ApiResponse.error("Payment confirmation failed: " + e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
                     .body(ApiResponse.error("Payment confirmation failed: " + e.getMessage()));
@@ -2,9 +2,11 @@ package com.PetHubAI.PetHubAIBackend.controller;
 
 import com.PetHubAI.PetHubAIBackend.dto.PetResponse;
 import com.PetHubAI.PetHubAIBackend.dto.response.ApiResponse;
+import com.PetHubAI.PetHubAIBackend.dto.response.CursorPage;
 import com.PetHubAI.PetHubAIBackend.entity.Pet;
 import com.PetHubAI.PetHubAIBackend.entity.User;
 import com.PetHubAI.PetHubAIBackend.service.PetService;
+import com.PetHubAI.PetHubAIBackend.service.SuggestionTrie;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
@@ -14,6 +16,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -28,8 +31,11 @@ public class PetController {
 
     // Get all available pets - FIX: Use PetResponse DTO
     @GetMapping("/available")
-    public ResponseEntity<ApiResponse<List<PetResponse>>> getAvailablePets() {
+    public ResponseEntity<ApiResponse<List<PetResponse>>> getAvailablePets(WebRequest webRequest) {
         try {
+            if (ConditionalGet.notModified(webRequest, petService.getListingVersion())) {
+                return null;
+            }
             List<Pet> pets = petService.getAllAvailablePets();
             List<PetResponse> petResponses = pets.stream()
                     .map(PetResponse::new)
@@ -47,9 +53,13 @@ public class PetController {
     @GetMapping("/available/paginated")
     public ResponseEntity<ApiResponse<Page<PetResponse>>> getAvailablePetsPaginated(
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            WebRequest webRequest) {
 
         try {
+            if (ConditionalGet.notModified(webRequest, petService.getListingVersion())) {
+                return null;
+            }
             Pageable pageable = PageRequest.of(page, size);
             Page<Pet> pets = petService.getAvailablePets(pageable);
             Page<PetResponse> petResponses = pets.map(PetResponse::new);
@@ -62,10 +72,48 @@ public class PetController {
         }
     }
 
+    // Infinite-scroll feed of available pets: opaque cursor, no COUNT unless includeTotal=true
+    @GetMapping("/available/feed")
+    public ResponseEntity<ApiResponse<CursorPage<PetResponse>>> getAvailablePetsFeed(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "false") boolean includeTotal,
+            WebRequest webRequest) {
+        try {
+            if (ConditionalGet.notModified(webRequest, petService.getListingVersion())) {
+                return null;
+            }
+            CursorPage<PetResponse> pets = petService.getAvailablePetsFeed(cursor, size, includeTotal);
+            return ResponseEntity.ok(ApiResponse.success("Available pets retrieved successfully", pets));
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("Failed to fetch pets feed: " + e.getMessage()));
+        }
+    }
+
+    // Typeahead over the species and breeds of available pets
+    @GetMapping("/suggest")
+    public ResponseEntity<ApiResponse<List<SuggestionTrie.Suggestion>>> suggestPets(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "8") int limit) {
+        try {
+            List<SuggestionTrie.Suggestion> suggestions = petService.suggestPets(q, Math.min(limit, 10));
+            return ResponseEntity.ok(ApiResponse.success("Suggestions retrieved successfully", suggestions));
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.internalServerError()
+                    .body(ApiResponse.error("Failed to fetch suggestions: " + e.getMessage()));
+        }
+    }
+
     // Get pet by ID
     @GetMapping("/{id}")
-    public ResponseEntity<ApiResponse<PetResponse>> getPetById(@PathVariable Long id) {
+    public ResponseEntity<ApiResponse<PetResponse>> getPetById(@PathVariable Long id, WebRequest webRequest) {
         try {
+            if (ConditionalGet.notModified(webRequest, petService.getPetVersion(id))) {
+                return null;
+            }
             Pet pet = petService.findById(id);
             return ResponseEntity.ok(ApiResponse.success("Pet retrieved successfully", new PetResponse(pet)));
         } catch (Exception e) {
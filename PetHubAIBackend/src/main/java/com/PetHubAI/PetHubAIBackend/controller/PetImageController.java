@@ -3,15 +3,19 @@ package com.PetHubAI.PetHubAIBackend.controller;
 import com.PetHubAI.PetHubAIBackend.dto.response.ApiResponse;
 import com.PetHubAI.PetHubAIBackend.entity.PetImage;
 import com.PetHubAI.PetHubAIBackend.entity.User;
+import com.PetHubAI.PetHubAIBackend.service.ImageJobService;
 import com.PetHubAI.PetHubAIBackend.service.PetImageService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.net.URI;
 import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/pets/{petId}/images")
@@ -21,9 +25,13 @@ public class PetImageController {
     @Autowired
     private PetImageService petImageService;
 
+    @Autowired
+    private ImageJobService imageJobService;
+
+    // Accepted with 202 and processed in the background; poll the Location for the saved PetImage
     @PostMapping
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
-    public ResponseEntity<ApiResponse<PetImage>> uploadPetImage(
+    public ResponseEntity<ApiResponse<ImageJobService.ImageJob>> uploadPetImage(
             @PathVariable Long petId,
             @RequestParam("image") MultipartFile image,
             @RequestParam(value = "isPrimary", defaultValue = "false") Boolean isPrimary,
@@ -53,10 +61,15 @@ public class PetImageController {
 
             // Add ownership verification here if needed
 
-            PetImage uploadedImage = petImageService.uploadPetImage(image, petId, isPrimary);
+            ImageJobService.ImageJob job = imageJobService.submitPetImage(image, petId, isPrimary);
 
-            return ResponseEntity.ok(ApiResponse.success("Image uploaded successfully to Cloudinary", uploadedImage));
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .location(URI.create("/pets/" + petId + "/images/jobs/" + job.getJobId()))
+                    .body(ApiResponse.success("Image upload queued", job));
 
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(ApiResponse.error(e.getMessage()));
         } catch (Exception e) {
             e.printStackTrace(); // For debugging
             return ResponseEntity.badRequest()
@@ -64,6 +77,18 @@ public class PetImageController {
         }
     }
 
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<ApiResponse<ImageJobService.ImageJob>> getUploadJob(
+            @PathVariable Long petId,
+            @PathVariable String jobId) {
+        ImageJobService.ImageJob job = imageJobService.getJob(jobId);
+        if (job == null || !ImageJobService.PET_IMAGE.equals(job.getType()) || !petId.equals(job.getTargetId())) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(ApiResponse.error("Image job not found: " + jobId));
+        }
+        return ResponseEntity.ok(ApiResponse.success("Image job status retrieved successfully", job));
+    }
+
     @GetMapping
     public ResponseEntity<ApiResponse<List<PetImage>>> getPetImages(@PathVariable Long petId) {
         try {
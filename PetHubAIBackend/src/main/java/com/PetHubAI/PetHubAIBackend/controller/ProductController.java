@@ -1,16 +1,26 @@
 package com.PetHubAI.PetHubAIBackend.controller;
 
+import com.PetHubAI.PetHubAIBackend.dto.product.ProductCategoryResponse;
+import com.PetHubAI.PetHubAIBackend.dto.product.ProductFacetResponse;
 import com.PetHubAI.PetHubAIBackend.dto.product.ProductResponse;
 import com.PetHubAI.PetHubAIBackend.dto.response.ApiResponse;
+import com.PetHubAI.PetHubAIBackend.dto.response.CursorPage;
+import com.PetHubAI.PetHubAIBackend.service.ProductFacetIndex;
+import com.PetHubAI.PetHubAIBackend.service.ProductRecommendationService;
 import com.PetHubAI.PetHubAIBackend.service.ProductService;
+import com.PetHubAI.PetHubAIBackend.service.ProductTagIndex;
+import com.PetHubAI.PetHubAIBackend.service.SuggestionTrie;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/products")
@@ -20,14 +30,21 @@ public class ProductController {
     @Autowired
     private ProductService productService;
 
-    // Get all active products with pagination
+    @Autowired
+    private ProductRecommendationService productRecommendationService;
+
+    // Get all active products with pagination; sortBy = newest | price-low | price-high | name | popular
     @GetMapping
     public ResponseEntity<ApiResponse<Page<ProductResponse>>> getProducts(
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "12") int size) {
+            @RequestParam(defaultValue = "12") int size,
+            @RequestParam(defaultValue = "newest") String sortBy,
+            WebRequest webRequest) {
         try {
-            Pageable pageable = PageRequest.of(page, size);
-            Page<ProductResponse> products = productService.getActiveProducts(pageable);
+            if (ConditionalGet.notModified(webRequest, productService.getCatalogVersion())) {
+                return null;
+            }
+            Page<ProductResponse> products = productService.getActiveProductsSorted(page, size, sortBy);
             return ResponseEntity.ok(ApiResponse.success("Products retrieved successfully", products));
         } catch (Exception e) {
             return ResponseEntity.internalServerError()
@@ -35,10 +52,79 @@ public class ProductController {
         }
     }
 
+    // Infinite-scroll feed: opaque cursor, size 1-100, no COUNT unless includeTotal=true
+    @GetMapping("/feed")
+    public ResponseEntity<ApiResponse<CursorPage<ProductResponse>>> getProductsFeed(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "12") int size,
+            @RequestParam(defaultValue = "newest") String sortBy,
+            @RequestParam(defaultValue = "false") boolean includeTotal,
+            WebRequest webRequest) {
+        try {
+            // A bad size is a 400 even when the catalog has not changed
+            CursorPage.checkSize(size);
+            if (ConditionalGet.notModified(webRequest, productService.getCatalogVersion())) {
+                return null;
+            }
+            CursorPage<ProductResponse> products = productService.getActiveProductsFeed(sortBy, cursor, size, includeTotal);
+            return ResponseEntity.ok(ApiResponse.success("Products retrieved successfully", products));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("Failed to fetch products: " + e.getMessage()));
+        }
+    }
+
+    // Active categories for navigation, flat in display order with live product counts
+    @GetMapping("/categories")
+    public ResponseEntity<ApiResponse<List<ProductCategoryResponse>>> getCategories(WebRequest webRequest) {
+        try {
+            if (ConditionalGet.notModified(webRequest, productService.getCategoriesVersion())) {
+                return null;
+            }
+            List<ProductCategoryResponse> categories = productService.getActiveCategories();
+            return ResponseEntity.ok(ApiResponse.success("Categories retrieved successfully", categories));
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError()
+                    .body(ApiResponse.error("Failed to fetch categories: " + e.getMessage()));
+        }
+    }
+
+    // Active categories nested under their parents; totalProductCount includes subcategories
+    @GetMapping("/categories/tree")
+    public ResponseEntity<ApiResponse<List<ProductCategoryResponse>>> getCategoryTree(WebRequest webRequest) {
+        try {
+            if (ConditionalGet.notModified(webRequest, productService.getCategoriesVersion())) {
+                return null;
+            }
+            List<ProductCategoryResponse> tree = productService.getCategoryTree();
+            return ResponseEntity.ok(ApiResponse.success("Category tree retrieved successfully", tree));
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError()
+                    .body(ApiResponse.error("Failed to fetch category tree: " + e.getMessage()));
+        }
+    }
+
+    // Typeahead: top completions over product names, brands and tags, served from memory
+    @GetMapping("/suggest")
+    public ResponseEntity<ApiResponse<List<SuggestionTrie.Suggestion>>> suggestProducts(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "8") int limit) {
+        try {
+            List<SuggestionTrie.Suggestion> suggestions = productService.suggestProducts(q, Math.min(limit, 10));
+            return ResponseEntity.ok(ApiResponse.success("Suggestions retrieved successfully", suggestions));
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError()
+                    .body(ApiResponse.error("Failed to fetch suggestions: " + e.getMessage()));
+        }
+    }
+
     // Get product by ID
     @GetMapping("/{id}")
-    public ResponseEntity<ApiResponse<ProductResponse>> getProduct(@PathVariable Long id) {
+    public ResponseEntity<ApiResponse<ProductResponse>> getProduct(@PathVariable Long id, WebRequest webRequest) {
         try {
+            if (ConditionalGet.notModified(webRequest, productService.getProductVersion(id))) {
+                return null;
+            }
             ProductResponse product = productService.getProductById(id);
             return ResponseEntity.ok(ApiResponse.success("Product retrieved successfully", product));
         } catch (Exception e) {
@@ -49,8 +135,11 @@ public class ProductController {
 
     // Get featured products
     @GetMapping("/featured")
-    public ResponseEntity<ApiResponse<List<ProductResponse>>> getFeaturedProducts() {
+    public ResponseEntity<ApiResponse<List<ProductResponse>>> getFeaturedProducts(WebRequest webRequest) {
         try {
+            if (ConditionalGet.notModified(webRequest, productService.getCatalogVersion())) {
+                return null;
+            }
             List<ProductResponse> products = productService.getFeaturedProducts();
             return ResponseEntity.ok(ApiResponse.success("Featured products retrieved successfully", products));
         } catch (Exception e) {
@@ -64,8 +153,12 @@ public class ProductController {
     public ResponseEntity<ApiResponse<Page<ProductResponse>>> searchProducts(
             @RequestParam String keyword,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "12") int size) {
+            @RequestParam(defaultValue = "12") int size,
+            WebRequest webRequest) {
         try {
+            if (ConditionalGet.notModified(webRequest, productService.getCatalogVersion())) {
+                return null;
+            }
             Pageable pageable = PageRequest.of(page, size);
             Page<ProductResponse> products = productService.searchProducts(keyword, pageable);
             return ResponseEntity.ok(ApiResponse.success("Search results retrieved successfully", products));
@@ -75,13 +168,17 @@ public class ProductController {
         }
     }
 
-    // Get products by category
+    // Get products in a category or any of its subcategories
     @GetMapping("/category/{categoryId}")
     public ResponseEntity<ApiResponse<Page<ProductResponse>>> getProductsByCategory(
             @PathVariable Long categoryId,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "12") int size) {
+            @RequestParam(defaultValue = "12") int size,
+            WebRequest webRequest) {
         try {
+            if (ConditionalGet.notModified(webRequest, productService.getCatalogVersion())) {
+                return null;
+            }
             Pageable pageable = PageRequest.of(page, size);
             Page<ProductResponse> products = productService.getProductsByCategory(categoryId, pageable);
             return ResponseEntity.ok(ApiResponse.success("Category products retrieved successfully", products));
@@ -91,14 +188,94 @@ public class ProductController {
         }
     }
 
+    // Cross-sell for the product page, from orders that contained this product
+    @GetMapping("/{id}/frequently-bought-together")
+    public ResponseEntity<ApiResponse<List<ProductResponse>>> getFrequentlyBoughtTogether(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "6") int limit) {
+        try {
+            List<ProductResponse> products = productRecommendationService.getFrequentlyBoughtTogether(id, limit);
+            return ResponseEntity.ok(ApiResponse.success("Recommendations retrieved successfully", products));
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError()
+                    .body(ApiResponse.error("Failed to fetch recommendations: " + e.getMessage()));
+        }
+    }
+
+    // Tag cloud: most used tags first with live active-product counts
+    @GetMapping("/tags/cloud")
+    public ResponseEntity<ApiResponse<List<ProductTagIndex.TagCount>>> getTagCloud(
+            @RequestParam(defaultValue = "50") int limit,
+            WebRequest webRequest) {
+        try {
+            if (ConditionalGet.notModified(webRequest, productService.getCatalogVersion())) {
+                return null;
+            }
+            List<ProductTagIndex.TagCount> tags = productService.getTagCloud(limit);
+            return ResponseEntity.ok(ApiResponse.success("Tag cloud retrieved successfully", tags));
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError()
+                    .body(ApiResponse.error("Failed to fetch tag cloud: " + e.getMessage()));
+        }
+    }
+
+    // Products with one tag
+    @GetMapping("/tags/{tag}")
+    public ResponseEntity<ApiResponse<Page<ProductResponse>>> getProductsByTag(
+            @PathVariable String tag,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "12") int size,
+            WebRequest webRequest) {
+        try {
+            if (ConditionalGet.notModified(webRequest, productService.getCatalogVersion())) {
+                return null;
+            }
+            Pageable pageable = PageRequest.of(page, size);
+            Page<ProductResponse> products = productService.getProductsByTags(List.of(tag), true, pageable);
+            return ResponseEntity.ok(ApiResponse.success("Tagged products retrieved successfully", products));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("Failed to fetch tagged products: " + e.getMessage()));
+        }
+    }
+
+    // Products by several tags: match=all (every tag) or match=any (at least one)
+    @GetMapping("/tags")
+    public ResponseEntity<ApiResponse<Page<ProductResponse>>> getProductsByTags(
+            @RequestParam List<String> tags,
+            @RequestParam(defaultValue = "all") String match,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "12") int size,
+            WebRequest webRequest) {
+        try {
+            if (!"all".equalsIgnoreCase(match) && !"any".equalsIgnoreCase(match)) {
+                return ResponseEntity.badRequest()
+                        .body(ApiResponse.error("match must be 'all' or 'any'"));
+            }
+            if (ConditionalGet.notModified(webRequest, productService.getCatalogVersion())) {
+                return null;
+            }
+            Pageable pageable = PageRequest.of(page, size);
+            Page<ProductResponse> products = productService.getProductsByTags(tags, "all".equalsIgnoreCase(match), pageable);
+            return ResponseEntity.ok(ApiResponse.success("Tagged products retrieved successfully", products));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("Failed to fetch tagged products: " + e.getMessage()));
+        }
+    }
+
     // Filter by price range
     @GetMapping("/filter")
     public ResponseEntity<ApiResponse<Page<ProductResponse>>> filterProducts(
             @RequestParam(required = false) Double minPrice,
             @RequestParam(required = false) Double maxPrice,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "12") int size) {
+            @RequestParam(defaultValue = "12") int size,
+            WebRequest webRequest) {
         try {
+            if (ConditionalGet.notModified(webRequest, productService.getCatalogVersion())) {
+                return null;
+            }
             if (minPrice == null) minPrice = 0.0;
             if (maxPrice == null) maxPrice = Double.MAX_VALUE;
 
@@ -110,4 +287,46 @@ public class ProductController {
                     .body(ApiResponse.error("Failed to filter products: " + e.getMessage()));
         }
     }
+
+    // Faceted browsing: values within a facet are OR-ed, facets are AND-ed, counts come back per facet value.
+    // filter takes any boolean combination of facet terms on top, e.g.
+    // filter=(brand:acme OR tag:"grain free") AND NOT price:0-250; a malformed filter is a 400.
+    // Values with no matching products are left out of the counts unless includeZeroCounts=true.
+    @GetMapping("/faceted")
+    public ResponseEntity<ApiResponse<ProductFacetResponse>> getFacetedProducts(
+            @RequestParam(required = false) List<String> category,
+            @RequestParam(required = false) List<String> brand,
+            @RequestParam(required = false) List<String> tag,
+            @RequestParam(required = false) List<String> price,
+            @RequestParam(required = false) Boolean inStock,
+            @RequestParam(required = false) Boolean featured,
+            @RequestParam(required = false) String filter,
+            @RequestParam(required = false) String keyword,
+            @RequestParam(defaultValue = "false") boolean includeZeroCounts,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "12") int size,
+            WebRequest webRequest) {
+        try {
+            if (ConditionalGet.notModified(webRequest, productService.getCatalogVersion())) {
+                return null;
+            }
+            Map<String, List<String>> selections = new HashMap<>();
+            if (category != null) selections.put(ProductFacetIndex.CATEGORY, category);
+            if (brand != null) selections.put(ProductFacetIndex.BRAND, brand);
+            if (tag != null) selections.put(ProductFacetIndex.TAG, tag);
+            if (price != null) selections.put(ProductFacetIndex.PRICE, price);
+            if (inStock != null) selections.put(ProductFacetIndex.IN_STOCK, List.of(inStock.toString()));
+            if (featured != null) selections.put(ProductFacetIndex.FEATURED, List.of(featured.toString()));
+
+            Pageable pageable = PageRequest.of(page, size);
+            ProductFacetResponse result = productService.getFacetedProducts(selections, filter, keyword, includeZeroCounts, pageable);
+            return ResponseEntity.ok(ApiResponse.success("Faceted products retrieved successfully", result));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("Invalid filter: " + e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError()
+                    .body(ApiResponse.error("Failed to fetch faceted products: " + e.getMessage()));
+        }
+    }
 }
@@ -1,6 +1,7 @@
 package com.PetHubAI.PetHubAIBackend.dto;
 
 import com.PetHubAI.PetHubAIBackend.entity.Pet;
+import com.PetHubAI.PetHubAIBackend.entity.PetImage;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import java.time.LocalDateTime;
 
@@ -20,6 +21,11 @@ public class PetResponse {
     private String status;
     private Double adoptionFee;
     private String primaryImageUrl;
+    // Let listings reserve the right box and paint a placeholder before the image loads
+    private Integer primaryImageWidth;
+    private Integer primaryImageHeight;
+    private String primaryImageBlurHash;
+    private String primaryImageColor;
     private Integer totalImages;
     private String postedByName;
     private String postedByPhone;
@@ -74,19 +80,24 @@ public class PetResponse {
                 System.out.println("🖼️ Pet " + pet.getName() + " has " + pet.getImages().size() + " images");
 
                 // Find primary image first
-                this.primaryImageUrl = pet.getImages().stream()
+                PetImage primaryImage = pet.getImages().stream()
                         .filter(img -> Boolean.TRUE.equals(img.getIsPrimary()))
                         .findFirst()
                         .map(img -> {
                             System.out.println("✅ Primary image found: " + img.getImageUrl());
-                            return img.getImageUrl();
+                            return img;
                         })
                         .orElseGet(() -> {
                             // If no primary image, use first image
-                            String firstImageUrl = pet.getImages().get(0).getImageUrl();
-                            System.out.println("📸 Using first image as primary: " + firstImageUrl);
-                            return firstImageUrl;
+                            PetImage firstImage = pet.getImages().get(0);
+                            System.out.println("📸 Using first image as primary: " + firstImage.getImageUrl());
+                            return firstImage;
                         });
+                this.primaryImageUrl = primaryImage.getImageUrl();
+                this.primaryImageWidth = primaryImage.getWidth();
+                this.primaryImageHeight = primaryImage.getHeight();
+                this.primaryImageBlurHash = primaryImage.getBlurHash();
+                this.primaryImageColor = primaryImage.getDominantColor();
 
                 this.totalImages = pet.getImages().size();
             } else {
@@ -142,6 +153,18 @@ public class PetResponse {
     public String getPrimaryImageUrl() { return primaryImageUrl; }
     public void setPrimaryImageUrl(String primaryImageUrl) { this.primaryImageUrl = primaryImageUrl; }
 
+    public Integer getPrimaryImageWidth() { return primaryImageWidth; }
+    public void setPrimaryImageWidth(Integer primaryImageWidth) { this.primaryImageWidth = primaryImageWidth; }
+
+    public Integer getPrimaryImageHeight() { return primaryImageHeight; }
+    public void setPrimaryImageHeight(Integer primaryImageHeight) { this.primaryImageHeight = primaryImageHeight; }
+
+    public String getPrimaryImageBlurHash() { return primaryImageBlurHash; }
+    public void setPrimaryImageBlurHash(String primaryImageBlurHash) { this.primaryImageBlurHash = primaryImageBlurHash; }
+
+    public String getPrimaryImageColor() { return primaryImageColor; }
+    public void setPrimaryImageColor(String primaryImageColor) { this.primaryImageColor = primaryImageColor; }
+
     public Integer getTotalImages() { return totalImages; }
     public void setTotalImages(Integer totalImages) { this.totalImages = totalImages; }
 
@@ -0,0 +1,68 @@
+package com.PetHubAI.PetHubAIBackend.dto.product;
+
+import com.PetHubAI.PetHubAIBackend.entity.ProductCategory;
+import com.PetHubAI.PetHubAIBackend.service.CategoryTree;
+
+import java.util.List;
+
+public class ProductCategoryResponse {
+
+    private Long id;
+    private String name;
+    private String description;
+    private Long parentId;
+    private Integer sortOrder;
+    private Integer depth;
+    private Long productCount;      // active products directly in this category
+    private Long totalProductCount; // including all subcategories
+    private List<ProductCategoryResponse> subcategories;
+
+    public ProductCategoryResponse() {}
+
+    public ProductCategoryResponse(ProductCategory category) {
+        this.id = category.getId();
+        this.name = category.getName();
+        this.description = category.getDescription();
+        this.parentId = category.getParent() != null ? category.getParent().getId() : null;
+        this.sortOrder = category.getSortOrder();
+    }
+
+    public ProductCategoryResponse(CategoryTree.Node node, long productCount, long totalProductCount) {
+        this.id = node.getId();
+        this.name = node.getName();
+        this.description = node.getDescription();
+        this.parentId = node.getParentId();
+        this.sortOrder = node.getSortOrder();
+        this.depth = node.getDepth();
+        this.productCount = productCount;
+        this.totalProductCount = totalProductCount;
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public String getDescription() { return description; }
+    public void setDescription(String description) { this.description = description; }
+
+    public Long getParentId() { return parentId; }
+    public void setParentId(Long parentId) { this.parentId = parentId; }
+
+    public Integer getSortOrder() { return sortOrder; }
+    public void setSortOrder(Integer sortOrder) { this.sortOrder = sortOrder; }
+
+    public Integer getDepth() { return depth; }
+    public void setDepth(Integer depth) { this.depth = depth; }
+
+    public Long getProductCount() { return productCount; }
+    public void setProductCount(Long productCount) { this.productCount = productCount; }
+
+    public Long getTotalProductCount() { return totalProductCount; }
+    public void setTotalProductCount(Long totalProductCount) { this.totalProductCount = totalProductCount; }
+
+    public List<ProductCategoryResponse> getSubcategories() { return subcategories; }
+    public void setSubcategories(List<ProductCategoryResponse> subcategories) { this.subcategories = subcategories; }
+}
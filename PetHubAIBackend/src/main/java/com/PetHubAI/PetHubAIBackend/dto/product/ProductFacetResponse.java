@@ -0,0 +1,25 @@
+package com.PetHubAI.PetHubAIBackend.dto.product;
+
+import org.springframework.data.domain.Page;
+
+import java.util.Map;
+
+public class ProductFacetResponse {
+
+    private Page<ProductResponse> products;
+    private Map<String, Map<String, Long>> facets;
+
+    public ProductFacetResponse() {}
+
+    public ProductFacetResponse(Page<ProductResponse> products, Map<String, Map<String, Long>> facets) {
+        this.products = products;
+        this.facets = facets;
+    }
+
+    // Getters and Setters
+    public Page<ProductResponse> getProducts() { return products; }
+    public void setProducts(Page<ProductResponse> products) { this.products = products; }
+
+    public Map<String, Map<String, Long>> getFacets() { return facets; }
+    public void setFacets(Map<String, Map<String, Long>> facets) { this.facets = facets; }
+}
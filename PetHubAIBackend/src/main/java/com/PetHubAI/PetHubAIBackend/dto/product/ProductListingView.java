@@ -0,0 +1,87 @@
+package com.PetHubAI.PetHubAIBackend.dto.product;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Flat projection of a product row (plus category and creator names) for listing queries.
+// Built by a JPQL constructor expression, so no Product entity, proxy or collection is loaded.
+public class ProductListingView {
+
+    // Joins the product's tags into one column (unit separator, never typed into a tag)
+    public static final String TAG_SEPARATOR = "\u001F";
+
+    private final Long id;
+    private final String name;
+    private final String description;
+    private final Long categoryId;
+    private final String categoryName;
+    private final String brand;
+    private final String sku;
+    private final BigDecimal price;
+    private final BigDecimal discountPercentage;
+    private final Integer stockQuantity;
+    private final Integer minStockLevel;
+    private final BigDecimal weight;
+    private final String dimensions;
+    private final Boolean isActive;
+    private final Boolean featured;
+    private final String createdByFirstName;
+    private final String createdByLastName;
+    private final LocalDateTime createdAt;
+    private final LocalDateTime updatedAt;
+    private final List<String> tags;
+
+    public ProductListingView(Long id, String name, String description, Long categoryId, String categoryName,
+                              String brand, String sku, BigDecimal price, BigDecimal discountPercentage,
+                              Integer stockQuantity, Integer minStockLevel, BigDecimal weight, String dimensions,
+                              Boolean isActive, Boolean featured, String createdByFirstName, String createdByLastName,
+                              LocalDateTime createdAt, LocalDateTime updatedAt, String tags) {
+        this.id = id;
+        this.name = name;
+        this.description = description;
+        this.categoryId = categoryId;
+        this.categoryName = categoryName;
+        this.brand = brand;
+        this.sku = sku;
+        this.price = price;
+        this.discountPercentage = discountPercentage;
+        this.stockQuantity = stockQuantity;
+        this.minStockLevel = minStockLevel;
+        this.weight = weight;
+        this.dimensions = dimensions;
+        this.isActive = isActive;
+        this.featured = featured;
+        this.createdByFirstName = createdByFirstName;
+        this.createdByLastName = createdByLastName;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+        this.tags = tags == null || tags.isEmpty()
+                ? new ArrayList<>()
+                : new ArrayList<>(Arrays.asList(tags.split(TAG_SEPARATOR)));
+    }
+
+    // Getters
+    public Long getId() { return id; }
+    public String getName() { return name; }
+    public String getDescription() { return description; }
+    public Long getCategoryId() { return categoryId; }
+    public String getCategoryName() { return categoryName; }
+    public String getBrand() { return brand; }
+    public String getSku() { return sku; }
+    public BigDecimal getPrice() { return price; }
+    public BigDecimal getDiscountPercentage() { return discountPercentage; }
+    public Integer getStockQuantity() { return stockQuantity; }
+    public Integer getMinStockLevel() { return minStockLevel; }
+    public BigDecimal getWeight() { return weight; }
+    public String getDimensions() { return dimensions; }
+    public Boolean getIsActive() { return isActive; }
+    public Boolean getFeatured() { return featured; }
+    public String getCreatedByFirstName() { return createdByFirstName; }
+    public String getCreatedByLastName() { return createdByLastName; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public List<String> getTags() { return tags; }
+}
@@ -1,7 +1,9 @@
 package com.PetHubAI.PetHubAIBackend.dto.product;
 
+import com.PetHubAI.PetHubAIBackend.dto.response.ImageUploadResult;
 import com.PetHubAI.PetHubAIBackend.entity.Product;
 import com.PetHubAI.PetHubAIBackend.entity.ProductImage;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import org.hibernate.Hibernate;
 import org.hibernate.LazyInitializationException;
 
@@ -9,6 +11,7 @@ import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -32,12 +35,25 @@ public class ProductResponse {
     private Boolean isActive;
     private Boolean featured;
     private String primaryImageUrl;
+    // Layout size and loading placeholder of the primary image; absent for images uploaded before they were recorded
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Integer primaryImageWidth;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Integer primaryImageHeight;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String primaryImageBlurHash;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String primaryImageColor;
     private List<ProductImageResponse> images;
     private String createdByName;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
     private Boolean inStock;
 
+    // Only set on responses to image uploads: one entry per submitted file
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<ImageUploadResult> imageUploads;
+
     public ProductResponse() {}
 
     public ProductResponse(Product product) {
@@ -55,7 +71,6 @@ public class ProductResponse {
         this.minStockLevel = product.getMinStockLevel();
         this.weight = product.getWeight();
         this.dimensions = product.getDimensions();
-        this.tags = product.getTags();
         this.isActive = product.getIsActive();
         this.featured = product.getFeatured();
         this.createdAt = product.getCreatedAt();
@@ -64,36 +79,98 @@ public class ProductResponse {
         this.createdByName = product.getCreatedBy() != null ?
                 product.getCreatedBy().getFirstName() + " " + product.getCreatedBy().getLastName() : null;
 
+        // Lazy collections are loaded here when the session is still open; without one the response would
+        // claim the product has no tags or images, so that is an error rather than an empty list
+        this.tags = product.getTags() != null ? new ArrayList<>(initialized(product, product.getTags(), "tags")) : new ArrayList<>();
+        applyImages(product.getImages() != null ? initialized(product, product.getImages(), "images") : new ArrayList<>());
+    }
+
+    // Listing path: row projection plus images and tags side-loaded in one batched query each
+    public ProductResponse(ProductListingView view, List<ProductImage> images, List<String> tags) {
+        this.id = view.getId();
+        this.name = view.getName();
+        this.description = view.getDescription();
+        this.categoryId = view.getCategoryId();
+        this.categoryName = view.getCategoryName();
+        this.brand = view.getBrand();
+        this.sku = view.getSku();
+        this.price = view.getPrice();
+        this.discountPercentage = view.getDiscountPercentage();
+        this.finalPrice = calculateFinalPrice(view.getPrice(), view.getDiscountPercentage());
+        this.stockQuantity = view.getStockQuantity();
+        this.minStockLevel = view.getMinStockLevel();
+        this.weight = view.getWeight();
+        this.dimensions = view.getDimensions();
+        this.tags = tags != null ? tags : new ArrayList<>();
+        this.isActive = view.getIsActive();
+        this.featured = view.getFeatured();
+        this.createdAt = view.getCreatedAt();
+        this.updatedAt = view.getUpdatedAt();
+        this.inStock = view.getStockQuantity() != null && view.getStockQuantity() > 0;
+        this.createdByName = view.getCreatedByFirstName() != null ?
+                view.getCreatedByFirstName() + " " + view.getCreatedByLastName() : null;
+        applyImages(images != null ? images : new ArrayList<>());
+    }
+
+    // Copy of a shared catalog snapshot; the lists come back read-only so the cached one cannot be reached through them
+    public ProductResponse(ProductResponse source) {
+        this.id = source.id;
+        this.name = source.name;
+        this.description = source.description;
+        this.categoryName = source.categoryName;
+        this.categoryId = source.categoryId;
+        this.brand = source.brand;
+        this.sku = source.sku;
+        this.price = source.price;
+        this.discountPercentage = source.discountPercentage;
+        this.finalPrice = source.finalPrice;
+        this.stockQuantity = source.stockQuantity;
+        this.minStockLevel = source.minStockLevel;
+        this.weight = source.weight;
+        this.dimensions = source.dimensions;
+        this.tags = source.tags != null ? Collections.unmodifiableList(new ArrayList<>(source.tags)) : null;
+        this.isActive = source.isActive;
+        this.featured = source.featured;
+        this.primaryImageUrl = source.primaryImageUrl;
+        this.primaryImageWidth = source.primaryImageWidth;
+        this.primaryImageHeight = source.primaryImageHeight;
+        this.primaryImageBlurHash = source.primaryImageBlurHash;
+        this.primaryImageColor = source.primaryImageColor;
+        this.images = source.images != null ? source.images.stream()
+                .map(ProductImageResponse::new)
+                .collect(Collectors.toUnmodifiableList()) : null;
+        this.createdByName = source.createdByName;
+        this.createdAt = source.createdAt;
+        this.updatedAt = source.updatedAt;
+        this.inStock = source.inStock;
+        this.imageUploads = source.imageUploads != null ? Collections.unmodifiableList(new ArrayList<>(source.imageUploads)) : null;
+    }
+
+    private static <T> List<T> initialized(Product product, List<T> collection, String name) {
         try {
-            if (product.getTags() != null && Hibernate.isInitialized(product.getTags())) {
-                this.tags = new ArrayList<>(product.getTags());
-            } else {
-                this.tags = new ArrayList<>();
-            }
+            Hibernate.initialize(collection);
+            return collection;
         } catch (LazyInitializationException e) {
-            System.err.println("⚠️ Lazy loading issue with product tags: " + e.getMessage());
-            this.tags = new ArrayList<>();
+            System.err.println("❌ Product " + product.getId() + " " + name + " not loaded: " + e.getMessage());
+            throw new IllegalStateException("Product " + product.getId() + " " + name
+                    + " were not fetched before the session closed", e);
         }
+    }
 
-        try {
-            if (product.getImages() != null && Hibernate.isInitialized(product.getImages())) {
-                this.images = product.getImages().stream()
-                        .map(ProductImageResponse::new)
-                        .collect(Collectors.toList());
-                this.primaryImageUrl = product.getImages().stream()
-                        .filter(img -> Boolean.TRUE.equals(img.getIsPrimary()))
-                        .findFirst()
-                        .map(ProductImage::getImageUrl)
-                        .orElseGet(() -> !product.getImages().isEmpty() ?
-                                product.getImages().get(0).getImageUrl() : null);
-            } else {
-                this.images = new ArrayList<>();
-                this.primaryImageUrl = null;
-            }
-        } catch (LazyInitializationException e) {
-            System.err.println("⚠️ Lazy loading issue with product images: " + e.getMessage());
-            this.images = new ArrayList<>();
-            this.primaryImageUrl = null;
+    private void applyImages(List<ProductImage> productImages) {
+        this.images = productImages.stream()
+                .map(ProductImageResponse::new)
+                .collect(Collectors.toList());
+        ProductImage primaryImage = productImages.stream()
+                .filter(img -> Boolean.TRUE.equals(img.getIsPrimary()))
+                .findFirst()
+                .orElseGet(() -> !productImages.isEmpty() ? productImages.get(0) : null);
+        this.primaryImageUrl = primaryImage != null ? primaryImage.getImageUrl() : null;
+        if (primaryImage != null) {
+            this.primaryImageWidth = primaryImage.getWidth();
+            this.primaryImageHeight = primaryImage.getHeight();
+            this.primaryImageBlurHash = primaryImage.getBlurHash();
+            this.primaryImageColor = primaryImage.getDominantColor();
         }
     }
 
@@ -163,6 +240,18 @@ public class ProductResponse {
     public String getPrimaryImageUrl() { return primaryImageUrl; }
     public void setPrimaryImageUrl(String primaryImageUrl) { this.primaryImageUrl = primaryImageUrl; }
 
+    public Integer getPrimaryImageWidth() { return primaryImageWidth; }
+    public void setPrimaryImageWidth(Integer primaryImageWidth) { this.primaryImageWidth = primaryImageWidth; }
+
+    public Integer getPrimaryImageHeight() { return primaryImageHeight; }
+    public void setPrimaryImageHeight(Integer primaryImageHeight) { this.primaryImageHeight = primaryImageHeight; }
+
+    public String getPrimaryImageBlurHash() { return primaryImageBlurHash; }
+    public void setPrimaryImageBlurHash(String primaryImageBlurHash) { this.primaryImageBlurHash = primaryImageBlurHash; }
+
+    public String getPrimaryImageColor() { return primaryImageColor; }
+    public void setPrimaryImageColor(String primaryImageColor) { this.primaryImageColor = primaryImageColor; }
+
     public List<ProductImageResponse> getImages() { return images; }
     public void setImages(List<ProductImageResponse> images) { this.images = images; }
 
@@ -178,12 +267,23 @@ public class ProductResponse {
     public Boolean getInStock() { return inStock; }
     public void setInStock(Boolean inStock) { this.inStock = inStock; }
 
+    public List<ImageUploadResult> getImageUploads() { return imageUploads; }
+    public void setImageUploads(List<ImageUploadResult> imageUploads) { this.imageUploads = imageUploads; }
+
     public static class ProductImageResponse {
         private Long id;
         private String imageUrl;
         private String altText;
         private Boolean isPrimary;
         private Integer sortOrder;
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        private Integer width;
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        private Integer height;
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        private String blurHash;
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        private String dominantColor;
 
         public ProductImageResponse() {}
 
@@ -193,6 +293,22 @@ public class ProductResponse {
             this.altText = image.getAltText();
             this.isPrimary = image.getIsPrimary();
             this.sortOrder = image.getSortOrder();
+            this.width = image.getWidth();
+            this.height = image.getHeight();
+            this.blurHash = image.getBlurHash();
+            this.dominantColor = image.getDominantColor();
+        }
+
+        public ProductImageResponse(ProductImageResponse source) {
+            this.id = source.id;
+            this.imageUrl = source.imageUrl;
+            this.altText = source.altText;
+            this.isPrimary = source.isPrimary;
+            this.sortOrder = source.sortOrder;
+            this.width = source.width;
+            this.height = source.height;
+            this.blurHash = source.blurHash;
+            this.dominantColor = source.dominantColor;
         }
 
         // Getters and Setters
@@ -210,5 +326,17 @@ public class ProductResponse {
 
         public Integer getSortOrder() { return sortOrder; }
         public void setSortOrder(Integer sortOrder) { this.sortOrder = sortOrder; }
+
+        public Integer getWidth() { return width; }
+        public void setWidth(Integer width) { this.width = width; }
+
+        public Integer getHeight() { return height; }
+        public void setHeight(Integer height) { this.height = height; }
+
+        public String getBlurHash() { return blurHash; }
+        public void setBlurHash(String blurHash) { this.blurHash = blurHash; }
+
+        public String getDominantColor() { return dominantColor; }
+        public void setDominantColor(String dominantColor) { this.dominantColor = dominantColor; }
     }
 }
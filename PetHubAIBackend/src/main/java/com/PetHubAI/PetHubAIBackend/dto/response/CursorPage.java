@@ -0,0 +1,107 @@
+package com.PetHubAI.PetHubAIBackend.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// One page of a keyset (seek) listing ordered by (createdAt DESC, id DESC).
+// nextCursor is opaque to clients; totalElements is only filled when the caller asked for a count.
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CursorPage<T> {
+
+    public static final int MAX_SIZE = 100;
+
+    private List<T> content;
+    private String nextCursor;
+    private boolean hasNext;
+    private int size;
+    private Long totalElements;
+
+    public CursorPage() {}
+
+    public CursorPage(List<T> content, String nextCursor, boolean hasNext, int size, Long totalElements) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+        this.hasNext = hasNext;
+        this.size = size;
+        this.totalElements = totalElements;
+    }
+
+    // fetched holds up to size + 1 rows; the extra row only tells us whether another page exists
+    public static <E, T> CursorPage<T> of(List<E> fetched, int size,
+                                          Function<E, LocalDateTime> createdAt, Function<E, Long> id,
+                                          Function<E, T> mapper, Long totalElements) {
+        boolean hasNext = fetched.size() > size;
+        List<E> page = hasNext ? fetched.subList(0, size) : fetched;
+
+        String nextCursor = null;
+        if (hasNext) {
+            E last = page.get(page.size() - 1);
+            nextCursor = encode(createdAt.apply(last), id.apply(last));
+        }
+
+        List<T> content = page.stream().map(mapper).collect(Collectors.toList());
+        return new CursorPage<>(content, nextCursor, hasNext, size, totalElements);
+    }
+
+    // Page sizes come from the client; the feed controllers turn the exception into a 400
+    public static int checkSize(int size) {
+        if (size < 1 || size > MAX_SIZE) {
+            throw new IllegalArgumentException("size must be between 1 and " + MAX_SIZE);
+        }
+        return size;
+    }
+
+    // A row without createdAt has no place in the order, so no cursor can point past it
+    public static String encode(LocalDateTime createdAt, Long id) {
+        if (createdAt == null || id == null) {
+            throw new IllegalStateException("Cannot page past row " + id + ": it has no createdAt");
+        }
+        String raw = createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static Cursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('|');
+            return new Cursor(LocalDateTime.parse(raw.substring(0, separator)), Long.parseLong(raw.substring(separator + 1)));
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    // Getters and Setters
+    public List<T> getContent() { return content; }
+    public void setContent(List<T> content) { this.content = content; }
+
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+
+    public boolean isHasNext() { return hasNext; }
+    public void setHasNext(boolean hasNext) { this.hasNext = hasNext; }
+
+    public int getSize() { return size; }
+    public void setSize(int size) { this.size = size; }
+
+    public Long getTotalElements() { return totalElements; }
+    public void setTotalElements(Long totalElements) { this.totalElements = totalElements; }
+
+    public static class Cursor {
+        private final LocalDateTime createdAt;
+        private final Long id;
+
+        public Cursor(LocalDateTime createdAt, Long id) {
+            this.createdAt = createdAt;
+            this.id = id;
+        }
+
+        public LocalDateTime getCreatedAt() { return createdAt; }
+        public Long getId() { return id; }
+    }
+}
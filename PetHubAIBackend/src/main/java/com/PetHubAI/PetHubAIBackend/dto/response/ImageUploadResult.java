@@ -0,0 +1,72 @@
+package com.PetHubAI.PetHubAIBackend.dto.response;
+
+import com.PetHubAI.PetHubAIBackend.entity.PetImage;
+import com.PetHubAI.PetHubAIBackend.service.ImageAssetService;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+// Outcome of one file in a multi-image upload
+public class ImageUploadResult {
+
+    private int index;
+    private String fileName;
+    private boolean success;
+    private String imageUrl;
+    private String error;
+    private long durationMs;
+    private PetImage.ImageSource source;
+    @JsonIgnore
+    private String storageKey;
+    private Integer width;
+    private Integer height;
+    private String blurHash;
+    private String dominantColor;
+    // True when identical bytes were already stored and nothing was uploaded
+    private boolean reused;
+    @JsonIgnore
+    private ImageAssetService.Asset asset;
+
+    public ImageUploadResult() {}
+
+    // Getters and Setters
+    public int getIndex() { return index; }
+    public void setIndex(int index) { this.index = index; }
+
+    public String getFileName() { return fileName; }
+    public void setFileName(String fileName) { this.fileName = fileName; }
+
+    public boolean isSuccess() { return success; }
+    public void setSuccess(boolean success) { this.success = success; }
+
+    public String getImageUrl() { return imageUrl; }
+    public void setImageUrl(String imageUrl) { this.imageUrl = imageUrl; }
+
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+
+    public long getDurationMs() { return durationMs; }
+    public void setDurationMs(long durationMs) { this.durationMs = durationMs; }
+
+    public PetImage.ImageSource getSource() { return source; }
+    public void setSource(PetImage.ImageSource source) { this.source = source; }
+
+    public String getStorageKey() { return storageKey; }
+    public void setStorageKey(String storageKey) { this.storageKey = storageKey; }
+
+    public Integer getWidth() { return width; }
+    public void setWidth(Integer width) { this.width = width; }
+
+    public Integer getHeight() { return height; }
+    public void setHeight(Integer height) { this.height = height; }
+
+    public String getBlurHash() { return blurHash; }
+    public void setBlurHash(String blurHash) { this.blurHash = blurHash; }
+
+    public String getDominantColor() { return dominantColor; }
+    public void setDominantColor(String dominantColor) { this.dominantColor = dominantColor; }
+
+    public boolean isReused() { return reused; }
+    public void setReused(boolean reused) { this.reused = reused; }
+
+    public ImageAssetService.Asset getAsset() { return asset; }
+    public void setAsset(ImageAssetService.Asset asset) { this.asset = asset; }
+}
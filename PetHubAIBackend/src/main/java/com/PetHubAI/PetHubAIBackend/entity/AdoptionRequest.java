@@ -6,7 +6,9 @@ import jakarta.validation.constraints.NotNull;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "adoption_requests")
+@Table(name = "adoption_requests", indexes = {
+        @Index(name = "idx_adoption_requests_created", columnList = "created_at, id")
+})
 public class AdoptionRequest {
 
     @Id
@@ -66,7 +68,7 @@ public class AdoptionRequest {
     private LocalDateTime contactSharedAt;
 
     // Timestamps
-    @Column(name = "created_at")
+    @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt;
 
     @Column(name = "updated_at")
@@ -0,0 +1,94 @@
+package com.PetHubAI.PetHubAIBackend.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// One stored file derived from an upload, identified by the SHA-256 of the uploaded bytes and the variant
+// rendered from it. Pet and product image rows that were uploaded with identical bytes share the asset;
+// refCount counts those rows and the file is deleted with the last one.
+@Entity
+@Table(name = "image_assets",
+        uniqueConstraints = @UniqueConstraint(name = "uk_image_asset_content",
+                columnNames = {"content_hash", "variant", "image_source"}),
+        indexes = @Index(name = "idx_image_asset_storage_key", columnList = "image_source, storage_key"))
+public class ImageAsset {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "content_hash", nullable = false, length = 64)
+    private String contentHash;
+
+    // Variant name and size, e.g. display:800x600, so changing a variant size stops matching old files
+    @Column(nullable = false, length = 32)
+    private String variant;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "image_source", nullable = false)
+    private PetImage.ImageSource source;
+
+    @Column(name = "storage_key", nullable = false)
+    private String storageKey;
+
+    @Column(nullable = false, length = 500)
+    private String url;
+
+    private Integer width;
+
+    private Integer height;
+
+    @Column(name = "blur_hash", length = 64)
+    private String blurHash;
+
+    @Column(name = "dominant_color", length = 7)
+    private String dominantColor;
+
+    @Column(name = "ref_count", nullable = false)
+    private Integer refCount = 0;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getContentHash() { return contentHash; }
+    public void setContentHash(String contentHash) { this.contentHash = contentHash; }
+
+    public String getVariant() { return variant; }
+    public void setVariant(String variant) { this.variant = variant; }
+
+    public PetImage.ImageSource getSource() { return source; }
+    public void setSource(PetImage.ImageSource source) { this.source = source; }
+
+    public String getStorageKey() { return storageKey; }
+    public void setStorageKey(String storageKey) { this.storageKey = storageKey; }
+
+    public String getUrl() { return url; }
+    public void setUrl(String url) { this.url = url; }
+
+    public Integer getWidth() { return width; }
+    public void setWidth(Integer width) { this.width = width; }
+
+    public Integer getHeight() { return height; }
+    public void setHeight(Integer height) { this.height = height; }
+
+    public String getBlurHash() { return blurHash; }
+    public void setBlurHash(String blurHash) { this.blurHash = blurHash; }
+
+    public String getDominantColor() { return dominantColor; }
+    public void setDominantColor(String dominantColor) { this.dominantColor = dominantColor; }
+
+    public Integer getRefCount() { return refCount; }
+    public void setRefCount(Integer refCount) { this.refCount = refCount; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
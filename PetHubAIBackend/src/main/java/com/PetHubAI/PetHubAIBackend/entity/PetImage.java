@@ -1,6 +1,7 @@
 package com.PetHubAI.PetHubAIBackend.entity;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
@@ -36,6 +37,39 @@ public class PetImage {
     @Column(name = "image_source")
     private ImageSource source = ImageSource.CLOUDINARY;
 
+    // Backend keys (Cloudinary public id or local content hash) used to delete the stored files
+    @JsonIgnore
+    @Column(name = "storage_key")
+    private String storageKey;
+
+    @JsonIgnore
+    @Column(name = "thumbnail_storage_key")
+    private String thumbnailStorageKey;
+
+    // The image assets these files belong to, so deleting the row gives back exactly those references;
+    // null on rows saved before assets were recorded
+    @JsonIgnore
+    @Column(name = "asset_id")
+    private Long assetId;
+
+    @JsonIgnore
+    @Column(name = "thumbnail_asset_id")
+    private Long thumbnailAssetId;
+
+    // Pixel size of the image at imageUrl plus a BlurHash and #rrggbb colour to paint while it loads;
+    // placeholder and colour are null for formats the server could not decode
+    @Column(name = "width")
+    private Integer width;
+
+    @Column(name = "height")
+    private Integer height;
+
+    @Column(name = "blur_hash", length = 64)
+    private String blurHash;
+
+    @Column(name = "dominant_color", length = 7)
+    private String dominantColor;
+
     @Column(name = "created_at")
     private LocalDateTime createdAt;
 
@@ -118,6 +152,70 @@ public class PetImage {
         this.source = source;
     }
 
+    public String getStorageKey() {
+        return storageKey;
+    }
+
+    public void setStorageKey(String storageKey) {
+        this.storageKey = storageKey;
+    }
+
+    public String getThumbnailStorageKey() {
+        return thumbnailStorageKey;
+    }
+
+    public void setThumbnailStorageKey(String thumbnailStorageKey) {
+        this.thumbnailStorageKey = thumbnailStorageKey;
+    }
+
+    public Long getAssetId() {
+        return assetId;
+    }
+
+    public void setAssetId(Long assetId) {
+        this.assetId = assetId;
+    }
+
+    public Long getThumbnailAssetId() {
+        return thumbnailAssetId;
+    }
+
+    public void setThumbnailAssetId(Long thumbnailAssetId) {
+        this.thumbnailAssetId = thumbnailAssetId;
+    }
+
+    public Integer getWidth() {
+        return width;
+    }
+
+    public void setWidth(Integer width) {
+        this.width = width;
+    }
+
+    public Integer getHeight() {
+        return height;
+    }
+
+    public void setHeight(Integer height) {
+        this.height = height;
+    }
+
+    public String getBlurHash() {
+        return blurHash;
+    }
+
+    public void setBlurHash(String blurHash) {
+        this.blurHash = blurHash;
+    }
+
+    public String getDominantColor() {
+        return dominantColor;
+    }
+
+    public void setDominantColor(String dominantColor) {
+        this.dominantColor = dominantColor;
+    }
+
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
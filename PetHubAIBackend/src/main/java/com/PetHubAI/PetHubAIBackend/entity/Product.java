@@ -8,7 +8,10 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "products")
+@Table(name = "products", indexes = {
+        @Index(name = "idx_products_active_created", columnList = "is_active, created_at, id"),
+        @Index(name = "idx_products_created", columnList = "created_at, id")
+})
 public class Product {
 
     @Id
@@ -58,13 +61,14 @@ public class Product {
     @JoinColumn(name = "created_by")
     private User createdBy;
 
-    @Column(name = "created_at")
+    @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt;
 
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
-    @OneToMany(mappedBy = "product", cascade = CascadeType.ALL,fetch = FetchType.EAGER)
+    // LAZY: listing paths side-load images per page (ProductListingAssembler), detail paths fetch-join them
+    @OneToMany(mappedBy = "product", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     @OrderBy("sortOrder ASC")
     private List<ProductImage> images = new ArrayList<>();
 
@@ -24,6 +24,29 @@ public class ProductImage {
 
     private Integer sortOrder = 0;
 
+    // Which backend holds the file, and its key there; rows from before this was recorded are Cloudinary
+    @Enumerated(EnumType.STRING)
+    @Column(name = "image_source")
+    private PetImage.ImageSource source = PetImage.ImageSource.CLOUDINARY;
+
+    @Column(name = "storage_key")
+    private String storageKey;
+
+    // The image asset the file belongs to; null on rows saved before assets were recorded
+    @Column(name = "asset_id")
+    private Long assetId;
+
+    // Layout size and loading placeholder, as on PetImage
+    private Integer width;
+
+    private Integer height;
+
+    @Column(name = "blur_hash", length = 64)
+    private String blurHash;
+
+    @Column(name = "dominant_color", length = 7)
+    private String dominantColor;
+
     @Column(name = "created_at")
     private LocalDateTime createdAt;
 
@@ -51,6 +74,27 @@ public class ProductImage {
     public Integer getSortOrder() { return sortOrder; }
     public void setSortOrder(Integer sortOrder) { this.sortOrder = sortOrder; }
 
+    public PetImage.ImageSource getSource() { return source; }
+    public void setSource(PetImage.ImageSource source) { this.source = source; }
+
+    public String getStorageKey() { return storageKey; }
+    public void setStorageKey(String storageKey) { this.storageKey = storageKey; }
+
+    public Long getAssetId() { return assetId; }
+    public void setAssetId(Long assetId) { this.assetId = assetId; }
+
+    public Integer getWidth() { return width; }
+    public void setWidth(Integer width) { this.width = width; }
+
+    public Integer getHeight() { return height; }
+    public void setHeight(Integer height) { this.height = height; }
+
+    public String getBlurHash() { return blurHash; }
+    public void setBlurHash(String blurHash) { this.blurHash = blurHash; }
+
+    public String getDominantColor() { return dominantColor; }
+    public void setDominantColor(String dominantColor) { this.dominantColor = dominantColor; }
+
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
 }
@@ -0,0 +1,15 @@
+package com.PetHubAI.PetHubAIBackend.exception;
+
+public class InsufficientStockException extends RuntimeException {
+
+    private final Long productId;
+
+    public InsufficientStockException(Long productId, String message) {
+        super(message);
+        this.productId = productId;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+}
@@ -8,6 +8,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -45,6 +46,12 @@ public interface AdoptionRequestRepository extends JpaRepository<AdoptionRequest
 
     Page<AdoptionRequest> findAllByOrderByCreatedAtDesc(Pageable pageable);
 
+    // Keyset pagination on (createdAt, id): no OFFSET scan and no COUNT query
+    List<AdoptionRequest> findAllByOrderByCreatedAtDescIdDesc(Pageable pageable);
+
+    @Query("SELECT ar FROM AdoptionRequest ar WHERE ar.createdAt < :createdAt OR (ar.createdAt = :createdAt AND ar.id < :id) ORDER BY ar.createdAt DESC, ar.id DESC")
+    List<AdoptionRequest> findAllBeforeCursor(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Pageable pageable);
+
     // NEW: Count requests by pet and status
     long countByPetIdAndStatus(Long petId, AdoptionRequest.RequestStatus status);
 
@@ -0,0 +1,42 @@
+package com.PetHubAI.PetHubAIBackend.repository;
+
+import com.PetHubAI.PetHubAIBackend.entity.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, Long> {
+
+    Optional<IdempotencyRecord> findByIdempotencyKeyAndScopeAndOwner(String idempotencyKey, String scope, String owner);
+
+    // Claim transitions are single conditional statements, so two instances can never both own a key
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.status = 'COMPLETED', r.responseStatus = :responseStatus, " +
+            "r.responseBody = :responseBody WHERE r.id = :id AND r.status = 'IN_PROGRESS'")
+    int complete(@Param("id") Long id, @Param("responseStatus") int responseStatus,
+                 @Param("responseBody") String responseBody);
+
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.lockedAt = :now WHERE r.id = :id " +
+            "AND r.status = 'IN_PROGRESS' AND r.lockedAt < :abandonedBefore")
+    int takeOver(@Param("id") Long id, @Param("now") LocalDateTime now,
+                 @Param("abandonedBefore") LocalDateTime abandonedBefore);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.id = :id AND r.status = 'IN_PROGRESS'")
+    int releaseClaim(@Param("id") Long id);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.id = :id AND r.expiresAt < :now")
+    int deleteIfExpired(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
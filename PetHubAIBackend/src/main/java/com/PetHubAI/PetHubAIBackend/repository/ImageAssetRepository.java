@@ -0,0 +1,41 @@
+package com.PetHubAI.PetHubAIBackend.repository;
+
+import com.PetHubAI.PetHubAIBackend.entity.ImageAsset;
+import com.PetHubAI.PetHubAIBackend.entity.PetImage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ImageAssetRepository extends JpaRepository<ImageAsset, Long> {
+
+    Optional<ImageAsset> findByContentHashAndVariantAndSource(String contentHash, String variant, PetImage.ImageSource source);
+
+    List<ImageAsset> findBySourceAndStorageKey(PetImage.ImageSource source, String storageKey);
+
+    // Reference counts only change through these single-statement updates, so concurrent uploads and
+    // deletes never lose a count; 0 rows updated means the asset is gone
+    @Modifying
+    @Query("UPDATE ImageAsset a SET a.refCount = a.refCount + 1 WHERE a.id = :id")
+    int incrementRefCount(@Param("id") Long id);
+
+    @Modifying
+    @Query("UPDATE ImageAsset a SET a.refCount = a.refCount - 1 WHERE a.id = :id AND a.refCount > 0")
+    int decrementRefCount(@Param("id") Long id);
+
+    @Modifying
+    @Query("DELETE FROM ImageAsset a WHERE a.id = :id AND a.refCount <= 0")
+    int deleteIfUnreferenced(@Param("id") Long id);
+
+    @Query("SELECT a.storageKey FROM ImageAsset a WHERE a.storageKey IN :keys AND a.refCount > 0")
+    List<String> findStorageKeysIn(@Param("keys") Collection<String> keys);
+
+    @Query("SELECT COALESCE(SUM(a.refCount), 0) FROM ImageAsset a")
+    long sumRefCounts();
+}
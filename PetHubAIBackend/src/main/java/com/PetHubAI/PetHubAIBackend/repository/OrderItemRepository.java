@@ -0,0 +1,28 @@
+package com.PetHubAI.PetHubAIBackend.repository;
+
+import com.PetHubAI.PetHubAIBackend.entity.Order;
+import com.PetHubAI.PetHubAIBackend.entity.OrderItem;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
+
+    // Units sold per product: COD orders count from placement, online orders once paid.
+    // Rows are [productId, SUM(quantity)]
+    @Query("SELECT oi.product.id, SUM(oi.quantity) FROM OrderItem oi JOIN oi.order o " +
+            "WHERE oi.product IS NOT NULL AND o.status NOT IN :excludedStatuses " +
+            "AND (o.paymentMethod = 'COD' OR o.paymentStatus = :paidStatus) " +
+            "GROUP BY oi.product.id")
+    List<Object[]> sumUnitsSoldByProduct(@Param("excludedStatuses") Collection<Order.OrderStatus> excludedStatuses,
+                                         @Param("paidStatus") Order.PaymentStatus paidStatus);
+
+    // Baskets for a chunk of orders; rows are [orderId, productId]
+    @Query("SELECT oi.order.id, oi.product.id FROM OrderItem oi WHERE oi.order.id IN :orderIds AND oi.product IS NOT NULL")
+    List<Object[]> findProductIdsByOrderIds(@Param("orderIds") Collection<Long> orderIds);
+}
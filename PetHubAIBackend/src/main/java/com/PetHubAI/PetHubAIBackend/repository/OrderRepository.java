@@ -2,14 +2,17 @@ package com.PetHubAI.PetHubAIBackend.repository;
 
 import com.PetHubAI.PetHubAIBackend.entity.Order;
 import com.PetHubAI.PetHubAIBackend.entity.User;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -25,6 +28,12 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     // Find order by Razorpay order ID
     Optional<Order> findByRazorpayOrderId(String razorpayOrderId);
 
+    // Same, locking the row so concurrent confirmations of one payment (client retry racing a webhook)
+    // run one after the other
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM Order o WHERE o.razorpayOrderId = :razorpayOrderId")
+    Optional<Order> findByRazorpayOrderIdForUpdate(@Param("razorpayOrderId") String razorpayOrderId);
+
     // Find orders by status
     Page<Order> findByStatusOrderByCreatedAtDesc(Order.OrderStatus status, Pageable pageable);
 
@@ -67,10 +76,28 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     // Admin - get all orders
     Page<Order> findAllByOrderByCreatedAtDesc(Pageable pageable);
 
+    // Admin - keyset pagination on (createdAt, id): no OFFSET scan and no COUNT query
+    List<Order> findAllByOrderByCreatedAtDescIdDesc(Pageable pageable);
+
+    @Query("SELECT o FROM Order o WHERE o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id) ORDER BY o.createdAt DESC, o.id DESC")
+    List<Order> findAllBeforeCursor(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Pageable pageable);
+
     // ✅ NEW: Find recent orders for dashboard
     List<Order> findTop10ByOrderByCreatedAtDesc();
 
     // ✅ NEW: Find pending COD orders
     @Query("SELECT o FROM Order o WHERE o.paymentMethod = 'COD' AND o.status = 'PENDING' ORDER BY o.createdAt DESC")
     List<Order> findPendingCODOrders();
+
+    // Recommendation backfill: keyset over orders that count as sales (COD, or paid online); rows are
+    // [id, createdAt]
+    @Query("SELECT o.id, o.createdAt FROM Order o WHERE o.id > :afterId AND o.id <= :upToId " +
+            "AND o.status NOT IN :excludedStatuses " +
+            "AND (o.paymentMethod = 'COD' OR o.paymentStatus = :paidStatus) ORDER BY o.id ASC")
+    List<Object[]> findSaleOrdersAfter(@Param("afterId") Long afterId, @Param("upToId") Long upToId,
+                                       @Param("excludedStatuses") Collection<Order.OrderStatus> excludedStatuses,
+                                       @Param("paidStatus") Order.PaymentStatus paidStatus, Pageable pageable);
+
+    @Query("SELECT MAX(o.id) FROM Order o")
+    Long findMaxId();
 }
@@ -1,9 +1,13 @@
 package com.PetHubAI.PetHubAIBackend.repository;
 
 import com.PetHubAI.PetHubAIBackend.entity.PetImage;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,5 +19,15 @@ public interface PetImageRepository extends JpaRepository<PetImage, Long> {
     Optional<PetImage> findByPetIdAndIsPrimaryTrue(Long petId);
 
     void deleteByPetId(Long petId);
+
+    // Which of these storage keys are still referenced, as main image or thumbnail
+    @Query("SELECT i.storageKey FROM PetImage i WHERE i.storageKey IN :keys")
+    List<String> findStorageKeysIn(@Param("keys") Collection<String> keys);
+
+    @Query("SELECT i.thumbnailStorageKey FROM PetImage i WHERE i.thumbnailStorageKey IN :keys")
+    List<String> findThumbnailStorageKeysIn(@Param("keys") Collection<String> keys);
+
+    // Cloudinary rows saved before storage keys were recorded
+    List<PetImage> findByStorageKeyIsNullAndSource(PetImage.ImageSource source, Pageable pageable);
 }
 
@@ -8,6 +8,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -32,6 +33,25 @@ public interface PetRepository extends JpaRepository<Pet, Long> {
 
     Page<Pet> findByStatusOrderByCreatedAtDesc(Pet.AdoptionStatus status, Pageable pageable);
 
+    // Keyset pagination on (createdAt, id): no OFFSET scan and no COUNT query
+    List<Pet> findByStatusOrderByCreatedAtDescIdDesc(Pet.AdoptionStatus status, Pageable pageable);
+
+    @Query("SELECT p FROM Pet p WHERE p.status = :status AND (p.createdAt < :createdAt OR (p.createdAt = :createdAt AND p.id < :id)) ORDER BY p.createdAt DESC, p.id DESC")
+    List<Pet> findByStatusBeforeCursor(@Param("status") Pet.AdoptionStatus status,
+                                       @Param("createdAt") LocalDateTime createdAt,
+                                       @Param("id") Long id,
+                                       Pageable pageable);
+
+    // Conditional GET validator without loading the pet: [updatedAt, image count, max image id, sum of primary image ids]
+    @Query("SELECT p.updatedAt, COUNT(i.id), COALESCE(MAX(i.id), 0), " +
+            "COALESCE(SUM(CASE WHEN i.isPrimary = true THEN i.id ELSE 0 END), 0) " +
+            "FROM Pet p LEFT JOIN p.images i WHERE p.id = :id GROUP BY p.id, p.updatedAt")
+    List<Object[]> findVersionStamp(@Param("id") Long id);
+
+    // Typeahead warm-up: rows are [id, species, breed]
+    @Query("SELECT p.id, p.species, p.breed FROM Pet p WHERE p.status = :status")
+    List<Object[]> findSuggestionTermsByStatus(@Param("status") Pet.AdoptionStatus status);
+
     // Find pets by species
     Page<Pet> findBySpeciesIgnoreCaseAndStatusOrderByCreatedAtDesc(
             String species, Pet.AdoptionStatus status, Pageable pageable);
@@ -19,7 +19,8 @@ public interface ProductCategoryRepository extends JpaRepository<ProductCategory
     // Find subcategories by parent
     List<ProductCategory> findByParentAndIsActiveTrueOrderBySortOrderAsc(ProductCategory parent);
 
-    // Find categories with product count
-    @Query("SELECT c FROM ProductCategory c WHERE c.isActive = true AND SIZE(c.products) > 0 ORDER BY c.sortOrder ASC")
-    List<ProductCategory> findCategoriesWithProducts();
+    // Flat rows for the in-memory category tree: [id, name, description, parentId, sortOrder]
+    @Query("SELECT c.id, c.name, c.description, p.id, c.sortOrder FROM ProductCategory c LEFT JOIN c.parent p " +
+           "WHERE c.isActive = true ORDER BY c.sortOrder ASC, c.id ASC")
+    List<Object[]> findActiveTreeRows();
 }
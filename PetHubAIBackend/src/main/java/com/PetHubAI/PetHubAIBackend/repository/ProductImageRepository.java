@@ -0,0 +1,27 @@
+package com.PetHubAI.PetHubAIBackend.repository;
+
+import com.PetHubAI.PetHubAIBackend.entity.PetImage;
+import com.PetHubAI.PetHubAIBackend.entity.ProductImage;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ProductImageRepository extends JpaRepository<ProductImage, Long> {
+
+    // Batched image load for a whole listing page (one query instead of one per product)
+    @Query("SELECT i FROM ProductImage i WHERE i.product.id IN :productIds ORDER BY i.sortOrder ASC")
+    List<ProductImage> findByProductIds(@Param("productIds") Collection<Long> productIds);
+
+    @Query("SELECT i.storageKey FROM ProductImage i WHERE i.storageKey IN :keys")
+    List<String> findStorageKeysIn(@Param("keys") Collection<String> keys);
+
+    // Rows saved before the backend and key were recorded (source is NULL for those)
+    @Query("SELECT i FROM ProductImage i WHERE i.storageKey IS NULL AND (i.source IS NULL OR i.source = :source)")
+    List<ProductImage> findLegacyImages(@Param("source") PetImage.ImageSource source, Pageable pageable);
+}
@@ -1,20 +1,35 @@
 package com.PetHubAI.PetHubAIBackend.repository;
 
+import com.PetHubAI.PetHubAIBackend.dto.product.ProductListingView;
 import com.PetHubAI.PetHubAIBackend.entity.Product;
 import com.PetHubAI.PetHubAIBackend.entity.ProductCategory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
 
+    // Listing projection: one row per product, category and creator names joined in, no entity loading.
+    // Tags ride along as one aggregated column (see ProductListingView.TAG_SEPARATOR), so a listing page is
+    // this query plus the batched image query and nothing else
+    String LISTING_SELECT = "SELECT new com.PetHubAI.PetHubAIBackend.dto.product.ProductListingView(" +
+            "p.id, p.name, p.description, c.id, c.name, p.brand, p.sku, p.price, p.discountPercentage, " +
+            "p.stockQuantity, p.minStockLevel, p.weight, p.dimensions, p.isActive, p.featured, " +
+            "u.firstName, u.lastName, p.createdAt, p.updatedAt, " +
+            "(SELECT listagg(t, '" + ProductListingView.TAG_SEPARATOR + "') WITHIN GROUP (ORDER BY t) " +
+            "FROM Product tp JOIN tp.tags t WHERE tp.id = p.id)) " +
+            "FROM Product p LEFT JOIN p.category c LEFT JOIN p.createdBy u ";
+
     // Find active products
     Page<Product> findByIsActiveTrueOrderByCreatedAtDesc(Pageable pageable);
 
@@ -40,6 +55,26 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     // Admin - find all products (including inactive)
     Page<Product> findAllByOrderByCreatedAtDesc(Pageable pageable);
 
+    // Listing projections (images are side-loaded per page by ProductListingAssembler). A Slice reads one
+    // extra row to know whether there is a next page instead of running a COUNT; the cursor variants are
+    // keyset pagination on (createdAt, id): no OFFSET scan and no COUNT query. A null brand lists every product
+    @Query(LISTING_SELECT + "WHERE (:brand IS NULL OR p.brand = :brand) ORDER BY p.createdAt DESC, p.id DESC")
+    Slice<ProductListingView> findAllListingViews(@Param("brand") String brand, Pageable pageable);
+
+    long countByBrand(String brand);
+
+    @Query(LISTING_SELECT + "ORDER BY p.createdAt DESC, p.id DESC")
+    List<ProductListingView> findFirstListingViews(Pageable pageable);
+
+    @Query(LISTING_SELECT + "WHERE p.createdAt < :createdAt OR (p.createdAt = :createdAt AND p.id < :id) ORDER BY p.createdAt DESC, p.id DESC")
+    List<ProductListingView> findListingViewsBeforeCursor(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Pageable pageable);
+
+    @Query(LISTING_SELECT + "WHERE p.isActive = true AND p.id > :afterId ORDER BY p.id ASC")
+    List<ProductListingView> findActiveListingViewsAfterId(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query(LISTING_SELECT + "WHERE p.id IN :ids")
+    List<ProductListingView> findListingViewsByIds(@Param("ids") Collection<Long> ids);
+
     // Find product with images
     @Query("SELECT DISTINCT p FROM Product p LEFT JOIN FETCH p.images WHERE p.id = :id")
     Optional<Product> findByIdWithImages(@Param("id") Long id);
@@ -0,0 +1,48 @@
+package com.PetHubAI.PetHubAIBackend.repository;
+
+import com.PetHubAI.PetHubAIBackend.entity.StockReservation;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface StockReservationRepository extends JpaRepository<StockReservation, Long> {
+
+    // Locks the lines before they are released, so a payment confirming at the same moment waits and then
+    // finds nothing left to commit; ordered by id so concurrent releases lock in the same order
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM StockReservation r WHERE r.orderId IN :orderIds AND r.status = :status ORDER BY r.id")
+    List<StockReservation> findForUpdate(@Param("orderIds") Collection<Long> orderIds,
+                                         @Param("status") StockReservation.Status status);
+
+    // 0 rows means the hold was already released or expired
+    @Modifying
+    @Query("UPDATE StockReservation r SET r.status = 'COMMITTED', r.resolvedAt = :now " +
+            "WHERE r.orderId = :orderId AND r.status = 'ACTIVE'")
+    int commit(@Param("orderId") Long orderId, @Param("now") LocalDateTime now);
+
+    @Query("SELECT r.orderId, MIN(r.expiresAt) FROM StockReservation r WHERE r.status = 'ACTIVE' GROUP BY r.orderId")
+    List<Object[]> findActiveDeadlines();
+
+    @Query("SELECT DISTINCT r.orderId FROM StockReservation r WHERE r.status = 'ACTIVE' AND r.expiresAt < :cutoff")
+    List<Long> findOverdueOrderIds(@Param("cutoff") LocalDateTime cutoff, Pageable pageable);
+
+    long countByStatus(StockReservation.Status status);
+
+    boolean existsByOrderIdAndStatus(Long orderId, StockReservation.Status status);
+
+    @Query("SELECT COALESCE(SUM(r.quantity), 0) FROM StockReservation r WHERE r.status = 'ACTIVE'")
+    long sumActiveUnits();
+
+    @Query("SELECT COALESCE(SUM(r.quantity), 0) FROM StockReservation r WHERE r.productId = :productId AND r.status = 'ACTIVE'")
+    long sumActiveUnitsByProduct(@Param("productId") Long productId);
+}
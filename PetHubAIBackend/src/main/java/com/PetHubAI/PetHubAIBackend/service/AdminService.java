@@ -3,6 +3,7 @@ package com.PetHubAI.PetHubAIBackend.service;
 
 import com.PetHubAI.PetHubAIBackend.dto.adoption.AdoptionRequestDto;
 import com.PetHubAI.PetHubAIBackend.dto.adoption.AdoptionRequestResponse;
+import com.PetHubAI.PetHubAIBackend.dto.response.CursorPage;
 import com.PetHubAI.PetHubAIBackend.entity.AdoptionRequest;
 import com.PetHubAI.PetHubAIBackend.entity.Pet;
 import com.PetHubAI.PetHubAIBackend.entity.User;
@@ -13,6 +14,7 @@ import com.PetHubAI.PetHubAIBackend.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -44,6 +46,20 @@ public class AdminService {
         return new PageImpl<>(responses, pageable, requestsPage.getTotalElements());
     }
 
+    // Keyset feed of all adoption requests; skips the COUNT query unless a total is asked for
+    public CursorPage<AdoptionRequestResponse> getAllRequestsFeed(String cursor, int size, boolean includeTotal) {
+        Pageable limit = PageRequest.of(0, CursorPage.checkSize(size) + 1);
+        List<AdoptionRequest> fetched;
+        if (cursor == null || cursor.isBlank()) {
+            fetched = adoptionRequestRepository.findAllByOrderByCreatedAtDescIdDesc(limit);
+        } else {
+            CursorPage.Cursor position = CursorPage.decode(cursor);
+            fetched = adoptionRequestRepository.findAllBeforeCursor(position.getCreatedAt(), position.getId(), limit);
+        }
+        return CursorPage.of(fetched, size, AdoptionRequest::getCreatedAt, AdoptionRequest::getId,
+                AdoptionRequestResponse::new, includeTotal ? adoptionRequestRepository.count() : null);
+    }
+
     // Get adoption request by ID
     public AdoptionRequestResponse getRequestById(Long id) {
         AdoptionRequest request = adoptionRequestRepository.findById(id)
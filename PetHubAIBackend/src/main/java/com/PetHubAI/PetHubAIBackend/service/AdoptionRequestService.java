@@ -28,6 +28,9 @@ public class AdoptionRequestService {
     @Autowired
     private PetRepository petRepository;
 
+    @Autowired
+    private PetCatalogService petCatalogService;
+
     public AdoptionRequestResponse createAdoptionRequest(AdoptionRequestDto dto, User requester) {
         // Check if pet exists and is available
         Pet pet = petRepository.findById(dto.getPetId())
@@ -129,6 +132,7 @@ public class AdoptionRequestService {
         pet.setAdoptedBy(request.getRequester());
         pet.setAdoptedAt(LocalDateTime.now());
         petRepository.save(pet);
+        petCatalogService.refresh(pet);
 
         // Reject all other pending requests for this pet
         List<AdoptionRequest> otherRequests = adoptionRequestRepository.findByPetIdOrderByCreatedAtDesc(pet.getId());
@@ -0,0 +1,26 @@
+package com.PetHubAI.PetHubAIBackend.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// Side effects that must only become visible once the surrounding transaction has committed (in-memory
+// indexes, timers, background cleanup). Nothing runs if it rolls back; outside a transaction the action
+// runs straight away.
+public final class AfterCommit {
+
+    private AfterCommit() {
+    }
+
+    public static void run(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,131 @@
+package com.PetHubAI.PetHubAIBackend.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Immutable snapshot of the active category hierarchy. Every node carries the precomputed set of its own id
+// plus all descendant ids, so "everything under Dogs" is a single lookup instead of a recursive walk.
+// A category whose parent is inactive or missing is promoted to a root rather than hidden.
+public class CategoryTree {
+
+    private final Map<Long, Node> nodes;
+    private final List<Node> roots;
+    private final long version;
+
+    private CategoryTree(Map<Long, Node> nodes, List<Node> roots, long version) {
+        this.nodes = nodes;
+        this.roots = roots;
+        this.version = version;
+    }
+
+    // rows: [id, name, description, parentId, sortOrder], already in display order
+    public static CategoryTree build(List<Object[]> rows, long version) {
+        Map<Long, Node> nodes = new LinkedHashMap<>();
+        for (Object[] row : rows) {
+            Long id = (Long) row[0];
+            nodes.put(id, new Node(id, (String) row[1], (String) row[2], (Long) row[3], (Integer) row[4]));
+        }
+
+        List<Node> roots = new ArrayList<>();
+        for (Node node : nodes.values()) {
+            Node parent = node.parentId != null ? nodes.get(node.parentId) : null;
+            if (parent == null || createsCycle(node, parent, nodes)) {
+                roots.add(node);
+            } else {
+                parent.children.add(node);
+            }
+        }
+        for (Node root : roots) {
+            collect(root, 0);
+        }
+        return new CategoryTree(Collections.unmodifiableMap(nodes), Collections.unmodifiableList(roots), version);
+    }
+
+    public static CategoryTree empty() {
+        return new CategoryTree(Collections.emptyMap(), Collections.emptyList(), 0);
+    }
+
+    // The category itself plus all of its descendants; empty when the category is not in the tree
+    public Set<Long> descendantsOf(Long categoryId) {
+        Node node = nodes.get(categoryId);
+        return node != null ? node.descendantIds : Collections.emptySet();
+    }
+
+    public Node get(Long categoryId) {
+        return nodes.get(categoryId);
+    }
+
+    public List<Node> getRoots() {
+        return roots;
+    }
+
+    public Collection<Node> getNodes() {
+        return nodes.values();
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+
+    // Helper methods
+    private static Set<Long> collect(Node node, int depth) {
+        node.depth = depth;
+        Set<Long> ids = new LinkedHashSet<>();
+        ids.add(node.id);
+        for (Node child : node.children) {
+            ids.addAll(collect(child, depth + 1));
+        }
+        node.descendantIds = Collections.unmodifiableSet(ids);
+        node.children = Collections.unmodifiableList(node.children);
+        return ids;
+    }
+
+    // Bad data guard: a parent chain that leads back to the node would make the walk endless
+    private static boolean createsCycle(Node node, Node parent, Map<Long, Node> nodes) {
+        Set<Long> seen = new LinkedHashSet<>();
+        for (Node current = parent; current != null; current = current.parentId != null ? nodes.get(current.parentId) : null) {
+            if (current.id.equals(node.id) || !seen.add(current.id)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public static class Node {
+        private final Long id;
+        private final String name;
+        private final String description;
+        private final Long parentId;
+        private final Integer sortOrder;
+        private List<Node> children = new ArrayList<>();
+        private Set<Long> descendantIds;
+        private int depth;
+
+        Node(Long id, String name, String description, Long parentId, Integer sortOrder) {
+            this.id = id;
+            this.name = name;
+            this.description = description;
+            this.parentId = parentId;
+            this.sortOrder = sortOrder;
+        }
+
+        public Long getId() { return id; }
+        public String getName() { return name; }
+        public String getDescription() { return description; }
+        public Long getParentId() { return parentId; }
+        public Integer getSortOrder() { return sortOrder; }
+        public List<Node> getChildren() { return children; }
+        public Set<Long> getDescendantIds() { return descendantIds; }
+        public int getDepth() { return depth; }
+    }
+}
@@ -1,5 +1,6 @@
 package com.PetHubAI.PetHubAIBackend.service;
 
+import com.PetHubAI.PetHubAIBackend.entity.PetImage;
 import com.cloudinary.Cloudinary;
 import com.cloudinary.Transformation;
 import com.cloudinary.utils.ObjectUtils;
@@ -8,89 +9,101 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
+// Cloudinary storage backend. Variants arrive pre-sized and are stored as-is; originals the server cannot
+// decode are sized by a Cloudinary transformation instead. Storage keys are Cloudinary public ids.
 @Service
-public class CloudinaryImageService {
+public class CloudinaryImageService implements ImageStorage {
+
+    private static final String FOLDER_PREFIX = "petcare/";
+    private static final int DELETE_BATCH_SIZE = 100;
 
     @Autowired
     private Cloudinary cloudinary;
 
-    public String uploadPetImage(MultipartFile file, Long petId) throws IOException {
-        System.out.println("🔍 Starting image upload for pet ID: " + petId);
-        System.out.println("📄 File info - Name: " + file.getOriginalFilename() + ", Size: " + file.getSize() + " bytes");
-
-        try {
-            validateImageFile(file);
+    @Autowired
+    private ImageVariantProcessor imageVariantProcessor;
 
-            // FIX: Create proper transformation using Transformation class
-            Transformation transformation = new Transformation()
-                    .width(800)
-                    .height(600)
-                    .crop("fill")
-                    .gravity("auto")
-                    .quality("auto:good")
-                    .fetchFormat("auto");
+    @Override
+    public PetImage.ImageSource getSource() {
+        return PetImage.ImageSource.CLOUDINARY;
+    }
 
-            // FIX: Use simplified upload options without nested transformation map
+    @Override
+    public StoredImage store(ImageVariantProcessor.Variant variant, String folder, String name) throws IOException {
+        try {
             Map<String, Object> uploadOptions = ObjectUtils.asMap(
-                    "folder", "petcare/pets/" + petId,
-                    "public_id", generatePublicId(petId),
+                    "folder", folder,
+                    "public_id", generatePublicId(name),
                     "resource_type", "image",
-                    "transformation", transformation // Pass the Transformation object directly
+                    "format", variant.getFormat()
             );
-
-            System.out.println("📤 Uploading to Cloudinary with transformation...");
-
-            // Upload to Cloudinary
-            Map<String, Object> result = cloudinary.uploader().upload(file.getBytes(), uploadOptions);
-
-            System.out.println("✅ Cloudinary upload successful!");
-            System.out.println("🔗 Result: " + result);
-
-            String imageUrl = result.get("secure_url").toString();
-            System.out.println("🌐 Final image URL: " + imageUrl);
-
-            return imageUrl;
-
+            Map<String, Object> result = cloudinary.uploader().upload(variant.getData(), uploadOptions);
+            System.out.println("📤 Uploaded " + variant.getWidth() + "x" + variant.getHeight() + " variant ("
+                    + variant.getData().length + " bytes) to " + folder);
+            return new StoredImage(result.get("secure_url").toString(), result.get("public_id").toString(),
+                    getSource(), variant.getData().length, variant.getWidth(), variant.getHeight());
         } catch (Exception e) {
-            System.err.println("❌ Cloudinary upload failed: " + e.getMessage());
-            e.printStackTrace();
+            System.err.println("❌ Variant upload failed: " + e.getMessage());
             throw new IOException("Failed to upload image to Cloudinary: " + e.getMessage());
         }
     }
 
-    public String uploadPetThumbnail(MultipartFile file, Long petId) throws IOException {
+    @Override
+    public StoredImage storeOriginal(MultipartFile file, String format, String folder, String name,
+                                     ImageVariantProcessor.VariantSpec size) throws IOException {
+        System.out.println("📄 File info - Name: " + file.getOriginalFilename() + ", Size: " + file.getSize() + " bytes");
         try {
-            validateImageFile(file);
-
-            // FIX: Create separate transformation for thumbnails
-            Transformation thumbnailTransformation = new Transformation()
-                    .width(300)
-                    .height(300)
+            Transformation transformation = new Transformation()
+                    .width(size.getWidth())
+                    .height(size.getHeight())
                     .crop("fill")
                     .gravity("auto")
                     .quality("auto:good")
                     .fetchFormat("auto");
 
             Map<String, Object> uploadOptions = ObjectUtils.asMap(
-                    "folder", "petcare/thumbnails/" + petId,
-                    "public_id", "thumb_" + generatePublicId(petId),
+                    "folder", folder,
+                    "public_id", generatePublicId(name),
                     "resource_type", "image",
-                    "transformation", thumbnailTransformation
+                    "transformation", transformation
             );
 
-            Map<String, Object> result = cloudinary.uploader().upload(file.getBytes(), uploadOptions);
-            return result.get("secure_url").toString();
+            System.out.println("📤 Uploading original to Cloudinary with transformation...");
+            Map<String, Object> result = uploadSpooled(file, uploadOptions);
+
+            String imageUrl = result.get("secure_url").toString();
+            System.out.println("✅ Cloudinary upload successful: " + imageUrl);
+            // The incoming transformation resized it; the response describes the stored result
+            return new StoredImage(imageUrl, result.get("public_id").toString(), getSource(), file.getSize(),
+                    intValue(result.get("width")), intValue(result.get("height")));
 
         } catch (Exception e) {
-            System.err.println("❌ Thumbnail upload failed: " + e.getMessage());
-            throw new IOException("Failed to upload thumbnail: " + e.getMessage());
+            System.err.println("❌ Cloudinary upload failed: " + e.getMessage());
+            e.printStackTrace();
+            throw new IOException("Failed to upload image to Cloudinary: " + e.getMessage());
         }
     }
 
-    public boolean deletePetImage(String publicId) {
+    @Override
+    public boolean delete(String publicId) {
         try {
             Map<String, Object> result = cloudinary.uploader().destroy(publicId, ObjectUtils.emptyMap());
             return "ok".equals(result.get("result"));
@@ -100,7 +113,112 @@ public class CloudinaryImageService {
         }
     }
 
-    private void validateImageFile(MultipartFile file) throws IOException {
+    // Admin API deletes up to 100 public ids per call, instead of one destroy call per asset
+    @Override
+    public int deleteAll(Collection<String> publicIds) {
+        List<String> ids = new ArrayList<>(new LinkedHashSet<>(publicIds));
+        int deleted = 0;
+        for (int from = 0; from < ids.size(); from += DELETE_BATCH_SIZE) {
+            List<String> batch = ids.subList(from, Math.min(from + DELETE_BATCH_SIZE, ids.size()));
+            try {
+                Map<?, ?> result = cloudinary.api().deleteResources(batch, ObjectUtils.emptyMap());
+                Object outcomes = result.get("deleted");
+                if (outcomes instanceof Map) {
+                    for (Object outcome : ((Map<?, ?>) outcomes).values()) {
+                        if ("deleted".equals(outcome)) {
+                            deleted++;
+                        }
+                    }
+                }
+            } catch (Exception e) {
+                System.err.println("❌ Failed to delete " + batch.size() + " images from Cloudinary: " + e.getMessage());
+            }
+        }
+        return deleted;
+    }
+
+    // Only our own folder is listed; anything else in the account is not ours to sweep
+    @Override
+    public String listPage(String cursor, int limit, List<StoredAsset> into) throws IOException {
+        try {
+            Map<String, Object> options = ObjectUtils.asMap(
+                    "type", "upload",
+                    "prefix", FOLDER_PREFIX,
+                    "max_results", Math.min(limit, 500));
+            if (cursor != null) {
+                options.put("next_cursor", cursor);
+            }
+            Map<?, ?> result = cloudinary.api().resources(options);
+            Object resources = result.get("resources");
+            if (resources instanceof List) {
+                for (Object resource : (List<?>) resources) {
+                    Map<?, ?> fields = (Map<?, ?>) resource;
+                    Object createdAt = fields.get("created_at");
+                    into.add(new StoredAsset(String.valueOf(fields.get("public_id")),
+                            createdAt != null ? Instant.parse(createdAt.toString()) : Instant.now()));
+                }
+            }
+            Object next = result.get("next_cursor");
+            return next != null ? next.toString() : null;
+        } catch (Exception e) {
+            throw new IOException("Failed to list Cloudinary images: " + e.getMessage());
+        }
+    }
+
+    // https://res.cloudinary.com/<cloud>/image/upload/[<transformations>/][v<version>/]<folders>/<name>.<ext>
+    // The public id is everything after the version (or transformations), folders included, minus the extension
+    public static String publicIdFromUrl(String url) {
+        if (url == null || !url.contains("res.cloudinary.com")) {
+            return null;
+        }
+        int upload = url.indexOf("/upload/");
+        if (upload < 0) {
+            return null;
+        }
+        String path = url.substring(upload + "/upload/".length());
+        int query = path.indexOf('?');
+        if (query >= 0) {
+            path = path.substring(0, query);
+        }
+
+        String[] segments = path.split("/");
+        int first = 0;
+        for (int i = 0; i < segments.length - 1; i++) {
+            if (segments[i].matches("v\\d+")) {
+                first = i + 1;
+                break;
+            }
+            if (segments[i].contains(",") || segments[i].matches("[a-z]{1,2}_[^_].*")) {
+                first = i + 1;
+            } else {
+                break;
+            }
+        }
+        if (first >= segments.length) {
+            return null;
+        }
+
+        String publicId = String.join("/", Arrays.copyOfRange(segments, first, segments.length));
+        int dot = publicId.lastIndexOf('.');
+        if (dot > publicId.lastIndexOf('/')) {
+            publicId = publicId.substring(0, dot);
+        }
+        return publicId.isEmpty() ? null : publicId;
+    }
+
+    public ImageVariantProcessor.ImageInfo validateImage(MultipartFile file) throws IOException {
+        return validateImageFile(file, false);
+    }
+
+    // Same checks for a file about to be stored; the result also carries its SHA-256 for ImageAssetService
+    public ImageVariantProcessor.ImageInfo validateAndHashImage(MultipartFile file) throws IOException {
+        return validateImageFile(file, true);
+    }
+
+    // Header checks only: the declared type, then the real format from magic bytes and the dimensions,
+    // read from the start of the servlet's temp file. When hashing, the rest of the file streams through
+    // the digest after the header, so the upload is still read once (spooled files were hashed already).
+    private ImageVariantProcessor.ImageInfo validateImageFile(MultipartFile file, boolean hash) throws IOException {
         System.out.println("🔒 Validating image file...");
 
         if (file.isEmpty()) {
@@ -134,95 +252,53 @@ public class CloudinaryImageService {
             throw new IOException("Unsupported image format. Allowed: JPG, PNG, GIF, WebP");
         }
 
-        System.out.println("✅ File validation passed");
-    }
+        // The declared content type is client-supplied; the bytes decide
+        ImageVariantProcessor.ImageInfo info;
+        String spooledHash = file instanceof SpooledMultipartFile ? ((SpooledMultipartFile) file).getContentHash() : null;
+        MessageDigest digest = hash && spooledHash == null ? newDigest() : null;
+        try (InputStream raw = file.getInputStream()) {
+            InputStream input = digest != null ? new DigestInputStream(raw, digest) : raw;
+            info = imageVariantProcessor.inspect(input);
+            if (digest != null) {
+                input.transferTo(OutputStream.nullOutputStream());
+            }
+        }
+        if (hash) {
+            String contentHash = digest != null ? HexFormat.of().formatHex(digest.digest()) : spooledHash;
+            info = new ImageVariantProcessor.ImageInfo(info.getFormat(), info.getWidth(), info.getHeight(), contentHash);
+        }
 
-    private String generatePublicId(Long petId) {
-        return "pet_" + petId + "_" + UUID.randomUUID().toString().substring(0, 8);
+        System.out.println("✅ File validation passed: " + info.getFormat() + " " + info.getWidth() + "x" + info.getHeight());
+        return info;
     }
 
-    // Add these methods to your existing CloudinaryImageService.java
-
-    public String uploadProductImage(MultipartFile file, Long productId) throws IOException {
-        System.out.println("🔍 Starting image upload for product ID: " + productId);
-        System.out.println("📄 File info - Name: " + file.getOriginalFilename() + ", Size: " + file.getSize() + " bytes");
-
+    // Cloudinary streams a File from disk; the multipart content is copied there through a small buffer
+    // instead of being materialised with getBytes()
+    private Map<String, Object> uploadSpooled(MultipartFile file, Map<String, Object> uploadOptions) throws IOException {
+        Path spooled = Files.createTempFile("pethub-upload-", ".img");
         try {
-            validateImageFile(file); // Same validation as pets
-
-            // Same transformation logic as pets
-            Transformation transformation = new Transformation()
-                    .width(800)
-                    .height(600)
-                    .crop("fill")
-                    .gravity("auto")
-                    .quality("auto:good")
-                    .fetchFormat("auto");
-
-            Map<String, Object> uploadOptions = ObjectUtils.asMap(
-                    "folder", "petcare/products/" + productId, // Different folder
-                    "public_id", generateProductPublicId(productId), // Different prefix
-                    "resource_type", "image",
-                    "transformation", transformation
-            );
-
-            System.out.println("📤 Uploading product image to Cloudinary...");
-
-            Map<String, Object> result = cloudinary.uploader().upload(file.getBytes(), uploadOptions);
-
-            String imageUrl = result.get("secure_url").toString();
-            System.out.println("✅ Product image uploaded: " + imageUrl);
-
-            return imageUrl;
-
-        } catch (Exception e) {
-            System.err.println("❌ Product image upload failed: " + e.getMessage());
-            e.printStackTrace();
-            throw new IOException("Failed to upload product image: " + e.getMessage());
+            try (InputStream input = file.getInputStream()) {
+                Files.copy(input, spooled, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return cloudinary.uploader().upload(spooled.toFile(), uploadOptions);
+        } finally {
+            Files.deleteIfExists(spooled);
         }
     }
 
-    public String uploadProductThumbnail(MultipartFile file, Long productId) throws IOException {
-        try {
-            validateImageFile(file);
-
-            Transformation thumbnailTransformation = new Transformation()
-                    .width(300)
-                    .height(300)
-                    .crop("fill")
-                    .gravity("auto")
-                    .quality("auto:good")
-                    .fetchFormat("auto");
-
-            Map<String, Object> uploadOptions = ObjectUtils.asMap(
-                    "folder", "petcare/product-thumbnails/" + productId,
-                    "public_id", "thumb_" + generateProductPublicId(productId),
-                    "resource_type", "image",
-                    "transformation", thumbnailTransformation
-            );
-
-            Map<String, Object> result = cloudinary.uploader().upload(file.getBytes(), uploadOptions);
-            return result.get("secure_url").toString();
+    private String generatePublicId(String name) {
+        return name + "_" + UUID.randomUUID().toString().substring(0, 8);
+    }
 
-        } catch (Exception e) {
-            System.err.println("❌ Product thumbnail upload failed: " + e.getMessage());
-            throw new IOException("Failed to upload product thumbnail: " + e.getMessage());
-        }
+    private static int intValue(Object value) {
+        return value instanceof Number ? ((Number) value).intValue() : 0;
     }
 
-    public boolean deleteProductImage(String publicId) {
+    private static MessageDigest newDigest() {
         try {
-            Map<String, Object> result = cloudinary.uploader().destroy(publicId, ObjectUtils.emptyMap());
-            return "ok".equals(result.get("result"));
-        } catch (Exception e) {
-            System.err.println("Failed to delete product image from Cloudinary: " + e.getMessage());
-            return false;
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
         }
     }
-
-    // Helper method for product public IDs
-    private String generateProductPublicId(Long productId) {
-        return "product_" + productId + "_" + UUID.randomUUID().toString().substring(0, 8);
-    }
-
 }
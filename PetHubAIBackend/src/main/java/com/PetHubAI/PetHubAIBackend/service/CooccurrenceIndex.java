@@ -0,0 +1,217 @@
+package com.PetHubAI.PetHubAIBackend.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// "Bought together" counts between products, bounded per product. Each product keeps at most CAPACITY
+// partner counters managed Space-Saving style: a new partner evicts the weakest counter and inherits its
+// score, so frequent partners always survive while memory stays O(products * CAPACITY).
+public class CooccurrenceIndex {
+
+    private static final int CAPACITY = 24;
+    // Large orders would add n^2 pairs; only the first products of an order are paired
+    private static final int MAX_PRODUCTS_PER_ORDER = 40;
+    // Decayed counters below this are dropped so dead pairs do not pin memory
+    private static final double MIN_SCORE = 0.05;
+
+    private final Map<Long, Partners> partners = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Adds one co-occurrence between every pair of distinct products in the basket
+    public void addBasket(Collection<Long> productIds) {
+        addBasket(productIds, 1.0);
+    }
+
+    // Same, counting the basket as weight (e.g. already decayed for an old order)
+    public void addBasket(Collection<Long> productIds, double weight) {
+        List<Long> basket = basket(productIds);
+        if (basket.size() < 2 || weight <= 0) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            for (Long a : basket) {
+                Partners list = partners.computeIfAbsent(a, id -> new Partners());
+                for (Long b : basket) {
+                    if (!a.equals(b)) {
+                        list.increment(b, weight);
+                    }
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Takes a basket back out (cancelled order). Best effort: a partner already evicted stays evicted, and
+    // counters that fall below MIN_SCORE are dropped
+    public void removeBasket(Collection<Long> productIds, double weight) {
+        List<Long> basket = basket(productIds);
+        if (basket.size() < 2 || weight <= 0) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            for (Long a : basket) {
+                Partners list = partners.get(a);
+                if (list == null) {
+                    continue;
+                }
+                for (Long b : basket) {
+                    if (!a.equals(b)) {
+                        list.decrement(b, weight);
+                    }
+                }
+                if (list.size == 0) {
+                    partners.remove(a);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Partner ids of the product, strongest first
+    public List<Long> top(Long productId, int limit) {
+        lock.readLock().lock();
+        try {
+            Partners list = partners.get(productId);
+            return list != null ? list.top(limit) : new ArrayList<>();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Summed scores of the partners of several products, e.g. a cart; the products themselves are excluded
+    public Map<Long, Double> combined(Collection<Long> productIds) {
+        lock.readLock().lock();
+        try {
+            Map<Long, Double> scores = new HashMap<>();
+            for (Long productId : productIds) {
+                Partners list = partners.get(productId);
+                if (list == null) {
+                    continue;
+                }
+                for (int i = 0; i < list.size; i++) {
+                    scores.merge(list.ids[i], list.scores[i], Double::sum);
+                }
+            }
+            productIds.forEach(scores::remove);
+            return scores;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Multiplies every counter by factor (0..1) so recent baskets outweigh old ones
+    public void decay(double factor) {
+        lock.writeLock().lock();
+        try {
+            partners.values().removeIf(list -> list.decay(factor) == 0);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public long productCount() {
+        lock.readLock().lock();
+        try {
+            return partners.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long pairCount() {
+        lock.readLock().lock();
+        try {
+            long total = 0;
+            for (Partners list : partners.values()) {
+                total += list.size;
+            }
+            return total;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static List<Long> basket(Collection<Long> productIds) {
+        List<Long> basket = new ArrayList<>(new LinkedHashSet<>(productIds));
+        return basket.size() > MAX_PRODUCTS_PER_ORDER ? basket.subList(0, MAX_PRODUCTS_PER_ORDER) : basket;
+    }
+
+    // Unsorted parallel arrays; CAPACITY is small enough that linear scans beat any heap or map
+    private static class Partners {
+        private final long[] ids = new long[CAPACITY];
+        private final double[] scores = new double[CAPACITY];
+        private int size;
+
+        void increment(long id, double amount) {
+            int weakest = -1;
+            for (int i = 0; i < size; i++) {
+                if (ids[i] == id) {
+                    scores[i] += amount;
+                    return;
+                }
+                if (weakest < 0 || scores[i] < scores[weakest]) {
+                    weakest = i;
+                }
+            }
+            if (size < CAPACITY) {
+                ids[size] = id;
+                scores[size] = amount;
+                size++;
+            } else {
+                ids[weakest] = id;
+                scores[weakest] += amount;
+            }
+        }
+
+        void decrement(long id, double amount) {
+            for (int i = 0; i < size; i++) {
+                if (ids[i] == id) {
+                    scores[i] -= amount;
+                    if (scores[i] < MIN_SCORE) {
+                        size--;
+                        ids[i] = ids[size];
+                        scores[i] = scores[size];
+                    }
+                    return;
+                }
+            }
+        }
+
+        List<Long> top(int limit) {
+            List<Integer> order = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                order.add(i);
+            }
+            order.sort((x, y) -> Double.compare(scores[y], scores[x]));
+            List<Long> result = new ArrayList<>(Math.min(limit, size));
+            for (int i = 0; i < order.size() && result.size() < limit; i++) {
+                result.add(ids[order.get(i)]);
+            }
+            return result;
+        }
+
+        int decay(double factor) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                double score = scores[i] * factor;
+                if (score >= MIN_SCORE) {
+                    ids[kept] = ids[i];
+                    scores[kept] = score;
+                    kept++;
+                }
+            }
+            size = kept;
+            return size;
+        }
+    }
+}
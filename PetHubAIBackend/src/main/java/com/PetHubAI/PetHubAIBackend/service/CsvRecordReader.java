@@ -0,0 +1,160 @@
+package com.PetHubAI.PetHubAIBackend.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Incremental RFC 4180 reader: one record at a time off a Reader, quoted fields may hold commas, quotes
+// ("") and line breaks. The first record is the header; later records come back keyed by header name.
+// A field or record over the limits is read to its end but not kept, and next() fails for that record only.
+public class CsvRecordReader {
+
+    static final int MAX_FIELD_LENGTH = 64 * 1024;
+    static final int MAX_RECORD_LENGTH = 256 * 1024;
+
+    private final Reader reader;
+    private final List<String> header;
+    private int pushedBack = -2;
+    private long lineNumber = 1;
+    private int recordLength;
+    private String overflow;
+
+    public CsvRecordReader(Reader reader) throws IOException {
+        this.reader = reader;
+        List<String> columns;
+        try {
+            columns = readFields();
+        } catch (RecordTooLongException e) {
+            throw new IOException("CSV header: " + e.getMessage());
+        }
+        this.header = new ArrayList<>();
+        if (columns != null) {
+            for (String column : columns) {
+                header.add(column.replace("\uFEFF", "").trim());
+            }
+        }
+    }
+
+    public List<String> getHeader() {
+        return header;
+    }
+
+    // Next record, or null at end of input. Blank lines are skipped. Throws RecordTooLongException for an
+    // oversized record, after which the reader is positioned at the following one.
+    public Map<String, String> next() throws IOException {
+        List<String> fields;
+        do {
+            fields = readFields();
+            if (fields == null) {
+                return null;
+            }
+        } while (fields.size() == 1 && fields.get(0).isEmpty());
+
+        Map<String, String> record = new LinkedHashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            record.put(header.get(i), i < fields.size() ? fields.get(i) : null);
+        }
+        return record;
+    }
+
+    // Helper methods
+    private List<String> readFields() throws IOException {
+        int c = read();
+        if (c == -1) {
+            return null;
+        }
+
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        long startLine = lineNumber;
+        recordLength = 0;
+        overflow = null;
+        while (true) {
+            if (quoted) {
+                if (c == -1) {
+                    throw new IOException("Unterminated quoted field near line " + lineNumber);
+                }
+                if (c == '"') {
+                    int next = read();
+                    if (next == '"') {
+                        append(field, '"');
+                    } else {
+                        quoted = false;
+                        c = next;
+                        continue;
+                    }
+                } else {
+                    if (c == '\n') {
+                        lineNumber++;
+                    }
+                    append(field, (char) c);
+                }
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+            } else if (c == ',') {
+                // Separators count too, or a line of commas would grow the field list without bound
+                append(field, ',');
+                if (overflow == null) {
+                    fields.add(field.substring(0, field.length() - 1));
+                }
+                field.setLength(0);
+            } else if (c == '\r' || c == '\n' || c == -1) {
+                if (c == '\r') {
+                    int next = read();
+                    if (next != '\n') {
+                        unread(next);
+                    }
+                }
+                if (c != -1) {
+                    lineNumber++;
+                }
+                if (overflow != null) {
+                    throw new RecordTooLongException(overflow + " in the record starting at line " + startLine);
+                }
+                fields.add(field.toString());
+                return fields;
+            } else {
+                append(field, (char) c);
+            }
+            c = read();
+        }
+    }
+
+    // Once over a limit the record's content is dropped; reading carries on to find where it ends
+    private void append(StringBuilder field, char c) {
+        if (overflow != null) {
+            return;
+        }
+        if (++recordLength > MAX_RECORD_LENGTH) {
+            overflow = "Record longer than " + MAX_RECORD_LENGTH + " characters";
+        } else if (c != ',' && field.length() >= MAX_FIELD_LENGTH) {
+            overflow = "Field longer than " + MAX_FIELD_LENGTH + " characters";
+        }
+        if (overflow == null) {
+            field.append(c);
+        }
+    }
+
+    private int read() throws IOException {
+        if (pushedBack != -2) {
+            int c = pushedBack;
+            pushedBack = -2;
+            return c;
+        }
+        return reader.read();
+    }
+
+    private void unread(int c) {
+        pushedBack = c;
+    }
+
+    public static class RecordTooLongException extends RuntimeException {
+        public RecordTooLongException(String message) {
+            super(message);
+        }
+    }
+}
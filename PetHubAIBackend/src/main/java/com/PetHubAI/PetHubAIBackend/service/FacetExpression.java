@@ -0,0 +1,230 @@
+package com.PetHubAI.PetHubAIBackend.service;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+
+// Boolean filter over facet terms for ProductFacetIndex, e.g.
+//   (brand:acme OR tag:"grain free") AND NOT price:0-250 AND inStock:true
+// NOT binds tighter than AND, AND tighter than OR; keywords are case-insensitive and parentheses group.
+// A term is facet:value and matches the products carrying that value; evaluation is bitmap AND/OR/ANDNOT.
+public abstract class FacetExpression {
+
+    // Keeps a hostile filter from exhausting the stack or the request
+    private static final int MAX_DEPTH = 32;
+    private static final int MAX_TERMS = 100;
+
+    public static FacetExpression parse(String text) {
+        if (text == null || text.isBlank()) {
+            throw new IllegalArgumentException("Filter is empty");
+        }
+        Parser parser = new Parser(tokenize(text));
+        FacetExpression expression = parser.parseOr(0);
+        if (parser.position < parser.tokens.size()) {
+            throw new IllegalArgumentException("Unexpected '" + parser.tokens.get(parser.position) + "' in filter");
+        }
+        return expression;
+    }
+
+    // Rewrites the values of one facet's terms, e.g. a category into itself and its subcategories
+    public abstract void expand(String facet, Function<List<String>, List<String>> expansion);
+
+    // lookup gives the products carrying any of a facet's values; universe is every live product
+    abstract BitSet evaluate(Function<Term, BitSet> lookup, BitSet universe);
+
+    // Helper methods
+    private static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        int i = 0;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '(' || c == ')') {
+                tokens.add(String.valueOf(c));
+                i++;
+            } else {
+                // A word runs to whitespace or a parenthesis; a quoted part may contain both
+                StringBuilder word = new StringBuilder();
+                while (i < text.length() && !Character.isWhitespace(text.charAt(i))
+                        && text.charAt(i) != '(' && text.charAt(i) != ')') {
+                    if (text.charAt(i) == '"') {
+                        int close = text.indexOf('"', i + 1);
+                        if (close < 0) {
+                            throw new IllegalArgumentException("Unclosed quote in filter");
+                        }
+                        word.append(text, i + 1, close);
+                        i = close + 1;
+                    } else {
+                        word.append(text.charAt(i++));
+                    }
+                }
+                tokens.add(word.toString());
+            }
+        }
+        return tokens;
+    }
+
+    private static class Parser {
+        private final List<String> tokens;
+        private int position;
+        private int terms;
+
+        Parser(List<String> tokens) {
+            this.tokens = tokens;
+        }
+
+        FacetExpression parseOr(int depth) {
+            FacetExpression left = parseAnd(depth);
+            while (accept("OR")) {
+                left = new Or(left, parseAnd(depth));
+            }
+            return left;
+        }
+
+        FacetExpression parseAnd(int depth) {
+            FacetExpression left = parseNot(depth);
+            while (accept("AND")) {
+                left = new And(left, parseNot(depth));
+            }
+            return left;
+        }
+
+        FacetExpression parseNot(int depth) {
+            if (accept("NOT")) {
+                return new Not(parseNot(depth + 1));
+            }
+            return parsePrimary(depth);
+        }
+
+        FacetExpression parsePrimary(int depth) {
+            if (depth > MAX_DEPTH) {
+                throw new IllegalArgumentException("Filter is nested too deeply");
+            }
+            if (position >= tokens.size()) {
+                throw new IllegalArgumentException("Filter ends unexpectedly");
+            }
+            String token = tokens.get(position++);
+            if (token.equals("(")) {
+                FacetExpression inner = parseOr(depth + 1);
+                if (!accept(")")) {
+                    throw new IllegalArgumentException("Missing ')' in filter");
+                }
+                return inner;
+            }
+            int colon = token.indexOf(':');
+            if (colon <= 0 || colon == token.length() - 1) {
+                throw new IllegalArgumentException("Expected facet:value in filter, got '" + token + "'");
+            }
+            if (++terms > MAX_TERMS) {
+                throw new IllegalArgumentException("Filter has more than " + MAX_TERMS + " terms");
+            }
+            return new Term(token.substring(0, colon), token.substring(colon + 1));
+        }
+
+        private boolean accept(String keyword) {
+            if (position < tokens.size() && tokens.get(position).equalsIgnoreCase(keyword)) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+    }
+
+    public static class Term extends FacetExpression {
+        private final String facet;
+        private List<String> values;
+
+        Term(String facet, String value) {
+            if (!ProductFacetIndex.FACETS.contains(facet)) {
+                throw new IllegalArgumentException("Unknown facet '" + facet + "' in filter; expected one of "
+                        + ProductFacetIndex.FACETS);
+            }
+            this.facet = facet;
+            this.values = List.of(value);
+        }
+
+        @Override
+        public void expand(String facet, Function<List<String>, List<String>> expansion) {
+            if (this.facet.equals(facet)) {
+                values = expansion.apply(values);
+            }
+        }
+
+        @Override
+        BitSet evaluate(Function<Term, BitSet> lookup, BitSet universe) {
+            return lookup.apply(this);
+        }
+
+        public String getFacet() { return facet; }
+        public Collection<String> getValues() { return values; }
+    }
+
+    private static class And extends FacetExpression {
+        private final FacetExpression left;
+        private final FacetExpression right;
+
+        And(FacetExpression left, FacetExpression right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        public void expand(String facet, Function<List<String>, List<String>> expansion) {
+            left.expand(facet, expansion);
+            right.expand(facet, expansion);
+        }
+
+        @Override
+        BitSet evaluate(Function<Term, BitSet> lookup, BitSet universe) {
+            BitSet result = left.evaluate(lookup, universe);
+            result.and(right.evaluate(lookup, universe));
+            return result;
+        }
+    }
+
+    private static class Or extends FacetExpression {
+        private final FacetExpression left;
+        private final FacetExpression right;
+
+        Or(FacetExpression left, FacetExpression right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        public void expand(String facet, Function<List<String>, List<String>> expansion) {
+            left.expand(facet, expansion);
+            right.expand(facet, expansion);
+        }
+
+        @Override
+        BitSet evaluate(Function<Term, BitSet> lookup, BitSet universe) {
+            BitSet result = left.evaluate(lookup, universe);
+            result.or(right.evaluate(lookup, universe));
+            return result;
+        }
+    }
+
+    private static class Not extends FacetExpression {
+        private final FacetExpression operand;
+
+        Not(FacetExpression operand) {
+            this.operand = operand;
+        }
+
+        @Override
+        public void expand(String facet, Function<List<String>, List<String>> expansion) {
+            operand.expand(facet, expansion);
+        }
+
+        @Override
+        BitSet evaluate(Function<Term, BitSet> lookup, BitSet universe) {
+            BitSet result = (BitSet) universe.clone();
+            result.andNot(operand.evaluate(lookup, universe));
+            return result;
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package com.PetHubAI.PetHubAIBackend.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+// Hashed timing wheel (Varghese & Lauck) for large numbers of coarse timeouts. A timeout is hashed into one
+// of a fixed ring of buckets by its deadline tick; one thread advances a tick at a time and only walks the
+// bucket under its hand. Scheduling and cancelling are O(1) and cost one small object, so 100k pending
+// timeouts are a few MB and no heap-ordered queue. Entries further out than one revolution stay in their
+// bucket and count down their remaining rounds. Timeouts fire up to one tick late, never early.
+public class HashedTimingWheel<T> {
+
+    // Upper bound on newly scheduled timeouts moved into the wheel per tick, so a burst cannot stall the hand
+    private static final int MAX_TRANSFERS_PER_TICK = 100_000;
+
+    private final long tickNanos;
+    private final Bucket<T>[] wheel;
+    private final int mask;
+    private final Consumer<List<T>> onExpired;
+
+    // Producers only touch these queues; the buckets belong to the worker thread
+    private final Queue<Timeout<T>> scheduled = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout<T>> cancelled = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicLong expiredTotal = new AtomicLong();
+    private final Thread worker;
+    private final long startTime;
+    private volatile boolean running = true;
+    private long tick;
+
+    // onExpired receives everything that expired on one tick, on the wheel thread; hand slow work off
+    @SuppressWarnings("unchecked")
+    public HashedTimingWheel(Duration tickDuration, int wheelSize, String threadName, Consumer<List<T>> onExpired) {
+        if (tickDuration.toMillis() < 1) {
+            throw new IllegalArgumentException("Tick duration must be at least 1ms");
+        }
+        int size = Integer.highestOneBit(Math.max(wheelSize, 1) - 1) << 1;
+        this.tickNanos = tickDuration.toNanos();
+        this.wheel = new Bucket[Math.max(size, 1)];
+        for (int i = 0; i < wheel.length; i++) {
+            wheel[i] = new Bucket<>();
+        }
+        this.mask = wheel.length - 1;
+        this.onExpired = onExpired;
+        this.startTime = System.nanoTime();
+        this.worker = new Thread(this::run, threadName);
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    public Timeout<T> schedule(T payload, Duration delay) {
+        if (!running) {
+            throw new IllegalStateException("Timing wheel has been stopped");
+        }
+        long deadline = System.nanoTime() - startTime + Math.max(delay.toNanos(), 0);
+        Timeout<T> timeout = new Timeout<>(this, payload, deadline);
+        pending.incrementAndGet();
+        scheduled.add(timeout);
+        return timeout;
+    }
+
+    public int getPending() {
+        return pending.get();
+    }
+
+    public long getExpiredTotal() {
+        return expiredTotal.get();
+    }
+
+    public int getWheelSize() {
+        return wheel.length;
+    }
+
+    public Duration getTickDuration() {
+        return Duration.ofNanos(tickNanos);
+    }
+
+    // Pending timeouts are dropped without firing
+    public void stop() {
+        running = false;
+        worker.interrupt();
+        try {
+            worker.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        while (running) {
+            if (!awaitTick()) {
+                break;
+            }
+            removeCancelled();
+            transferScheduled();
+
+            List<T> expired = wheel[(int) (tick & mask)].expire(System.nanoTime() - startTime);
+            tick++;
+            if (!expired.isEmpty()) {
+                pending.addAndGet(-expired.size());
+                expiredTotal.addAndGet(expired.size());
+                try {
+                    onExpired.accept(expired);
+                } catch (Exception e) {
+                    System.err.println("❌ Timing wheel callback failed: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    // Sleeps until the end of the current tick; false when stopped
+    private boolean awaitTick() {
+        long deadline = tickNanos * (tick + 1);
+        while (running) {
+            long sleepNanos = deadline - (System.nanoTime() - startTime);
+            if (sleepNanos <= 0) {
+                return true;
+            }
+            try {
+                TimeUnit.NANOSECONDS.sleep(sleepNanos);
+            } catch (InterruptedException e) {
+                if (!running) {
+                    return false;
+                }
+            }
+        }
+        return false;
+    }
+
+    private void transferScheduled() {
+        for (int i = 0; i < MAX_TRANSFERS_PER_TICK; i++) {
+            Timeout<T> timeout = scheduled.poll();
+            if (timeout == null) {
+                return;
+            }
+            if (timeout.isCancelled()) {
+                continue;
+            }
+            long deadlineTick = timeout.deadline / tickNanos;
+            timeout.remainingRounds = (deadlineTick - tick) / wheel.length;
+            // Already overdue: put it under the hand so it fires on this tick
+            long targetTick = Math.max(deadlineTick, tick);
+            wheel[(int) (targetTick & mask)].add(timeout);
+        }
+    }
+
+    private void removeCancelled() {
+        Timeout<T> timeout;
+        while ((timeout = cancelled.poll()) != null) {
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+            }
+        }
+    }
+
+    public static class Timeout<T> {
+        private static final int ACTIVE = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+
+        private final HashedTimingWheel<T> owner;
+        private final T payload;
+        private final long deadline;
+        private final AtomicInteger state = new AtomicInteger(ACTIVE);
+
+        // Worker-thread only
+        private long remainingRounds;
+        private Bucket<T> bucket;
+        private Timeout<T> prev;
+        private Timeout<T> next;
+
+        private Timeout(HashedTimingWheel<T> owner, T payload, long deadline) {
+            this.owner = owner;
+            this.payload = payload;
+            this.deadline = deadline;
+        }
+
+        // False if it already fired or was cancelled
+        public boolean cancel() {
+            if (!state.compareAndSet(ACTIVE, CANCELLED)) {
+                return false;
+            }
+            owner.pending.decrementAndGet();
+            owner.cancelled.add(this);
+            return true;
+        }
+
+        public T getPayload() { return payload; }
+        public boolean isCancelled() { return state.get() == CANCELLED; }
+        public boolean isExpired() { return state.get() == EXPIRED; }
+    }
+
+    // Intrusive doubly linked list, so removal needs no search
+    private static class Bucket<T> {
+        private Timeout<T> head;
+        private Timeout<T> tail;
+
+        void add(Timeout<T> timeout) {
+            timeout.bucket = this;
+            if (head == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        List<T> expire(long now) {
+            List<T> expired = new ArrayList<>();
+            Timeout<T> timeout = head;
+            while (timeout != null) {
+                Timeout<T> next = timeout.next;
+                if (timeout.remainingRounds <= 0 && timeout.deadline <= now) {
+                    remove(timeout);
+                    if (timeout.state.compareAndSet(Timeout.ACTIVE, Timeout.EXPIRED)) {
+                        expired.add(timeout.payload);
+                    }
+                } else if (timeout.isCancelled()) {
+                    remove(timeout);
+                } else if (timeout.remainingRounds > 0) {
+                    timeout.remainingRounds--;
+                }
+                timeout = next;
+            }
+            return expired;
+        }
+
+        void remove(Timeout<T> timeout) {
+            if (timeout.bucket != this) {
+                return;
+            }
+            if (timeout.prev != null) {
+                timeout.prev.next = timeout.next;
+            } else {
+                head = timeout.next;
+            }
+            if (timeout.next != null) {
+                timeout.next.prev = timeout.prev;
+            } else {
+                tail = timeout.prev;
+            }
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+    }
+}
@@ -0,0 +1,384 @@
+package com.PetHubAI.PetHubAIBackend.service;
+
+import com.PetHubAI.PetHubAIBackend.dto.response.ApiResponse;
+import com.PetHubAI.PetHubAIBackend.entity.IdempotencyRecord;
+import com.PetHubAI.PetHubAIBackend.entity.User;
+import com.PetHubAI.PetHubAIBackend.repository.IdempotencyRecordRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+// Idempotency-Key support for requests that must not run twice (placing an order, confirming a payment).
+// The first request with a key claims it in idempotency_keys and runs; its response is written to the claim
+// inside the request's own transaction, so the work and the recorded response commit or roll back together.
+// Duplicates arriving while it runs wait for it and get its response (on this instance through an in-flight
+// future, across instances by polling the claim); later retries within the TTL get the stored response
+// replayed from a bounded LRU, or from the table once it has been evicted.
+@Service
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 100;
+    private static final int RECENT_RESPONSES = 10_000;
+    // A claim this old belongs to a request that died mid-way; its transaction rolled back, so rerun it
+    private static final Duration LOCK_TIMEOUT = Duration.ofMinutes(2);
+    // How long a duplicate waits for the first execution before answering 409
+    private static final Duration WAIT_TIMEOUT = Duration.ofSeconds(30);
+    private static final long POLL_INTERVAL_MS = 200;
+    private static final int MAX_CLAIM_ATTEMPTS = 3;
+
+    @Value("${orders.idempotency.ttl-hours:24}")
+    private long ttlHours;
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // scope|owner|key -> execution currently running on this instance
+    private final Map<String, InFlight> inFlight = new ConcurrentHashMap<>();
+
+    private final Map<String, StoredResponse> recent = Collections.synchronizedMap(
+            new LinkedHashMap<String, StoredResponse>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, StoredResponse> eldest) {
+                    return size() > RECENT_RESPONSES;
+                }
+            });
+
+    // Runs the action at most once per key, scope and user; without a key it simply runs. request is the
+    // parsed body, hashed so a key reused for a different request is rejected instead of replayed.
+    public ResponseEntity<?> execute(String key, String scope, User user, Object request,
+                                     Supplier<ResponseEntity<?>> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error(HEADER + " must be at most " + MAX_KEY_LENGTH + " characters"));
+        }
+        String owner = user != null ? "user:" + user.getId() : "anonymous";
+        String requestHash = hash(request);
+        String cacheKey = scope + "|" + owner + "|" + key;
+
+        StoredResponse cached = recent.get(cacheKey);
+        if (cached != null && cached.isExpired()) {
+            recent.remove(cacheKey);
+            cached = null;
+        }
+        if (cached != null) {
+            return replay(cached, requestHash);
+        }
+
+        InFlight mine = new InFlight(requestHash);
+        InFlight first = inFlight.putIfAbsent(cacheKey, mine);
+        if (first != null) {
+            // Same key already running here (double click, parallel retry): answer with its response
+            if (!first.requestHash.equals(requestHash)) {
+                return mismatch();
+            }
+            StoredResponse response = await(first);
+            return response != null ? replay(response, requestHash) : stillRunning();
+        }
+
+        try {
+            return executeClaimed(key, scope, owner, requestHash, cacheKey, action, mine);
+        } finally {
+            inFlight.remove(cacheKey, mine);
+            mine.result.complete(null);
+        }
+    }
+
+    @Scheduled(cron = "${orders.idempotency.cleanup-cron:0 30 * * * *}")
+    public void deleteExpired() {
+        try {
+            Integer deleted = new TransactionTemplate(transactionManager).execute(status ->
+                    idempotencyRecordRepository.deleteExpired(LocalDateTime.now()));
+            if (deleted != null && deleted > 0) {
+                System.out.println("♻️ Deleted " + deleted + " expired idempotency keys");
+            }
+        } catch (Exception e) {
+            System.err.println("❌ Failed to delete expired idempotency keys: " + e.getMessage());
+        }
+    }
+
+    // Helper methods
+    private ResponseEntity<?> executeClaimed(String key, String scope, String owner, String requestHash,
+                                             String cacheKey, Supplier<ResponseEntity<?>> action, InFlight mine) {
+        Claim claim = claim(key, scope, owner, requestHash);
+        if (claim.mismatch) {
+            return mismatch();
+        }
+        if (claim.replay != null) {
+            recent.put(cacheKey, claim.replay);
+            mine.result.complete(claim.replay);
+            return replay(claim.replay, requestHash);
+        }
+        if (claim.recordId == null) {
+            return stillRunning();
+        }
+
+        Long recordId = claim.recordId;
+        Execution execution = new Execution();
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                execution.response = action.get();
+                execution.stored = toStored(execution.response, requestHash);
+                if (status.isRollbackOnly() || execution.stored.status >= 500) {
+                    // The request failed and its work is rolled back; mark it here so the rollback is not
+                    // reported as unexpected, and record the outcome separately below
+                    status.setRollbackOnly();
+                    return;
+                }
+                execution.recorded = idempotencyRecordRepository.complete(recordId,
+                        execution.stored.status, execution.stored.body) > 0;
+                if (!execution.recorded) {
+                    // Another execution took over the claim and completed first; undo this one
+                    execution.lost = true;
+                    status.setRollbackOnly();
+                }
+            });
+        } catch (RuntimeException e) {
+            releaseClaim(recordId);
+            throw e;
+        }
+
+        if (execution.lost) {
+            System.err.println("⚠️ Idempotency key " + key + " was completed by another request; rolled back");
+            return stillRunning();
+        }
+        if (!execution.recorded) {
+            if (execution.stored.status < 500) {
+                // Client errors are answered the same way on every retry
+                Integer completed = new TransactionTemplate(transactionManager).execute(status ->
+                        idempotencyRecordRepository.complete(recordId, execution.stored.status, execution.stored.body));
+                execution.recorded = completed != null && completed > 0;
+            } else {
+                // Server errors may be transient: free the key so a retry runs the request again
+                releaseClaim(recordId);
+            }
+        }
+
+        if (execution.recorded) {
+            recent.put(cacheKey, execution.stored);
+        }
+        mine.result.complete(execution.stored);
+        return execution.response;
+    }
+
+    // Inserts the claim, or resolves what an existing row for the key means: a stored response to replay,
+    // a claim to wait for, or an abandoned claim to take over
+    private Claim claim(String key, String scope, String owner, String requestHash) {
+        long waitUntil = System.nanoTime() + WAIT_TIMEOUT.toNanos();
+        for (int attempt = 1; attempt <= MAX_CLAIM_ATTEMPTS; attempt++) {
+            try {
+                Long recordId = new TransactionTemplate(transactionManager).execute(status -> {
+                    LocalDateTime now = LocalDateTime.now();
+                    IdempotencyRecord record = new IdempotencyRecord();
+                    record.setIdempotencyKey(key);
+                    record.setScope(scope);
+                    record.setOwner(owner);
+                    record.setRequestHash(requestHash);
+                    record.setLockedAt(now);
+                    record.setExpiresAt(now.plusHours(ttlHours));
+                    return idempotencyRecordRepository.saveAndFlush(record).getId();
+                });
+                return Claim.owned(recordId);
+            } catch (DataIntegrityViolationException e) {
+                // Key already claimed; see by whom
+            }
+
+            while (true) {
+                Claim existing = new TransactionTemplate(transactionManager).execute(status ->
+                        inspect(key, scope, owner, requestHash));
+                if (existing == null) {
+                    // Expired or released in the meantime: claim it afresh
+                    break;
+                }
+                if (existing != Claim.BUSY) {
+                    return existing;
+                }
+                if (System.nanoTime() > waitUntil) {
+                    return Claim.BUSY;
+                }
+                try {
+                    Thread.sleep(POLL_INTERVAL_MS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return Claim.BUSY;
+                }
+            }
+        }
+        return Claim.BUSY;
+    }
+
+    private Claim inspect(String key, String scope, String owner, String requestHash) {
+        IdempotencyRecord record = idempotencyRecordRepository
+                .findByIdempotencyKeyAndScopeAndOwner(key, scope, owner).orElse(null);
+        if (record == null) {
+            return null;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        if (record.getExpiresAt().isBefore(now)) {
+            idempotencyRecordRepository.deleteIfExpired(record.getId(), now);
+            return null;
+        }
+        if (!record.getRequestHash().equals(requestHash)) {
+            return Claim.MISMATCH;
+        }
+        if (record.getStatus() == IdempotencyRecord.Status.COMPLETED) {
+            return Claim.replay(new StoredResponse(record.getResponseStatus(), record.getResponseBody(),
+                    record.getRequestHash(), record.getExpiresAt()));
+        }
+        if (idempotencyRecordRepository.takeOver(record.getId(), now, now.minus(LOCK_TIMEOUT)) > 0) {
+            System.out.println("⚠️ Taking over abandoned idempotency key " + key);
+            return Claim.owned(record.getId());
+        }
+        return Claim.BUSY;
+    }
+
+    private void releaseClaim(Long recordId) {
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                    idempotencyRecordRepository.releaseClaim(recordId));
+        } catch (Exception e) {
+            // Left IN_PROGRESS, it is taken over once the lock times out
+            System.err.println("❌ Failed to release idempotency claim " + recordId + ": " + e.getMessage());
+        }
+    }
+
+    private StoredResponse await(InFlight first) {
+        try {
+            return first.result.get(WAIT_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException | TimeoutException e) {
+            return null;
+        }
+    }
+
+    private StoredResponse toStored(ResponseEntity<?> response, String requestHash) {
+        try {
+            return new StoredResponse(response.getStatusCode().value(),
+                    objectMapper.writeValueAsString(response.getBody()), requestHash,
+                    LocalDateTime.now().plusHours(ttlHours));
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to serialize response for replay: " + e.getMessage(), e);
+        }
+    }
+
+    // The stored JSON is sent back as-is, byte for byte what the first request received
+    private ResponseEntity<?> replay(StoredResponse stored, String requestHash) {
+        if (!stored.requestHash.equals(requestHash)) {
+            return mismatch();
+        }
+        return ResponseEntity.status(stored.status)
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(REPLAYED_HEADER, "true")
+                .body(stored.body);
+    }
+
+    private ResponseEntity<?> mismatch() {
+        return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
+                .body(ApiResponse.error(HEADER + " was already used for a different request"));
+    }
+
+    private ResponseEntity<?> stillRunning() {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(ApiResponse.error("A request with this " + HEADER + " is still being processed. Retry shortly."));
+    }
+
+    private String hash(Object request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(objectMapper.writeValueAsBytes(request)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to read request for " + HEADER + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static class StoredResponse {
+        private final int status;
+        private final String body;
+        private final String requestHash;
+        private final LocalDateTime expiresAt;
+
+        StoredResponse(int status, String body, String requestHash, LocalDateTime expiresAt) {
+            this.status = status;
+            this.body = body;
+            this.requestHash = requestHash;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isExpired() {
+            return expiresAt.isBefore(LocalDateTime.now());
+        }
+    }
+
+    private static class InFlight {
+        private final String requestHash;
+        private final CompletableFuture<StoredResponse> result = new CompletableFuture<>();
+
+        InFlight(String requestHash) {
+            this.requestHash = requestHash;
+        }
+    }
+
+    private static class Claim {
+        static final Claim BUSY = new Claim(null, null, false);
+        static final Claim MISMATCH = new Claim(null, null, true);
+
+        private final Long recordId;
+        private final StoredResponse replay;
+        private final boolean mismatch;
+
+        private Claim(Long recordId, StoredResponse replay, boolean mismatch) {
+            this.recordId = recordId;
+            this.replay = replay;
+            this.mismatch = mismatch;
+        }
+
+        static Claim owned(Long recordId) { return new Claim(recordId, null, false); }
+        static Claim replay(StoredResponse replay) { return new Claim(null, replay, false); }
+    }
+
+    private static class Execution {
+        private ResponseEntity<?> response;
+        private StoredResponse stored;
+        private boolean recorded;
+        private boolean lost;
+    }
+}
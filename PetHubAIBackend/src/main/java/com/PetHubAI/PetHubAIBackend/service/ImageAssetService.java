@@ -0,0 +1,170 @@
+package com.PetHubAI.PetHubAIBackend.service;
+
+import com.PetHubAI.PetHubAIBackend.entity.ImageAsset;
+import com.PetHubAI.PetHubAIBackend.entity.PetImage;
+import com.PetHubAI.PetHubAIBackend.repository.ImageAssetRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Content-hash index over stored images. Before uploading, callers look the upload's SHA-256 (taken while
+// CloudinaryImageService.validateAndHashImage reads the file) up per variant
+// and skip processing and storage entirely when the backend already holds that variant. The row that
+// points at an asset takes a reference in the same transaction that saves it (retain); deleting the row
+// gives the reference back through ImageStorageRegistry, which only deletes the file with the last one.
+@Service
+public class ImageAssetService {
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    @Autowired
+    private ImageAssetRepository imageAssetRepository;
+
+    @Autowired
+    private ImageStorageRegistry imageStorageRegistry;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // The registered asset for this content on the backend, or null when it has to be uploaded
+    public Asset find(String contentHash, ImageVariantProcessor.VariantSpec spec, PetImage.ImageSource source) {
+        return imageAssetRepository.findByContentHashAndVariantAndSource(contentHash, variantKey(spec), source)
+                .map(Asset::new)
+                .orElse(null);
+    }
+
+    // Describes a file this request just stored; it is registered by retain()
+    public Asset stored(String contentHash, ImageVariantProcessor.VariantSpec spec, ImageStorage.StoredImage stored,
+                        Integer width, Integer height, String blurHash, String dominantColor) {
+        return new Asset(null, contentHash, variantKey(spec), stored.getSource(), stored.getStorageKey(), stored.getUrl(),
+                width, height, blurHash, dominantColor);
+    }
+
+    // Must run inside the transaction that saves the row pointing at the asset. A found asset gains a
+    // reference; a freshly stored file either becomes a new asset or, if a concurrent upload of the same
+    // bytes registered one first, is released in favour of it. Throws StaleAssetException when a found
+    // asset was deleted in the meantime, in which case the caller has to upload after all.
+    public Asset retain(Asset asset) {
+        if (asset.getId() != null) {
+            if (imageAssetRepository.incrementRefCount(asset.getId()) == 0) {
+                throw new StaleAssetException("Image asset " + asset.getId() + " was deleted while it was being reused");
+            }
+            System.out.println("♻️ Reusing stored " + asset.getVariant() + " image " + asset.getStorageKey());
+            return asset;
+        }
+
+        ImageAsset existing = imageAssetRepository.findByContentHashAndVariantAndSource(
+                asset.getContentHash(), asset.getVariant(), asset.getSource()).orElse(null);
+        if (existing != null && imageAssetRepository.incrementRefCount(existing.getId()) == 1) {
+            if (!existing.getStorageKey().equals(asset.getStorageKey())) {
+                imageStorageRegistry.releaseAfterCommit(List.of(
+                        ImageStorageRegistry.StoredRef.unregistered(asset.getSource(), asset.getStorageKey())));
+            }
+            return new Asset(existing);
+        }
+
+        ImageAsset created = new ImageAsset();
+        created.setContentHash(asset.getContentHash());
+        created.setVariant(asset.getVariant());
+        created.setSource(asset.getSource());
+        created.setStorageKey(asset.getStorageKey());
+        created.setUrl(asset.getUrl());
+        created.setWidth(asset.getWidth());
+        created.setHeight(asset.getHeight());
+        created.setBlurHash(asset.getBlurHash());
+        created.setDominantColor(asset.getDominantColor());
+        created.setRefCount(1);
+        return new Asset(imageAssetRepository.saveAndFlush(created));
+    }
+
+    // Runs the transaction that retains assets and saves image rows. Two uploads of the same new bytes
+    // can both try to register the asset; the loser hits the unique constraint and simply runs again,
+    // this time taking a reference on the winner's asset.
+    public <T> T inTransaction(TransactionCallback<T> work) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transaction.execute(work);
+            } catch (DataIntegrityViolationException e) {
+                if (attempt >= MAX_ATTEMPTS) {
+                    throw e;
+                }
+                System.out.println("⚠️ Image asset registered concurrently, retrying (attempt " + (attempt + 1) + ")");
+            }
+        }
+    }
+
+    // How many stored files back how many image rows
+    public Map<String, Object> getStats() {
+        long assets = imageAssetRepository.count();
+        long references = imageAssetRepository.sumRefCounts();
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("assets", assets);
+        stats.put("references", references);
+        stats.put("uploadsAvoided", Math.max(0, references - assets));
+        return stats;
+    }
+
+    // Helper methods
+    private static String variantKey(ImageVariantProcessor.VariantSpec spec) {
+        return spec.getName() + ":" + spec.getWidth() + "x" + spec.getHeight();
+    }
+
+    // Detached view of an asset (or of a stored file not registered yet: id is null), safe to carry
+    // across the upload and into a retried transaction
+    public static class Asset {
+        private final Long id;
+        private final String contentHash;
+        private final String variant;
+        private final PetImage.ImageSource source;
+        private final String storageKey;
+        private final String url;
+        private final Integer width;
+        private final Integer height;
+        private final String blurHash;
+        private final String dominantColor;
+
+        Asset(Long id, String contentHash, String variant, PetImage.ImageSource source, String storageKey, String url,
+              Integer width, Integer height, String blurHash, String dominantColor) {
+            this.id = id;
+            this.contentHash = contentHash;
+            this.variant = variant;
+            this.source = source;
+            this.storageKey = storageKey;
+            this.url = url;
+            this.width = width;
+            this.height = height;
+            this.blurHash = blurHash;
+            this.dominantColor = dominantColor;
+        }
+
+        Asset(ImageAsset asset) {
+            this(asset.getId(), asset.getContentHash(), asset.getVariant(), asset.getSource(), asset.getStorageKey(),
+                    asset.getUrl(), asset.getWidth(), asset.getHeight(), asset.getBlurHash(), asset.getDominantColor());
+        }
+
+        public Long getId() { return id; }
+        public String getContentHash() { return contentHash; }
+        public String getVariant() { return variant; }
+        public PetImage.ImageSource getSource() { return source; }
+        public String getStorageKey() { return storageKey; }
+        public String getUrl() { return url; }
+        public Integer getWidth() { return width; }
+        public Integer getHeight() { return height; }
+        public String getBlurHash() { return blurHash; }
+        public String getDominantColor() { return dominantColor; }
+    }
+
+    public static class StaleAssetException extends RuntimeException {
+        public StaleAssetException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,361 @@
+package com.PetHubAI.PetHubAIBackend.service;
+
+import com.PetHubAI.PetHubAIBackend.repository.PetRepository;
+import com.PetHubAI.PetHubAIBackend.repository.ProductRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+// Image uploads taken off the HTTP thread. A request is validated from the file header, spooled to local
+// disk and answered with 202 and a job id; a small bounded worker pool then runs the normal upload path
+// (local variants, Cloudinary, PetImage/ProductImage rows) and retries storage failures with exponential
+// backoff. Jobs live in memory: recent ones stay pollable, and spooled files are removed when a job ends.
+@Service
+public class ImageJobService {
+
+    public static final String PET_IMAGE = "PET_IMAGE";
+    public static final String PRODUCT_IMAGES = "PRODUCT_IMAGES";
+
+    public static final String QUEUED = "QUEUED";
+    public static final String PROCESSING = "PROCESSING";
+    public static final String RETRYING = "RETRYING";
+    public static final String COMPLETED = "COMPLETED";
+    public static final String FAILED = "FAILED";
+
+    private static final int WORKERS = 3;
+    private static final int QUEUE_CAPACITY = 100;
+    private static final int MAX_ATTEMPTS = 4;
+    private static final long BASE_BACKOFF_MS = 2000;
+    private static final long MAX_BACKOFF_MS = 60_000;
+    private static final int RECENT_JOBS = 1000;
+    private static final int LATENCY_SAMPLES = 512;
+
+    private static final Path SPOOL_DIRECTORY = Path.of(System.getProperty("java.io.tmpdir"), "pethub-image-jobs");
+
+    @Autowired
+    private PetImageService petImageService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private CloudinaryImageService cloudinaryImageService;
+
+    @Autowired
+    private PetRepository petRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    // Finished jobs age out oldest-first; running jobs are always among the most recent
+    private final Map<String, ImageJob> jobs = Collections.synchronizedMap(
+            new LinkedHashMap<String, ImageJob>() {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, ImageJob> eldest) {
+                    return size() > RECENT_JOBS && eldest.getValue().isFinished();
+                }
+            });
+
+    private final AtomicInteger threadCount = new AtomicInteger();
+
+    // A full queue rejects new uploads (503) instead of growing the spool without bound
+    private final ThreadPoolExecutor workers = new ThreadPoolExecutor(WORKERS, WORKERS,
+            0, TimeUnit.SECONDS, new ArrayBlockingQueue<>(QUEUE_CAPACITY), runnable -> {
+        Thread thread = new Thread(runnable, "image-job-" + threadCount.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    }, new ThreadPoolExecutor.AbortPolicy());
+
+    // Only holds backoff timers; retries run on the workers
+    private final ScheduledExecutorService retryTimer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "image-job-retry");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicInteger waitingForRetry = new AtomicInteger();
+
+    private final LatencyWindow queueWait = new LatencyWindow(LATENCY_SAMPLES);
+    private final LatencyWindow processing = new LatencyWindow(LATENCY_SAMPLES);
+    private final LatencyWindow endToEnd = new LatencyWindow(LATENCY_SAMPLES);
+
+    // Jobs do not survive a restart, so their spooled files are garbage
+    @PostConstruct
+    public void clearSpool() {
+        if (!Files.isDirectory(SPOOL_DIRECTORY)) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(SPOOL_DIRECTORY)) {
+            files.forEach(file -> {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    System.err.println("⚠️ Could not delete stale spooled upload " + file + ": " + e.getMessage());
+                }
+            });
+        } catch (IOException e) {
+            System.err.println("⚠️ Could not clear image job spool: " + e.getMessage());
+        }
+    }
+
+    public ImageJob submitPetImage(MultipartFile file, Long petId, Boolean isPrimary) throws IOException {
+        if (!petRepository.existsById(petId)) {
+            throw new RuntimeException("Pet not found with ID: " + petId);
+        }
+        cloudinaryImageService.validateImage(file);
+
+        SpooledMultipartFile spooled = SpooledMultipartFile.spool(file, SPOOL_DIRECTORY);
+        ImageJob job = new ImageJob(PET_IMAGE, petId, List.of(spooled));
+        job.work = () -> petImageService.uploadPetImage(spooled, petId, isPrimary);
+        return submit(job);
+    }
+
+    public ImageJob submitProductImages(Long productId, List<MultipartFile> files) throws IOException {
+        if (files == null || files.isEmpty()) {
+            throw new IllegalArgumentException("No image files provided");
+        }
+        if (!productRepository.existsById(productId)) {
+            throw new RuntimeException("Product not found with ID: " + productId);
+        }
+        for (MultipartFile file : files) {
+            cloudinaryImageService.validateImage(file);
+        }
+
+        List<SpooledMultipartFile> spooled = new ArrayList<>();
+        try {
+            for (MultipartFile file : files) {
+                spooled.add(SpooledMultipartFile.spool(file, SPOOL_DIRECTORY));
+            }
+        } catch (IOException e) {
+            spooled.forEach(SpooledMultipartFile::delete);
+            throw e;
+        }
+        ImageJob job = new ImageJob(PRODUCT_IMAGES, productId, spooled);
+        List<MultipartFile> images = new ArrayList<>(spooled);
+        job.work = () -> productService.addProductImages(productId, images);
+        return submit(job);
+    }
+
+    public ImageJob getJob(String jobId) {
+        return jobs.get(jobId);
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("queueDepth", workers.getQueue().size());
+        metrics.put("queueCapacity", QUEUE_CAPACITY);
+        metrics.put("activeWorkers", workers.getActiveCount());
+        metrics.put("waitingForRetry", waitingForRetry.get());
+        metrics.put("submitted", submitted.get());
+        metrics.put("completed", completed.get());
+        metrics.put("failed", failed.get());
+        metrics.put("retries", retries.get());
+        metrics.put("queueWaitMs", queueWait.summary());
+        metrics.put("processingMs", processing.summary());
+        metrics.put("endToEndMs", endToEnd.summary());
+        return metrics;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        retryTimer.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    // Helper methods
+    private ImageJob submit(ImageJob job) {
+        jobs.put(job.jobId, job);
+        try {
+            workers.execute(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.jobId);
+            job.files.forEach(SpooledMultipartFile::delete);
+            throw new RejectedExecutionException("Image queue is full, please retry shortly");
+        }
+        submitted.incrementAndGet();
+        System.out.println("📦 Queued image job " + job.jobId + " (" + job.type + " " + job.targetId + ", "
+                + job.fileCount + " files), queue depth " + workers.getQueue().size());
+        return job;
+    }
+
+    private void run(ImageJob job) {
+        long started = System.nanoTime();
+        queueWait.record((started - job.queuedNanos) / 1_000_000);
+        job.status = PROCESSING;
+        job.attempts++;
+        if (job.startedAt == null) {
+            job.startedAt = LocalDateTime.now();
+        }
+
+        try {
+            job.result = job.work.run();
+            processing.record((System.nanoTime() - started) / 1_000_000);
+            finish(job, COMPLETED, null);
+            completed.incrementAndGet();
+            System.out.println("✅ Image job " + job.jobId + " completed after " + job.attempts + " attempt(s)");
+        } catch (IOException e) {
+            processing.record((System.nanoTime() - started) / 1_000_000);
+            // Storage and network failures are worth retrying; anything else will fail the same way again
+            if (job.attempts < MAX_ATTEMPTS) {
+                scheduleRetry(job, e.getMessage());
+            } else {
+                fail(job, e.getMessage());
+            }
+        } catch (Exception e) {
+            processing.record((System.nanoTime() - started) / 1_000_000);
+            fail(job, e.getMessage());
+        }
+    }
+
+    private void scheduleRetry(ImageJob job, String error) {
+        long backoff = Math.min(MAX_BACKOFF_MS, BASE_BACKOFF_MS << (job.attempts - 1));
+        // Jitter so jobs that failed together (e.g. a storage outage) do not retry together
+        backoff += ThreadLocalRandom.current().nextLong(backoff / 4 + 1);
+        job.status = RETRYING;
+        job.error = error;
+        retries.incrementAndGet();
+        System.err.println("⚠️ Image job " + job.jobId + " attempt " + job.attempts + " failed, retrying in "
+                + backoff + " ms: " + error);
+        requeueLater(job, backoff);
+    }
+
+    private void requeueLater(ImageJob job, long delayMs) {
+        waitingForRetry.incrementAndGet();
+        retryTimer.schedule(() -> {
+            waitingForRetry.decrementAndGet();
+            job.queuedNanos = System.nanoTime();
+            try {
+                workers.execute(() -> run(job));
+            } catch (RejectedExecutionException e) {
+                // Queue full: wait again without spending an attempt
+                requeueLater(job, BASE_BACKOFF_MS);
+            }
+        }, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void fail(ImageJob job, String error) {
+        finish(job, FAILED, error);
+        failed.incrementAndGet();
+        System.err.println("❌ Image job " + job.jobId + " failed after " + job.attempts + " attempt(s): " + error);
+    }
+
+    private void finish(ImageJob job, String status, String error) {
+        job.error = error;
+        job.completedAt = LocalDateTime.now();
+        job.status = status;
+        endToEnd.record((System.nanoTime() - job.submittedNanos) / 1_000_000);
+        job.files.forEach(SpooledMultipartFile::delete);
+    }
+
+    @FunctionalInterface
+    private interface JobWork {
+        Object run() throws Exception;
+    }
+
+    public static class ImageJob {
+        private final String jobId = UUID.randomUUID().toString();
+        private final String type;
+        private final Long targetId;
+        private final int fileCount;
+        private final LocalDateTime createdAt = LocalDateTime.now();
+        private volatile String status = QUEUED;
+        private volatile int attempts;
+        private volatile String error;
+        private volatile Object result;
+        private volatile LocalDateTime startedAt;
+        private volatile LocalDateTime completedAt;
+
+        private final List<SpooledMultipartFile> files;
+        private final long submittedNanos = System.nanoTime();
+        private volatile long queuedNanos = submittedNanos;
+        private JobWork work;
+
+        ImageJob(String type, Long targetId, List<SpooledMultipartFile> files) {
+            this.type = type;
+            this.targetId = targetId;
+            this.files = files;
+            this.fileCount = files.size();
+        }
+
+        public boolean isFinished() {
+            return COMPLETED.equals(status) || FAILED.equals(status);
+        }
+
+        public String getJobId() { return jobId; }
+        public String getType() { return type; }
+        public Long getTargetId() { return targetId; }
+        public int getFileCount() { return fileCount; }
+        public String getStatus() { return status; }
+        public int getAttempts() { return attempts; }
+        public String getError() { return error; }
+        public Object getResult() { return result; }
+        public LocalDateTime getCreatedAt() { return createdAt; }
+        public LocalDateTime getStartedAt() { return startedAt; }
+        public LocalDateTime getCompletedAt() { return completedAt; }
+    }
+
+    // Last N durations in a ring buffer; percentiles are computed on read, which is rare
+    private static class LatencyWindow {
+        private final long[] samples;
+        private int next;
+        private int count;
+
+        LatencyWindow(int capacity) {
+            this.samples = new long[capacity];
+        }
+
+        synchronized void record(long millis) {
+            samples[next] = millis;
+            next = (next + 1) % samples.length;
+            count = Math.min(count + 1, samples.length);
+        }
+
+        synchronized Map<String, Object> summary() {
+            Map<String, Object> summary = new HashMap<>();
+            summary.put("samples", count);
+            if (count == 0) {
+                return summary;
+            }
+            long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            long total = 0;
+            for (long sample : sorted) {
+                total += sample;
+            }
+            summary.put("avg", total / count);
+            summary.put("p50", sorted[(count - 1) / 2]);
+            summary.put("p95", sorted[(int) Math.ceil(count * 0.95) - 1]);
+            summary.put("max", sorted[count - 1]);
+            return summary;
+        }
+    }
+}
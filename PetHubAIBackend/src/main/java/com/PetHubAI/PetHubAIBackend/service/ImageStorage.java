@@ -0,0 +1,77 @@
+package com.PetHubAI.PetHubAIBackend.service;
+
+import com.PetHubAI.PetHubAIBackend.entity.PetImage;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+// Where image bytes live. Backends receive ready-made variants from ImageVariantProcessor, or the uploaded
+// original when the server cannot decode it, and hand back a public URL plus the key needed to delete it.
+public interface ImageStorage {
+
+    PetImage.ImageSource getSource();
+
+    StoredImage store(ImageVariantProcessor.Variant variant, String folder, String name) throws IOException;
+
+    // Stored as uploaded; backends that can resize server-side fit it to size
+    StoredImage storeOriginal(MultipartFile file, String format, String folder, String name,
+                              ImageVariantProcessor.VariantSpec size) throws IOException;
+
+    boolean delete(String storageKey);
+
+    // Batched delete; returns how many were actually removed
+    int deleteAll(Collection<String> storageKeys);
+
+    // Same, but keeps any file stored or reused after unmodifiedSince: a caller that checked references
+    // earlier cannot take a file out from under an upload that has just claimed it. Backends that never
+    // hand the same key to two uploads have nothing to check.
+    default int deleteAll(Collection<String> storageKeys, Instant unmodifiedSince) {
+        return deleteAll(storageKeys);
+    }
+
+    // Appends up to about limit stored assets after cursor (null = from the start) and returns the next
+    // cursor, or null when the listing is complete. Used by the orphan sweeper.
+    String listPage(String cursor, int limit, List<StoredAsset> into) throws IOException;
+
+    // width/height are those of the stored file, or 0 when it was kept exactly as uploaded
+    class StoredImage {
+        private final String url;
+        private final String storageKey;
+        private final PetImage.ImageSource source;
+        private final long bytes;
+        private final int width;
+        private final int height;
+
+        public StoredImage(String url, String storageKey, PetImage.ImageSource source, long bytes, int width, int height) {
+            this.url = url;
+            this.storageKey = storageKey;
+            this.source = source;
+            this.bytes = bytes;
+            this.width = width;
+            this.height = height;
+        }
+
+        public String getUrl() { return url; }
+        public String getStorageKey() { return storageKey; }
+        public PetImage.ImageSource getSource() { return source; }
+        public long getBytes() { return bytes; }
+        public int getWidth() { return width; }
+        public int getHeight() { return height; }
+    }
+
+    class StoredAsset {
+        private final String storageKey;
+        private final Instant createdAt;
+
+        public StoredAsset(String storageKey, Instant createdAt) {
+            this.storageKey = storageKey;
+            this.createdAt = createdAt;
+        }
+
+        public String getStorageKey() { return storageKey; }
+        public Instant getCreatedAt() { return createdAt; }
+    }
+}
@@ -0,0 +1,211 @@
+package com.PetHubAI.PetHubAIBackend.service;
+
+import com.PetHubAI.PetHubAIBackend.entity.ImageAsset;
+import com.PetHubAI.PetHubAIBackend.entity.PetImage;
+import com.PetHubAI.PetHubAIBackend.repository.ImageAssetRepository;
+import com.PetHubAI.PetHubAIBackend.repository.PetImageRepository;
+import com.PetHubAI.PetHubAIBackend.repository.ProductImageRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Picks the backend new uploads go to (images.storage=cloudinary|local) and finds the backend that holds an
+// existing image from the source recorded on its row, so switching backends never strands old images.
+// Stored files are released after the deleting transaction commits, grouped per backend and removed in
+// batches on a background thread. Files registered as shared assets (ImageAssetService) only lose a
+// reference until the last row using them goes. Files an upload reused shortly before or any time after the
+// release was queued are kept, since that upload's row may not have been visible to the reference check;
+// if it never commits, the orphan sweeper removes the file later.
+@Component
+public class ImageStorageRegistry {
+
+    // Longest an upload may take between reusing a stored file and committing the row that points at it
+    private static final Duration REUSE_WINDOW = Duration.ofMinutes(15);
+
+    @Value("${images.storage:cloudinary}")
+    private String activeBackend;
+
+    @Autowired
+    private List<ImageStorage> storages;
+
+    @Autowired
+    private PetImageRepository petImageRepository;
+
+    @Autowired
+    private ProductImageRepository productImageRepository;
+
+    @Autowired
+    private ImageAssetRepository imageAssetRepository;
+
+    private Map<PetImage.ImageSource, ImageStorage> bySource;
+
+    private final ExecutorService cleanup = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "image-asset-cleanup");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ImageStorage getActive() {
+        ImageStorage storage = get(PetImage.ImageSource.valueOf(activeBackend.trim().toUpperCase()));
+        if (storage == null) {
+            throw new IllegalStateException("No image storage backend named " + activeBackend);
+        }
+        return storage;
+    }
+
+    public ImageStorage get(PetImage.ImageSource source) {
+        if (bySource == null) {
+            Map<PetImage.ImageSource, ImageStorage> map = new EnumMap<>(PetImage.ImageSource.class);
+            storages.forEach(storage -> map.put(storage.getSource(), storage));
+            bySource = map;
+        }
+        return source != null ? bySource.get(source) : null;
+    }
+
+    public List<ImageStorage> getAll() {
+        return storages;
+    }
+
+    // The stored files behind deleted image rows. Reference counts drop in the caller's transaction;
+    // nothing is removed if it rolls back.
+    @Transactional
+    public void releaseAfterCommit(List<StoredRef> refs) {
+        List<StoredRef> pending = unreference(refs);
+        if (pending.isEmpty()) {
+            return;
+        }
+        AfterCommit.run(() -> queueRelease(pending));
+    }
+
+    // Storage keys from the given set that some pet or product image row still uses
+    public Set<String> findReferenced(Collection<String> storageKeys) {
+        Set<String> referenced = new HashSet<>();
+        if (storageKeys.isEmpty()) {
+            return referenced;
+        }
+        referenced.addAll(petImageRepository.findStorageKeysIn(storageKeys));
+        referenced.addAll(petImageRepository.findThumbnailStorageKeysIn(storageKeys));
+        referenced.addAll(productImageRepository.findStorageKeysIn(storageKeys));
+        referenced.addAll(imageAssetRepository.findStorageKeysIn(storageKeys));
+        return referenced;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        cleanup.shutdown();
+    }
+
+    // Helper methods
+    // Refs backed by an asset give up one reference on that asset and are only kept (for deletion) by the
+    // last one. Several assets can share a storage key on a content-addressed backend, so the asset is the
+    // one the row recorded; rows from before that are matched by key only when exactly one asset has it.
+    private List<StoredRef> unreference(List<StoredRef> refs) {
+        List<StoredRef> unreferenced = new ArrayList<>();
+        for (StoredRef ref : refs) {
+            if (ref.getSource() == null || ref.getStorageKey() == null || ref.getStorageKey().isEmpty()) {
+                continue;
+            }
+            Long assetId = ref.getAssetId();
+            if (assetId == null && ref.isRegistered()) {
+                List<ImageAsset> assets = imageAssetRepository.findBySourceAndStorageKey(ref.getSource(), ref.getStorageKey());
+                if (assets.size() > 1) {
+                    // Which one this row held is unknown; keeping a reference too many only keeps the file
+                    System.out.println("⚠️ " + assets.size() + " image assets share " + ref.getStorageKey()
+                            + ", leaving their references as they are");
+                    continue;
+                }
+                assetId = assets.isEmpty() ? null : assets.get(0).getId();
+            }
+            if (assetId == null) {
+                unreferenced.add(ref);
+                continue;
+            }
+            imageAssetRepository.decrementRefCount(assetId);
+            if (imageAssetRepository.deleteIfUnreferenced(assetId) == 1) {
+                unreferenced.add(ref);
+            }
+        }
+        return unreferenced;
+    }
+
+    private void queueRelease(List<StoredRef> refs) {
+        Instant unmodifiedSince = Instant.now().minus(REUSE_WINDOW);
+        cleanup.execute(() -> release(refs, unmodifiedSince));
+    }
+
+    private void release(List<StoredRef> refs, Instant unmodifiedSince) {
+        Map<PetImage.ImageSource, Set<String>> keysBySource = new EnumMap<>(PetImage.ImageSource.class);
+        for (StoredRef ref : refs) {
+            if (ref.getSource() != null && ref.getStorageKey() != null && !ref.getStorageKey().isEmpty()) {
+                keysBySource.computeIfAbsent(ref.getSource(), source -> new LinkedHashSet<>()).add(ref.getStorageKey());
+            }
+        }
+
+        keysBySource.forEach((source, keys) -> {
+            ImageStorage storage = get(source);
+            if (storage == null) {
+                return;
+            }
+            try {
+                // A key can back several rows (shared asset, or identical bytes on a content-addressed backend);
+                // keep the file while anything still points at it
+                keys.removeAll(findReferenced(keys));
+                if (!keys.isEmpty()) {
+                    int deleted = storage.deleteAll(keys, unmodifiedSince);
+                    System.out.println("✅ Deleted " + deleted + " of " + keys.size() + " stored images from " + source);
+                }
+            } catch (Exception e) {
+                System.err.println("❌ Failed to delete stored images from " + source + ": " + e.getMessage());
+            }
+        });
+    }
+
+    public static class StoredRef {
+        private final PetImage.ImageSource source;
+        private final String storageKey;
+        // The asset the row held a reference on; null for rows saved before that was recorded
+        private final Long assetId;
+        // False for a file known not to be an asset, which must not touch an asset sharing its key
+        private final boolean registered;
+
+        public StoredRef(PetImage.ImageSource source, String storageKey) {
+            this(source, storageKey, null);
+        }
+
+        public StoredRef(PetImage.ImageSource source, String storageKey, Long assetId) {
+            this(source, storageKey, assetId, true);
+        }
+
+        private StoredRef(PetImage.ImageSource source, String storageKey, Long assetId, boolean registered) {
+            this.source = source;
+            this.storageKey = storageKey;
+            this.assetId = assetId;
+            this.registered = registered;
+        }
+
+        // A stored file that never became an asset, e.g. an upload that lost the race to register its bytes
+        public static StoredRef unregistered(PetImage.ImageSource source, String storageKey) {
+            return new StoredRef(source, storageKey, null, false);
+        }
+
+        public PetImage.ImageSource getSource() { return source; }
+        public String getStorageKey() { return storageKey; }
+        public Long getAssetId() { return assetId; }
+        public boolean isRegistered() { return registered; }
+    }
+}
@@ -0,0 +1,131 @@
+package com.PetHubAI.PetHubAIBackend.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Bounded pool for remote image uploads. Callers hand in one task per file and get one result per file
+// back in input order, so a multi-image request costs roughly its slowest upload rather than the sum.
+// A failed or timed-out file never fails its siblings; callers decide what partial success means.
+@Component
+public class ImageUploadExecutor {
+
+    private static final int POOL_SIZE = 8;
+    private static final int QUEUE_CAPACITY = 64;
+    // Whole-batch deadline; Cloudinary transformations on a 10MB file stay well under this
+    private static final long BATCH_TIMEOUT_SECONDS = 90;
+
+    private final AtomicInteger threadCount = new AtomicInteger();
+
+    // When the queue is full the submitting request thread runs the upload itself: back pressure
+    // instead of rejections or an unbounded backlog
+    private final ThreadPoolExecutor executor = new ThreadPoolExecutor(POOL_SIZE, POOL_SIZE,
+            30, TimeUnit.SECONDS, new ArrayBlockingQueue<>(QUEUE_CAPACITY), runnable -> {
+        Thread thread = new Thread(runnable, "image-upload-" + threadCount.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    }, new ThreadPoolExecutor.CallerRunsPolicy());
+
+    public ImageUploadExecutor() {
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    public <T> List<UploadResult<T>> runAll(List<UploadTask<T>> tasks) {
+        List<UploadResult<T>> results = new ArrayList<>(tasks.size());
+        // Nothing to overlap with: skip the thread hop
+        if (tasks.size() == 1) {
+            results.add(run(0, tasks.get(0)));
+            return results;
+        }
+
+        List<Future<UploadResult<T>>> futures = new ArrayList<>(tasks.size());
+        for (int i = 0; i < tasks.size(); i++) {
+            int index = i;
+            futures.add(executor.submit(() -> run(index, tasks.get(index))));
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(BATCH_TIMEOUT_SECONDS);
+        for (int i = 0; i < futures.size(); i++) {
+            Future<UploadResult<T>> future = futures.get(i);
+            try {
+                results.add(future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+            } catch (TimeoutException e) {
+                future.cancel(true);
+                results.add(UploadResult.failure(i, "Upload timed out after " + BATCH_TIMEOUT_SECONDS + "s", 0));
+            } catch (ExecutionException e) {
+                results.add(UploadResult.failure(i, String.valueOf(e.getCause().getMessage()), 0));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.forEach(pending -> pending.cancel(true));
+                results.add(UploadResult.failure(i, "Upload interrupted", 0));
+            }
+        }
+        return results;
+    }
+
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // Helper methods
+    private static <T> UploadResult<T> run(int index, UploadTask<T> task) {
+        long start = System.nanoTime();
+        try {
+            T value = task.upload();
+            return UploadResult.success(index, value, (System.nanoTime() - start) / 1_000_000);
+        } catch (Exception e) {
+            return UploadResult.failure(index, e.getMessage(), (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    @FunctionalInterface
+    public interface UploadTask<T> {
+        T upload() throws Exception;
+    }
+
+    public static class UploadResult<T> {
+        private final int index;
+        private final T value;
+        private final String error;
+        private final long durationMs;
+
+        private UploadResult(int index, T value, String error, long durationMs) {
+            this.index = index;
+            this.value = value;
+            this.error = error;
+            this.durationMs = durationMs;
+        }
+
+        static <T> UploadResult<T> success(int index, T value, long durationMs) {
+            return new UploadResult<>(index, value, null, durationMs);
+        }
+
+        static <T> UploadResult<T> failure(int index, String error, long durationMs) {
+            return new UploadResult<>(index, null, error != null ? error : "Upload failed", durationMs);
+        }
+
+        public boolean isSuccess() { return error == null; }
+        public int getIndex() { return index; }
+        public T getValue() { return value; }
+        public String getError() { return error; }
+        public long getDurationMs() { return durationMs; }
+    }
+}
@@ -0,0 +1,671 @@
+package com.PetHubAI.PetHubAIBackend.service;
+
+import org.springframework.stereotype.Component;
+
+import javax.imageio.IIOException;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Decodes an upload once and derives every sized variant from that one raster (centre-crop "fill", never
+// upscaled), so storage receives small ready-made files instead of the full original once per variant.
+// Input is read as a stream (the servlet spools uploads to a temp file) and large images are decoded with
+// source subsampling, so heap use depends on the variant sizes rather than on the upload.
+// Formats ImageIO cannot decode (e.g. WebP, CMYK JPEGs) return null and callers fall back to server-side
+// transformation. JPEG EXIF orientation is honoured, so portrait phone photos come out upright.
+// The same pass derives a BlurHash placeholder and dominant colour from the first variant, so listings can
+// paint something the right shape and colour before the real image arrives.
+@Component
+public class ImageVariantProcessor {
+
+    public static final VariantSpec DISPLAY = new VariantSpec("display", 800, 600);
+    public static final VariantSpec THUMBNAIL = new VariantSpec("thumb", 300, 300);
+
+    public static final String JPEG = "jpeg";
+    public static final String PNG = "png";
+    public static final String GIF = "gif";
+    public static final String WEBP = "webp";
+
+    // Rejected from the header alone, before any pixel is decoded
+    private static final int MAX_DIMENSION = 12000;
+    private static final long MAX_PIXELS = 50_000_000L;
+
+    private static final float JPEG_QUALITY = 0.85f;
+    // Subsampling keeps at least twice the largest variant so the final bilinear steps still have detail
+    private static final int OVERSAMPLE = 2;
+    // Largest raster a single decode may hold (about 2000x2000 ARGB); subsampling grows until it fits
+    private static final long MAX_RASTER_BYTES = 16L * 1024 * 1024;
+    // Shared by all concurrent decodes, in KB of raster: requests wait rather than stack up rasters
+    private static final int DECODE_BUDGET_KB = 64 * 1024;
+
+    // Placeholder is computed on a copy at most this many pixels on its long side; 4x3 components
+    // (3x4 for portrait) give a ~28 character hash
+    private static final int PREVIEW_SIZE = 32;
+    private static final int BLURHASH_COMPONENTS_LONG = 4;
+    private static final int BLURHASH_COMPONENTS_SHORT = 3;
+    private static final int APP1_MARKER = 0xE1;
+    private static final int EXIF_ORIENTATION_TAG = 0x0112;
+
+    private static final String BASE83 =
+            "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz#$%*+,-.:;=?@[]^_{|}~";
+
+    private final Semaphore decodeBudget = new Semaphore(DECODE_BUDGET_KB, true);
+    private final AtomicLong rasterBytesInFlight = new AtomicLong();
+    private final AtomicLong peakRasterBytesInFlight = new AtomicLong();
+
+    // Magic-byte sniffing plus dimensions from the header; never decodes pixel data
+    public ImageInfo inspect(InputStream input) throws IOException {
+        BufferedInputStream buffered = new BufferedInputStream(input, 64 * 1024);
+        buffered.mark(32);
+        byte[] head = buffered.readNBytes(30);
+        buffered.reset();
+
+        String format = sniffFormat(head);
+        if (format == null) {
+            throw new IOException("File content is not a JPG, PNG, GIF or WebP image");
+        }
+
+        int width;
+        int height;
+        if (WEBP.equals(format)) {
+            int[] size = webpSize(head);
+            width = size[0];
+            height = size[1];
+        } else {
+            try (ImageInputStream stream = ImageIO.createImageInputStream(buffered)) {
+                Iterator<ImageReader> readers = ImageIO.getImageReadersByFormatName(format);
+                if (stream == null || !readers.hasNext()) {
+                    throw new IOException("No reader available for " + format + " images");
+                }
+                ImageReader reader = readers.next();
+                try {
+                    reader.setInput(stream, true, true);
+                    width = reader.getWidth(0);
+                    height = reader.getHeight(0);
+                } finally {
+                    reader.dispose();
+                }
+            }
+        }
+
+        if (width <= 0 || height <= 0) {
+            throw new IOException("Could not read image dimensions");
+        }
+        if (width > MAX_DIMENSION || height > MAX_DIMENSION || (long) width * height > MAX_PIXELS) {
+            throw new IOException("Image dimensions " + width + "x" + height + " exceed the "
+                    + MAX_DIMENSION + "px / " + MAX_PIXELS / 1_000_000 + " MP limit");
+        }
+        return new ImageInfo(format, width, height);
+    }
+
+    public ProcessedImage process(InputStream input, long sourceBytes, VariantSpec... specs) throws IOException {
+        try (ImageInputStream stream = ImageIO.createImageInputStream(input)) {
+            Iterator<ImageReader> readers = stream != null ? ImageIO.getImageReaders(stream) : null;
+            if (readers == null || !readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                boolean jpeg = JPEG.equalsIgnoreCase(reader.getFormatName());
+                int orientation = jpeg ? exifOrientation(stream) : 1;
+                reader.setInput(stream, true, true);
+                int width;
+                int height;
+                try {
+                    width = reader.getWidth(0);
+                    height = reader.getHeight(0);
+                } catch (IIOException e) {
+                    System.out.println("⚠️ ImageIO cannot read this image, using server-side transformation: " + e.getMessage());
+                    return null;
+                }
+                // Orientations 5-8 are stored rotated by 90 degrees: the upright image is height x width
+                boolean transposed = orientation >= 5;
+                if (transposed) {
+                    int stored = width;
+                    width = height;
+                    height = stored;
+                }
+                int subsampling = subsampling(width, height, specs);
+                long rasterBytes = rasterBytes(width, height, subsampling);
+
+                // Rounded up, so the rasters in flight never add up to more than the budget
+                int permits = (int) Math.min(DECODE_BUDGET_KB, Math.max(1, (rasterBytes + 1023) / 1024));
+                try {
+                    decodeBudget.acquire(permits);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while waiting to process image");
+                }
+                peakRasterBytesInFlight.accumulateAndGet(rasterBytesInFlight.addAndGet(rasterBytes), Math::max);
+                try {
+                    ImageReadParam param = reader.getDefaultReadParam();
+                    param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                    BufferedImage source;
+                    try {
+                        source = reader.read(0, param);
+                    } catch (IIOException e) {
+                        // e.g. CMYK/YCCK JPEGs, which ImageIO cannot decode but Cloudinary can
+                        System.out.println("⚠️ ImageIO cannot decode this image, using server-side transformation: " + e.getMessage());
+                        return null;
+                    }
+
+                    boolean alpha = source.getColorModel().hasAlpha();
+                    Map<String, Variant> variants = new LinkedHashMap<>();
+                    BufferedImage preview = null;
+                    for (VariantSpec spec : specs) {
+                        // Crop and scale the stored raster (target turned to match it), then turn only the
+                        // small result upright; centre-crop commutes with rotating and flipping
+                        BufferedImage scaled = transposed
+                                ? fill(source, spec.height, spec.width, alpha)
+                                : fill(source, spec.width, spec.height, alpha);
+                        scaled = orient(scaled, orientation, alpha);
+                        variants.put(spec.name, encode(scaled, alpha));
+                        if (preview == null) {
+                            preview = previewOf(scaled, alpha);
+                        }
+                    }
+                    ProcessedImage processed = new ProcessedImage(width, height, sourceBytes, rasterBytes, variants,
+                            blurHash(preview), dominantColor(preview));
+                    System.out.println("📦 Image processed once: " + width + "x" + height + " (1/" + subsampling
+                            + " decode), " + sourceBytes + " bytes in, " + processed.getBytesOut()
+                            + " bytes of variants out, decoded raster " + rasterBytes / 1024 + " KB");
+                    return processed;
+                } finally {
+                    rasterBytesInFlight.addAndGet(-rasterBytes);
+                    decodeBudget.release(permits);
+                }
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // Decoded raster held by the decodes running right now, and the most it has been since startup
+    public long getRasterBytesInFlight() {
+        return rasterBytesInFlight.get();
+    }
+
+    public long getPeakRasterBytesInFlight() {
+        return peakRasterBytesInFlight.get();
+    }
+
+    // Helper methods
+    // EXIF Orientation (1-8) from the JPEG's APP1 segment, found by walking the marker segments up to the
+    // image data; 1 (as stored) when absent or unreadable. The stream is left where it was.
+    private static int exifOrientation(ImageInputStream stream) {
+        try {
+            stream.mark();
+            try {
+                if (stream.readUnsignedShort() != 0xFFD8) {
+                    return 1;
+                }
+                while (true) {
+                    int marker = stream.readUnsignedByte();
+                    if (marker != 0xFF) {
+                        return 1;
+                    }
+                    int type = stream.readUnsignedByte();
+                    while (type == 0xFF) {
+                        type = stream.readUnsignedByte();
+                    }
+                    // Start of scan or end of image: no more metadata segments
+                    if (type == 0xDA || type == 0xD9) {
+                        return 1;
+                    }
+                    int length = stream.readUnsignedShort() - 2;
+                    if (length < 0) {
+                        return 1;
+                    }
+                    if (type == APP1_MARKER) {
+                        byte[] data = new byte[length];
+                        stream.readFully(data);
+                        int orientation = exifOrientation(data);
+                        if (orientation != 0) {
+                            return orientation;
+                        }
+                    } else {
+                        stream.skipBytes(length);
+                    }
+                }
+            } finally {
+                stream.reset();
+            }
+        } catch (IOException e) {
+            return 1;
+        }
+    }
+
+    // Parses "Exif\0\0" + TIFF header and looks for the Orientation entry in IFD0; 0 if not an EXIF block
+    static int exifOrientation(byte[] data) {
+        if (data.length < 14 || data[0] != 'E' || data[1] != 'x' || data[2] != 'i' || data[3] != 'f'
+                || data[4] != 0 || data[5] != 0) {
+            return 0;
+        }
+        int tiff = 6;
+        boolean littleEndian;
+        if (data[tiff] == 'I' && data[tiff + 1] == 'I') {
+            littleEndian = true;
+        } else if (data[tiff] == 'M' && data[tiff + 1] == 'M') {
+            littleEndian = false;
+        } else {
+            return 0;
+        }
+        long ifd = tiff + readUnsigned(data, tiff + 4, 4, littleEndian);
+        if (ifd + 2 > data.length) {
+            return 0;
+        }
+        int entries = (int) readUnsigned(data, (int) ifd, 2, littleEndian);
+        for (int i = 0; i < entries; i++) {
+            int entry = (int) ifd + 2 + i * 12;
+            if (entry + 12 > data.length) {
+                return 0;
+            }
+            if (readUnsigned(data, entry, 2, littleEndian) == EXIF_ORIENTATION_TAG) {
+                int value = (int) readUnsigned(data, entry + 8, 2, littleEndian);
+                return value >= 1 && value <= 8 ? value : 0;
+            }
+        }
+        return 0;
+    }
+
+    private static long readUnsigned(byte[] data, int offset, int length, boolean littleEndian) {
+        long value = 0;
+        for (int i = 0; i < length; i++) {
+            int b = data[offset + (littleEndian ? length - 1 - i : i)] & 0xFF;
+            value = (value << 8) | b;
+        }
+        return value;
+    }
+
+    // Applies an EXIF orientation to a (variant-sized) image, pixel by pixel
+    static BufferedImage orient(BufferedImage image, int orientation, boolean alpha) {
+        if (orientation <= 1 || orientation > 8) {
+            return image;
+        }
+        int width = image.getWidth();
+        int height = image.getHeight();
+        boolean transposed = orientation >= 5;
+        int outWidth = transposed ? height : width;
+        int outHeight = transposed ? width : height;
+        int[] in = image.getRGB(0, 0, width, height, null, 0, width);
+        int[] out = new int[in.length];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int outX;
+                int outY;
+                switch (orientation) {
+                    case 2 -> { outX = width - 1 - x; outY = y; }
+                    case 3 -> { outX = width - 1 - x; outY = height - 1 - y; }
+                    case 4 -> { outX = x; outY = height - 1 - y; }
+                    case 5 -> { outX = y; outY = x; }
+                    case 6 -> { outX = height - 1 - y; outY = x; }
+                    case 7 -> { outX = height - 1 - y; outY = width - 1 - x; }
+                    default -> { outX = y; outY = width - 1 - x; }
+                }
+                out[outY * outWidth + outX] = in[y * width + x];
+            }
+        }
+        BufferedImage oriented = new BufferedImage(outWidth, outHeight,
+                alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        oriented.setRGB(0, 0, outWidth, outHeight, out, 0, outWidth);
+        return oriented;
+    }
+
+    private static String sniffFormat(byte[] head) {
+        if (head.length >= 3 && (head[0] & 0xFF) == 0xFF && (head[1] & 0xFF) == 0xD8 && (head[2] & 0xFF) == 0xFF) {
+            return JPEG;
+        }
+        if (head.length >= 8 && (head[0] & 0xFF) == 0x89 && head[1] == 'P' && head[2] == 'N' && head[3] == 'G'
+                && head[4] == 0x0D && head[5] == 0x0A && head[6] == 0x1A && head[7] == 0x0A) {
+            return PNG;
+        }
+        if (head.length >= 6 && head[0] == 'G' && head[1] == 'I' && head[2] == 'F' && head[3] == '8'
+                && (head[4] == '7' || head[4] == '9') && head[5] == 'a') {
+            return GIF;
+        }
+        if (head.length >= 16 && head[0] == 'R' && head[1] == 'I' && head[2] == 'F' && head[3] == 'F'
+                && head[8] == 'W' && head[9] == 'E' && head[10] == 'B' && head[11] == 'P') {
+            return WEBP;
+        }
+        return null;
+    }
+
+    // Canvas size from the first chunk: VP8X (extended), VP8L (lossless) or VP8 (lossy)
+    private static int[] webpSize(byte[] head) throws IOException {
+        if (head.length >= 30 && head[12] == 'V' && head[13] == 'P' && head[14] == '8') {
+            if (head[15] == 'X') {
+                return new int[]{1 + le24(head, 24), 1 + le24(head, 27)};
+            }
+            if (head[15] == 'L' && (head[20] & 0xFF) == 0x2F) {
+                int bits = (head[21] & 0xFF) | (head[22] & 0xFF) << 8 | (head[23] & 0xFF) << 16 | (head[24] & 0xFF) << 24;
+                return new int[]{1 + (bits & 0x3FFF), 1 + ((bits >>> 14) & 0x3FFF)};
+            }
+            if (head[15] == ' ') {
+                return new int[]{(head[26] & 0xFF | (head[27] & 0xFF) << 8) & 0x3FFF,
+                        (head[28] & 0xFF | (head[29] & 0xFF) << 8) & 0x3FFF};
+            }
+        }
+        throw new IOException("Unrecognised WebP header");
+    }
+
+    private static int le24(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xFF) | (bytes[offset + 1] & 0xFF) << 8 | (bytes[offset + 2] & 0xFF) << 16;
+    }
+
+    private static int subsampling(int width, int height, VariantSpec... specs) {
+        int maxWidth = 1;
+        int maxHeight = 1;
+        for (VariantSpec spec : specs) {
+            maxWidth = Math.max(maxWidth, spec.width);
+            maxHeight = Math.max(maxHeight, spec.height);
+        }
+        int subsampling = Math.max(1, Math.min(width / (maxWidth * OVERSAMPLE), height / (maxHeight * OVERSAMPLE)));
+        while (rasterBytes(width, height, subsampling) > MAX_RASTER_BYTES) {
+            subsampling++;
+        }
+        return subsampling;
+    }
+
+    private static long rasterBytes(int width, int height, int subsampling) {
+        long sampledWidth = (width + subsampling - 1) / subsampling;
+        long sampledHeight = (height + subsampling - 1) / subsampling;
+        return sampledWidth * sampledHeight * 4;
+    }
+
+    // Centre-crop to the target aspect ratio, then step down by halves (bilinear) to the target size
+    private static BufferedImage fill(BufferedImage source, int targetWidth, int targetHeight, boolean alpha) {
+        double targetRatio = (double) targetWidth / targetHeight;
+        int cropWidth = source.getWidth();
+        int cropHeight = source.getHeight();
+        if ((double) cropWidth / cropHeight > targetRatio) {
+            cropWidth = Math.max(1, (int) Math.round(cropHeight * targetRatio));
+        } else {
+            cropHeight = Math.max(1, (int) Math.round(cropWidth / targetRatio));
+        }
+        BufferedImage current = source.getSubimage((source.getWidth() - cropWidth) / 2,
+                (source.getHeight() - cropHeight) / 2, cropWidth, cropHeight);
+
+        int finalWidth = Math.min(targetWidth, cropWidth);
+        int finalHeight = Math.min(targetHeight, cropHeight);
+        int width = cropWidth;
+        int height = cropHeight;
+        do {
+            width = width > finalWidth * 2 ? width / 2 : finalWidth;
+            height = height > finalHeight * 2 ? height / 2 : finalHeight;
+            current = scale(current, width, height, alpha);
+        } while (width != finalWidth || height != finalHeight);
+        return current;
+    }
+
+    private static BufferedImage scale(BufferedImage image, int width, int height, boolean alpha) {
+        BufferedImage scaled = new BufferedImage(width, height, alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = scaled.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return scaled;
+    }
+
+    private static BufferedImage previewOf(BufferedImage image, boolean alpha) {
+        double ratio = Math.min(1.0, (double) PREVIEW_SIZE / Math.max(image.getWidth(), image.getHeight()));
+        int width = Math.max(1, (int) Math.round(image.getWidth() * ratio));
+        int height = Math.max(1, (int) Math.round(image.getHeight() * ratio));
+        return ratio < 1.0 ? fill(image, width, height, alpha) : image;
+    }
+
+    // BlurHash (https://blurha.sh): a few DCT components of the image in linear light, base83-encoded
+    static String blurHash(BufferedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int componentsX = width >= height ? BLURHASH_COMPONENTS_LONG : BLURHASH_COMPONENTS_SHORT;
+        int componentsY = width >= height ? BLURHASH_COMPONENTS_SHORT : BLURHASH_COMPONENTS_LONG;
+        int[] pixels = image.getRGB(0, 0, width, height, null, 0, width);
+
+        double[][] factors = new double[componentsX * componentsY][3];
+        for (int j = 0; j < componentsY; j++) {
+            for (int i = 0; i < componentsX; i++) {
+                double normalisation = (i == 0 && j == 0) ? 1 : 2;
+                double[] factor = factors[j * componentsX + i];
+                for (int y = 0; y < height; y++) {
+                    double basisY = Math.cos(Math.PI * j * y / height);
+                    for (int x = 0; x < width; x++) {
+                        double basis = normalisation * Math.cos(Math.PI * i * x / width) * basisY;
+                        int rgb = pixels[y * width + x];
+                        factor[0] += basis * srgbToLinear((rgb >> 16) & 0xFF);
+                        factor[1] += basis * srgbToLinear((rgb >> 8) & 0xFF);
+                        factor[2] += basis * srgbToLinear(rgb & 0xFF);
+                    }
+                }
+                double scale = 1.0 / (width * height);
+                factor[0] *= scale;
+                factor[1] *= scale;
+                factor[2] *= scale;
+            }
+        }
+
+        StringBuilder hash = new StringBuilder();
+        appendBase83(hash, (componentsX - 1) + (componentsY - 1) * 9, 1);
+
+        double maximumValue = 1;
+        if (factors.length > 1) {
+            double actualMaximum = 0;
+            for (int k = 1; k < factors.length; k++) {
+                for (double component : factors[k]) {
+                    actualMaximum = Math.max(actualMaximum, Math.abs(component));
+                }
+            }
+            int quantisedMaximum = (int) Math.max(0, Math.min(82, Math.floor(actualMaximum * 166 - 0.5)));
+            maximumValue = (quantisedMaximum + 1) / 166.0;
+            appendBase83(hash, quantisedMaximum, 1);
+        } else {
+            appendBase83(hash, 0, 1);
+        }
+
+        double[] dc = factors[0];
+        appendBase83(hash, (linearToSrgb(dc[0]) << 16) + (linearToSrgb(dc[1]) << 8) + linearToSrgb(dc[2]), 4);
+        for (int k = 1; k < factors.length; k++) {
+            double[] ac = factors[k];
+            int value = quantiseAc(ac[0], maximumValue) * 19 * 19 + quantiseAc(ac[1], maximumValue) * 19
+                    + quantiseAc(ac[2], maximumValue);
+            appendBase83(hash, value, 2);
+        }
+        return hash.toString();
+    }
+
+    // Most common colour after quantising to 4 bits per channel, averaged within that bucket;
+    // transparent pixels are ignored
+    static String dominantColor(BufferedImage image) {
+        int[] pixels = image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+        int[] counts = new int[4096];
+        long[][] sums = new long[4096][3];
+        for (int argb : pixels) {
+            if ((argb >>> 24) < 128) {
+                continue;
+            }
+            int r = (argb >> 16) & 0xFF;
+            int g = (argb >> 8) & 0xFF;
+            int b = argb & 0xFF;
+            int bucket = (r >> 4) << 8 | (g >> 4) << 4 | (b >> 4);
+            counts[bucket]++;
+            sums[bucket][0] += r;
+            sums[bucket][1] += g;
+            sums[bucket][2] += b;
+        }
+        int best = -1;
+        for (int bucket = 0; bucket < counts.length; bucket++) {
+            if (counts[bucket] > 0 && (best < 0 || counts[bucket] > counts[best])) {
+                best = bucket;
+            }
+        }
+        if (best < 0) {
+            return null;
+        }
+        int count = counts[best];
+        return String.format("#%02x%02x%02x", sums[best][0] / count, sums[best][1] / count, sums[best][2] / count);
+    }
+
+    private static double srgbToLinear(int value) {
+        double v = value / 255.0;
+        return v <= 0.04045 ? v / 12.92 : Math.pow((v + 0.055) / 1.055, 2.4);
+    }
+
+    private static int linearToSrgb(double value) {
+        double v = Math.max(0, Math.min(1, value));
+        return v <= 0.0031308 ? (int) (v * 12.92 * 255 + 0.5) : (int) ((1.055 * Math.pow(v, 1 / 2.4) - 0.055) * 255 + 0.5);
+    }
+
+    private static int quantiseAc(double value, double maximumValue) {
+        double normalised = value / maximumValue;
+        double signedRoot = Math.copySign(Math.sqrt(Math.abs(normalised)), normalised);
+        return (int) Math.max(0, Math.min(18, Math.floor(signedRoot * 9 + 9.5)));
+    }
+
+    private static void appendBase83(StringBuilder hash, int value, int length) {
+        for (int i = 1; i <= length; i++) {
+            int digit = (value / (int) Math.pow(83, length - i)) % 83;
+            hash.append(BASE83.charAt(digit));
+        }
+    }
+
+    // JPEG for opaque images, PNG when transparency has to survive
+    private static Variant encode(BufferedImage image, boolean alpha) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64 * 1024);
+        if (alpha) {
+            ImageIO.write(image, "png", out);
+            return new Variant(out.toByteArray(), "png", image.getWidth(), image.getHeight());
+        }
+
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream stream = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(stream);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return new Variant(out.toByteArray(), "jpg", image.getWidth(), image.getHeight());
+    }
+
+    public static class ImageInfo {
+        private final String format;
+        private final int width;
+        private final int height;
+        // SHA-256 of the whole file, when the validating read was asked to hash it
+        private final String contentHash;
+
+        public ImageInfo(String format, int width, int height) {
+            this(format, width, height, null);
+        }
+
+        public ImageInfo(String format, int width, int height, String contentHash) {
+            this.format = format;
+            this.width = width;
+            this.height = height;
+            this.contentHash = contentHash;
+        }
+
+        public String getFormat() { return format; }
+        public int getWidth() { return width; }
+        public int getHeight() { return height; }
+        public String getContentHash() { return contentHash; }
+    }
+
+    public static class VariantSpec {
+        private final String name;
+        private final int width;
+        private final int height;
+
+        public VariantSpec(String name, int width, int height) {
+            this.name = name;
+            this.width = width;
+            this.height = height;
+        }
+
+        public String getName() { return name; }
+        public int getWidth() { return width; }
+        public int getHeight() { return height; }
+    }
+
+    public static class Variant {
+        private final byte[] data;
+        private final String format;
+        private final int width;
+        private final int height;
+
+        public Variant(byte[] data, String format, int width, int height) {
+            this.data = data;
+            this.format = format;
+            this.width = width;
+            this.height = height;
+        }
+
+        public byte[] getData() { return data; }
+        public String getFormat() { return format; }
+        public int getWidth() { return width; }
+        public int getHeight() { return height; }
+    }
+
+    public static class ProcessedImage {
+        private final int width;
+        private final int height;
+        private final long bytesIn;
+        private final long rasterBytes;
+        private final Map<String, Variant> variants;
+        private final String blurHash;
+        private final String dominantColor;
+
+        public ProcessedImage(int width, int height, long bytesIn, long rasterBytes, Map<String, Variant> variants,
+                              String blurHash, String dominantColor) {
+            this.width = width;
+            this.height = height;
+            this.bytesIn = bytesIn;
+            this.rasterBytes = rasterBytes;
+            this.variants = variants;
+            this.blurHash = blurHash;
+            this.dominantColor = dominantColor;
+        }
+
+        public Variant get(VariantSpec spec) {
+            return variants.get(spec.getName());
+        }
+
+        public long getBytesOut() {
+            long total = 0;
+            for (Variant variant : variants.values()) {
+                total += variant.getData().length;
+            }
+            return total;
+        }
+
+        public int getWidth() { return width; }
+        public int getHeight() { return height; }
+        public long getBytesIn() { return bytesIn; }
+        public long getRasterBytes() { return rasterBytes; }
+        public Map<String, Variant> getVariants() { return variants; }
+        public String getBlurHash() { return blurHash; }
+        public String getDominantColor() { return dominantColor; }
+    }
+}
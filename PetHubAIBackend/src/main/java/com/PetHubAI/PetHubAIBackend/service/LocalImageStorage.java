@@ -0,0 +1,241 @@
+package com.PetHubAI.PetHubAIBackend.service;
+
+import com.PetHubAI.PetHubAIBackend.entity.PetImage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Content-addressed files under a local root, served by MediaController at /media/{key}. The key is the
+// SHA-256 of the bytes (ab/cd/abcd....jpg), so identical uploads share one file and a stored file never
+// changes, which lets responses be cached forever. Folders and names are ignored. Claiming a key on upload
+// and deleting it are serialised per key, so a delete cannot remove a file an upload has just reused.
+@Component
+public class LocalImageStorage implements ImageStorage {
+
+    private static final Pattern KEY_PATTERN = Pattern.compile("[0-9a-f]{2}/[0-9a-f]{2}/[0-9a-f]{64}\\.(jpg|png|gif|webp)");
+    private static final int KEY_LOCK_STRIPES = 256;
+
+    @Value("${images.local.root:media}")
+    private String root;
+
+    // Prefix for stored URLs, e.g. https://api.example.com; empty keeps them relative to this server
+    @Value("${images.local.public-url:}")
+    private String publicUrl;
+
+    private final Object[] keyLocks = new Object[KEY_LOCK_STRIPES];
+
+    public LocalImageStorage() {
+        for (int i = 0; i < keyLocks.length; i++) {
+            keyLocks[i] = new Object();
+        }
+    }
+
+    @Override
+    public PetImage.ImageSource getSource() {
+        return PetImage.ImageSource.LOCAL;
+    }
+
+    @Override
+    public StoredImage store(ImageVariantProcessor.Variant variant, String folder, String name) throws IOException {
+        String key = keyFor(sha256(variant.getData()), variant.getFormat());
+        Path target = resolve(key);
+        Path temp = createTemp();
+        try {
+            Files.write(temp, variant.getData());
+            claim(key, temp, target);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return new StoredImage(urlFor(key), key, getSource(), variant.getData().length, variant.getWidth(), variant.getHeight());
+    }
+
+    // The hash is computed while streaming to a temp file, then the file is moved into place
+    @Override
+    public StoredImage storeOriginal(MultipartFile file, String format, String folder, String name,
+                                     ImageVariantProcessor.VariantSpec size) throws IOException {
+        Path temp = createTemp();
+        try {
+            MessageDigest digest = newDigest();
+            try (InputStream input = file.getInputStream();
+                 OutputStream output = new DigestOutputStream(Files.newOutputStream(temp), digest)) {
+                input.transferTo(output);
+            }
+            String key = keyFor(HexFormat.of().formatHex(digest.digest()), extension(format));
+            Path target = resolve(key);
+            claim(key, temp, target);
+            return new StoredImage(urlFor(key), key, getSource(), Files.size(target), 0, 0);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    // Moves the new file into place, or gives an existing copy a fresh timestamp so deletes that checked
+    // references before this upload (and the orphan sweeper's grace period) leave it for the row about to
+    // point at it
+    private void claim(String key, Path temp, Path target) throws IOException {
+        synchronized (lockFor(key)) {
+            if (!Files.exists(target)) {
+                publish(temp, target);
+            } else {
+                Files.setLastModifiedTime(target, FileTime.from(Instant.now()));
+            }
+        }
+    }
+
+    @Override
+    public boolean delete(String storageKey) {
+        return deleteAll(List.of(storageKey), null) == 1;
+    }
+
+    @Override
+    public int deleteAll(Collection<String> storageKeys) {
+        return deleteAll(storageKeys, null);
+    }
+
+    @Override
+    public int deleteAll(Collection<String> storageKeys, Instant unmodifiedSince) {
+        int deleted = 0;
+        for (String storageKey : storageKeys) {
+            if (!isValidKey(storageKey)) {
+                continue;
+            }
+            synchronized (lockFor(storageKey)) {
+                try {
+                    Path path = resolve(storageKey);
+                    if (unmodifiedSince != null && Files.exists(path)
+                            && Files.getLastModifiedTime(path).toInstant().isAfter(unmodifiedSince)) {
+                        System.out.println("⚠️ Keeping local image " + storageKey + ": reused by an upload since it was released");
+                        continue;
+                    }
+                    if (Files.deleteIfExists(path)) {
+                        deleted++;
+                    }
+                } catch (IOException e) {
+                    System.err.println("Failed to delete local image " + storageKey + ": " + e.getMessage());
+                }
+            }
+        }
+        return deleted;
+    }
+
+    // One ab/cd directory after another; the cursor is the last directory listed
+    @Override
+    public String listPage(String cursor, int limit, List<StoredAsset> into) throws IOException {
+        Path base = Path.of(root).toAbsolutePath();
+        for (String first : hexChildren(base)) {
+            for (String second : hexChildren(base.resolve(first))) {
+                String directory = first + "/" + second;
+                if (cursor != null && directory.compareTo(cursor) <= 0) {
+                    continue;
+                }
+                try (Stream<Path> files = Files.list(base.resolve(directory))) {
+                    for (Path file : (Iterable<Path>) files::iterator) {
+                        String key = directory + "/" + file.getFileName();
+                        if (isValidKey(key)) {
+                            into.add(new StoredAsset(key, Files.getLastModifiedTime(file).toInstant()));
+                        }
+                    }
+                }
+                if (into.size() >= limit) {
+                    return directory;
+                }
+            }
+        }
+        return null;
+    }
+
+    // Only well-formed keys resolve, so a request path can never escape the root
+    public Path find(String storageKey) {
+        if (!isValidKey(storageKey)) {
+            return null;
+        }
+        Path path = resolve(storageKey);
+        return Files.isRegularFile(path) ? path : null;
+    }
+
+    public static boolean isValidKey(String storageKey) {
+        return storageKey != null && KEY_PATTERN.matcher(storageKey).matches();
+    }
+
+    // Helper methods
+    private Object lockFor(String key) {
+        return keyLocks[Math.floorMod(key.hashCode(), keyLocks.length)];
+    }
+
+    private Path resolve(String key) {
+        return Path.of(root).toAbsolutePath().resolve(key);
+    }
+
+    private static List<String> hexChildren(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return new ArrayList<>();
+        }
+        try (Stream<Path> children = Files.list(directory)) {
+            return children.map(child -> child.getFileName().toString())
+                    .filter(name -> name.matches("[0-9a-f]{2}"))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private Path createTemp() throws IOException {
+        Path directory = Path.of(root).toAbsolutePath().resolve("tmp");
+        Files.createDirectories(directory);
+        return Files.createTempFile(directory, "store-", ".part");
+    }
+
+    // Readers never see a partial file: it appears under its key only once complete
+    private static void publish(Path temp, Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private String urlFor(String key) {
+        String base = publicUrl.endsWith("/") ? publicUrl.substring(0, publicUrl.length() - 1) : publicUrl;
+        return base + "/media/" + key;
+    }
+
+    private static String keyFor(String hash, String extension) {
+        return hash.substring(0, 2) + "/" + hash.substring(2, 4) + "/" + hash + "." + extension;
+    }
+
+    private static String extension(String format) {
+        return ImageVariantProcessor.JPEG.equals(format) ? "jpg" : format;
+    }
+
+    private static String sha256(byte[] data) {
+        return HexFormat.of().formatHex(newDigest().digest(data));
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
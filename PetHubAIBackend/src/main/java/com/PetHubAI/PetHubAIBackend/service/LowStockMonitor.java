@@ -0,0 +1,187 @@
+package com.PetHubAI.PetHubAIBackend.service;
+
+import com.PetHubAI.PetHubAIBackend.dto.product.ProductResponse;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+// Low-stock set maintained from the catalog's apply step: every committed stock change is compared with the
+// product's previous snapshot, so crossings of its own minStockLevel are detected as they happen and pushed
+// to subscribed admins over SSE. Reads never touch the products table.
+@Service
+public class LowStockMonitor {
+
+    // Matches the Product.minStockLevel column default
+    private static final int DEFAULT_MIN_STOCK_LEVEL = 5;
+    private static final long EMITTER_TIMEOUT_MS = 30 * 60 * 1000L;
+
+    public static final String LOW_STOCK = "LOW_STOCK";
+    public static final String OUT_OF_STOCK = "OUT_OF_STOCK";
+    public static final String RESTOCKED = "RESTOCKED";
+
+    private static final Comparator<LowStockAlert> LOWEST_FIRST = Comparator
+            .comparingInt(LowStockAlert::getStockQuantity)
+            .thenComparing(LowStockAlert::getProductId);
+
+    // Current low-stock products keyed by id, plus the same entries ordered by remaining stock
+    private final Map<Long, LowStockAlert> lowStock = new ConcurrentHashMap<>();
+    private final NavigableSet<LowStockAlert> lowestFirst = new ConcurrentSkipListSet<>(LOWEST_FIRST);
+    private final Set<Long> outOfStock = ConcurrentHashMap.newKeySet();
+
+    private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+
+    // Sends happen off the catalog write path, one at a time and in order
+    private final ExecutorService publisher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "low-stock-publisher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Called by ProductCatalogService under its write lock; either side may be null (added / removed)
+    void onChange(ProductResponse previous, ProductResponse current) {
+        Long productId = current != null ? current.getId() : previous.getId();
+        boolean wasLow = isLow(previous);
+        boolean nowLow = isLow(current);
+
+        LowStockAlert old = lowStock.remove(productId);
+        if (old != null) {
+            lowestFirst.remove(old);
+        }
+        if (current != null && Integer.valueOf(0).equals(current.getStockQuantity())) {
+            outOfStock.add(productId);
+        } else {
+            outOfStock.remove(productId);
+        }
+
+        if (nowLow) {
+            String event = current.getStockQuantity() <= 0 ? OUT_OF_STOCK : LOW_STOCK;
+            LowStockAlert alert = new LowStockAlert(current, event);
+            lowStock.put(productId, alert);
+            lowestFirst.add(alert);
+            // Only crossings are announced, not every sale of an already-low product; previous == null
+            // is the initial load or a re-activation, which the snapshot on subscribe covers
+            boolean crossed = previous != null && (!wasLow
+                    || (OUT_OF_STOCK.equals(event) && previous.getStockQuantity() > 0));
+            if (crossed) {
+                System.out.println("⚠️ " + event + ": " + current.getName() + " (ID: " + productId + ") has "
+                        + current.getStockQuantity() + " left, minimum " + minStockLevel(current));
+                publish(alert);
+            }
+        } else if (wasLow && current != null) {
+            System.out.println("📦 Restocked: " + current.getName() + " (ID: " + productId + ") now has "
+                    + current.getStockQuantity());
+            publish(new LowStockAlert(current, RESTOCKED));
+        }
+    }
+
+    // Lowest remaining stock first
+    public List<Long> getLowStockProductIds() {
+        return lowestFirst.stream().map(LowStockAlert::getProductId).collect(Collectors.toList());
+    }
+
+    public List<LowStockAlert> getAlerts() {
+        return new ArrayList<>(lowestFirst);
+    }
+
+    public int getLowStockCount() {
+        return lowStock.size();
+    }
+
+    public int getOutOfStockCount() {
+        return outOfStock.size();
+    }
+
+    // The current low-stock set is sent first, then one event per crossing
+    public SseEmitter subscribe() {
+        SseEmitter emitter = new SseEmitter(EMITTER_TIMEOUT_MS);
+        emitter.onCompletion(() -> emitters.remove(emitter));
+        emitter.onTimeout(() -> emitters.remove(emitter));
+        emitter.onError(error -> emitters.remove(emitter));
+        emitters.add(emitter);
+
+        publisher.execute(() -> {
+            try {
+                emitter.send(SseEmitter.event().name("snapshot").data(getAlerts()));
+            } catch (IOException | IllegalStateException e) {
+                emitters.remove(emitter);
+            }
+        });
+        return emitter;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        emitters.forEach(SseEmitter::complete);
+        publisher.shutdownNow();
+    }
+
+    // Helper methods
+    private void publish(LowStockAlert alert) {
+        if (emitters.isEmpty()) {
+            return;
+        }
+        publisher.execute(() -> {
+            for (SseEmitter emitter : emitters) {
+                try {
+                    emitter.send(SseEmitter.event().name(alert.getEvent()).data(alert));
+                } catch (IOException | IllegalStateException e) {
+                    // Client went away; completeWithError triggers onError, which drops the emitter
+                    emitters.remove(emitter);
+                    emitter.completeWithError(e);
+                }
+            }
+        });
+    }
+
+    private static boolean isLow(ProductResponse product) {
+        return product != null && product.getStockQuantity() != null
+                && product.getStockQuantity() <= minStockLevel(product);
+    }
+
+    private static int minStockLevel(ProductResponse product) {
+        return product.getMinStockLevel() != null ? product.getMinStockLevel() : DEFAULT_MIN_STOCK_LEVEL;
+    }
+
+    public static class LowStockAlert {
+        private final Long productId;
+        private final String name;
+        private final String sku;
+        private final int stockQuantity;
+        private final int minStockLevel;
+        private final String event;
+        private final LocalDateTime detectedAt;
+
+        LowStockAlert(ProductResponse product, String event) {
+            this.productId = product.getId();
+            this.name = product.getName();
+            this.sku = product.getSku();
+            this.stockQuantity = product.getStockQuantity() != null ? product.getStockQuantity() : 0;
+            this.minStockLevel = minStockLevel(product);
+            this.event = event;
+            this.detectedAt = LocalDateTime.now();
+        }
+
+        public Long getProductId() { return productId; }
+        public String getName() { return name; }
+        public String getSku() { return sku; }
+        public int getStockQuantity() { return stockQuantity; }
+        public int getMinStockLevel() { return minStockLevel; }
+        public String getEvent() { return event; }
+        public LocalDateTime getDetectedAt() { return detectedAt; }
+    }
+}
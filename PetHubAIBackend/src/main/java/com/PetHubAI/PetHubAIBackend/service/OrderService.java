@@ -2,12 +2,14 @@ package com.PetHubAI.PetHubAIBackend.service;
 
 import com.PetHubAI.PetHubAIBackend.dto.product.OrderRequest;
 import com.PetHubAI.PetHubAIBackend.dto.product.OrderResponse;
+import com.PetHubAI.PetHubAIBackend.dto.response.CursorPage;
 import com.PetHubAI.PetHubAIBackend.entity.*;
+import com.PetHubAI.PetHubAIBackend.exception.InsufficientStockException;
 import com.PetHubAI.PetHubAIBackend.repository.CartItemRepository;
 import com.PetHubAI.PetHubAIBackend.repository.OrderRepository;
-import com.PetHubAI.PetHubAIBackend.repository.ProductRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -18,6 +20,8 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 @Service
 @Transactional
@@ -30,10 +34,19 @@ public class OrderService {
     private CartItemRepository cartItemRepository;
 
     @Autowired
-    private ProductRepository productRepository;
+    private PaymentService paymentService;
 
     @Autowired
-    private PaymentService paymentService;
+    private ProductCatalogService productCatalogService;
+
+    @Autowired
+    private ProductRecommendationService productRecommendationService;
+
+    @Autowired
+    private StockService stockService;
+
+    @Autowired
+    private StockReservationService stockReservationService;
 
     // ✅ NEW: Create COD Order
     public OrderResponse createCODOrder(OrderRequest request, User user) {
@@ -46,14 +59,7 @@ public class OrderService {
                 throw new RuntimeException("Cart is empty. Cannot place order.");
             }
 
-            // 2. Validate stock availability
-            for (CartItem item : cartItems) {
-                if (item.getProduct().getStockQuantity() < item.getQuantity()) {
-                    throw new RuntimeException("Insufficient stock for product: " + item.getProduct().getName());
-                }
-            }
-
-            // 3. Create order
+            // 2. Create order (stock is checked and taken atomically in step 6)
             Order order = new Order();
             order.setUser(user);
             order.setShippingAddress(request.getShippingAddress());
@@ -63,7 +69,7 @@ public class OrderService {
             order.setPaymentStatus(Order.PaymentStatus.PENDING);
             order.setStatus(Order.OrderStatus.PENDING);
 
-            // 4. Calculate totals
+            // 3. Calculate totals
             OrderCalculation calculation = calculateOrderTotals(cartItems);
             order.setSubtotal(calculation.getSubtotal());
             order.setTotalAmount(calculation.getSubtotal());
@@ -72,23 +78,28 @@ public class OrderService {
             order.setShippingCost(calculation.getShipping());
             order.setFinalAmount(calculation.getTotal());
 
-            // 5. Create order items
+            // 4. Create order items
             List<OrderItem> orderItems = createOrderItems(order, cartItems);
             order.setOrderItems(orderItems);
 
-            // 6. Save order
+            // 5. Save order
             Order savedOrder = orderRepository.save(order);
             System.out.println("✅ COD Order created with ID: " + savedOrder.getId());
 
-            // 7. Update product inventory
-            updateProductInventory(cartItems);
+            // 6. Take the stock: one conditional UPDATE per product in a single batch, all or nothing.
+            // Done last so the product rows stay locked only until commit.
+            stockService.decrement(unitsByProduct(cartItems));
+            productRecommendationService.recordOrder(savedOrder);
 
-            // 8. Clear user's cart
+            // 7. Clear user's cart
             cartItemRepository.deleteByUser(user);
             System.out.println("✅ Cart cleared for user: " + user.getEmail());
 
             return new OrderResponse(savedOrder);
 
+        } catch (InsufficientStockException e) {
+            System.err.println("❌ COD order rejected: " + e.getMessage());
+            throw e;
         } catch (Exception e) {
             System.err.println("❌ Failed to create COD order: " + e.getMessage());
             e.printStackTrace();
@@ -104,14 +115,7 @@ public class OrderService {
             throw new RuntimeException("Cart is empty");
         }
 
-        // Validate stock availability
-        for (CartItem item : cartItems) {
-            if (item.getProduct().getStockQuantity() < item.getQuantity()) {
-                throw new RuntimeException("Insufficient stock for product: " + item.getProduct().getName());
-            }
-        }
-
-        // Create order
+        // Create order (stock is held at the end, see below)
         Order order = new Order();
         order.setUser(user);
         order.setShippingAddress(request.getShippingAddress());
@@ -138,6 +142,11 @@ public class OrderService {
         savedOrder.setRazorpayOrderId(razorpayOrderId);
         orderRepository.save(savedOrder);
 
+        // Hold the stock until payment (or the reservation TTL). After the Razorpay call on purpose, so the
+        // product rows are not locked across a remote request; an unused Razorpay order simply lapses.
+        LocalDateTime heldUntil = stockReservationService.reserve(savedOrder.getId(), unitsByProduct(cartItems));
+        System.out.println("📦 Stock held for order " + savedOrder.getId() + " until " + heldUntil);
+
         return new OrderResponse(savedOrder);
     }
 
@@ -220,19 +229,13 @@ public class OrderService {
         return orderItems;
     }
 
-    // ✅ NEW: Update product inventory helper method
-    private void updateProductInventory(List<CartItem> cartItems) {
+    // Units per product, summed in case a product appears on more than one line
+    private static Map<Long, Integer> unitsByProduct(List<CartItem> cartItems) {
+        Map<Long, Integer> units = new TreeMap<>();
         for (CartItem item : cartItems) {
-            Product product = item.getProduct();
-            int newStock = product.getStockQuantity() - item.getQuantity();
-
-            if (newStock < 0) {
-                throw new RuntimeException("Insufficient stock for product: " + product.getName());
-            }
-
-            product.setStockQuantity(newStock);
-            productRepository.save(product);
+            units.merge(item.getProduct().getId(), item.getQuantity(), Integer::sum);
         }
+        return units;
     }
 
     // ✅ ENHANCED: Get order by ID (with proper loading)
@@ -256,20 +259,51 @@ public class OrderService {
             throw new RuntimeException("Payment verification failed");
         }
 
-        Order order = orderRepository.findByRazorpayOrderId(razorpayOrderId)
+        // Locked, so a concurrent confirmation of the same payment waits here and then sees it PAID
+        Order order = orderRepository.findByRazorpayOrderIdForUpdate(razorpayOrderId)
                 .orElseThrow(() -> new RuntimeException("Order not found"));
 
+        // A repeated confirmation (client retry, webhook replay) must not take the stock twice
+        if (order.getPaymentStatus() == Order.PaymentStatus.PAID
+                || order.getPaymentStatus() == Order.PaymentStatus.REFUNDED) {
+            System.out.println("⚠️ Payment already confirmed for order " + order.getId());
+            return new OrderResponse(order);
+        }
+
+        // Normally the units were held at checkout and only become a sale here. If the hold already
+        // expired, take the stock again in one conditional batch; if it ran out meanwhile the payment is
+        // still recorded, and the order is cancelled and refunded.
+        Map<Long, Integer> units = new TreeMap<>();
+        for (OrderItem item : order.getOrderItems()) {
+            if (item.getProduct() != null) {
+                units.merge(item.getProduct().getId(), item.getQuantity(), Integer::sum);
+            }
+        }
+        StockReservationService.CommitResult held = stockReservationService.commit(order.getId());
+        if (held == StockReservationService.CommitResult.ALREADY_COMMITTED) {
+            // Another confirmation sold the hold; leave the order as that one left it
+            System.out.println("⚠️ Stock hold for order " + order.getId() + " was already committed");
+            return new OrderResponse(order);
+        }
+
         // Update order status
         order.setPaymentStatus(Order.PaymentStatus.PAID);
         order.setStatus(Order.OrderStatus.CONFIRMED);
         order.setRazorpayPaymentId(razorpayPaymentId);
 
-        // Update stock quantities
-        for (OrderItem item : order.getOrderItems()) {
-            Product product = item.getProduct();
-            product.setStockQuantity(product.getStockQuantity() - item.getQuantity());
-            productRepository.save(product);
+        if (held == StockReservationService.CommitResult.COMMITTED) {
+            units.forEach(productCatalogService::recordSale);
+        } else {
+            System.out.println("⚠️ No active stock hold for order " + order.getId() + ", taking stock now");
+            try {
+                stockService.decrement(units);
+            } catch (InsufficientStockException e) {
+                // Razorpay already has the money but the goods are gone: record the payment, cancel the order
+                // and refund it, rather than rolling back and losing track of the payment
+                return cancelPaidOrder(order, e.getMessage());
+            }
         }
+        productRecommendationService.recordOrder(order);
 
         // Clear user cart
         cartItemRepository.deleteByUser(order.getUser());
@@ -278,6 +312,20 @@ public class OrderService {
         return new OrderResponse(savedOrder);
     }
 
+    private OrderResponse cancelPaidOrder(Order order, String reason) {
+        System.err.println("❌ Order " + order.getId() + " paid after its stock hold lapsed: " + reason);
+        order.setStatus(Order.OrderStatus.CANCELLED);
+        try {
+            paymentService.initiateRefund(order.getRazorpayPaymentId(), order.getFinalAmount());
+            order.setPaymentStatus(Order.PaymentStatus.REFUNDED);
+            System.out.println("♻️ Refund initiated for order " + order.getId());
+        } catch (Exception e) {
+            // Stays PAID + CANCELLED, which admins can find and refund by hand
+            System.err.println("❌ Refund failed for order " + order.getId() + ", refund manually: " + e.getMessage());
+        }
+        return new OrderResponse(orderRepository.save(order));
+    }
+
     public void cancelOrder(Long orderId, User user) {
         Order order = orderRepository.findById(orderId)
                 .orElseThrow(() -> new RuntimeException("Order not found"));
@@ -290,6 +338,22 @@ public class OrderService {
             throw new RuntimeException("Order cannot be cancelled at this stage");
         }
 
+        // Take the units back out of the popularity ranking and the basket out of the bought-together
+        // index if this order had been counted as a sale
+        if ("COD".equals(order.getPaymentMethod()) || order.getPaymentStatus() == Order.PaymentStatus.PAID) {
+            for (OrderItem item : order.getOrderItems()) {
+                if (item.getProduct() != null) {
+                    productCatalogService.recordSale(item.getProduct().getId(), -item.getQuantity());
+                }
+            }
+            productRecommendationService.removeOrder(order);
+        }
+
+        // An unpaid online order still holding stock gives it back right away instead of at expiry
+        if (stockReservationService.release(order.getId())) {
+            System.out.println("♻️ Released stock held by cancelled order " + order.getId());
+        }
+
         order.setStatus(Order.OrderStatus.CANCELLED);
         orderRepository.save(order);
 
@@ -307,6 +371,19 @@ public class OrderService {
         return orders.map(OrderResponse::new);
     }
 
+    public CursorPage<OrderResponse> getAllOrdersFeed(String cursor, int size, boolean includeTotal) {
+        Pageable limit = PageRequest.of(0, CursorPage.checkSize(size) + 1);
+        List<Order> fetched;
+        if (cursor == null || cursor.isBlank()) {
+            fetched = orderRepository.findAllByOrderByCreatedAtDescIdDesc(limit);
+        } else {
+            CursorPage.Cursor position = CursorPage.decode(cursor);
+            fetched = orderRepository.findAllBeforeCursor(position.getCreatedAt(), position.getId(), limit);
+        }
+        return CursorPage.of(fetched, size, Order::getCreatedAt, Order::getId, OrderResponse::new,
+                includeTotal ? orderRepository.count() : null);
+    }
+
     public void updateOrderStatus(Long orderId, Order.OrderStatus status) {
         Order order = orderRepository.findById(orderId)
                 .orElseThrow(() -> new RuntimeException("Order not found"));
@@ -0,0 +1,267 @@
+package com.PetHubAI.PetHubAIBackend.service;
+
+import com.PetHubAI.PetHubAIBackend.entity.PetImage;
+import com.PetHubAI.PetHubAIBackend.entity.ProductImage;
+import com.PetHubAI.PetHubAIBackend.repository.PetImageRepository;
+import com.PetHubAI.PetHubAIBackend.repository.ProductImageRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Finds stored images that no pet_images/product_images row points at (failed saves, deletes that missed,
+// rows removed outside the services) and deletes them. Each backend is listed page by page and every page
+// is diffed against the tables with one IN query per table. Storage calls are paced and capped per run so
+// a large backlog is worked off over several nights instead of exhausting the Cloudinary API quota.
+@Service
+public class OrphanImageSweeper {
+
+    private static final int PAGE_SIZE = 500;
+    private static final int BACKFILL_PAGE_SIZE = 200;
+    // Uploads are stored before their row is saved, and jobs retry for about a minute; leave recent files alone
+    private static final Duration GRACE_PERIOD = Duration.ofHours(24);
+    private static final int DELETE_BATCH_SIZE = 100;
+    private static final long PAUSE_BETWEEN_CALLS_MS = 500;
+    private static final int MAX_PAGES_PER_RUN = 200;
+    private static final int MAX_DELETES_PER_RUN = 2000;
+    private static final int ORPHAN_SAMPLES = 20;
+
+    @Autowired
+    private ImageStorageRegistry imageStorageRegistry;
+
+    @Autowired
+    private PetImageRepository petImageRepository;
+
+    @Autowired
+    private ProductImageRepository productImageRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile SweepReport lastReport;
+
+    @Scheduled(cron = "${images.sweeper.cron:0 0 4 * * *}")
+    public void scheduledSweep() {
+        try {
+            sweep(false);
+        } catch (Exception e) {
+            System.err.println("❌ Orphaned image sweep failed: " + e.getMessage());
+        }
+    }
+
+    // dryRun writes nothing: it reports what would be deleted and how many legacy rows would get storage
+    // keys, treating the keys those rows would get as referenced
+    public SweepReport sweep(boolean dryRun) {
+        if (!running.compareAndSet(false, true)) {
+            throw new RuntimeException("An image sweep is already running");
+        }
+        try {
+            SweepReport report = new SweepReport(dryRun);
+            Set<String> legacyKeys = new HashSet<>();
+            report.legacyKeysBackfilled = backfillLegacyKeys(dryRun, legacyKeys);
+            for (ImageStorage storage : imageStorageRegistry.getAll()) {
+                try {
+                    sweep(storage, report, legacyKeys);
+                } catch (Exception e) {
+                    System.err.println("❌ Sweep of " + storage.getSource() + " images failed: " + e.getMessage());
+                    report.errors.add(storage.getSource() + ": " + e.getMessage());
+                }
+            }
+            report.completedAt = LocalDateTime.now();
+            report.durationMs = Duration.between(report.startedAt, report.completedAt).toMillis();
+            lastReport = report;
+            System.out.println("✅ Image sweep" + (dryRun ? " (dry run)" : "") + ": scanned " + report.scanned
+                    + ", orphaned " + report.orphaned + ", deleted " + report.deleted + " in " + report.durationMs + " ms");
+            return report;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    public SweepReport getLastReport() {
+        return lastReport;
+    }
+
+    // Helper methods
+    private void sweep(ImageStorage storage, SweepReport report, Set<String> legacyKeys) throws Exception {
+        Instant cutoff = Instant.now().minus(GRACE_PERIOD);
+        List<String> orphans = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            List<ImageStorage.StoredAsset> page = new ArrayList<>();
+            cursor = storage.listPage(cursor, PAGE_SIZE, page);
+            pages++;
+            report.scanned += page.size();
+
+            List<String> candidates = new ArrayList<>();
+            for (ImageStorage.StoredAsset asset : page) {
+                if (asset.getCreatedAt().isBefore(cutoff)) {
+                    candidates.add(asset.getStorageKey());
+                }
+            }
+            Set<String> referenced = imageStorageRegistry.findReferenced(candidates);
+            referenced.addAll(legacyKeys);
+            for (String key : candidates) {
+                if (!referenced.contains(key)) {
+                    orphans.add(key);
+                    report.orphaned++;
+                    if (report.orphanSamples.size() < ORPHAN_SAMPLES) {
+                        report.orphanSamples.add(storage.getSource() + ":" + key);
+                    }
+                }
+            }
+
+            while (orphans.size() >= DELETE_BATCH_SIZE && report.deleted < MAX_DELETES_PER_RUN) {
+                List<String> batch = new ArrayList<>(orphans.subList(0, DELETE_BATCH_SIZE));
+                orphans.subList(0, DELETE_BATCH_SIZE).clear();
+                delete(storage, batch, cutoff, report);
+            }
+            pause();
+
+            if (pages >= MAX_PAGES_PER_RUN || report.deleted >= MAX_DELETES_PER_RUN) {
+                report.truncated = cursor != null || !orphans.isEmpty();
+                break;
+            }
+        } while (cursor != null);
+
+        if (!orphans.isEmpty() && report.deleted < MAX_DELETES_PER_RUN) {
+            delete(storage, orphans, cutoff, report);
+        }
+    }
+
+    private void delete(ImageStorage storage, List<String> batch, Instant cutoff, SweepReport report)
+            throws InterruptedException {
+        if (report.dryRun) {
+            return;
+        }
+        // A row may have been saved against one of these since the page was diffed, and an upload may have
+        // reused one whose row is not committed yet (storage keeps those, by their fresh timestamp)
+        batch.removeAll(imageStorageRegistry.findReferenced(batch));
+        int allowed = MAX_DELETES_PER_RUN - (int) report.deleted;
+        List<String> keys = batch.size() > allowed ? batch.subList(0, allowed) : batch;
+        if (!keys.isEmpty()) {
+            report.deleted += storage.deleteAll(keys, cutoff);
+            pause();
+        }
+    }
+
+    // Rows saved before storage keys were recorded get them from their URL, so the diff can see them.
+    // URLs that are not Cloudinary uploads are marked EXTERNAL_URL and left alone. A dry run only reads,
+    // collecting the keys the rows would get into legacyKeys.
+    private long backfillLegacyKeys(boolean dryRun, Set<String> legacyKeys) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(dryRun);
+        long updated = 0;
+        for (int page = 0; ; page++) {
+            // Updated rows drop out of the query, so a real run always reads the first page; a dry run pages on
+            PageRequest request = PageRequest.of(dryRun ? page : 0, BACKFILL_PAGE_SIZE, Sort.by("id"));
+            Integer count = transaction.execute(status -> {
+                List<PetImage> images = petImageRepository.findByStorageKeyIsNullAndSource(
+                        PetImage.ImageSource.CLOUDINARY, request);
+                for (PetImage image : images) {
+                    String publicId = CloudinaryImageService.publicIdFromUrl(image.getImageUrl());
+                    String thumbnailId = image.getThumbnailUrl() != null && !image.getThumbnailUrl().equals(image.getImageUrl())
+                            ? CloudinaryImageService.publicIdFromUrl(image.getThumbnailUrl()) : null;
+                    if (dryRun) {
+                        if (publicId != null) {
+                            legacyKeys.add(publicId);
+                        }
+                        if (thumbnailId != null) {
+                            legacyKeys.add(thumbnailId);
+                        }
+                        continue;
+                    }
+                    if (publicId == null) {
+                        image.setSource(PetImage.ImageSource.EXTERNAL_URL);
+                        continue;
+                    }
+                    image.setStorageKey(publicId);
+                    if (thumbnailId != null) {
+                        image.setThumbnailStorageKey(thumbnailId);
+                    }
+                }
+                return images.size();
+            });
+            updated += count;
+            if (count < BACKFILL_PAGE_SIZE) {
+                break;
+            }
+        }
+        for (int page = 0; ; page++) {
+            PageRequest request = PageRequest.of(dryRun ? page : 0, BACKFILL_PAGE_SIZE, Sort.by("id"));
+            Integer count = transaction.execute(status -> {
+                List<ProductImage> images = productImageRepository.findLegacyImages(
+                        PetImage.ImageSource.CLOUDINARY, request);
+                for (ProductImage image : images) {
+                    String publicId = CloudinaryImageService.publicIdFromUrl(image.getImageUrl());
+                    if (dryRun) {
+                        if (publicId != null) {
+                            legacyKeys.add(publicId);
+                        }
+                        continue;
+                    }
+                    image.setSource(publicId != null ? PetImage.ImageSource.CLOUDINARY : PetImage.ImageSource.EXTERNAL_URL);
+                    image.setStorageKey(publicId);
+                }
+                return images.size();
+            });
+            updated += count;
+            if (count < BACKFILL_PAGE_SIZE) {
+                break;
+            }
+        }
+        if (updated > 0) {
+            System.out.println("📦 " + (dryRun ? "Would record" : "Recorded") + " storage keys for " + updated
+                    + " legacy image rows");
+        }
+        return updated;
+    }
+
+    private static void pause() throws InterruptedException {
+        Thread.sleep(PAUSE_BETWEEN_CALLS_MS);
+    }
+
+    public static class SweepReport {
+        private final boolean dryRun;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private LocalDateTime completedAt;
+        private long durationMs;
+        private long scanned;
+        private long orphaned;
+        private long deleted;
+        private long legacyKeysBackfilled;
+        private boolean truncated;
+        private final List<String> orphanSamples = new ArrayList<>();
+        private final List<String> errors = new ArrayList<>();
+
+        SweepReport(boolean dryRun) {
+            this.dryRun = dryRun;
+        }
+
+        public boolean isDryRun() { return dryRun; }
+        public LocalDateTime getStartedAt() { return startedAt; }
+        public LocalDateTime getCompletedAt() { return completedAt; }
+        public long getDurationMs() { return durationMs; }
+        public long getScanned() { return scanned; }
+        public long getOrphaned() { return orphaned; }
+        public long getDeleted() { return deleted; }
+        public long getLegacyKeysBackfilled() { return legacyKeysBackfilled; }
+        public boolean isTruncated() { return truncated; }
+        public List<String> getOrphanSamples() { return orphanSamples; }
+        public List<String> getErrors() { return errors; }
+    }
+}
@@ -0,0 +1,96 @@
+package com.PetHubAI.PetHubAIBackend.service;
+
+import com.PetHubAI.PetHubAIBackend.entity.Pet;
+import com.PetHubAI.PetHubAIBackend.repository.PetRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+// In-memory state derived from pets: the typeahead over species and breeds of available pets (each
+// available pet adds weight 1, so the most listed breeds complete first) and the listing version behind
+// the pet collection ETags. PetService, PetImageService and AdoptionRequestService push every write in.
+@Service
+public class PetCatalogService {
+
+    private static final String BOOT_ID = Long.toString(System.currentTimeMillis(), 36);
+
+    @Autowired
+    private PetRepository petRepository;
+
+    private final SuggestionTrie suggestions = new SuggestionTrie();
+
+    private final AtomicLong listingVersion = new AtomicLong();
+    private volatile long listingModifiedAt = System.currentTimeMillis();
+
+    @PostConstruct
+    public void loadSuggestions() {
+        long start = System.currentTimeMillis();
+        List<Object[]> rows = petRepository.findSuggestionTermsByStatus(Pet.AdoptionStatus.AVAILABLE);
+        for (Object[] row : rows) {
+            put((Long) row[0], (String) row[1], (String) row[2]);
+        }
+        System.out.println("✅ Pet suggestions loaded: " + rows.size() + " available pets in "
+                + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    // Called inside the writing transaction; applied once it commits
+    public void refresh(Pet pet) {
+        Long petId = pet.getId();
+        boolean available = pet.getStatus() == Pet.AdoptionStatus.AVAILABLE;
+        String species = pet.getSpecies();
+        String breed = pet.getBreed();
+        AfterCommit.run(() -> {
+            if (available) {
+                put(petId, species, breed);
+            } else {
+                suggestions.remove(String.valueOf(petId));
+            }
+            touchListings();
+        });
+    }
+
+    public void evict(Long petId) {
+        AfterCommit.run(() -> {
+            suggestions.remove(String.valueOf(petId));
+            touchListings();
+        });
+    }
+
+    // Image-only changes: nothing to re-index, but cached listings now show stale images
+    public void touch() {
+        AfterCommit.run(this::touchListings);
+    }
+
+    public ResourceVersion getListingVersion() {
+        return new ResourceVersion("pets-" + BOOT_ID + "-" + listingVersion.get(), listingModifiedAt);
+    }
+
+    public List<SuggestionTrie.Suggestion> suggest(String prefix, int limit) {
+        return suggestions.complete(prefix, limit);
+    }
+
+    public SuggestionTrie.Stats getSuggestionStats() {
+        return suggestions.stats();
+    }
+
+    // Helper methods
+    private void touchListings() {
+        listingModifiedAt = System.currentTimeMillis();
+        listingVersion.incrementAndGet();
+    }
+
+    private void put(Long petId, String species, String breed) {
+        List<SuggestionTrie.Term> terms = new ArrayList<>();
+        if (species != null) {
+            terms.add(new SuggestionTrie.Term(species, "species"));
+        }
+        if (breed != null) {
+            terms.add(new SuggestionTrie.Term(breed, "breed"));
+        }
+        suggestions.put(String.valueOf(petId), terms, 1);
+    }
+}
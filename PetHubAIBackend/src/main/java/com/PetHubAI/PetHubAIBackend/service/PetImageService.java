@@ -6,10 +6,13 @@ import com.PetHubAI.PetHubAIBackend.repository.PetImageRepository;
 import com.PetHubAI.PetHubAIBackend.repository.PetRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.List;
 
 @Service
@@ -25,57 +28,150 @@ public class PetImageService {
     @Autowired
     private PetRepository petRepository;
 
+    @Autowired
+    private PetCatalogService petCatalogService;
+
+    @Autowired
+    private ImageUploadExecutor imageUploadExecutor;
+
+    @Autowired
+    private ImageVariantProcessor imageVariantProcessor;
+
+    @Autowired
+    private ImageStorageRegistry imageStorageRegistry;
+
+    @Autowired
+    private ImageAssetService imageAssetService;
+
+    // The file is decoded once and both variants are rendered locally, then the main image and thumbnail
+    // go to the active storage backend side by side with no DB connection held; the row is written after.
+    // Bytes that were uploaded before (same SHA-256) reuse the stored variants and skip all of that.
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public PetImage uploadPetImage(MultipartFile file, Long petId, Boolean isPrimary) throws IOException {
-        // Find pet
-        Pet pet = petRepository.findById(petId)
-                .orElseThrow(() -> new RuntimeException("Pet not found with ID: " + petId));
-
-        // Upload to Cloudinary
-        String imageUrl = cloudinaryImageService.uploadPetImage(file, petId);
-        String thumbnailUrl = cloudinaryImageService.uploadPetThumbnail(file, petId);
-
-        // If this is set as primary, make sure no other image is primary
-        if (isPrimary != null && isPrimary) {
-            List<PetImage> existingImages = petImageRepository.findByPetIdOrderByIsPrimaryDescCreatedAtAsc(petId);
-            for (PetImage existingImage : existingImages) {
-                if (existingImage.getIsPrimary() != null && existingImage.getIsPrimary()) {
-                    existingImage.setIsPrimary(false);
-                    petImageRepository.save(existingImage);
+        try {
+            return uploadPetImage(file, petId, isPrimary, true);
+        } catch (ImageAssetService.StaleAssetException e) {
+            System.out.println("⚠️ " + e.getMessage() + ", uploading instead");
+            return uploadPetImage(file, petId, isPrimary, false);
+        }
+    }
+
+    private PetImage uploadPetImage(MultipartFile file, Long petId, Boolean isPrimary, boolean reuse) throws IOException {
+        if (!petRepository.existsById(petId)) {
+            throw new RuntimeException("Pet not found with ID: " + petId);
+        }
+        ImageVariantProcessor.ImageInfo info = cloudinaryImageService.validateAndHashImage(file);
+
+        ImageStorage storage = imageStorageRegistry.getActive();
+        String contentHash = info.getContentHash();
+        ImageAssetService.Asset found = reuse
+                ? imageAssetService.find(contentHash, ImageVariantProcessor.DISPLAY, storage.getSource()) : null;
+        ImageAssetService.Asset foundThumbnail = reuse
+                ? imageAssetService.find(contentHash, ImageVariantProcessor.THUMBNAIL, storage.getSource()) : null;
+
+        ImageAssetService.Asset image = found;
+        ImageAssetService.Asset thumbnail = foundThumbnail;
+        if (found == null || foundThumbnail == null) {
+            ImageVariantProcessor.ProcessedImage processed = null;
+            if (!ImageVariantProcessor.WEBP.equals(info.getFormat())) {
+                try (InputStream input = file.getInputStream()) {
+                    processed = imageVariantProcessor.process(input, file.getSize(),
+                            ImageVariantProcessor.DISPLAY, ImageVariantProcessor.THUMBNAIL);
+                }
+            }
+            ImageVariantProcessor.ProcessedImage variants = processed;
+
+            // Formats ImageIO cannot decode are stored as uploaded (Cloudinary still sizes them with a transformation)
+            String imageFolder = "petcare/pets/" + petId;
+            String thumbnailFolder = "petcare/thumbnails/" + petId;
+            List<ImageUploadExecutor.UploadTask<ImageStorage.StoredImage>> tasks = new ArrayList<>();
+            if (found == null) {
+                tasks.add(variants != null
+                        ? () -> storage.store(variants.get(ImageVariantProcessor.DISPLAY), imageFolder, "pet_" + petId)
+                        : () -> storage.storeOriginal(file, info.getFormat(), imageFolder, "pet_" + petId, ImageVariantProcessor.DISPLAY));
+            }
+            if (foundThumbnail == null) {
+                tasks.add(variants != null
+                        ? () -> storage.store(variants.get(ImageVariantProcessor.THUMBNAIL), thumbnailFolder, "thumb_pet_" + petId)
+                        : () -> storage.storeOriginal(file, info.getFormat(), thumbnailFolder, "thumb_pet_" + petId, ImageVariantProcessor.THUMBNAIL));
+            }
+            List<ImageUploadExecutor.UploadResult<ImageStorage.StoredImage>> uploads = imageUploadExecutor.runAll(tasks);
+
+            String blurHash = variants != null ? variants.getBlurHash() : null;
+            String dominantColor = variants != null ? variants.getDominantColor() : null;
+            int next = 0;
+            if (found == null) {
+                ImageUploadExecutor.UploadResult<ImageStorage.StoredImage> upload = uploads.get(next++);
+                if (!upload.isSuccess()) {
+                    throw new IOException(upload.getError());
+                }
+                image = describe(contentHash, ImageVariantProcessor.DISPLAY, upload.getValue(), info, blurHash, dominantColor);
+            }
+            if (foundThumbnail == null) {
+                ImageUploadExecutor.UploadResult<ImageStorage.StoredImage> upload = uploads.get(next);
+                // A missing thumbnail should not lose the upload: fall back to the main image
+                if (upload.isSuccess()) {
+                    thumbnail = describe(contentHash, ImageVariantProcessor.THUMBNAIL, upload.getValue(), info, null, null);
+                } else {
+                    System.err.println("⚠️ Thumbnail upload failed for pet " + petId + ", using main image: " + upload.getError());
                 }
             }
         }
+        ImageAssetService.Asset uploadedImage = image;
+        ImageAssetService.Asset uploadedThumbnail = thumbnail;
+
+        return imageAssetService.inTransaction(status -> {
+            // Find pet
+            Pet pet = petRepository.findById(petId)
+                    .orElseThrow(() -> new RuntimeException("Pet not found with ID: " + petId));
+
+            // Take references on the assets in the same transaction as the row that uses them
+            ImageAssetService.Asset mainAsset = imageAssetService.retain(uploadedImage);
+            ImageAssetService.Asset thumbnailAsset = uploadedThumbnail != null ? imageAssetService.retain(uploadedThumbnail) : null;
+
+            // If this is set as primary, make sure no other image is primary
+            if (isPrimary != null && isPrimary) {
+                List<PetImage> existingImages = petImageRepository.findByPetIdOrderByIsPrimaryDescCreatedAtAsc(petId);
+                for (PetImage existingImage : existingImages) {
+                    if (existingImage.getIsPrimary() != null && existingImage.getIsPrimary()) {
+                        existingImage.setIsPrimary(false);
+                        petImageRepository.save(existingImage);
+                    }
+                }
+            }
 
-        // Create and save pet image record
-        PetImage petImage = new PetImage();
-        petImage.setPet(pet);
-        petImage.setImageUrl(imageUrl);
-        petImage.setThumbnailUrl(thumbnailUrl);
-        petImage.setImageName(file.getOriginalFilename());
-        petImage.setImageSize(file.getSize());
-        petImage.setIsPrimary(isPrimary != null ? isPrimary : false);
-        petImage.setSource(PetImage.ImageSource.CLOUDINARY);
-
-        return petImageRepository.save(petImage);
+            // Create and save pet image record
+            PetImage petImage = new PetImage();
+            petImage.setPet(pet);
+            petImage.setImageUrl(mainAsset.getUrl());
+            petImage.setThumbnailUrl(thumbnailAsset != null ? thumbnailAsset.getUrl() : mainAsset.getUrl());
+            petImage.setImageName(file.getOriginalFilename());
+            petImage.setImageSize(file.getSize());
+            petImage.setIsPrimary(isPrimary != null ? isPrimary : false);
+            petImage.setSource(mainAsset.getSource());
+            petImage.setStorageKey(mainAsset.getStorageKey());
+            petImage.setThumbnailStorageKey(thumbnailAsset != null ? thumbnailAsset.getStorageKey() : null);
+            petImage.setAssetId(mainAsset.getId());
+            petImage.setThumbnailAssetId(thumbnailAsset != null ? thumbnailAsset.getId() : null);
+            petImage.setWidth(mainAsset.getWidth());
+            petImage.setHeight(mainAsset.getHeight());
+            petImage.setBlurHash(mainAsset.getBlurHash());
+            petImage.setDominantColor(mainAsset.getDominantColor());
+
+            PetImage savedImage = petImageRepository.save(petImage);
+            petCatalogService.touch();
+            return savedImage;
+        });
     }
 
     public void deletePetImage(Long imageId) {
         PetImage petImage = petImageRepository.findById(imageId)
                 .orElseThrow(() -> new RuntimeException("Pet image not found with ID: " + imageId));
 
-        // Extract public ID from Cloudinary URL for deletion
-        String publicId = extractPublicIdFromUrl(petImage.getImageUrl());
-        String thumbPublicId = extractPublicIdFromUrl(petImage.getThumbnailUrl());
-
-        // Delete from Cloudinary
-        if (publicId != null && !publicId.isEmpty()) {
-            cloudinaryImageService.deletePetImage(publicId);
-        }
-        if (thumbPublicId != null && !thumbPublicId.isEmpty()) {
-            cloudinaryImageService.deletePetImage(thumbPublicId);
-        }
-
-        // Delete from database
+        // Delete from database; the stored files go once the transaction commits
         petImageRepository.delete(petImage);
+        releaseImagesAfterCommit(List.of(petImage));
+        petCatalogService.touch();
     }
 
     public List<PetImage> getPetImages(Long petId) {
@@ -111,7 +207,9 @@ public class PetImageService {
 
         // Set the new image as primary
         newPrimaryImage.setIsPrimary(true);
-        return petImageRepository.save(newPrimaryImage);
+        PetImage savedImage = petImageRepository.save(newPrimaryImage);
+        petCatalogService.touch();
+        return savedImage;
     }
 
     public long countImagesByPet(Long petId) {
@@ -121,47 +219,41 @@ public class PetImageService {
     public void deleteAllPetImages(Long petId) {
         List<PetImage> petImages = petImageRepository.findByPetIdOrderByIsPrimaryDescCreatedAtAsc(petId);
 
-        for (PetImage petImage : petImages) {
-            // Extract public ID from Cloudinary URL for deletion
-            String publicId = extractPublicIdFromUrl(petImage.getImageUrl());
-            String thumbPublicId = extractPublicIdFromUrl(petImage.getThumbnailUrl());
-
-            // Delete from Cloudinary
-            if (publicId != null && !publicId.isEmpty()) {
-                cloudinaryImageService.deletePetImage(publicId);
-            }
-            if (thumbPublicId != null && !thumbPublicId.isEmpty()) {
-                cloudinaryImageService.deletePetImage(thumbPublicId);
-            }
-        }
-
-        // Delete all from database
+        // Delete all from database; the stored files go once the transaction commits
         petImageRepository.deleteByPetId(petId);
+        releaseImagesAfterCommit(petImages);
+        petCatalogService.touch();
     }
 
-    private String extractPublicIdFromUrl(String cloudinaryUrl) {
-        if (cloudinaryUrl == null || cloudinaryUrl.isEmpty()) {
-            return null;
-        }
-
-        try {
-            // Extract public_id from Cloudinary
-            // URL format: https://res.cloudinary.com/cloud_name/image/upload/v1234567890/folder/public_id.format
-            String[] parts = cloudinaryUrl.split("/");
-            if (parts.length > 0) {
-                String fileWithFormat = parts[parts.length - 1];
-                // Remove file extension if present
-                int lastDotIndex = fileWithFormat.lastIndexOf('.');
-                if (lastDotIndex > 0) {
-                    return fileWithFormat.substring(0, lastDotIndex);
+    // Queues the stored main image and thumbnail of each row for a batched delete after commit
+    public void releaseImagesAfterCommit(List<PetImage> petImages) {
+        List<ImageStorageRegistry.StoredRef> refs = new ArrayList<>();
+        for (PetImage petImage : petImages) {
+            if (petImage.getStorageKey() != null) {
+                refs.add(new ImageStorageRegistry.StoredRef(petImage.getSource(), petImage.getStorageKey(),
+                        petImage.getAssetId()));
+                refs.add(new ImageStorageRegistry.StoredRef(petImage.getSource(), petImage.getThumbnailStorageKey(),
+                        petImage.getThumbnailAssetId()));
+            } else if (petImage.getSource() == PetImage.ImageSource.CLOUDINARY) {
+                // Rows from before storage keys were recorded: the public id (with its folder) comes from the URL
+                refs.add(new ImageStorageRegistry.StoredRef(PetImage.ImageSource.CLOUDINARY,
+                        CloudinaryImageService.publicIdFromUrl(petImage.getImageUrl())));
+                if (petImage.getThumbnailUrl() != null && !petImage.getThumbnailUrl().equals(petImage.getImageUrl())) {
+                    refs.add(new ImageStorageRegistry.StoredRef(PetImage.ImageSource.CLOUDINARY,
+                            CloudinaryImageService.publicIdFromUrl(petImage.getThumbnailUrl())));
                 }
-                return fileWithFormat;
             }
-            return null;
-        } catch (Exception e) {
-            System.err.println("Error extracting public ID from URL: " + cloudinaryUrl + " - " + e.getMessage());
-            return null;
         }
+        imageStorageRegistry.releaseAfterCommit(refs);
+    }
+
+    // Stored as uploaded when the backend reports no size
+    private ImageAssetService.Asset describe(String contentHash, ImageVariantProcessor.VariantSpec spec,
+                                             ImageStorage.StoredImage stored, ImageVariantProcessor.ImageInfo info,
+                                             String blurHash, String dominantColor) {
+        return imageAssetService.stored(contentHash, spec, stored,
+                stored.getWidth() > 0 ? stored.getWidth() : info.getWidth(),
+                stored.getHeight() > 0 ? stored.getHeight() : info.getHeight(), blurHash, dominantColor);
     }
 
     // Utility method to validate image file
@@ -1,5 +1,7 @@
 package com.PetHubAI.PetHubAIBackend.service;
 
+import com.PetHubAI.PetHubAIBackend.dto.PetResponse;
+import com.PetHubAI.PetHubAIBackend.dto.response.CursorPage;
 import com.PetHubAI.PetHubAIBackend.entity.AdoptionRequest;
 import com.PetHubAI.PetHubAIBackend.entity.Pet;
 import com.PetHubAI.PetHubAIBackend.entity.User;
@@ -13,6 +15,8 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.List;
 
 @Service
@@ -25,11 +29,19 @@ public class PetService {
     @Autowired
     private AdoptionRequestRepository adoptionRequestRepository;
 
+    @Autowired
+    private PetCatalogService petCatalogService;
+
+    @Autowired
+    private PetImageService petImageService;
+
     // Create new pet
     public Pet createPet(Pet pet, User owner) {
         pet.setPostedBy(owner);
         pet.setStatus(Pet.AdoptionStatus.AVAILABLE);
-        return petRepository.save(pet);
+        Pet savedPet = petRepository.save(pet);
+        petCatalogService.refresh(savedPet);
+        return savedPet;
     }
 
     // Get all available pets
@@ -42,6 +54,21 @@ public class PetService {
         return petRepository.findByStatusOrderByCreatedAtDesc(Pet.AdoptionStatus.AVAILABLE, pageable);
     }
 
+    // Keyset feed for infinite scroll; mapped inside the transaction so images can still load
+    public CursorPage<PetResponse> getAvailablePetsFeed(String cursor, int size, boolean includeTotal) {
+        Pageable limit = PageRequest.of(0, CursorPage.checkSize(size) + 1);
+        List<Pet> fetched;
+        if (cursor == null || cursor.isBlank()) {
+            fetched = petRepository.findByStatusOrderByCreatedAtDescIdDesc(Pet.AdoptionStatus.AVAILABLE, limit);
+        } else {
+            CursorPage.Cursor position = CursorPage.decode(cursor);
+            fetched = petRepository.findByStatusBeforeCursor(Pet.AdoptionStatus.AVAILABLE,
+                    position.getCreatedAt(), position.getId(), limit);
+        }
+        return CursorPage.of(fetched, size, Pet::getCreatedAt, Pet::getId, PetResponse::new,
+                includeTotal ? petRepository.countByStatus(Pet.AdoptionStatus.AVAILABLE) : null);
+    }
+
     // Alternative method name that's more explicit
     public Page<Pet> getAvailablePetsOrderedByDate(Pageable pageable) {
         return petRepository.findByStatusOrderByCreatedAtDesc(Pet.AdoptionStatus.AVAILABLE, pageable);
@@ -58,6 +85,23 @@ public class PetService {
                 .orElseThrow(() -> new PetNotFoundException("Pet not found with ID: " + petId));
     }
 
+    // Validator for GET /pets/{id}, null when the pet does not exist
+    public ResourceVersion getPetVersion(Long petId) {
+        List<Object[]> rows = petRepository.findVersionStamp(petId);
+        if (rows.isEmpty()) {
+            return null;
+        }
+        Object[] row = rows.get(0);
+        LocalDateTime updatedAt = (LocalDateTime) row[0];
+        long updatedMillis = updatedAt != null ? updatedAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : 0;
+        return new ResourceVersion("pet-" + petId + "-" + updatedMillis + "-" + row[1] + "-" + row[2] + "-" + row[3], 0);
+    }
+
+    // Validator for the available-pet listings
+    public ResourceVersion getListingVersion() {
+        return petCatalogService.getListingVersion();
+    }
+
     // Update pet
     public Pet updatePet(Long petId, Pet petDetails, User user) {
         Pet pet = findById(petId);
@@ -86,7 +130,9 @@ public class PetService {
         pet.setLocationState(petDetails.getLocationState());
         pet.setLocationCountry(petDetails.getLocationCountry());
 
-        return petRepository.save(pet);
+        Pet savedPet = petRepository.save(pet);
+        petCatalogService.refresh(savedPet);
+        return savedPet;
     }
 
     // Delete pet
@@ -99,7 +145,9 @@ public class PetService {
             throw new RuntimeException("You can only delete your own pets");
         }
 
+        petImageService.deleteAllPetImages(petId);
         petRepository.delete(pet);
+        petCatalogService.evict(petId);
     }
 
     // Search pets
@@ -114,6 +162,15 @@ public class PetService {
                 Pet.AdoptionStatus.AVAILABLE, pageable);
     }
 
+    // Typeahead over available pets' species and breeds
+    public List<SuggestionTrie.Suggestion> suggestPets(String prefix, int limit) {
+        return petCatalogService.suggest(prefix, limit);
+    }
+
+    public SuggestionTrie.Stats getSuggestionStats() {
+        return petCatalogService.getSuggestionStats();
+    }
+
     // Get pets by species
     public Page<Pet> getPetsBySpecies(String species, Pageable pageable) {
         return petRepository.findBySpeciesIgnoreCaseAndStatusOrderByCreatedAtDesc(
@@ -142,7 +199,9 @@ public class PetService {
         }
 
         pet.setStatus(status);
-        return petRepository.save(pet);
+        Pet savedPet = petRepository.save(pet);
+        petCatalogService.refresh(savedPet);
+        return savedPet;
     }
 
     // Get statistics
@@ -165,7 +224,9 @@ public class PetService {
 
         pet.setStatus(Pet.AdoptionStatus.ADOPTED);
         pet.setAdoptedBy(adopter);
-        return petRepository.save(pet);
+        Pet savedPet = petRepository.save(pet);
+        petCatalogService.refresh(savedPet);
+        return savedPet;
     }
 
     public void deletePetById(Long petId) {
@@ -184,14 +245,12 @@ public class PetService {
         }
         adoptionRequestRepository.deleteByPetId(petId);
 
-        // Delete pet images from Cloudinary (if you want to clean up cloud storage)
-        if (pet.getImages() != null && !pet.getImages().isEmpty()) {
-            // You can implement cloud cleanup here if needed
-            // cloudinaryImageService.deleteAllPetImages(petId);
-        }
+        // Image rows go with the pet; their stored files are deleted in a batch after commit
+        petImageService.deleteAllPetImages(petId);
 
         // Delete the pet
         petRepository.delete(pet);
+        petCatalogService.evict(petId);
 
         System.out.println("✅ Pet deleted successfully: " + pet.getName() + " (ID: " + petId + ")");
     }
@@ -0,0 +1,503 @@
+package com.PetHubAI.PetHubAIBackend.service;
+
+import com.PetHubAI.PetHubAIBackend.dto.product.ProductCategoryResponse;
+import com.PetHubAI.PetHubAIBackend.dto.product.ProductFacetResponse;
+import com.PetHubAI.PetHubAIBackend.dto.product.ProductListingView;
+import com.PetHubAI.PetHubAIBackend.dto.product.ProductResponse;
+import com.PetHubAI.PetHubAIBackend.dto.response.CursorPage;
+import com.PetHubAI.PetHubAIBackend.entity.Order;
+import com.PetHubAI.PetHubAIBackend.entity.Product;
+import com.PetHubAI.PetHubAIBackend.repository.OrderItemRepository;
+import com.PetHubAI.PetHubAIBackend.repository.ProductCategoryRepository;
+import com.PetHubAI.PetHubAIBackend.repository.ProductRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+// In-memory read model of the active catalog. Public product listings are served from here
+// so browsing does not hit the products table; ProductService/OrderService push every write in.
+@Service
+@DependsOn("createdAtBackfill")
+public class ProductCatalogService {
+
+    private static final int LOAD_BATCH_SIZE = 500;
+
+    // Versions restart with the process, so every ETag carries the boot it was issued in
+    private static final String BOOT_ID = Long.toString(System.currentTimeMillis(), 36);
+
+    static final Comparator<ProductResponse> NEWEST_FIRST = Comparator
+            .comparing(ProductResponse::getCreatedAt, Comparator.nullsLast(Comparator.reverseOrder()))
+            .thenComparing(ProductResponse::getId, Comparator.reverseOrder());
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Autowired
+    private ProductCategoryRepository categoryRepository;
+
+    @Autowired
+    private ProductListingAssembler productListingAssembler;
+
+    @Autowired
+    private LowStockMonitor lowStockMonitor;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Active products only, keyed by id, plus the same snapshots ordered newest first
+    private final Map<Long, ProductResponse> activeProducts = new ConcurrentHashMap<>();
+    private final NavigableSet<ProductResponse> newestFirst = new ConcurrentSkipListSet<>(NEWEST_FIRST);
+
+    private final ProductSearchIndex searchIndex = new ProductSearchIndex();
+    private final ProductFacetIndex facetIndex = new ProductFacetIndex();
+    private final ProductSortIndex sortIndex = new ProductSortIndex();
+    private final SuggestionTrie suggestions = new SuggestionTrie();
+    private final ProductTagIndex tagIndex = new ProductTagIndex();
+
+    // Category hierarchy is swapped whole on reload; counts are active products directly in each category
+    private volatile CategoryTree categoryTree = CategoryTree.empty();
+    private final Map<Long, Long> categoryCounts = new ConcurrentHashMap<>();
+
+    private final Object writeLock = new Object();
+
+    // Bumped on every applied change; per product we remember the version and time it was last applied
+    private final AtomicLong catalogVersion = new AtomicLong();
+    private volatile long catalogModifiedAt = System.currentTimeMillis();
+    private final Map<Long, long[]> productRevisions = new ConcurrentHashMap<>();
+
+    // Snapshots are read after commit and numbered when the read starts. A read that started later saw
+    // every commit an earlier one saw, so per product only the newest-numbered read may be applied;
+    // after-commit hooks that run out of order cannot put an older state back
+    private final AtomicLong readSequence = new AtomicLong();
+    private final Map<Long, Long> appliedReads = new HashMap<>();
+
+    @PostConstruct
+    public void loadCatalog() {
+        long start = System.currentTimeMillis();
+        long read = readSequence.incrementAndGet();
+
+        // Seek on id in projection batches: each batch is one row query plus one image and one tag query
+        readOnlyTransaction().executeWithoutResult(status -> {
+            categoryTree = CategoryTree.build(categoryRepository.findActiveTreeRows(), 1);
+
+            Map<Long, Long> unitsSold = new HashMap<>();
+            orderItemRepository.sumUnitsSoldByProduct(
+                    List.of(Order.OrderStatus.CANCELLED, Order.OrderStatus.REFUNDED), Order.PaymentStatus.PAID)
+                    .forEach(row -> unitsSold.put((Long) row[0], ((Number) row[1]).longValue()));
+            sortIndex.loadUnitsSold(unitsSold);
+
+            long lastId = 0;
+            List<ProductListingView> batch;
+            do {
+                batch = productRepository.findActiveListingViewsAfterId(lastId, PageRequest.of(0, LOAD_BATCH_SIZE));
+                productListingAssembler.toResponses(batch).forEach(snapshot -> apply(snapshot.getId(), snapshot, read));
+                if (!batch.isEmpty()) {
+                    lastId = batch.get(batch.size() - 1).getId();
+                }
+            } while (batch.size() == LOAD_BATCH_SIZE);
+        });
+
+        System.out.println("✅ Product catalog loaded: " + activeProducts.size() + " active products, "
+                + searchIndex.termCount() + " search terms, " + tagIndex.tagCount() + " tags, "
+                + categoryTree.size() + " categories in "
+                + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    // Called inside the writing transaction; the product is re-read once the transaction commits, so the
+    // catalog gets the committed row (timestamps included) rather than the entity as this transaction saw it
+    public void refresh(Product product) {
+        reload(List.of(product.getId()));
+    }
+
+    // Deleted or deactivated: the re-read finds nothing active and takes it out
+    public void evict(Long productId) {
+        reload(List.of(productId));
+    }
+
+    // Units sold feed the popularity ordering; negative deltas undo a sale (cancellation)
+    public void recordSale(Long productId, long units) {
+        AfterCommit.run(() -> {
+            synchronized (writeLock) {
+                sortIndex.addUnitsSold(productId, units);
+                touchCatalog();
+                ProductResponse snapshot = activeProducts.get(productId);
+                if (snapshot != null) {
+                    suggest(snapshot);
+                }
+            }
+        });
+    }
+
+    // For set-based writes that bypass the entities: re-read the given products once the writing
+    // transaction has committed, in a fresh read-only transaction
+    public void reload(Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>(productIds);
+        AfterCommit.run(() -> readOnlyTransaction().executeWithoutResult(status -> {
+            long read = readSequence.incrementAndGet();
+            Map<Long, ProductResponse> reloaded = new HashMap<>();
+            productListingAssembler.toResponses(productRepository.findListingViewsByIds(ids))
+                    .forEach(snapshot -> reloaded.put(snapshot.getId(), snapshot));
+            for (Long id : ids) {
+                ProductResponse snapshot = reloaded.get(id);
+                apply(id, snapshot != null && Boolean.TRUE.equals(snapshot.getIsActive()) ? snapshot : null, read);
+            }
+        }));
+    }
+
+    // Categories have no write path in the app; call this after changing them in the database
+    public void reloadCategories() {
+        readOnlyTransaction().executeWithoutResult(status -> {
+            List<Object[]> rows = categoryRepository.findActiveTreeRows();
+            synchronized (writeLock) {
+                categoryTree = CategoryTree.build(rows, categoryTree.getVersion() + 1);
+                touchCatalog();
+            }
+        });
+        System.out.println("✅ Category tree reloaded: " + categoryTree.size() + " active categories");
+    }
+
+    // Read side
+    public Page<ProductResponse> getActiveProducts(Pageable pageable) {
+        return new PageImpl<>(newestFirst.stream()
+                .skip(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .collect(Collectors.toList()), pageable, activeProducts.size());
+    }
+
+    public Page<ProductResponse> getActiveProductsSorted(ProductSortIndex.SortOrder order, Pageable pageable) {
+        if (order == ProductSortIndex.SortOrder.NEWEST) {
+            return getActiveProducts(pageable);
+        }
+        List<Long> ids = sortIndex.page(order, pageable.getOffset(), pageable.getPageSize());
+        return new PageImpl<>(resolve(ids), pageable, activeProducts.size());
+    }
+
+    // Keyset feed in any supported order; the cursor carries the sort value and id of the last row
+    public CursorPage<ProductResponse> getActiveProductsFeed(ProductSortIndex.SortOrder order, String cursor,
+                                                             int size, boolean includeTotal) {
+        CursorPage.checkSize(size);
+        if (order == ProductSortIndex.SortOrder.NEWEST) {
+            return getActiveProductsFeed(cursor, size, includeTotal);
+        }
+        ProductSortIndex.SortedSlice slice = sortIndex.seek(order, cursor, size);
+        return new CursorPage<>(resolve(slice.getProductIds()), slice.getNextCursor(), slice.isHasNext(), size,
+                includeTotal ? (long) activeProducts.size() : null);
+    }
+
+    public long getUnitsSold(Long productId) {
+        return sortIndex.getUnitsSold(productId);
+    }
+
+    public List<SuggestionTrie.Suggestion> suggest(String prefix, int limit) {
+        return suggestions.complete(prefix, limit);
+    }
+
+    public SuggestionTrie.Stats getSuggestionStats() {
+        return suggestions.stats();
+    }
+
+    // Keyset feed: seek straight to the cursor position in the ordered set instead of skipping rows
+    public CursorPage<ProductResponse> getActiveProductsFeed(String cursor, int size, boolean includeTotal) {
+        CursorPage.checkSize(size);
+        NavigableSet<ProductResponse> remaining = newestFirst;
+        if (cursor != null && !cursor.isBlank()) {
+            CursorPage.Cursor position = CursorPage.decode(cursor);
+            ProductResponse probe = new ProductResponse();
+            probe.setCreatedAt(position.getCreatedAt());
+            probe.setId(position.getId());
+            remaining = newestFirst.tailSet(probe, false);
+        }
+
+        List<ProductResponse> fetched = remaining.stream().limit(size + 1L).collect(Collectors.toList());
+        return CursorPage.of(fetched, size, ProductResponse::getCreatedAt, ProductResponse::getId,
+                Function.identity(), includeTotal ? (long) activeProducts.size() : null);
+    }
+
+    public List<ProductResponse> getFeaturedProducts() {
+        return newestFirst.stream()
+                .filter(product -> Boolean.TRUE.equals(product.getFeatured()))
+                .collect(Collectors.toList());
+    }
+
+    // The category and all of its subcategories, as one union of the per-category bitmaps. Categories
+    // missing from the (active-only) tree are looked up once, so an unknown id is still an error.
+    public Page<ProductResponse> getProductsByCategory(Long categoryId, Pageable pageable) {
+        if (categoryTree.get(categoryId) == null && !categoryRepository.existsById(categoryId)) {
+            throw new RuntimeException("Category not found");
+        }
+        List<ProductResponse> matches = resolve(facetIndex.union(ProductFacetIndex.CATEGORY, expandCategories(List.of(categoryId))));
+        matches.sort(NEWEST_FIRST);
+
+        int from = (int) Math.min(pageable.getOffset(), matches.size());
+        int to = Math.min(from + pageable.getPageSize(), matches.size());
+        return new PageImpl<>(matches.subList(from, to), pageable, matches.size());
+    }
+
+    // Products tagged with the tag (or with all / any of several tags), newest first
+    public Page<ProductResponse> getProductsByTags(List<String> tags, boolean matchAll, Pageable pageable) {
+        List<Long> ids = tags.size() == 1 ? tagIndex.get(tags.get(0))
+                : matchAll ? tagIndex.intersect(tags) : tagIndex.union(tags);
+        List<ProductResponse> matches = resolve(ids);
+        matches.sort(NEWEST_FIRST);
+
+        int from = (int) Math.min(pageable.getOffset(), matches.size());
+        int to = Math.min(from + pageable.getPageSize(), matches.size());
+        return new PageImpl<>(matches.subList(from, to), pageable, matches.size());
+    }
+
+    public List<ProductTagIndex.TagCount> getTagCloud(int limit) {
+        return tagIndex.cloud(limit);
+    }
+
+    // Flat list in display order, with live direct and subtree product counts
+    public List<ProductCategoryResponse> getCategories() {
+        CategoryTree tree = categoryTree;
+        return tree.getNodes().stream()
+                .map(node -> new ProductCategoryResponse(node, directCount(node.getId()), subtreeCount(node)))
+                .collect(Collectors.toList());
+    }
+
+    // Roots with nested subcategories
+    public List<ProductCategoryResponse> getCategoryTree() {
+        return categoryTree.getRoots().stream().map(this::toTreeResponse).collect(Collectors.toList());
+    }
+
+    // Counts move with the catalog, so the category validator is the tree version plus the catalog version
+    public ResourceVersion getCategoriesVersion() {
+        return new ResourceVersion("categories-" + BOOT_ID + "-" + categoryTree.getVersion() + "-" + catalogVersion.get(),
+                catalogModifiedAt);
+    }
+
+    public Page<ProductResponse> getProductsByBrand(String brand, Pageable pageable) {
+        String needle = brand.toLowerCase(Locale.ROOT);
+        return filter(product -> product.getBrand() != null && product.getBrand().toLowerCase(Locale.ROOT).contains(needle), pageable);
+    }
+
+    public Page<ProductResponse> getProductsByPriceRange(Double minPrice, Double maxPrice, Pageable pageable) {
+        return filter(product -> product.getPrice() != null
+                && product.getPrice().doubleValue() >= minPrice
+                && product.getPrice().doubleValue() <= maxPrice, pageable);
+    }
+
+    public Page<ProductResponse> searchProducts(String keyword, Pageable pageable) {
+        ProductSearchIndex.SearchResult result = searchIndex.search(keyword, pageable.getOffset(), pageable.getPageSize());
+        return new PageImpl<>(resolve(result.getProductIds()), pageable, result.getTotalMatches());
+    }
+
+    public ProductFacetResponse getFacetedProducts(Map<String, List<String>> selections, FacetExpression filter,
+                                                   String keyword, boolean includeZeroCounts, Pageable pageable) {
+        List<Long> keywordHits = null;
+        if (keyword != null && !keyword.isBlank()) {
+            keywordHits = searchIndex.search(keyword, 0, Integer.MAX_VALUE).getProductIds();
+        }
+
+        // Selecting a parent category selects its subcategories too, in the selections and the filter alike
+        List<String> categories = selections.get(ProductFacetIndex.CATEGORY);
+        if (categories != null && !categories.isEmpty()) {
+            selections = new HashMap<>(selections);
+            selections.put(ProductFacetIndex.CATEGORY, expandCategoryValues(categories));
+        }
+        if (filter != null) {
+            filter.expand(ProductFacetIndex.CATEGORY, this::expandCategoryValues);
+        }
+
+        ProductFacetIndex.FacetResult result = facetIndex.query(selections, filter, keywordHits, includeZeroCounts);
+        List<ProductResponse> matches = resolve(result.getProductIds());
+        matches.sort(NEWEST_FIRST);
+
+        int from = (int) Math.min(pageable.getOffset(), matches.size());
+        int to = Math.min(from + pageable.getPageSize(), matches.size());
+        Page<ProductResponse> page = new PageImpl<>(matches.subList(from, to), pageable, matches.size());
+        return new ProductFacetResponse(page, result.getFacetCounts());
+    }
+
+    // Maintained by LowStockMonitor on every applied change, lowest remaining stock first
+    public List<ProductResponse> getLowStockProducts() {
+        return resolve(lowStockMonitor.getLowStockProductIds());
+    }
+
+    public long countFeatured() {
+        return activeProducts.values().stream().filter(product -> Boolean.TRUE.equals(product.getFeatured())).count();
+    }
+
+    // A copy: callers may change what they get back without touching the shared read model
+    public ProductResponse getActiveProduct(Long productId) {
+        ProductResponse snapshot = activeProducts.get(productId);
+        return snapshot != null ? new ProductResponse(snapshot) : null;
+    }
+
+    // Collection validator: any applied change anywhere in the catalog changes it
+    public ResourceVersion getCatalogVersion() {
+        return new ResourceVersion("catalog-" + BOOT_ID + "-" + catalogVersion.get(), catalogModifiedAt);
+    }
+
+    // Single product validator, null when the product is not in the active catalog
+    public ResourceVersion getProductVersion(Long productId) {
+        long[] revision = productRevisions.get(productId);
+        if (revision == null) {
+            return null;
+        }
+        return new ResourceVersion("product-" + productId + "-" + BOOT_ID + "-" + revision[0], revision[1]);
+    }
+
+    public int size() {
+        return activeProducts.size();
+    }
+
+    // Helper methods
+    private List<String> expandCategoryValues(List<String> categories) {
+        List<Long> categoryIds = new ArrayList<>();
+        for (String category : categories) {
+            try {
+                categoryIds.add(Long.valueOf(category.trim()));
+            } catch (NumberFormatException e) {
+                // not a category id; it simply matches nothing
+            }
+        }
+        return expandCategories(categoryIds);
+    }
+
+    private List<ProductResponse> resolve(List<Long> productIds) {
+        return productIds.stream()
+                .map(activeProducts::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    private List<String> expandCategories(List<Long> categoryIds) {
+        CategoryTree tree = categoryTree;
+        List<String> expanded = new ArrayList<>();
+        for (Long categoryId : categoryIds) {
+            Set<Long> descendants = tree.descendantsOf(categoryId);
+            // Unknown to the tree (e.g. inactive): still match products filed directly under it
+            (descendants.isEmpty() ? Set.of(categoryId) : descendants).forEach(id -> expanded.add(String.valueOf(id)));
+        }
+        return expanded;
+    }
+
+    private long directCount(Long categoryId) {
+        return categoryCounts.getOrDefault(categoryId, 0L);
+    }
+
+    private long subtreeCount(CategoryTree.Node node) {
+        long total = 0;
+        for (Long id : node.getDescendantIds()) {
+            total += directCount(id);
+        }
+        return total;
+    }
+
+    private ProductCategoryResponse toTreeResponse(CategoryTree.Node node) {
+        ProductCategoryResponse response = new ProductCategoryResponse(node, directCount(node.getId()), subtreeCount(node));
+        response.setSubcategories(node.getChildren().stream().map(this::toTreeResponse).collect(Collectors.toList()));
+        return response;
+    }
+
+    private Page<ProductResponse> filter(Predicate<ProductResponse> predicate, Pageable pageable) {
+        List<ProductResponse> matches = newestFirst.stream()
+                .filter(predicate)
+                .collect(Collectors.toList());
+
+        int from = (int) Math.min(pageable.getOffset(), matches.size());
+        int to = Math.min(from + pageable.getPageSize(), matches.size());
+        return new PageImpl<>(matches.subList(from, to), pageable, matches.size());
+    }
+
+    private void apply(Long productId, ProductResponse snapshot, long read) {
+        synchronized (writeLock) {
+            Long applied = appliedReads.get(productId);
+            if (applied != null && applied > read) {
+                return;
+            }
+            appliedReads.put(productId, read);
+            ProductResponse previous = activeProducts.remove(productId);
+            if (previous != null) {
+                newestFirst.remove(previous);
+                searchIndex.remove(productId);
+                facetIndex.remove(productId);
+                sortIndex.remove(productId);
+                tagIndex.remove(productId);
+                suggestions.remove(String.valueOf(productId));
+                productRevisions.remove(productId);
+                if (previous.getCategoryId() != null) {
+                    categoryCounts.computeIfPresent(previous.getCategoryId(), (id, count) -> count > 1 ? count - 1 : null);
+                }
+            }
+            if (snapshot != null) {
+                activeProducts.put(productId, snapshot);
+                newestFirst.add(snapshot);
+                searchIndex.index(snapshot);
+                facetIndex.index(snapshot);
+                sortIndex.index(snapshot);
+                tagIndex.index(productId, snapshot.getTags());
+                suggest(snapshot);
+                if (snapshot.getCategoryId() != null) {
+                    categoryCounts.merge(snapshot.getCategoryId(), 1L, Long::sum);
+                }
+            }
+            if (previous != null || snapshot != null) {
+                lowStockMonitor.onChange(previous, snapshot);
+            }
+            long version = touchCatalog();
+            if (snapshot != null) {
+                productRevisions.put(productId, new long[]{version, catalogModifiedAt});
+            }
+        }
+    }
+
+    private long touchCatalog() {
+        catalogModifiedAt = System.currentTimeMillis();
+        return catalogVersion.incrementAndGet();
+    }
+
+    // Name, brand and tags complete to this product; weight grows with units sold
+    private void suggest(ProductResponse snapshot) {
+        List<SuggestionTrie.Term> terms = new ArrayList<>();
+        terms.add(new SuggestionTrie.Term(snapshot.getName(), "product"));
+        if (snapshot.getBrand() != null) {
+            terms.add(new SuggestionTrie.Term(snapshot.getBrand(), "brand"));
+        }
+        if (snapshot.getTags() != null) {
+            snapshot.getTags().forEach(tag -> terms.add(new SuggestionTrie.Term(tag, "tag")));
+        }
+        suggestions.put(String.valueOf(snapshot.getId()), terms, 1 + sortIndex.getUnitsSold(snapshot.getId()));
+    }
+
+    private TransactionTemplate readOnlyTransaction() {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        template.setReadOnly(true);
+        return template;
+    }
+}
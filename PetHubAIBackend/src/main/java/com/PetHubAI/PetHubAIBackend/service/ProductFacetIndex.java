@@ -0,0 +1,277 @@
+package com.PetHubAI.PetHubAIBackend.service;
+
+import com.PetHubAI.PetHubAIBackend.dto.product.ProductResponse;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Per-value bitmaps over dense product ordinals. A faceted query is an AND across facets of the OR of
+// the selected values, optionally narrowed by an arbitrary AND/OR/NOT FacetExpression over facet terms;
+// facet counts are bitmap intersections, so no GROUP BY is ever issued. A removed product's ordinal is
+// handed to the next new product and a value no product carries any more is dropped, so bitmaps stay as
+// wide as the live catalog and the value lists only hold values some product has.
+public class ProductFacetIndex {
+
+    public static final String CATEGORY = "category";
+    public static final String BRAND = "brand";
+    public static final String TAG = "tag";
+    public static final String IN_STOCK = "inStock";
+    public static final String FEATURED = "featured";
+    public static final String PRICE = "price";
+    public static final List<String> FACETS = List.of(CATEGORY, BRAND, TAG, IN_STOCK, FEATURED, PRICE);
+
+    // Upper bounds (exclusive) of the effective-price buckets; the last bucket is open ended
+    private static final int[] PRICE_BUCKET_BOUNDS = {250, 500, 1000, 2500};
+
+    private final Map<Long, Integer> ordinals = new HashMap<>();
+    private final List<Long> productIds = new ArrayList<>();
+    private final List<List<Posting>> memberships = new ArrayList<>();
+    private final BitSet live = new BitSet();
+    private final BitSet freeOrdinals = new BitSet();
+
+    // facet -> value -> products carrying that value
+    private final Map<String, Map<String, BitSet>> facets = new LinkedHashMap<>();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public ProductFacetIndex() {
+        for (String facet : FACETS) {
+            facets.put(facet, new HashMap<>());
+        }
+    }
+
+    public void index(ProductResponse product) {
+        lock.writeLock().lock();
+        try {
+            int ordinal = ordinals.computeIfAbsent(product.getId(), this::allocate);
+            clear(ordinal);
+
+            List<Posting> joined = memberships.get(ordinal);
+            if (product.getCategoryId() != null) {
+                joined.add(set(CATEGORY, String.valueOf(product.getCategoryId()), ordinal));
+            }
+            if (product.getBrand() != null && !product.getBrand().isBlank()) {
+                joined.add(set(BRAND, normalize(product.getBrand()), ordinal));
+            }
+            if (product.getTags() != null) {
+                for (String tag : product.getTags()) {
+                    if (tag != null && !tag.isBlank()) {
+                        joined.add(set(TAG, normalize(tag), ordinal));
+                    }
+                }
+            }
+            joined.add(set(IN_STOCK, String.valueOf(Boolean.TRUE.equals(product.getInStock())), ordinal));
+            joined.add(set(FEATURED, String.valueOf(Boolean.TRUE.equals(product.getFeatured())), ordinal));
+            if (product.getFinalPrice() != null) {
+                joined.add(set(PRICE, priceBucket(product.getFinalPrice()), ordinal));
+            }
+            live.set(ordinal);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinals.remove(productId);
+            if (ordinal != null) {
+                clear(ordinal);
+                live.clear(ordinal);
+                productIds.set(ordinal, null);
+                freeOrdinals.set(ordinal);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // selections: facet -> accepted values (OR within a facet, AND across facets).
+    // filter (optional) and restrictTo (optional, e.g. keyword search hits) narrow the candidate set before
+    // both the matches and the counts are taken. Values the narrowed set has none of are left out of the
+    // counts unless includeZeroCounts asks for them.
+    public FacetResult query(Map<String, ? extends Collection<String>> selections, FacetExpression filter,
+                             Collection<Long> restrictTo, boolean includeZeroCounts) {
+        lock.readLock().lock();
+        try {
+            BitSet base = (BitSet) live.clone();
+            if (restrictTo != null) {
+                BitSet candidates = new BitSet();
+                for (Long productId : restrictTo) {
+                    Integer ordinal = ordinals.get(productId);
+                    if (ordinal != null) {
+                        candidates.set(ordinal);
+                    }
+                }
+                base.and(candidates);
+            }
+            if (filter != null) {
+                base.and(filter.evaluate(term -> bitmap(term.getFacet(), term.getValues()), live));
+            }
+
+            Map<String, BitSet> selected = new HashMap<>();
+            for (Map.Entry<String, ? extends Collection<String>> entry : selections.entrySet()) {
+                Map<String, BitSet> values = facets.get(entry.getKey());
+                if (values == null || entry.getValue() == null || entry.getValue().isEmpty()) {
+                    continue;
+                }
+                BitSet union = new BitSet();
+                for (String value : entry.getValue()) {
+                    BitSet bitmap = values.get(normalize(value));
+                    if (bitmap != null) {
+                        union.or(bitmap);
+                    }
+                }
+                selected.put(entry.getKey(), union);
+            }
+
+            BitSet matches = (BitSet) base.clone();
+            selected.values().forEach(matches::and);
+
+            // Disjunctive counts: each facet is counted against the other facets' selections only,
+            // so picking one brand still shows how many products the other brands would add
+            Map<String, Map<String, Long>> counts = new LinkedHashMap<>();
+            for (Map.Entry<String, Map<String, BitSet>> facet : facets.entrySet()) {
+                BitSet facetBase = (BitSet) base.clone();
+                selected.forEach((name, bitmap) -> {
+                    if (!name.equals(facet.getKey())) {
+                        facetBase.and(bitmap);
+                    }
+                });
+
+                Map<String, Long> valueCounts = new LinkedHashMap<>();
+                facet.getValue().forEach((value, bitmap) -> {
+                    BitSet intersection = (BitSet) bitmap.clone();
+                    intersection.and(facetBase);
+                    long count = intersection.cardinality();
+                    if (count > 0 || includeZeroCounts) {
+                        valueCounts.put(value, count);
+                    }
+                });
+                counts.put(facet.getKey(), valueCounts);
+            }
+
+            List<Long> matchingIds = new ArrayList<>(matches.cardinality());
+            for (int ordinal = matches.nextSetBit(0); ordinal >= 0; ordinal = matches.nextSetBit(ordinal + 1)) {
+                matchingIds.add(productIds.get(ordinal));
+            }
+            return new FacetResult(matchingIds, counts);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Products carrying any of the values of one facet: a plain bitmap union
+    public List<Long> union(String facet, Collection<String> values) {
+        lock.readLock().lock();
+        try {
+            BitSet union = bitmap(facet, values);
+            union.and(live);
+
+            List<Long> matchingIds = new ArrayList<>(union.cardinality());
+            for (int ordinal = union.nextSetBit(0); ordinal >= 0; ordinal = union.nextSetBit(ordinal + 1)) {
+                matchingIds.add(productIds.get(ordinal));
+            }
+            return matchingIds;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public static String priceBucket(BigDecimal price) {
+        int lower = 0;
+        for (int bound : PRICE_BUCKET_BOUNDS) {
+            if (price.compareTo(BigDecimal.valueOf(bound)) < 0) {
+                return lower + "-" + bound;
+            }
+            lower = bound;
+        }
+        return lower + "+";
+    }
+
+    // Helper methods
+    // A fresh bitmap of the products carrying any of the values; callers may modify it
+    private BitSet bitmap(String facet, Collection<String> values) {
+        Map<String, BitSet> bitmaps = facets.get(facet);
+        BitSet union = new BitSet();
+        if (bitmaps != null) {
+            for (String value : values) {
+                BitSet bitmap = bitmaps.get(normalize(value));
+                if (bitmap != null) {
+                    union.or(bitmap);
+                }
+            }
+        }
+        return union;
+    }
+
+    // Lowest free ordinal first, so a catalog with churn keeps reusing the same low bits
+    private int allocate(Long productId) {
+        int ordinal = freeOrdinals.nextSetBit(0);
+        if (ordinal >= 0) {
+            freeOrdinals.clear(ordinal);
+            productIds.set(ordinal, productId);
+            return ordinal;
+        }
+        productIds.add(productId);
+        memberships.add(new ArrayList<>());
+        return productIds.size() - 1;
+    }
+
+    private Posting set(String facet, String value, int ordinal) {
+        facets.get(facet).computeIfAbsent(value, v -> new BitSet()).set(ordinal);
+        return new Posting(facet, value);
+    }
+
+    // Takes the product off every value it carried; a value left with no products goes with it
+    private void clear(int ordinal) {
+        List<Posting> joined = memberships.get(ordinal);
+        for (Posting posting : joined) {
+            Map<String, BitSet> values = facets.get(posting.facet);
+            BitSet bitmap = values.get(posting.value);
+            if (bitmap != null) {
+                bitmap.clear(ordinal);
+                if (bitmap.isEmpty()) {
+                    values.remove(posting.value);
+                }
+            }
+        }
+        joined.clear();
+    }
+
+    private static String normalize(String value) {
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static class Posting {
+        private final String facet;
+        private final String value;
+
+        Posting(String facet, String value) {
+            this.facet = facet;
+            this.value = value;
+        }
+    }
+
+    public static class FacetResult {
+        private final List<Long> productIds;
+        private final Map<String, Map<String, Long>> facetCounts;
+
+        public FacetResult(List<Long> productIds, Map<String, Map<String, Long>> facetCounts) {
+            this.productIds = productIds;
+            this.facetCounts = facetCounts;
+        }
+
+        public List<Long> getProductIds() { return productIds; }
+        public Map<String, Map<String, Long>> getFacetCounts() { return facetCounts; }
+    }
+}
@@ -0,0 +1,589 @@
+package com.PetHubAI.PetHubAIBackend.service;
+
+import com.PetHubAI.PetHubAIBackend.entity.ProductCategory;
+import com.PetHubAI.PetHubAIBackend.entity.User;
+import com.PetHubAI.PetHubAIBackend.repository.ProductCategoryRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+// Streaming supplier import: CSV or NDJSON is parsed one record at a time, validated, and upserted by SKU in
+// chunks of CHUNK_SIZE with JDBC batch statements, each chunk in its own transaction. Only the current chunk
+// and a capped error list are held in memory, so a file of any size runs in flat memory.
+@Service
+public class ProductImportService {
+
+    public static final String FORMAT_CSV = "csv";
+    public static final String FORMAT_NDJSON = "ndjson";
+
+    private static final int CHUNK_SIZE = 500;
+    private static final int MAX_REPORTED_ERRORS = 1000;
+    private static final int RETAINED_REPORTS = 20;
+
+    // products.price and discount_percentage are NUMERIC(5,2), weight is NUMERIC(8,2)
+    private static final BigDecimal MAX_PRICE = new BigDecimal("999.99");
+    private static final BigDecimal MAX_WEIGHT = new BigDecimal("999999.99");
+    private static final BigDecimal HUNDRED = new BigDecimal("100");
+
+    private static final String INSERT_PRODUCT = "INSERT INTO products (name, description, category_id, brand, sku, price, " +
+            "discount_percentage, stock_quantity, min_stock_level, weight, dimensions, is_active, featured, created_by, " +
+            "created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // Cells left empty keep the stored value; stockQuantity is on-hand, so held units stay taken off
+    private static final String UPDATE_PRODUCT = "UPDATE products SET name = COALESCE(?, name), " +
+            "description = COALESCE(?, description), category_id = COALESCE(?, category_id), brand = COALESCE(?, brand), " +
+            "price = COALESCE(?, price), discount_percentage = COALESCE(?, discount_percentage), " +
+            "stock_quantity = COALESCE(? - " + StockService.HELD_UNITS + ", stock_quantity), " +
+            "min_stock_level = COALESCE(?, min_stock_level), " +
+            "weight = COALESCE(?, weight), dimensions = COALESCE(?, dimensions), is_active = COALESCE(?, is_active), " +
+            "featured = COALESCE(?, featured), updated_at = ? WHERE id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ProductCategoryRepository categoryRepository;
+
+    @Autowired
+    private ProductCatalogService productCatalogService;
+
+    @Autowired
+    private SkuGenerator skuGenerator;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Recent imports by id, so a running import's progress can be polled
+    private final Map<String, ImportReport> recentImports = Collections.synchronizedMap(
+            new LinkedHashMap<String, ImportReport>() {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, ImportReport> eldest) {
+                    return size() > RETAINED_REPORTS;
+                }
+            });
+
+    // A client-chosen importId must be new: reusing one would hide the earlier import's report (or a
+    // running one's progress) behind this one, so it is rejected with DuplicateImportException
+    public ImportReport importProducts(InputStream input, String format, String importId, User admin) {
+        String id = importId != null && !importId.isBlank() ? importId : UUID.randomUUID().toString();
+        ImportReport report = new ImportReport(id, format);
+        if (recentImports.putIfAbsent(id, report) != null) {
+            throw new DuplicateImportException("Import " + id + " already exists; choose a new importId or omit it");
+        }
+        System.out.println("📦 Starting product import " + id + " (" + format + ")");
+
+        ImportContext context = new ImportContext(report, admin, loadCategories());
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            if (FORMAT_NDJSON.equals(format)) {
+                readNdjson(reader, context);
+            } else {
+                readCsv(reader, context);
+            }
+            flush(context);
+            report.finish("COMPLETED", null);
+        } catch (Exception e) {
+            // Chunks already committed stay committed; the report says how far the import got
+            System.err.println("❌ Product import " + id + " stopped: " + e.getMessage());
+            report.finish("FAILED", e.getMessage());
+        }
+
+        System.out.println("✅ Product import " + id + " " + report.getStatus() + ": " + report.getCreated()
+                + " created, " + report.getUpdated() + " updated, " + report.getFailed() + " failed in "
+                + report.getDurationMs() + " ms");
+        return report;
+    }
+
+    public ImportReport getImportReport(String importId) {
+        return recentImports.get(importId);
+    }
+
+    // Parsing
+    private void readCsv(BufferedReader reader, ImportContext context) throws IOException {
+        CsvRecordReader csv = new CsvRecordReader(reader);
+        while (true) {
+            Map<String, String> record;
+            try {
+                record = csv.next();
+            } catch (CsvRecordReader.RecordTooLongException e) {
+                context.report.rowFailed(++context.rowNumber, null, e.getMessage());
+                continue;
+            }
+            if (record == null) {
+                break;
+            }
+            accept(record, context);
+        }
+    }
+
+    private void readNdjson(BufferedReader reader, ImportContext context) throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            Map<String, String> record = new HashMap<>();
+            try {
+                Map<?, ?> json = objectMapper.readValue(line, Map.class);
+                json.forEach((key, value) -> record.put(String.valueOf(key), value instanceof Collection
+                        ? ((Collection<?>) value).stream().map(String::valueOf).collect(Collectors.joining("|"))
+                        : value != null ? String.valueOf(value) : null));
+            } catch (JsonProcessingException e) {
+                context.report.rowFailed(++context.rowNumber, null, "Malformed JSON: " + e.getOriginalMessage());
+                continue;
+            }
+            accept(record, context);
+        }
+    }
+
+    private void accept(Map<String, String> record, ImportContext context) {
+        int rowNumber = ++context.rowNumber;
+        Map<String, String> normalized = normalizeKeys(record);
+        ImportRow row;
+        try {
+            row = parseRow(rowNumber, normalized, context.categories);
+        } catch (IllegalArgumentException e) {
+            context.report.rowFailed(rowNumber, normalized.get("sku"), e.getMessage());
+            return;
+        }
+
+        // The same SKU twice in one chunk would race inside one batch; write what we have first
+        if (row.sku != null && context.chunkSkus.contains(row.sku)) {
+            flush(context);
+        }
+        if (row.sku == null) {
+            row.sku = skuGenerator.generate(row.name);
+            row.generatedSku = true;
+        }
+        context.chunk.add(row);
+        context.chunkSkus.add(row.sku);
+        if (context.chunk.size() >= CHUNK_SIZE) {
+            flush(context);
+        }
+    }
+
+    private ImportRow parseRow(int rowNumber, Map<String, String> record, CategoryLookup categories) {
+        ImportRow row = new ImportRow(rowNumber);
+        row.sku = text(record, "sku", 255);
+        row.name = text(record, "name", 255);
+        row.description = text(record, "description", Integer.MAX_VALUE);
+        row.brand = text(record, "brand", 255);
+        row.dimensions = text(record, "dimensions", 255);
+
+        row.price = decimal(record, "price", BigDecimal.ZERO, MAX_PRICE);
+        if (row.price != null && row.price.signum() == 0) {
+            throw new IllegalArgumentException("price must be greater than 0");
+        }
+        row.discountPercentage = decimal(record, "discountpercentage", BigDecimal.ZERO, HUNDRED);
+        row.weight = decimal(record, "weight", BigDecimal.ZERO, MAX_WEIGHT);
+        row.stockQuantity = integer(record, "stockquantity");
+        row.minStockLevel = integer(record, "minstocklevel");
+        row.isActive = bool(record, record.containsKey("isactive") ? "isactive" : "active");
+        row.featured = bool(record, "featured");
+
+        String categoryId = text(record, "categoryid", 32);
+        String categoryName = text(record, "category", 100);
+        if (categoryId != null) {
+            try {
+                row.categoryId = Long.parseLong(categoryId);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid categoryId: " + categoryId);
+            }
+            if (!categories.ids.contains(row.categoryId)) {
+                throw new IllegalArgumentException("Unknown categoryId: " + categoryId);
+            }
+        } else if (categoryName != null) {
+            row.categoryId = categories.byName.get(categoryName.toLowerCase(Locale.ROOT));
+            if (row.categoryId == null) {
+                throw new IllegalArgumentException("Unknown category: " + categoryName);
+            }
+        }
+
+        String tags = text(record, "tags", Integer.MAX_VALUE);
+        if (tags != null) {
+            row.tags = new ArrayList<>();
+            for (String tag : tags.split("[|;]")) {
+                if (!tag.isBlank() && !row.tags.contains(tag.trim())) {
+                    row.tags.add(tag.trim());
+                }
+            }
+        }
+        return row;
+    }
+
+    // Writing
+    private void flush(ImportContext context) {
+        if (context.chunk.isEmpty()) {
+            return;
+        }
+        List<ImportRow> chunk = new ArrayList<>(context.chunk);
+        context.chunk.clear();
+        context.chunkSkus.clear();
+
+        try {
+            writeChunk(chunk, context);
+        } catch (DataAccessException e) {
+            // Something in the batch was rejected: redo the rows one by one so only the bad ones fail
+            for (ImportRow row : chunk) {
+                try {
+                    writeChunk(List.of(row), context);
+                } catch (DataAccessException rowFailure) {
+                    context.report.rowFailed(row.rowNumber, row.sku, rootMessage(rowFailure));
+                }
+            }
+        }
+        context.report.processedRows = context.rowNumber;
+        System.out.println("📦 Import " + context.report.getImportId() + ": " + context.rowNumber + " rows processed");
+    }
+
+    private void writeChunk(List<ImportRow> rows, ImportContext context) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        int[] counts = transaction.execute(status -> {
+            Map<String, Long> existing = findIdsBySku(rows.stream()
+                    .filter(row -> !row.generatedSku)
+                    .map(row -> row.sku)
+                    .collect(Collectors.toList()));
+
+            List<ImportRow> inserts = new ArrayList<>();
+            List<ImportRow> updates = new ArrayList<>();
+            List<ImportRow> rejected = new ArrayList<>();
+            for (ImportRow row : rows) {
+                row.productId = existing.get(row.sku);
+                if (row.productId != null) {
+                    updates.add(row);
+                } else if (row.name == null || row.price == null) {
+                    rejected.add(row);
+                } else {
+                    inserts.add(row);
+                }
+            }
+
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            if (!inserts.isEmpty()) {
+                Long createdBy = context.admin != null ? context.admin.getId() : null;
+                jdbcTemplate.batchUpdate(INSERT_PRODUCT, inserts, inserts.size(), (ps, row) -> {
+                    ps.setString(1, row.name);
+                    ps.setObject(2, row.description, Types.VARCHAR);
+                    ps.setObject(3, row.categoryId, Types.BIGINT);
+                    ps.setObject(4, row.brand, Types.VARCHAR);
+                    ps.setString(5, row.sku);
+                    ps.setBigDecimal(6, row.price);
+                    ps.setBigDecimal(7, row.discountPercentage != null ? row.discountPercentage : BigDecimal.ZERO);
+                    ps.setInt(8, row.stockQuantity != null ? row.stockQuantity : 0);
+                    ps.setInt(9, row.minStockLevel != null ? row.minStockLevel : 5);
+                    ps.setObject(10, row.weight, Types.DECIMAL);
+                    ps.setObject(11, row.dimensions, Types.VARCHAR);
+                    ps.setBoolean(12, row.isActive != null ? row.isActive : true);
+                    ps.setBoolean(13, row.featured != null ? row.featured : false);
+                    ps.setObject(14, createdBy, Types.BIGINT);
+                    ps.setTimestamp(15, now);
+                    ps.setTimestamp(16, now);
+                });
+                Map<String, Long> insertedIds = findIdsBySku(inserts.stream().map(row -> row.sku).collect(Collectors.toList()));
+                inserts.forEach(row -> row.productId = insertedIds.get(row.sku));
+            }
+            if (!updates.isEmpty()) {
+                jdbcTemplate.batchUpdate(UPDATE_PRODUCT, updates, updates.size(), (ps, row) -> {
+                    ps.setObject(1, row.name, Types.VARCHAR);
+                    ps.setObject(2, row.description, Types.VARCHAR);
+                    ps.setObject(3, row.categoryId, Types.BIGINT);
+                    ps.setObject(4, row.brand, Types.VARCHAR);
+                    ps.setObject(5, row.price, Types.DECIMAL);
+                    ps.setObject(6, row.discountPercentage, Types.DECIMAL);
+                    ps.setObject(7, row.stockQuantity, Types.INTEGER);
+                    ps.setObject(8, row.minStockLevel, Types.INTEGER);
+                    ps.setObject(9, row.weight, Types.DECIMAL);
+                    ps.setObject(10, row.dimensions, Types.VARCHAR);
+                    ps.setObject(11, row.isActive, Types.BOOLEAN);
+                    ps.setObject(12, row.featured, Types.BOOLEAN);
+                    ps.setTimestamp(13, now);
+                    ps.setLong(14, row.productId);
+                });
+            }
+            writeTags(inserts, updates);
+
+            List<Long> written = new ArrayList<>();
+            inserts.forEach(row -> written.add(row.productId));
+            updates.forEach(row -> written.add(row.productId));
+            productCatalogService.reload(written);
+            return new int[]{inserts.size(), updates.size(), rejected.size()};
+        });
+
+        // Counted only once the chunk has committed
+        context.report.created += counts[0];
+        context.report.updated += counts[1];
+        for (ImportRow row : rows) {
+            if (row.productId == null) {
+                context.report.rowFailed(row.rowNumber, row.sku, "New SKU needs at least name and price");
+            }
+        }
+    }
+
+    // Rows that carry a tags cell replace their tag list; rows without one keep it
+    private void writeTags(List<ImportRow> inserts, List<ImportRow> updates) {
+        List<ImportRow> tagged = new ArrayList<>();
+        inserts.stream().filter(row -> row.tags != null).forEach(tagged::add);
+        updates.stream().filter(row -> row.tags != null).forEach(tagged::add);
+        if (tagged.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> deletes = new ArrayList<>();
+        List<Object[]> tagRows = new ArrayList<>();
+        for (ImportRow row : tagged) {
+            deletes.add(new Object[]{row.productId});
+            for (String tag : row.tags) {
+                tagRows.add(new Object[]{row.productId, tag});
+            }
+        }
+        jdbcTemplate.batchUpdate("DELETE FROM product_tags WHERE product_id = ?", deletes);
+        if (!tagRows.isEmpty()) {
+            jdbcTemplate.batchUpdate("INSERT INTO product_tags (product_id, tag) VALUES (?, ?)", tagRows);
+        }
+    }
+
+    private Map<String, Long> findIdsBySku(List<String> skus) {
+        Map<String, Long> ids = new HashMap<>();
+        if (skus.isEmpty()) {
+            return ids;
+        }
+        String placeholders = skus.stream().map(sku -> "?").collect(Collectors.joining(", "));
+        jdbcTemplate.query("SELECT id, sku FROM products WHERE sku IN (" + placeholders + ")",
+                rs -> { ids.put(rs.getString("sku"), rs.getLong("id")); }, skus.toArray());
+        return ids;
+    }
+
+    // Helper methods
+    private CategoryLookup loadCategories() {
+        CategoryLookup lookup = new CategoryLookup();
+        for (ProductCategory category : categoryRepository.findAll()) {
+            lookup.ids.add(category.getId());
+            lookup.byName.putIfAbsent(category.getName().toLowerCase(Locale.ROOT), category.getId());
+        }
+        return lookup;
+    }
+
+    // Header names are matched ignoring case, underscores and spaces: stock_quantity == stockQuantity
+    private static Map<String, String> normalizeKeys(Map<String, String> record) {
+        Map<String, String> normalized = new HashMap<>();
+        record.forEach((key, value) -> normalized.put(key.toLowerCase(Locale.ROOT).replace("_", "").replace(" ", ""), value));
+        return normalized;
+    }
+
+    private static String text(Map<String, String> record, String field, int maxLength) {
+        String value = record.get(field);
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        value = value.trim();
+        if (value.length() > maxLength) {
+            throw new IllegalArgumentException(field + " is longer than " + maxLength + " characters");
+        }
+        return value;
+    }
+
+    private static BigDecimal decimal(Map<String, String> record, String field, BigDecimal min, BigDecimal max) {
+        String value = text(record, field, 64);
+        if (value == null) {
+            return null;
+        }
+        BigDecimal number;
+        try {
+            number = new BigDecimal(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + field + ": " + value);
+        }
+        if (number.compareTo(min) < 0 || number.compareTo(max) > 0) {
+            throw new IllegalArgumentException(field + " must be between " + min + " and " + max);
+        }
+        return number;
+    }
+
+    private static Integer integer(Map<String, String> record, String field) {
+        String value = text(record, field, 16);
+        if (value == null) {
+            return null;
+        }
+        try {
+            int number = Integer.parseInt(value);
+            if (number < 0) {
+                throw new IllegalArgumentException(field + " cannot be negative");
+            }
+            return number;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + field + ": " + value);
+        }
+    }
+
+    private static Boolean bool(Map<String, String> record, String field) {
+        String value = text(record, field, 8);
+        if (value == null) {
+            return null;
+        }
+        switch (value.toLowerCase(Locale.ROOT)) {
+            case "true": case "yes": case "y": case "1":
+                return true;
+            case "false": case "no": case "n": case "0":
+                return false;
+            default:
+                throw new IllegalArgumentException("Invalid " + field + ": " + value);
+        }
+    }
+
+    private static String rootMessage(Throwable e) {
+        Throwable root = e;
+        while (root.getCause() != null && root.getCause() != root) {
+            root = root.getCause();
+        }
+        return root.getMessage();
+    }
+
+    private static class ImportContext {
+        private final ImportReport report;
+        private final User admin;
+        private final CategoryLookup categories;
+        private final List<ImportRow> chunk = new ArrayList<>(CHUNK_SIZE);
+        private final Set<String> chunkSkus = new HashSet<>();
+        private int rowNumber = 0;
+
+        ImportContext(ImportReport report, User admin, CategoryLookup categories) {
+            this.report = report;
+            this.admin = admin;
+            this.categories = categories;
+        }
+    }
+
+    private static class CategoryLookup {
+        private final Set<Long> ids = new HashSet<>();
+        private final Map<String, Long> byName = new HashMap<>();
+    }
+
+    private static class ImportRow {
+        private final int rowNumber;
+        private String sku;
+        private boolean generatedSku;
+        private String name;
+        private String description;
+        private Long categoryId;
+        private String brand;
+        private BigDecimal price;
+        private BigDecimal discountPercentage;
+        private Integer stockQuantity;
+        private Integer minStockLevel;
+        private BigDecimal weight;
+        private String dimensions;
+        private Boolean isActive;
+        private Boolean featured;
+        private List<String> tags;
+        private Long productId;
+
+        ImportRow(int rowNumber) {
+            this.rowNumber = rowNumber;
+        }
+    }
+
+    public static class ImportReport {
+        private final String importId;
+        private final String format;
+        private volatile String status = "RUNNING";
+        private volatile int processedRows;
+        private volatile int created;
+        private volatile int updated;
+        private volatile int failed;
+        private final List<RowError> errors = new CopyOnWriteArrayList<>();
+        private volatile boolean errorsTruncated;
+        private volatile String message;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private volatile LocalDateTime finishedAt;
+        private volatile long durationMs;
+
+        public ImportReport(String importId, String format) {
+            this.importId = importId;
+            this.format = format;
+        }
+
+        void rowFailed(int rowNumber, String sku, String reason) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new RowError(rowNumber, sku, reason));
+            } else {
+                errorsTruncated = true;
+            }
+        }
+
+        void finish(String status, String message) {
+            this.status = status;
+            this.message = message;
+            this.finishedAt = LocalDateTime.now();
+            this.durationMs = Duration.between(startedAt, finishedAt).toMillis();
+        }
+
+        // Getters
+        public String getImportId() { return importId; }
+        public String getFormat() { return format; }
+        public String getStatus() { return status; }
+        public int getProcessedRows() { return processedRows; }
+        public int getCreated() { return created; }
+        public int getUpdated() { return updated; }
+        public int getFailed() { return failed; }
+        public List<RowError> getErrors() { return errors; }
+        public boolean isErrorsTruncated() { return errorsTruncated; }
+        public String getMessage() { return message; }
+        public LocalDateTime getStartedAt() { return startedAt; }
+        public LocalDateTime getFinishedAt() { return finishedAt; }
+        public long getDurationMs() { return durationMs; }
+    }
+
+    public static class DuplicateImportException extends RuntimeException {
+        public DuplicateImportException(String message) {
+            super(message);
+        }
+    }
+
+    public static class RowError {
+        private final int row;
+        private final String sku;
+        private final String message;
+
+        public RowError(int row, String sku, String message) {
+            this.row = row;
+            this.sku = sku;
+            this.message = message;
+        }
+
+        public int getRow() { return row; }
+        public String getSku() { return sku; }
+        public String getMessage() { return message; }
+    }
+}
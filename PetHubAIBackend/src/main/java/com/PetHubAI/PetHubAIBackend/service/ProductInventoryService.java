@@ -0,0 +1,307 @@
+package com.PetHubAI.PetHubAIBackend.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+// Bulk stock/price sync for warehouse feeds. Items are read one at a time off a JSON array or NDJSON stream
+// and applied per chunk: one id lookup, one JDBC batch UPDATE and one read-back, in one short transaction.
+// A chunk the database rejects is redone item by item, so only the offending items fail.
+@Service
+public class ProductInventoryService {
+
+    private static final int CHUNK_SIZE = 1000;
+
+    // products.price and discount_percentage are NUMERIC(5,2)
+    private static final BigDecimal MAX_PRICE = new BigDecimal("999.99");
+    private static final BigDecimal HUNDRED = new BigDecimal("100");
+
+    // Fields left out of an item keep the stored value. The feed sends on-hand counts; units held for
+    // unpaid orders stay taken off
+    private static final String UPDATE_INVENTORY = "UPDATE products SET " +
+            "stock_quantity = COALESCE(? - " + StockService.HELD_UNITS + ", stock_quantity), price = COALESCE(?, price), " +
+            "discount_percentage = COALESCE(?, discount_percentage), updated_at = ? WHERE id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ProductCatalogService productCatalogService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    public BulkUpdateReport applyUpdates(InputStream input) throws IOException {
+        long start = System.currentTimeMillis();
+        BulkUpdateReport report = new BulkUpdateReport();
+        List<InventoryItem> chunk = new ArrayList<>(CHUNK_SIZE);
+
+        // readValues unwraps a top-level array and equally accepts whitespace-separated objects (NDJSON)
+        try (MappingIterator<JsonNode> items = objectMapper.readerFor(JsonNode.class).readValues(input)) {
+            int index = 0;
+            while (items.hasNextValue()) {
+                JsonNode node = items.nextValue();
+                InventoryItem item = new InventoryItem(index++);
+                try {
+                    parse(node, item);
+                } catch (IllegalArgumentException e) {
+                    report.add(ItemResult.failed(item, e.getMessage()));
+                    continue;
+                }
+                chunk.add(item);
+                if (chunk.size() == CHUNK_SIZE) {
+                    applyChunk(chunk, report);
+                    chunk.clear();
+                }
+            }
+        }
+        applyChunk(chunk, report);
+        // Items that failed to parse were reported ahead of their chunk
+        report.results.sort(Comparator.comparingInt(ItemResult::getIndex));
+
+        report.durationMs = System.currentTimeMillis() - start;
+        System.out.println("✅ Bulk inventory update: " + report.updated + " updated, " + report.failed
+                + " failed, " + report.lowStock + " at or below min stock in " + report.durationMs + " ms");
+        return report;
+    }
+
+    // Helper methods
+    private void applyChunk(List<InventoryItem> chunk, BulkUpdateReport report) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        try {
+            transaction.execute(status -> writeChunk(chunk)).forEach(report::add);
+        } catch (DataAccessException e) {
+            // Something in the batch was rejected: redo the items one by one so only the bad ones fail
+            for (InventoryItem item : chunk) {
+                try {
+                    transaction.execute(status -> writeChunk(List.of(item))).forEach(report::add);
+                } catch (DataAccessException itemFailure) {
+                    report.add(ItemResult.failed(item, itemFailure.getMostSpecificCause().getMessage()));
+                }
+            }
+        }
+    }
+
+    private List<ItemResult> writeChunk(List<InventoryItem> chunk) {
+        // Resolve SKUs and confirm ids in one round trip
+        List<Long> ids = chunk.stream().filter(item -> item.id != null).map(item -> item.id).collect(Collectors.toList());
+        List<String> skus = chunk.stream().filter(item -> item.id == null).map(item -> item.sku).collect(Collectors.toList());
+        Map<Long, String> skuById = new HashMap<>();
+        Map<String, Long> idBySku = new HashMap<>();
+        StringBuilder sql = new StringBuilder("SELECT id, sku FROM products WHERE ");
+        List<Object> args = new ArrayList<>();
+        if (!ids.isEmpty()) {
+            sql.append("id IN (").append(placeholders(ids.size())).append(")");
+            args.addAll(ids);
+        }
+        if (!skus.isEmpty()) {
+            sql.append(ids.isEmpty() ? "" : " OR ").append("sku IN (").append(placeholders(skus.size())).append(")");
+            args.addAll(skus);
+        }
+        jdbcTemplate.query(sql.toString(), rs -> {
+            skuById.put(rs.getLong("id"), rs.getString("sku"));
+            if (rs.getString("sku") != null) {
+                idBySku.put(rs.getString("sku"), rs.getLong("id"));
+            }
+        }, args.toArray());
+
+        List<ItemResult> results = new ArrayList<>(chunk.size());
+        List<InventoryItem> found = new ArrayList<>();
+        for (InventoryItem item : chunk) {
+            Long productId = item.id != null ? (skuById.containsKey(item.id) ? item.id : null) : idBySku.get(item.sku);
+            if (productId == null) {
+                results.add(ItemResult.failed(item, "Product not found"));
+            } else {
+                item.productId = productId;
+                item.sku = skuById.get(productId);
+                found.add(item);
+            }
+        }
+        if (found.isEmpty()) {
+            return results;
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(UPDATE_INVENTORY, found, found.size(), (ps, item) -> {
+            ps.setObject(1, item.stockQuantity, Types.INTEGER);
+            ps.setObject(2, item.price, Types.DECIMAL);
+            ps.setObject(3, item.discountPercentage, Types.DECIMAL);
+            ps.setTimestamp(4, now);
+            ps.setLong(5, item.productId);
+        });
+
+        // Read back the resulting stock so low-stock products can be flagged in the response; alerts for
+        // crossings come from LowStockMonitor once the reloaded snapshots are applied
+        List<Long> productIds = found.stream().map(item -> item.productId).distinct().collect(Collectors.toList());
+        Map<Long, int[]> stockLevels = new HashMap<>();
+        jdbcTemplate.query("SELECT id, stock_quantity, min_stock_level FROM products WHERE id IN (" + placeholders(productIds.size()) + ")",
+                rs -> { stockLevels.put(rs.getLong("id"), new int[]{rs.getInt("stock_quantity"), rs.getInt("min_stock_level")}); },
+                productIds.toArray());
+        for (InventoryItem item : found) {
+            int[] levels = stockLevels.get(item.productId);
+            results.add(ItemResult.updated(item, levels[0], levels[0] <= levels[1]));
+        }
+
+        productCatalogService.reload(productIds);
+        return results;
+    }
+
+    private static void parse(JsonNode node, InventoryItem item) {
+        if (node == null || !node.isObject()) {
+            throw new IllegalArgumentException("Item must be a JSON object");
+        }
+        if (node.hasNonNull("id")) {
+            if (!node.get("id").canConvertToLong()) {
+                throw new IllegalArgumentException("Invalid id: " + node.get("id").asText());
+            }
+            item.id = node.get("id").asLong();
+        }
+        if (node.hasNonNull("sku") && !node.get("sku").asText().isBlank()) {
+            item.sku = node.get("sku").asText().trim();
+        }
+        if (item.id == null && item.sku == null) {
+            throw new IllegalArgumentException("Either id or sku is required");
+        }
+
+        JsonNode stock = node.has("stockQuantity") ? node.get("stockQuantity") : node.get("stock");
+        if (stock != null && !stock.isNull()) {
+            if (!stock.canConvertToInt() || stock.asInt() < 0) {
+                throw new IllegalArgumentException("stockQuantity must be a non-negative integer");
+            }
+            item.stockQuantity = stock.asInt();
+        }
+        item.price = decimal(node.get("price"), "price", BigDecimal.ZERO, MAX_PRICE);
+        if (item.price != null && item.price.signum() == 0) {
+            throw new IllegalArgumentException("price must be greater than 0");
+        }
+        JsonNode discount = node.has("discountPercentage") ? node.get("discountPercentage") : node.get("discount");
+        item.discountPercentage = decimal(discount, "discountPercentage", BigDecimal.ZERO, HUNDRED);
+
+        if (item.stockQuantity == null && item.price == null && item.discountPercentage == null) {
+            throw new IllegalArgumentException("Nothing to update: give stockQuantity, price or discountPercentage");
+        }
+    }
+
+    private static BigDecimal decimal(JsonNode node, String field, BigDecimal min, BigDecimal max) {
+        if (node == null || node.isNull()) {
+            return null;
+        }
+        BigDecimal value;
+        try {
+            value = node.isNumber() ? node.decimalValue() : new BigDecimal(node.asText().trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + field + ": " + node.asText());
+        }
+        if (value.compareTo(min) < 0 || value.compareTo(max) > 0) {
+            throw new IllegalArgumentException(field + " must be between " + min + " and " + max);
+        }
+        return value;
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    private static class InventoryItem {
+        private final int index;
+        private Long id;
+        private String sku;
+        private Integer stockQuantity;
+        private BigDecimal price;
+        private BigDecimal discountPercentage;
+        private Long productId;
+
+        InventoryItem(int index) {
+            this.index = index;
+        }
+    }
+
+    public static class ItemResult {
+        private final int index;
+        private final Long productId;
+        private final String sku;
+        private final String status;
+        private final Integer stockQuantity;
+        private final Boolean lowStock;
+        private final String message;
+
+        private ItemResult(int index, Long productId, String sku, String status, Integer stockQuantity,
+                           Boolean lowStock, String message) {
+            this.index = index;
+            this.productId = productId;
+            this.sku = sku;
+            this.status = status;
+            this.stockQuantity = stockQuantity;
+            this.lowStock = lowStock;
+            this.message = message;
+        }
+
+        static ItemResult updated(InventoryItem item, int stockQuantity, boolean lowStock) {
+            return new ItemResult(item.index, item.productId, item.sku, "UPDATED", stockQuantity, lowStock, null);
+        }
+
+        static ItemResult failed(InventoryItem item, String message) {
+            return new ItemResult(item.index, item.id, item.sku, "FAILED", null, null, message);
+        }
+
+        public int getIndex() { return index; }
+        public Long getProductId() { return productId; }
+        public String getSku() { return sku; }
+        public String getStatus() { return status; }
+        public Integer getStockQuantity() { return stockQuantity; }
+        public Boolean getLowStock() { return lowStock; }
+        public String getMessage() { return message; }
+    }
+
+    public static class BulkUpdateReport {
+        private int updated;
+        private int failed;
+        private int lowStock;
+        private long durationMs;
+        private final List<ItemResult> results = new ArrayList<>();
+
+        void add(ItemResult result) {
+            results.add(result);
+            if ("UPDATED".equals(result.status)) {
+                updated++;
+                if (Boolean.TRUE.equals(result.lowStock)) {
+                    lowStock++;
+                }
+            } else {
+                failed++;
+            }
+        }
+
+        public int getUpdated() { return updated; }
+        public int getFailed() { return failed; }
+        public int getLowStock() { return lowStock; }
+        public long getDurationMs() { return durationMs; }
+        public List<ItemResult> getResults() { return results; }
+    }
+}
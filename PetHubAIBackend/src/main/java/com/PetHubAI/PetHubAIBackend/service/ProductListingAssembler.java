@@ -0,0 +1,41 @@
+package com.PetHubAI.PetHubAIBackend.service;
+
+import com.PetHubAI.PetHubAIBackend.dto.product.ProductListingView;
+import com.PetHubAI.PetHubAIBackend.dto.product.ProductResponse;
+import com.PetHubAI.PetHubAIBackend.entity.ProductImage;
+import com.PetHubAI.PetHubAIBackend.repository.ProductImageRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+// Turns a page of ProductListingView rows into ProductResponses with one batched image query for the whole
+// page, instead of per-product lazy loads. Tags already come aggregated on the projection row.
+@Component
+public class ProductListingAssembler {
+
+    @Autowired
+    private ProductImageRepository productImageRepository;
+
+    public List<ProductResponse> toResponses(List<ProductListingView> views) {
+        if (views.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<Long> productIds = views.stream().map(ProductListingView::getId).collect(Collectors.toList());
+
+        Map<Long, List<ProductImage>> imagesByProduct = new HashMap<>();
+        for (ProductImage image : productImageRepository.findByProductIds(productIds)) {
+            // getId() on the lazy product reference does not initialize it
+            imagesByProduct.computeIfAbsent(image.getProduct().getId(), id -> new ArrayList<>()).add(image);
+        }
+
+        return views.stream()
+                .map(view -> new ProductResponse(view, imagesByProduct.get(view.getId()), view.getTags()))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,319 @@
+package com.PetHubAI.PetHubAIBackend.service;
+
+import com.PetHubAI.PetHubAIBackend.dto.product.ProductResponse;
+import com.PetHubAI.PetHubAIBackend.entity.CartItem;
+import com.PetHubAI.PetHubAIBackend.entity.Order;
+import com.PetHubAI.PetHubAIBackend.entity.OrderItem;
+import com.PetHubAI.PetHubAIBackend.entity.User;
+import com.PetHubAI.PetHubAIBackend.repository.CartItemRepository;
+import com.PetHubAI.PetHubAIBackend.repository.OrderItemRepository;
+import com.PetHubAI.PetHubAIBackend.repository.OrderRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+// Cross-sell from order history: products that were bought in the same order. Live orders feed the
+// co-occurrence index as they are placed (COD) or paid (online) and leave it again when cancelled; a
+// backfill streams historical orders in id chunks at startup, each weighted by its age, and a daily decay
+// lets recent buying patterns outweigh old ones.
+@Service
+public class ProductRecommendationService {
+
+    private static final int BACKFILL_CHUNK_SIZE = 500;
+    // Applied once a day: a basket from a month ago counts for about 40% of one from today
+    private static final double DAILY_DECAY = 0.97;
+    private static final int MAX_LIMIT = 24;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Autowired
+    private CartItemRepository cartItemRepository;
+
+    @Autowired
+    private ProductCatalogService productCatalogService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private volatile CooccurrenceIndex index = new CooccurrenceIndex();
+
+    // While a backfill builds a fresh index, live baskets and cancellations are also kept here and replayed
+    // onto it at the swap, depending on whether the backfill read that order
+    private final Object swapLock = new Object();
+    private Map<Long, List<Long>> liveDuringBackfill;
+    private Map<Long, Removal> removedDuringBackfill;
+    private volatile BackfillStatus lastBackfill;
+
+    // Off the startup thread: the app serves (without recommendations) while history is read
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        Thread thread = new Thread(() -> {
+            try {
+                backfill();
+            } catch (Exception e) {
+                System.err.println("❌ Recommendation backfill failed: " + e.getMessage());
+            }
+        }, "recommendation-backfill");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // Rebuilds the index from order history, one chunk of orders per short read-only transaction
+    public BackfillStatus backfill() {
+        synchronized (swapLock) {
+            if (liveDuringBackfill != null) {
+                throw new RuntimeException("A recommendation backfill is already running");
+            }
+            liveDuringBackfill = new LinkedHashMap<>();
+            removedDuringBackfill = new LinkedHashMap<>();
+        }
+
+        long start = System.currentTimeMillis();
+        CooccurrenceIndex fresh = new CooccurrenceIndex();
+        // Ids of the orders the backfill actually read; one bit per id
+        BitSet read = new BitSet();
+        long orders = 0;
+        boolean completed = false;
+        try {
+            Long upToId = readOnlyTransaction().execute(status -> orderRepository.findMaxId());
+            long lastId = 0;
+            while (upToId != null) {
+                long afterId = lastId;
+                long limitId = upToId;
+                LocalDateTime now = LocalDateTime.now();
+                List<Basket> baskets = readOnlyTransaction().execute(status -> {
+                    List<Object[]> rows = orderRepository.findSaleOrdersAfter(afterId, limitId,
+                            List.of(Order.OrderStatus.CANCELLED, Order.OrderStatus.REFUNDED), Order.PaymentStatus.PAID,
+                            PageRequest.of(0, BACKFILL_CHUNK_SIZE));
+                    Map<Long, Basket> byOrder = new LinkedHashMap<>();
+                    for (Object[] row : rows) {
+                        byOrder.put((Long) row[0], new Basket((Long) row[0], weight((LocalDateTime) row[1], now)));
+                    }
+                    if (!byOrder.isEmpty()) {
+                        for (Object[] row : orderItemRepository.findProductIdsByOrderIds(byOrder.keySet())) {
+                            byOrder.get((Long) row[0]).productIds.add((Long) row[1]);
+                        }
+                    }
+                    return new ArrayList<>(byOrder.values());
+                });
+                for (Basket basket : baskets) {
+                    fresh.addBasket(basket.productIds, basket.weight);
+                    read.set(Math.toIntExact(basket.orderId));
+                    lastId = basket.orderId;
+                }
+                orders += baskets.size();
+                if (baskets.size() < BACKFILL_CHUNK_SIZE) {
+                    break;
+                }
+            }
+            completed = true;
+        } finally {
+            synchronized (swapLock) {
+                Map<Long, List<Long>> live = liveDuringBackfill;
+                Map<Long, Removal> removed = removedDuringBackfill;
+                liveDuringBackfill = null;
+                removedDuringBackfill = null;
+                // A failed backfill keeps serving the previous index rather than a partial one
+                if (completed) {
+                    // Live sales the backfill did not read: newer than its high-water mark, or became a sale
+                    // (paid, committed late) after their chunk had been read
+                    live.forEach((orderId, productIds) -> {
+                        if (!read.get(Math.toIntExact(orderId))) {
+                            fresh.addBasket(productIds);
+                        }
+                    });
+                    // Cancelled while the backfill ran, after it had read them
+                    removed.forEach((orderId, removal) -> {
+                        if (read.get(Math.toIntExact(orderId))) {
+                            fresh.removeBasket(removal.productIds, removal.weight);
+                        }
+                    });
+                    index = fresh;
+                }
+            }
+        }
+
+        lastBackfill = new BackfillStatus(orders, fresh.productCount(), fresh.pairCount(),
+                System.currentTimeMillis() - start, LocalDateTime.now());
+        System.out.println("✅ Recommendations backfilled from " + orders + " orders: " + fresh.productCount()
+                + " products, " + fresh.pairCount() + " pairs in " + lastBackfill.getDurationMs() + " ms");
+        return lastBackfill;
+    }
+
+    // Called inside the order transaction when the order starts counting as a sale
+    public void recordOrder(Order order) {
+        Long orderId = order.getId();
+        List<Long> productIds = productIdsOf(order);
+        if (productIds.size() < 2) {
+            return;
+        }
+        AfterCommit.run(() -> {
+            synchronized (swapLock) {
+                index.addBasket(productIds);
+                if (liveDuringBackfill != null) {
+                    liveDuringBackfill.put(orderId, productIds);
+                }
+            }
+        });
+    }
+
+    // Called inside the cancelling transaction for an order that had counted as a sale. Takes out what the
+    // basket is worth today, i.e. the same age weight a backfill would have given it
+    public void removeOrder(Order order) {
+        Long orderId = order.getId();
+        List<Long> productIds = productIdsOf(order);
+        if (productIds.size() < 2) {
+            return;
+        }
+        double weight = weight(order.getCreatedAt(), LocalDateTime.now());
+        AfterCommit.run(() -> {
+            synchronized (swapLock) {
+                index.removeBasket(productIds, weight);
+                if (liveDuringBackfill != null) {
+                    liveDuringBackfill.remove(orderId);
+                    removedDuringBackfill.put(orderId, new Removal(productIds, weight));
+                }
+            }
+        });
+    }
+
+    @Scheduled(cron = "${recommendations.decay-cron:0 30 3 * * *}")
+    public void decay() {
+        synchronized (swapLock) {
+            index.decay(DAILY_DECAY);
+        }
+        System.out.println("📦 Recommendation scores decayed: " + index.productCount() + " products, "
+                + index.pairCount() + " pairs kept");
+    }
+
+    // Active products most often bought with this one
+    public List<ProductResponse> getFrequentlyBoughtTogether(Long productId, int limit) {
+        int capped = Math.max(1, Math.min(limit, MAX_LIMIT));
+        // Ask for extra partners: some may be inactive or out of stock
+        return index.top(productId, capped * 2).stream()
+                .map(productCatalogService::getActiveProduct)
+                .filter(product -> product != null && Boolean.TRUE.equals(product.getInStock()))
+                .limit(capped)
+                .collect(Collectors.toList());
+    }
+
+    // Partners of everything in the cart, scores summed so items paired with several cart items rank first
+    public List<ProductResponse> getCartRecommendations(User user, int limit) {
+        int capped = Math.max(1, Math.min(limit, MAX_LIMIT));
+        List<Long> cartProductIds = readOnlyTransaction().execute(status -> cartItemRepository
+                .findByUserOrderByAddedAtDesc(user).stream()
+                .map(CartItem::getProduct)
+                .filter(Objects::nonNull)
+                .map(product -> product.getId())
+                .collect(Collectors.toList()));
+        if (cartProductIds == null || cartProductIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Map<Long, Double> scores = index.combined(cartProductIds);
+        return scores.entrySet().stream()
+                .sorted(Map.Entry.<Long, Double>comparingByValue().reversed())
+                .map(entry -> productCatalogService.getActiveProduct(entry.getKey()))
+                .filter(product -> product != null && Boolean.TRUE.equals(product.getInStock()))
+                .limit(capped)
+                .collect(Collectors.toList());
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("products", index.productCount());
+        stats.put("pairs", index.pairCount());
+        stats.put("backfillRunning", liveDuringBackfill != null);
+        stats.put("lastBackfill", lastBackfill);
+        return stats;
+    }
+
+    // Helper methods
+    private static List<Long> productIdsOf(Order order) {
+        return order.getOrderItems() == null ? new ArrayList<>() : order.getOrderItems().stream()
+                .map(OrderItem::getProduct)
+                .filter(Objects::nonNull)
+                .map(product -> product.getId())
+                .collect(Collectors.toList());
+    }
+
+    // What a basket from createdAt is worth after the daily decays since then
+    private static double weight(LocalDateTime createdAt, LocalDateTime now) {
+        if (createdAt == null) {
+            return 1.0;
+        }
+        long days = Math.max(0, ChronoUnit.DAYS.between(createdAt, now));
+        return Math.pow(DAILY_DECAY, days);
+    }
+
+    private TransactionTemplate readOnlyTransaction() {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        template.setReadOnly(true);
+        return template;
+    }
+
+    private static class Basket {
+        private final Long orderId;
+        private final double weight;
+        private final List<Long> productIds = new ArrayList<>();
+
+        Basket(Long orderId, double weight) {
+            this.orderId = orderId;
+            this.weight = weight;
+        }
+    }
+
+    private static class Removal {
+        private final List<Long> productIds;
+        private final double weight;
+
+        Removal(List<Long> productIds, double weight) {
+            this.productIds = productIds;
+            this.weight = weight;
+        }
+    }
+
+    public static class BackfillStatus {
+        private final long orders;
+        private final long products;
+        private final long pairs;
+        private final long durationMs;
+        private final LocalDateTime completedAt;
+
+        public BackfillStatus(long orders, long products, long pairs, long durationMs, LocalDateTime completedAt) {
+            this.orders = orders;
+            this.products = products;
+            this.pairs = pairs;
+            this.durationMs = durationMs;
+            this.completedAt = completedAt;
+        }
+
+        public long getOrders() { return orders; }
+        public long getProducts() { return products; }
+        public long getPairs() { return pairs; }
+        public long getDurationMs() { return durationMs; }
+        public LocalDateTime getCompletedAt() { return completedAt; }
+    }
+}
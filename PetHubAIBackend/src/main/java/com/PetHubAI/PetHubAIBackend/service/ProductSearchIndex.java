@@ -0,0 +1,259 @@
+package com.PetHubAI.PetHubAIBackend.service;
+
+import com.PetHubAI.PetHubAIBackend.dto.product.ProductResponse;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Embedded inverted index over product name, brand, tags and description with BM25 ranking.
+// Owned by ProductCatalogService, which keeps it in step with the catalog snapshots.
+public class ProductSearchIndex {
+
+    // BM25 parameters
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    // Field boosts: a hit in the name counts more than a hit deep in the description
+    private static final float NAME_BOOST = 3.0f;
+    private static final float BRAND_BOOST = 2.0f;
+    private static final float TAG_BOOST = 2.0f;
+    private static final float DESCRIPTION_BOOST = 1.0f;
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "by", "for", "from", "in", "is", "it",
+            "of", "on", "or", "the", "to", "with");
+
+    // term -> (productId -> boosted term frequency)
+    private final Map<String, Map<Long, Float>> postings = new HashMap<>();
+    // productId -> indexed document stats
+    private final Map<Long, IndexedDocument> documents = new HashMap<>();
+    private long totalDocumentLength = 0;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public void index(ProductResponse product) {
+        Map<String, Float> termFrequencies = new HashMap<>();
+        float length = 0;
+        length += addField(termFrequencies, product.getName(), NAME_BOOST);
+        length += addField(termFrequencies, product.getBrand(), BRAND_BOOST);
+        if (product.getTags() != null) {
+            for (String tag : product.getTags()) {
+                length += addField(termFrequencies, tag, TAG_BOOST);
+            }
+        }
+        length += addField(termFrequencies, product.getDescription(), DESCRIPTION_BOOST);
+
+        lock.writeLock().lock();
+        try {
+            removeInternal(product.getId());
+            for (Map.Entry<String, Float> entry : termFrequencies.entrySet()) {
+                postings.computeIfAbsent(entry.getKey(), term -> new HashMap<>())
+                        .put(product.getId(), entry.getValue());
+            }
+            documents.put(product.getId(), new IndexedDocument(termFrequencies.keySet(), length));
+            totalDocumentLength += (long) length;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Returns up to offset + limit best matches; ids come back ranked, total is the number of matching products
+    public SearchResult search(String query, long offset, int limit) {
+        Set<String> queryTerms = new LinkedHashSet<>(tokenize(query));
+        if (queryTerms.isEmpty()) {
+            return new SearchResult(Collections.emptyList(), 0);
+        }
+
+        lock.readLock().lock();
+        try {
+            int documentCount = documents.size();
+            if (documentCount == 0) {
+                return new SearchResult(Collections.emptyList(), 0);
+            }
+            double averageLength = Math.max(1.0, (double) totalDocumentLength / documentCount);
+
+            Map<Long, Double> scores = new HashMap<>();
+            for (String term : queryTerms) {
+                Map<Long, Float> termPostings = postings.get(term);
+                if (termPostings == null) {
+                    continue;
+                }
+                double idf = Math.log(1 + (documentCount - termPostings.size() + 0.5) / (termPostings.size() + 0.5));
+                for (Map.Entry<Long, Float> posting : termPostings.entrySet()) {
+                    double tf = posting.getValue();
+                    double length = documents.get(posting.getKey()).length;
+                    double score = idf * (tf * (K1 + 1)) / (tf + K1 * (1 - B + B * length / averageLength));
+                    scores.merge(posting.getKey(), score, Double::sum);
+                }
+            }
+
+            // Keep only the top (offset + limit) with a bounded min-heap instead of sorting every match
+            int wanted = (int) Math.min(Integer.MAX_VALUE, offset + limit);
+            PriorityQueue<Map.Entry<Long, Double>> top = new PriorityQueue<>(
+                    Math.max(1, Math.min(wanted, scores.size())), Map.Entry.comparingByValue());
+            for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+                if (top.size() < wanted) {
+                    top.offer(entry);
+                } else if (wanted > 0 && entry.getValue() > top.peek().getValue()) {
+                    top.poll();
+                    top.offer(entry);
+                }
+            }
+
+            List<Long> ranked = new ArrayList<>(top.size());
+            while (!top.isEmpty()) {
+                ranked.add(top.poll().getKey());
+            }
+            Collections.reverse(ranked);
+
+            int from = (int) Math.min(offset, ranked.size());
+            return new SearchResult(ranked.subList(from, ranked.size()), scores.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        return documents.size();
+    }
+
+    public int termCount() {
+        lock.readLock().lock();
+        try {
+            return postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Analysis: lowercase, split on anything that is not a letter or digit, drop stop words, stem
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+
+        StringBuilder current = new StringBuilder();
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                current.append(Character.toLowerCase(c));
+            } else if (current.length() > 0) {
+                String token = current.toString();
+                current.setLength(0);
+                if (!STOP_WORDS.contains(token)) {
+                    tokens.add(stem(token));
+                }
+            }
+        }
+        return tokens;
+    }
+
+    // Light English suffix stripping (plurals, -ing, -ed, -ly). Index and query go through the same path,
+    // so "toys", "toy" and "toying" all meet at "toy".
+    static String stem(String token) {
+        if (token.length() <= 3 || !Character.isLetter(token.charAt(token.length() - 1))) {
+            return token;
+        }
+        if (token.endsWith("sses")) {
+            return token.substring(0, token.length() - 2);
+        }
+        if (token.endsWith("ies") && token.length() > 4) {
+            return token.substring(0, token.length() - 3) + "y";
+        }
+        if (token.endsWith("ing") && token.length() > 5) {
+            return undouble(token.substring(0, token.length() - 3));
+        }
+        if (token.endsWith("ed") && token.length() > 4) {
+            return undouble(token.substring(0, token.length() - 2));
+        }
+        if (token.endsWith("ly") && token.length() > 4) {
+            return token.substring(0, token.length() - 2);
+        }
+        if (token.endsWith("es") && token.length() > 4 && isSibilant(token.charAt(token.length() - 3))) {
+            return token.substring(0, token.length() - 2);
+        }
+        if (token.endsWith("s") && !token.endsWith("ss") && !token.endsWith("us")) {
+            return token.substring(0, token.length() - 1);
+        }
+        return token;
+    }
+
+    // Helper methods
+    private float addField(Map<String, Float> termFrequencies, String text, float boost) {
+        List<String> tokens = tokenize(text);
+        for (String token : tokens) {
+            termFrequencies.merge(token, boost, Float::sum);
+        }
+        return tokens.size() * boost;
+    }
+
+    private void removeInternal(Long productId) {
+        IndexedDocument previous = documents.remove(productId);
+        if (previous == null) {
+            return;
+        }
+        for (String term : previous.terms) {
+            Map<Long, Float> termPostings = postings.get(term);
+            if (termPostings != null) {
+                termPostings.remove(productId);
+                if (termPostings.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+        totalDocumentLength -= (long) previous.length;
+    }
+
+    private static String undouble(String stem) {
+        int n = stem.length();
+        if (n > 2 && stem.charAt(n - 1) == stem.charAt(n - 2) && "lsz".indexOf(stem.charAt(n - 1)) < 0) {
+            return stem.substring(0, n - 1);
+        }
+        return stem;
+    }
+
+    private static boolean isSibilant(char c) {
+        return c == 's' || c == 'x' || c == 'z' || c == 'h';
+    }
+
+    private static class IndexedDocument {
+        private final Set<String> terms;
+        private final float length;
+
+        IndexedDocument(Set<String> terms, float length) {
+            this.terms = terms;
+            this.length = length;
+        }
+    }
+
+    public static class SearchResult {
+        private final List<Long> productIds;
+        private final long totalMatches;
+
+        public SearchResult(List<Long> productIds, long totalMatches) {
+            this.productIds = productIds;
+            this.totalMatches = totalMatches;
+        }
+
+        public List<Long> getProductIds() { return productIds; }
+        public long getTotalMatches() { return totalMatches; }
+    }
+}
@@ -1,28 +1,43 @@
 // src/main/java/com/PetHubAI/PetHubAIBackend/service/ProductService.java
 package com.PetHubAI.PetHubAIBackend.service;
 
+import com.PetHubAI.PetHubAIBackend.dto.product.ProductCategoryResponse;
+import com.PetHubAI.PetHubAIBackend.dto.product.ProductFacetResponse;
+import com.PetHubAI.PetHubAIBackend.dto.product.ProductListingView;
 import com.PetHubAI.PetHubAIBackend.dto.product.ProductRequest;
 import com.PetHubAI.PetHubAIBackend.dto.product.ProductResponse;
+import com.PetHubAI.PetHubAIBackend.dto.response.CursorPage;
+import com.PetHubAI.PetHubAIBackend.dto.response.ImageUploadResult;
+import com.PetHubAI.PetHubAIBackend.entity.PetImage;
 import com.PetHubAI.PetHubAIBackend.entity.Product;
 import com.PetHubAI.PetHubAIBackend.entity.ProductCategory;
 import com.PetHubAI.PetHubAIBackend.entity.ProductImage;
 import com.PetHubAI.PetHubAIBackend.entity.User;
 import com.PetHubAI.PetHubAIBackend.exception.ProductNotFoundException;
 import com.PetHubAI.PetHubAIBackend.repository.ProductCategoryRepository;
+import com.PetHubAI.PetHubAIBackend.repository.ProductImageRepository;
 import com.PetHubAI.PetHubAIBackend.repository.ProductRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.function.Function;
 
 @Service
 @Transactional
@@ -37,21 +52,59 @@ public class ProductService {
     @Autowired
     private CloudinaryImageService cloudinaryImageService; // Add Cloudinary integration
 
+    @Autowired
+    private ProductCatalogService productCatalogService;
+
+    @Autowired
+    private StockService stockService;
+
+    @Autowired
+    private ProductListingAssembler productListingAssembler;
+
+    @Autowired
+    private SkuGenerator skuGenerator;
+
+    @Autowired
+    private LowStockMonitor lowStockMonitor;
+
+    @Autowired
+    private ImageUploadExecutor imageUploadExecutor;
+
+    @Autowired
+    private ImageVariantProcessor imageVariantProcessor;
+
+    @Autowired
+    private ImageStorageRegistry imageStorageRegistry;
+
+    @Autowired
+    private ImageAssetService imageAssetService;
+
+    @Autowired
+    private ProductImageRepository productImageRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
     // Public methods - for customers
     public Page<ProductResponse> getActiveProducts(Pageable pageable) {
-        Page<Product> products = productRepository.findByIsActiveTrueOrderByCreatedAtDesc(pageable);
-        return products.map(ProductResponse::new);
+        return productCatalogService.getActiveProducts(pageable);
     }
 
     public Page<ProductResponse> getActiveProductsSorted(int page, int size, String sortBy) {
-        Sort sort = createSort(sortBy);
-        Pageable pageable = PageRequest.of(page, size, sort);
+        return productCatalogService.getActiveProductsSorted(ProductSortIndex.SortOrder.from(sortBy), PageRequest.of(page, size));
+    }
 
-        Page<Product> products = productRepository.findByIsActiveTrueOrderByCreatedAtDesc(pageable);
-        return products.map(ProductResponse::new);
+    public CursorPage<ProductResponse> getActiveProductsFeed(String sortBy, String cursor, int size, boolean includeTotal) {
+        return productCatalogService.getActiveProductsFeed(ProductSortIndex.SortOrder.from(sortBy), cursor, size, includeTotal);
     }
 
     public ProductResponse getProductById(Long id) {
+        // Active products are served from the catalog snapshot; the lookup only explains misses
+        ProductResponse snapshot = productCatalogService.getActiveProduct(id);
+        if (snapshot != null) {
+            return snapshot;
+        }
+
         Product product = productRepository.findByIdWithImages(id)
                 .orElseThrow(() -> new ProductNotFoundException("Product not found with ID: " + id));
 
@@ -62,40 +115,91 @@ public class ProductService {
         return new ProductResponse(product);
     }
 
+    // Conditional GET validators
+    public ResourceVersion getProductVersion(Long id) {
+        return productCatalogService.getProductVersion(id);
+    }
+
+    public ResourceVersion getCatalogVersion() {
+        return productCatalogService.getCatalogVersion();
+    }
+
+    public ResourceVersion getCategoriesVersion() {
+        return productCatalogService.getCategoriesVersion();
+    }
+
+    public List<ProductCategoryResponse> getActiveCategories() {
+        return productCatalogService.getCategories();
+    }
+
+    public List<ProductCategoryResponse> getCategoryTree() {
+        return productCatalogService.getCategoryTree();
+    }
+
+    public void reloadCategories() {
+        productCatalogService.reloadCategories();
+    }
+
     public List<ProductResponse> getFeaturedProducts() {
-        List<Product> products = productRepository.findByIsActiveTrueAndFeaturedTrueOrderByCreatedAtDesc();
-        return products.stream()
-                .map(ProductResponse::new)
-                .collect(Collectors.toList());
+        return productCatalogService.getFeaturedProducts();
     }
 
     public Page<ProductResponse> searchProducts(String keyword, Pageable pageable) {
-        Page<Product> products = productRepository.searchByKeyword(keyword, pageable);
-        return products.map(ProductResponse::new);
+        return productCatalogService.searchProducts(keyword, pageable);
     }
 
-    public Page<ProductResponse> getProductsByCategory(Long categoryId, Pageable pageable) {
-        ProductCategory category = categoryRepository.findById(categoryId)
-                .orElseThrow(() -> new RuntimeException("Category not found"));
+    public Page<ProductResponse> getProductsByTags(List<String> tags, boolean matchAll, Pageable pageable) {
+        return productCatalogService.getProductsByTags(tags, matchAll, pageable);
+    }
 
-        Page<Product> products = productRepository.findByCategoryAndIsActiveTrueOrderByCreatedAtDesc(category, pageable);
-        return products.map(ProductResponse::new);
+    public List<ProductTagIndex.TagCount> getTagCloud(int limit) {
+        return productCatalogService.getTagCloud(limit);
+    }
+
+    public Page<ProductResponse> getProductsByCategory(Long categoryId, Pageable pageable) {
+        return productCatalogService.getProductsByCategory(categoryId, pageable);
     }
 
     public Page<ProductResponse> getProductsByPriceRange(Double minPrice, Double maxPrice, Pageable pageable) {
-        Page<Product> products = productRepository.findByPriceBetweenAndIsActiveTrueOrderByCreatedAtDesc(minPrice, maxPrice, pageable);
-        return products.map(ProductResponse::new);
+        return productCatalogService.getProductsByPriceRange(minPrice, maxPrice, pageable);
     }
 
     public Page<ProductResponse> getProductsByBrand(String brand, Pageable pageable) {
-        Page<Product> products = productRepository.findByBrandContainingIgnoreCaseAndIsActiveTrueOrderByCreatedAtDesc(brand, pageable);
-        return products.map(ProductResponse::new);
+        return productCatalogService.getProductsByBrand(brand, pageable);
+    }
+
+    public ProductFacetResponse getFacetedProducts(Map<String, List<String>> selections, String filter, String keyword,
+                                                   boolean includeZeroCounts, Pageable pageable) {
+        FacetExpression expression = filter != null && !filter.isBlank() ? FacetExpression.parse(filter) : null;
+        return productCatalogService.getFacetedProducts(selections, expression, keyword, includeZeroCounts, pageable);
     }
 
     // Admin methods
-    public Page<ProductResponse> getAllProductsForAdmin(Pageable pageable) {
-        Page<Product> products = productRepository.findAllByOrderByCreatedAtDesc(pageable);
-        return products.map(ProductResponse::new);
+    // Two statements per page (projection + images); a Page adds the COUNT unless the page itself shows the
+    // total, includeTotal=false answers with a Slice (hasNext only) and never counts
+    public Slice<ProductResponse> getAllProductsForAdmin(String brand, Pageable pageable, boolean includeTotal) {
+        Slice<ProductListingView> views = productRepository.findAllListingViews(brand, pageable);
+        List<ProductResponse> content = productListingAssembler.toResponses(views.getContent());
+        if (!includeTotal) {
+            return new SliceImpl<>(content, pageable, views.hasNext());
+        }
+        return PageableExecutionUtils.getPage(content, pageable,
+                () -> brand != null ? productRepository.countByBrand(brand) : productRepository.count());
+    }
+
+    public CursorPage<ProductResponse> getAllProductsFeedForAdmin(String cursor, int size, boolean includeTotal) {
+        Pageable limit = PageRequest.of(0, CursorPage.checkSize(size) + 1);
+        List<ProductListingView> fetched;
+        if (cursor == null || cursor.isBlank()) {
+            fetched = productRepository.findFirstListingViews(limit);
+        } else {
+            CursorPage.Cursor position = CursorPage.decode(cursor);
+            fetched = productRepository.findListingViewsBeforeCursor(position.getCreatedAt(), position.getId(), limit);
+        }
+        CursorPage<ProductListingView> views = CursorPage.of(fetched, size, ProductListingView::getCreatedAt,
+                ProductListingView::getId, Function.identity(), includeTotal ? productRepository.count() : null);
+        return new CursorPage<>(productListingAssembler.toResponses(views.getContent()), views.getNextCursor(),
+                views.isHasNext(), size, views.getTotalElements());
     }
 
     public ProductResponse createProduct(ProductRequest request, User createdBy) {
@@ -114,27 +218,33 @@ public class ProductService {
             addImageUrlsToProduct(savedProduct, request.getImageUrls());
         }
 
+        productCatalogService.refresh(savedProduct);
         return new ProductResponse(savedProduct);
     }
 
-    // NEW: Create product with file uploads using Cloudinary
+    // NEW: Create product with file uploads using Cloudinary.
+    // Product row in one short transaction, uploads concurrently with no connection held, image rows in a second
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public ProductResponse createProductWithImages(ProductRequest request, List<MultipartFile> imageFiles, User createdBy) {
-        Product product = new Product();
-        mapRequestToProduct(request, product, createdBy);
+        Product savedProduct = new TransactionTemplate(transactionManager).execute(status -> {
+            Product product = new Product();
+            mapRequestToProduct(request, product, createdBy);
 
-        // Generate SKU if not provided
-        if (request.getSku() == null || request.getSku().trim().isEmpty()) {
-            product.setSku(generateSku(product.getName()));
-        }
+            // Generate SKU if not provided
+            if (request.getSku() == null || request.getSku().trim().isEmpty()) {
+                product.setSku(generateSku(product.getName()));
+            }
 
-        Product savedProduct = productRepository.save(product);
+            Product saved = productRepository.save(product);
+            productCatalogService.refresh(saved);
+            return saved;
+        });
 
-        // Upload images to Cloudinary
-        if (imageFiles != null && !imageFiles.isEmpty()) {
-            uploadProductImages(savedProduct, imageFiles);
+        if (imageFiles == null || imageFiles.isEmpty()) {
+            return new ProductResponse(savedProduct);
         }
-
-        return new ProductResponse(savedProduct);
+        return attachUploadedImages(savedProduct.getId(), imageFiles,
+                uploadProductImages(savedProduct.getId(), imageFiles, true), true);
     }
 
     // Complete fix for ProductService.java
@@ -152,7 +262,8 @@ public class ProductService {
             product.setPrice(request.getPrice());
             product.setDiscountPercentage(request.getDiscountPercentage());
             product.setWeight(request.getWeight());
-            product.setStockQuantity(request.getStockQuantity());
+            // The form shows on-hand units; units held for unpaid orders stay taken off
+            product.setStockQuantity(stockService.sellable(id, request.getStockQuantity()));
             product.setMinStockLevel(request.getMinStockLevel());
             product.setDimensions(request.getDimensions());
             product.setTags(request.getTags());
@@ -170,6 +281,7 @@ public class ProductService {
             }
 
             Product savedProduct = productRepository.save(product);
+            productCatalogService.refresh(savedProduct);
             return new ProductResponse(savedProduct);
 
         } catch (Exception e) {
@@ -182,8 +294,14 @@ public class ProductService {
     public void updateProductImages(Product product, List<String> newImageUrls) {
         List<ProductImage> existingImages = product.getImages();
 
-        // Remove images not in the new list
-        existingImages.removeIf(image -> !newImageUrls.contains(image.getImageUrl()));
+        // Remove images not in the new list. The collection has no orphanRemoval, so the rows are deleted
+        // explicitly, and their stored files (or asset references) are released.
+        List<ProductImage> removed = new ArrayList<>();
+        existingImages.removeIf(image -> !newImageUrls.contains(image.getImageUrl()) && removed.add(image));
+        if (!removed.isEmpty()) {
+            productImageRepository.deleteAll(removed);
+            deleteProductImages(removed);
+        }
 
         // Add new images
         for (int i = 0; i < newImageUrls.size(); i++) {
@@ -216,12 +334,11 @@ public class ProductService {
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new ProductNotFoundException("Product not found with ID: " + id));
 
-        // Delete images from Cloudinary
-        if (product.getImages() != null && !product.getImages().isEmpty()) {
-            deleteProductImages(product);
-        }
-
+        List<ProductImage> images = product.getImages() != null ? new ArrayList<>(product.getImages()) : new ArrayList<>();
         productRepository.delete(product);
+        // Stored files go once no row references them
+        deleteProductImages(images);
+        productCatalogService.evict(id);
     }
 
     public void toggleProductStatus(Long id) {
@@ -230,74 +347,209 @@ public class ProductService {
 
         product.setIsActive(!product.getIsActive());
         productRepository.save(product);
+        productCatalogService.refresh(product);
     }
 
+    // quantity is the on-hand count; units held for unpaid orders stay taken off
     public void updateStock(Long id, Integer quantity) {
-        Product product = productRepository.findById(id)
-                .orElseThrow(() -> new ProductNotFoundException("Product not found with ID: " + id));
+        if (!stockService.setOnHand(id, quantity)) {
+            throw new ProductNotFoundException("Product not found with ID: " + id);
+        }
+    }
 
-        product.setStockQuantity(quantity);
-        productRepository.save(product);
+    public List<SuggestionTrie.Suggestion> suggestProducts(String prefix, int limit) {
+        return productCatalogService.suggest(prefix, limit);
+    }
+
+    public SuggestionTrie.Stats getSuggestionStats() {
+        return productCatalogService.getSuggestionStats();
     }
 
+    // Active products at or below their own minStockLevel, lowest stock first
     public List<ProductResponse> getLowStockProducts() {
-        List<Product> products = productRepository.findByStockQuantityLessThanEqualAndIsActiveTrue(5);
-        return products.stream()
-                .map(ProductResponse::new)
-                .collect(Collectors.toList());
+        return productCatalogService.getLowStockProducts();
     }
 
+    public List<LowStockMonitor.LowStockAlert> getLowStockAlerts() {
+        return lowStockMonitor.getAlerts();
+    }
+
+    public SseEmitter subscribeToLowStock() {
+        return lowStockMonitor.subscribe();
+    }
+
+    // Everything but the total comes from the in-memory catalog; inactive products are only in the table
     public ProductStatistics getProductStatistics() {
         long totalProducts = productRepository.count();
-        long activeProducts = productRepository.countByIsActiveTrue();
-        long featuredProducts = productRepository.countByFeaturedTrueAndIsActiveTrue();
-        long lowStockProducts = productRepository.countByStockQuantityLessThanEqualAndIsActiveTrue(5);
-        long outOfStockProducts = productRepository.countByStockQuantityAndIsActiveTrue(0);
+        long activeProducts = productCatalogService.size();
+        long featuredProducts = productCatalogService.countFeatured();
+        long lowStockProducts = lowStockMonitor.getLowStockCount();
+        long outOfStockProducts = lowStockMonitor.getOutOfStockCount();
 
         return new ProductStatistics(totalProducts, activeProducts, featuredProducts, lowStockProducts, outOfStockProducts);
     }
 
     // Cloudinary image upload methods
-    private void uploadProductImages(Product product, List<MultipartFile> imageFiles) {
-        List<ProductImage> productImages = new ArrayList<>();
+    // All files upload side by side on the bounded upload pool; must not be called inside a transaction
+    private List<ImageUploadResult> uploadProductImages(Long productId, List<MultipartFile> imageFiles, boolean reuse) {
+        long start = System.currentTimeMillis();
+        ImageStorage storage = imageStorageRegistry.getActive();
+        List<ImageUploadExecutor.UploadTask<ImageUploadResult>> tasks = new ArrayList<>();
+        for (MultipartFile file : imageFiles) {
+            tasks.add(() -> storeProductImage(storage, file, productId, reuse));
+        }
 
-        for (int i = 0; i < imageFiles.size(); i++) {
-            try {
-                String imageUrl = cloudinaryImageService.uploadProductImage(imageFiles.get(i), product.getId());
+        List<ImageUploadResult> uploads = new ArrayList<>();
+        for (ImageUploadExecutor.UploadResult<ImageUploadResult> result : imageUploadExecutor.runAll(tasks)) {
+            MultipartFile file = imageFiles.get(result.getIndex());
+            ImageUploadResult upload = result.isSuccess() ? result.getValue() : new ImageUploadResult();
+            if (result.isSuccess()) {
+                System.out.println("✅ Uploaded product image " + (result.getIndex() + 1) + " in " + result.getDurationMs() + " ms: " + upload.getImageUrl());
+            } else {
+                System.err.println("❌ Failed to upload product image " + (result.getIndex() + 1) + ": " + result.getError());
+            }
+            upload.setIndex(result.getIndex());
+            upload.setFileName(file.getOriginalFilename());
+            upload.setSuccess(result.isSuccess());
+            upload.setError(result.getError());
+            upload.setDurationMs(result.getDurationMs());
+            uploads.add(upload);
+        }
+        System.out.println("📦 " + imageFiles.size() + " product images uploaded in " + (System.currentTimeMillis() - start) + " ms");
+        return uploads;
+    }
 
-                ProductImage productImage = new ProductImage();
-                productImage.setProduct(product);
-                productImage.setImageUrl(imageUrl);
-                productImage.setIsPrimary(i == 0); // First image is primary
-                productImage.setSortOrder(i);
-                productImage.setAltText(product.getName() + " - Image " + (i + 1));
+    // Background image job: uploads the files and appends them after the product's existing images.
+    // Throws IOException when nothing could be uploaded so the job can retry.
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ProductResponse addProductImages(Long productId, List<MultipartFile> imageFiles) throws IOException {
+        List<ImageUploadResult> uploads = uploadProductImages(productId, imageFiles, true);
+        if (uploads.stream().noneMatch(ImageUploadResult::isSuccess)) {
+            throw new IOException("No product images could be uploaded: " + uploads.get(0).getError());
+        }
+        return attachUploadedImages(productId, imageFiles, uploads, false);
+    }
 
-                productImages.add(productImage);
+    // Decode once and store only the 800x600 variant; formats ImageIO cannot decode are stored as uploaded
+    // and get dimensions but no placeholder. Bytes stored before (same SHA-256) reuse that asset instead.
+    private ImageUploadResult storeProductImage(ImageStorage storage, MultipartFile file, Long productId,
+                                                boolean reuse) throws IOException {
+        ImageVariantProcessor.ImageInfo info = cloudinaryImageService.validateAndHashImage(file);
+        String contentHash = info.getContentHash();
+        ImageAssetService.Asset found = reuse
+                ? imageAssetService.find(contentHash, ImageVariantProcessor.DISPLAY, storage.getSource()) : null;
+        if (found != null) {
+            return uploadResult(found, true);
+        }
 
-                System.out.println("✅ Uploaded product image " + (i + 1) + ": " + imageUrl);
-            } catch (IOException e) {
-                System.err.println("❌ Failed to upload product image " + (i + 1) + ": " + e.getMessage());
+        String folder = "petcare/products/" + productId;
+        ImageVariantProcessor.ProcessedImage processed = null;
+        if (!ImageVariantProcessor.WEBP.equals(info.getFormat())) {
+            try (InputStream input = file.getInputStream()) {
+                processed = imageVariantProcessor.process(input, file.getSize(), ImageVariantProcessor.DISPLAY);
             }
         }
+        ImageStorage.StoredImage stored = processed != null
+                ? storage.store(processed.get(ImageVariantProcessor.DISPLAY), folder, "product_" + productId)
+                : storage.storeOriginal(file, info.getFormat(), folder, "product_" + productId, ImageVariantProcessor.DISPLAY);
+
+        return uploadResult(imageAssetService.stored(contentHash, ImageVariantProcessor.DISPLAY, stored,
+                stored.getWidth() > 0 ? stored.getWidth() : info.getWidth(),
+                stored.getHeight() > 0 ? stored.getHeight() : info.getHeight(),
+                processed != null ? processed.getBlurHash() : null,
+                processed != null ? processed.getDominantColor() : null), false);
+    }
 
-        if (!productImages.isEmpty()) {
-            product.setImages(productImages);
-            productRepository.save(product);
-            System.out.println("✅ Saved " + productImages.size() + " images for product: " + product.getName());
+    private static ImageUploadResult uploadResult(ImageAssetService.Asset asset, boolean reused) {
+        ImageUploadResult upload = new ImageUploadResult();
+        upload.setAsset(asset);
+        upload.setReused(reused);
+        upload.setImageUrl(asset.getUrl());
+        upload.setSource(asset.getSource());
+        upload.setStorageKey(asset.getStorageKey());
+        upload.setWidth(asset.getWidth());
+        upload.setHeight(asset.getHeight());
+        upload.setBlurHash(asset.getBlurHash());
+        upload.setDominantColor(asset.getDominantColor());
+        return upload;
+    }
+
+    // Replaces (or appends to) the product's images with the successful uploads, in submission order.
+    // If every upload failed the existing images are kept. If an asset picked for reuse was deleted before
+    // it could be referenced, the files are uploaded again without reuse.
+    private ProductResponse attachUploadedImages(Long productId, List<MultipartFile> imageFiles,
+                                                 List<ImageUploadResult> uploads, boolean replace) {
+        ProductResponse response;
+        try {
+            response = saveUploadedImages(productId, uploads, replace);
+        } catch (ImageAssetService.StaleAssetException e) {
+            System.out.println("⚠️ " + e.getMessage() + ", uploading instead");
+            uploads = uploadProductImages(productId, imageFiles, false);
+            response = saveUploadedImages(productId, uploads, replace);
         }
+        response.setImageUploads(uploads);
+        return response;
+    }
+
+    private ProductResponse saveUploadedImages(Long productId, List<ImageUploadResult> uploads, boolean replace) {
+        return imageAssetService.inTransaction(status -> {
+            Product product = productRepository.findByIdWithImages(productId)
+                    .orElseThrow(() -> new ProductNotFoundException("Product not found with ID: " + productId));
+
+            int existing = replace ? 0 : product.getImages().size();
+            boolean hasPrimary = !replace && product.getImages().stream()
+                    .anyMatch(image -> Boolean.TRUE.equals(image.getIsPrimary()));
+            List<ProductImage> productImages = new ArrayList<>();
+            for (ImageUploadResult upload : uploads) {
+                if (!upload.isSuccess()) {
+                    continue;
+                }
+                int position = existing + productImages.size();
+                // The row takes its reference on the asset in this transaction
+                ImageAssetService.Asset asset = imageAssetService.retain(upload.getAsset());
+                ProductImage productImage = new ProductImage();
+                productImage.setProduct(product);
+                productImage.setImageUrl(asset.getUrl());
+                productImage.setSource(asset.getSource());
+                productImage.setStorageKey(asset.getStorageKey());
+                productImage.setAssetId(asset.getId());
+                productImage.setWidth(asset.getWidth());
+                productImage.setHeight(asset.getHeight());
+                productImage.setBlurHash(asset.getBlurHash());
+                productImage.setDominantColor(asset.getDominantColor());
+                productImage.setIsPrimary(!hasPrimary && productImages.isEmpty()); // First image is primary
+                productImage.setSortOrder(position);
+                productImage.setAltText(product.getName() + " - Image " + (position + 1));
+                productImages.add(productImage);
+            }
+
+            if (productImages.isEmpty()) {
+                return new ProductResponse(product);
+            }
+            if (replace) {
+                updateProductImages(product, new ArrayList<>()); // Clear existing images first
+            }
+            product.getImages().addAll(productImages);
+            Product savedProduct = productRepository.save(product);
+            productCatalogService.refresh(savedProduct);
+            System.out.println("✅ Saved " + productImages.size() + " images for product: " + product.getName());
+            return new ProductResponse(savedProduct);
+        });
     }
 
-    private void deleteProductImages(Product product) {
-        for (ProductImage image : product.getImages()) {
-            try {
-                // Extract public_id from Cloudinary URL for deletion
-                String publicId = extractPublicIdFromUrl(image.getImageUrl());
-                cloudinaryImageService.deleteProductImage(publicId);
-                System.out.println("✅ Deleted product image: " + image.getImageUrl());
-            } catch (Exception e) {
-                System.err.println("❌ Failed to delete product image: " + e.getMessage());
+    // One batched delete per backend, after the transaction commits
+    private void deleteProductImages(List<ProductImage> images) {
+        List<ImageStorageRegistry.StoredRef> refs = new ArrayList<>();
+        for (ProductImage image : images) {
+            if (image.getStorageKey() != null) {
+                refs.add(new ImageStorageRegistry.StoredRef(image.getSource(), image.getStorageKey(), image.getAssetId()));
+            } else if (image.getSource() == null || image.getSource() == PetImage.ImageSource.CLOUDINARY) {
+                // Rows from before storage keys were recorded: the public id (with its folder) comes from the URL
+                refs.add(new ImageStorageRegistry.StoredRef(PetImage.ImageSource.CLOUDINARY,
+                        CloudinaryImageService.publicIdFromUrl(image.getImageUrl())));
             }
         }
+        imageStorageRegistry.releaseAfterCommit(refs);
     }
 
     // Helper methods
@@ -342,63 +594,31 @@ public class ProductService {
     }
 
     private String generateSku(String productName) {
-        String baseSku = productName.toUpperCase()
-                .replaceAll("[^A-Z0-9]", "")
-                .substring(0, Math.min(6, productName.length()));
-
-        long timestamp = System.currentTimeMillis() % 10000;
-        return baseSku + timestamp;
-    }
-
-    private Sort createSort(String sortBy) {
-        switch (sortBy) {
-            case "price-low":
-                return Sort.by(Sort.Direction.ASC, "price");
-            case "price-high":
-                return Sort.by(Sort.Direction.DESC, "price");
-            case "name":
-                return Sort.by(Sort.Direction.ASC, "name");
-            case "popular":
-                return Sort.by(Sort.Direction.DESC, "featured").and(Sort.by(Sort.Direction.DESC, "createdAt"));
-            case "newest":
-            default:
-                return Sort.by(Sort.Direction.DESC, "createdAt");
-        }
-    }
-
-    private String extractPublicIdFromUrl(String imageUrl) {
-        // Extract public_id from Cloudinary URL
-        // Example: https://res.cloudinary.com/cloud/image/upload/v1234/petcare/products/1/product_1_abc123.jpg
-        try {
-            String[] parts = imageUrl.split("/");
-            String fileName = parts[parts.length - 1];
-            return fileName.substring(0, fileName.lastIndexOf("."));
-        } catch (Exception e) {
-            System.err.println("Failed to extract public_id from URL: " + imageUrl);
-            return "";
-        }
+        return skuGenerator.generate(productName);
     }
 
+    // Same split as createProductWithImages: fields, then concurrent uploads outside any transaction, then images
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public ProductResponse updateProductWithImages(Long id, ProductRequest request, List<MultipartFile> imageFiles, User updatedBy) {
         System.out.println("🔍 Updating product with images for ID: " + id);
 
         try {
-            Product product = productRepository.findByIdWithImages(id)
-                    .orElseThrow(() -> new ProductNotFoundException("Product not found with ID: " + id));
-
-            // Update basic fields using existing helper method
-            mapRequestToProduct(request, product, updatedBy);
-
-            // Handle image file uploads
-            if (imageFiles != null && !imageFiles.isEmpty()) {
-                // Clear existing images safely
-                updateProductImages(product, new ArrayList<>()); // Clear images first
-
-                // Upload new images
-                uploadProductImages(product, imageFiles);
+            Product savedProduct = new TransactionTemplate(transactionManager).execute(status -> {
+                Product product = productRepository.findByIdWithImages(id)
+                        .orElseThrow(() -> new ProductNotFoundException("Product not found with ID: " + id));
+
+                // Update basic fields using existing helper method
+                mapRequestToProduct(request, product, updatedBy);
+                product.setStockQuantity(stockService.sellable(id, request.getStockQuantity()));
+                Product saved = productRepository.save(product);
+                productCatalogService.refresh(saved);
+                return saved;
+            });
+
+            if (imageFiles == null || imageFiles.isEmpty()) {
+                return new ProductResponse(savedProduct);
             }
-            Product savedProduct = productRepository.save(product);
-            return new ProductResponse(savedProduct);
+            return attachUploadedImages(id, imageFiles, uploadProductImages(id, imageFiles, true), true);
 
         } catch (Exception e) {
             System.err.println("❌ Failed to update product with images: " + e.getMessage());
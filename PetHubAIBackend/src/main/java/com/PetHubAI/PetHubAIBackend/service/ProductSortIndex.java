@@ -0,0 +1,236 @@
+package com.PetHubAI.PetHubAIBackend.service;
+
+import com.PetHubAI.PetHubAIBackend.dto.product.ProductResponse;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+// Sorted id indexes of the active catalog by effective price, name and units sold. Each product sits in
+// every index under an immutable (value, id) key, so a write is a remove + insert and a sorted page is a
+// walk of the skip list from the start or from a cursor - no ORDER BY, no per-request sort.
+// Newest-first is the catalog's own primary ordering and is not duplicated here.
+public class ProductSortIndex {
+
+    public enum SortOrder {
+        NEWEST, PRICE_LOW, PRICE_HIGH, NAME, POPULAR;
+
+        // Accepts the values the storefront already sends
+        public static SortOrder from(String sortBy) {
+            if (sortBy == null) {
+                return NEWEST;
+            }
+            switch (sortBy) {
+                case "price-low":
+                    return PRICE_LOW;
+                case "price-high":
+                    return PRICE_HIGH;
+                case "name":
+                    return NAME;
+                case "popular":
+                    return POPULAR;
+                case "newest":
+                default:
+                    return NEWEST;
+            }
+        }
+    }
+
+    private final NavigableSet<SortKey<BigDecimal>> byPrice = new ConcurrentSkipListSet<>();
+    private final NavigableSet<SortKey<String>> byName = new ConcurrentSkipListSet<>();
+    private final NavigableSet<SortKey<Long>> byUnitsSold = new ConcurrentSkipListSet<>();
+
+    // Current keys per indexed product, so a re-index can find and remove the old entries
+    private final Map<Long, IndexedKeys> indexed = new HashMap<>();
+    // Units sold per product, kept for inactive products too so re-activation keeps its rank
+    private final Map<Long, Long> unitsSold = new ConcurrentHashMap<>();
+
+    public synchronized void index(ProductResponse product) {
+        removeInternal(product.getId());
+        IndexedKeys keys = new IndexedKeys(
+                new SortKey<>(product.getFinalPrice() != null ? product.getFinalPrice() : BigDecimal.ZERO, product.getId()),
+                new SortKey<>(product.getName() != null ? product.getName().toLowerCase(Locale.ROOT) : "", product.getId()),
+                new SortKey<>(unitsSold.getOrDefault(product.getId(), 0L), product.getId()));
+        byPrice.add(keys.price);
+        byName.add(keys.name);
+        byUnitsSold.add(keys.units);
+        indexed.put(product.getId(), keys);
+    }
+
+    public synchronized void remove(Long productId) {
+        removeInternal(productId);
+    }
+
+    // Bulk seed before the catalog is indexed
+    public synchronized void loadUnitsSold(Map<Long, Long> totals) {
+        unitsSold.putAll(totals);
+    }
+
+    public synchronized void addUnitsSold(Long productId, long delta) {
+        long total = Math.max(0, unitsSold.getOrDefault(productId, 0L) + delta);
+        unitsSold.put(productId, total);
+
+        IndexedKeys keys = indexed.get(productId);
+        if (keys != null) {
+            byUnitsSold.remove(keys.units);
+            keys.units = new SortKey<>(total, productId);
+            byUnitsSold.add(keys.units);
+        }
+    }
+
+    public long getUnitsSold(Long productId) {
+        return unitsSold.getOrDefault(productId, 0L);
+    }
+
+    // Offset page of ids in the requested order
+    public List<Long> page(SortOrder order, long offset, int limit) {
+        List<Long> ids = new ArrayList<>(limit);
+        Iterator<? extends SortKey<?>> keys = keysFor(order, null).iterator();
+        for (long skipped = 0; skipped < offset && keys.hasNext(); skipped++) {
+            keys.next();
+        }
+        while (ids.size() < limit && keys.hasNext()) {
+            ids.add(keys.next().id);
+        }
+        return ids;
+    }
+
+    // Keyset page: the ids strictly after the cursor position, plus the cursor for the page after that
+    public SortedSlice seek(SortOrder order, String cursor, int limit) {
+        SortKey<?> position = cursor == null || cursor.isBlank() ? null : decode(order, cursor);
+        Iterator<? extends SortKey<?>> keys = keysFor(order, position).iterator();
+
+        List<Long> ids = new ArrayList<>(limit);
+        SortKey<?> last = null;
+        while (ids.size() < limit && keys.hasNext()) {
+            last = keys.next();
+            ids.add(last.id);
+        }
+        boolean hasNext = keys.hasNext();
+        return new SortedSlice(ids, hasNext && last != null ? encode(order, last) : null, hasNext);
+    }
+
+    // Helper methods
+    @SuppressWarnings("unchecked")
+    private NavigableSet<? extends SortKey<?>> keysFor(SortOrder order, SortKey<?> after) {
+        switch (order) {
+            case PRICE_LOW:
+                return after == null ? byPrice : byPrice.tailSet((SortKey<BigDecimal>) after, false);
+            case PRICE_HIGH:
+                return after == null ? byPrice.descendingSet() : byPrice.headSet((SortKey<BigDecimal>) after, false).descendingSet();
+            case NAME:
+                return after == null ? byName : byName.tailSet((SortKey<String>) after, false);
+            case POPULAR:
+                return after == null ? byUnitsSold.descendingSet() : byUnitsSold.headSet((SortKey<Long>) after, false).descendingSet();
+            default:
+                throw new IllegalArgumentException("Unsupported sort order: " + order);
+        }
+    }
+
+    private void removeInternal(Long productId) {
+        IndexedKeys previous = indexed.remove(productId);
+        if (previous != null) {
+            byPrice.remove(previous.price);
+            byName.remove(previous.name);
+            byUnitsSold.remove(previous.units);
+        }
+    }
+
+    // Cursor: base64url of "ORDER|value|id"; the value may itself contain '|', the order and id cannot
+    private static String encode(SortOrder order, SortKey<?> key) {
+        String value = key.value instanceof BigDecimal ? ((BigDecimal) key.value).toPlainString() : String.valueOf(key.value);
+        String raw = order.name() + "|" + value + "|" + key.id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static SortKey<?> decode(SortOrder order, String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int first = raw.indexOf('|');
+            int last = raw.lastIndexOf('|');
+            if (first < 0 || first == last || !order.name().equals(raw.substring(0, first))) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            String value = raw.substring(first + 1, last);
+            Long id = Long.parseLong(raw.substring(last + 1));
+            switch (order) {
+                case PRICE_LOW:
+                case PRICE_HIGH:
+                    return new SortKey<>(new BigDecimal(value), id);
+                case POPULAR:
+                    return new SortKey<>(Long.parseLong(value), id);
+                default:
+                    return new SortKey<>(value, id);
+            }
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    private static class SortKey<V extends Comparable<V>> implements Comparable<SortKey<V>> {
+        private final V value;
+        private final Long id;
+
+        SortKey(V value, Long id) {
+            this.value = value;
+            this.id = id;
+        }
+
+        @Override
+        public int compareTo(SortKey<V> other) {
+            int byValue = value.compareTo(other.value);
+            return byValue != 0 ? byValue : id.compareTo(other.id);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof SortKey)) {
+                return false;
+            }
+            SortKey<?> other = (SortKey<?>) o;
+            return value.equals(other.value) && id.equals(other.id);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * value.hashCode() + id.hashCode();
+        }
+    }
+
+    private static class IndexedKeys {
+        private final SortKey<BigDecimal> price;
+        private final SortKey<String> name;
+        private SortKey<Long> units;
+
+        IndexedKeys(SortKey<BigDecimal> price, SortKey<String> name, SortKey<Long> units) {
+            this.price = price;
+            this.name = name;
+            this.units = units;
+        }
+    }
+
+    public static class SortedSlice {
+        private final List<Long> productIds;
+        private final String nextCursor;
+        private final boolean hasNext;
+
+        public SortedSlice(List<Long> productIds, String nextCursor, boolean hasNext) {
+            this.productIds = productIds;
+            this.nextCursor = nextCursor;
+            this.hasNext = hasNext;
+        }
+
+        public List<Long> getProductIds() { return productIds; }
+        public String getNextCursor() { return nextCursor; }
+        public boolean isHasNext() { return hasNext; }
+    }
+}
@@ -0,0 +1,246 @@
+package com.PetHubAI.PetHubAIBackend.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Inverted index tag -> sorted postings of active product ids. Multi-tag queries merge postings: AND walks
+// the shortest list and binary-searches the others, OR is a linear merge. A tag's live count is the length
+// of its postings, so the tag cloud needs no GROUP BY over product_tags.
+public class ProductTagIndex {
+
+    private final Map<String, Postings> postings = new HashMap<>();
+    // productId -> normalized tags it is posted under, so a product can be re-indexed or removed
+    private final Map<Long, Set<String>> productTags = new HashMap<>();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public void index(Long productId, Collection<String> tags) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(productId);
+            if (tags == null) {
+                return;
+            }
+            Set<String> keys = new LinkedHashSet<>();
+            for (String tag : tags) {
+                String key = normalize(tag);
+                if (key.isEmpty() || !keys.add(key)) {
+                    continue;
+                }
+                postings.computeIfAbsent(key, k -> new Postings(tag.trim())).add(productId);
+            }
+            if (!keys.isEmpty()) {
+                productTags.put(productId, keys);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Ascending product ids carrying the tag
+    public List<Long> get(String tag) {
+        lock.readLock().lock();
+        try {
+            Postings list = postings.get(normalize(tag));
+            return list != null ? list.toList() : new ArrayList<>();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Products carrying every tag
+    public List<Long> intersect(Collection<String> tags) {
+        lock.readLock().lock();
+        try {
+            List<Postings> lists = new ArrayList<>();
+            for (String tag : new LinkedHashSet<>(tags)) {
+                Postings list = postings.get(normalize(tag));
+                if (list == null) {
+                    return new ArrayList<>();
+                }
+                lists.add(list);
+            }
+            if (lists.isEmpty()) {
+                return new ArrayList<>();
+            }
+            lists.sort(Comparator.comparingInt(list -> list.size));
+
+            Postings shortest = lists.get(0);
+            List<Long> result = new ArrayList<>();
+            int[] from = new int[lists.size()];
+            candidates:
+            for (int i = 0; i < shortest.size; i++) {
+                long id = shortest.ids[i];
+                for (int j = 1; j < lists.size(); j++) {
+                    Postings other = lists.get(j);
+                    // Candidates ascend, so each search can start where the previous one stopped
+                    int found = Arrays.binarySearch(other.ids, from[j], other.size, id);
+                    if (found < 0) {
+                        from[j] = -found - 1;
+                        if (from[j] >= other.size) {
+                            break candidates;
+                        }
+                        continue candidates;
+                    }
+                    from[j] = found + 1;
+                }
+                result.add(id);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Products carrying at least one of the tags
+    public List<Long> union(Collection<String> tags) {
+        lock.readLock().lock();
+        try {
+            long[] merged = new long[0];
+            int mergedSize = 0;
+            for (String tag : new LinkedHashSet<>(tags)) {
+                Postings list = postings.get(normalize(tag));
+                if (list == null) {
+                    continue;
+                }
+                long[] next = new long[mergedSize + list.size];
+                int a = 0, b = 0, n = 0;
+                while (a < mergedSize || b < list.size) {
+                    if (b == list.size || (a < mergedSize && merged[a] < list.ids[b])) {
+                        next[n++] = merged[a++];
+                    } else if (a == mergedSize || list.ids[b] < merged[a]) {
+                        next[n++] = list.ids[b++];
+                    } else {
+                        next[n++] = merged[a++];
+                        b++;
+                    }
+                }
+                merged = next;
+                mergedSize = n;
+            }
+            List<Long> result = new ArrayList<>(mergedSize);
+            for (int i = 0; i < mergedSize; i++) {
+                result.add(merged[i]);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Most used tags first; limit <= 0 returns every tag
+    public List<TagCount> cloud(int limit) {
+        lock.readLock().lock();
+        try {
+            List<TagCount> counts = new ArrayList<>(postings.size());
+            postings.forEach((key, list) -> counts.add(new TagCount(list.display, list.size)));
+            counts.sort(Comparator.comparingInt(TagCount::getCount).reversed()
+                    .thenComparing(count -> count.getTag().toLowerCase(Locale.ROOT)));
+            return limit > 0 && counts.size() > limit ? new ArrayList<>(counts.subList(0, limit)) : counts;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int tagCount() {
+        lock.readLock().lock();
+        try {
+            return postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Helper methods
+    private void removeInternal(Long productId) {
+        Set<String> keys = productTags.remove(productId);
+        if (keys == null) {
+            return;
+        }
+        for (String key : keys) {
+            Postings list = postings.get(key);
+            if (list != null && list.remove(productId) && list.size == 0) {
+                postings.remove(key);
+            }
+        }
+    }
+
+    private static String normalize(String tag) {
+        return tag == null ? "" : tag.trim().toLowerCase(Locale.ROOT).replaceAll("\\s+", " ");
+    }
+
+    // Sorted, duplicate-free primitive array; inserts and removals shift in place
+    private static class Postings {
+        private final String display;
+        private long[] ids = new long[4];
+        private int size;
+
+        Postings(String display) {
+            this.display = display;
+        }
+
+        void add(long id) {
+            int at = Arrays.binarySearch(ids, 0, size, id);
+            if (at >= 0) {
+                return;
+            }
+            at = -at - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(ids, at, ids, at + 1, size - at);
+            ids[at] = id;
+            size++;
+        }
+
+        boolean remove(long id) {
+            int at = Arrays.binarySearch(ids, 0, size, id);
+            if (at < 0) {
+                return false;
+            }
+            System.arraycopy(ids, at + 1, ids, at, size - at - 1);
+            size--;
+            return true;
+        }
+
+        List<Long> toList() {
+            List<Long> list = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                list.add(ids[i]);
+            }
+            return list;
+        }
+    }
+
+    public static class TagCount {
+        private final String tag;
+        private final int count;
+
+        public TagCount(String tag, int count) {
+            this.tag = tag;
+            this.count = count;
+        }
+
+        public String getTag() { return tag; }
+        public int getCount() { return count; }
+    }
+}
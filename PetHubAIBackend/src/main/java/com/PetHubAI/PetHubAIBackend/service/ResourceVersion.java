@@ -0,0 +1,16 @@
+package com.PetHubAI.PetHubAIBackend.service;
+
+// Validators for a conditional GET: a strong ETag and, when known, a Last-Modified time (epoch millis, 0 = none)
+public class ResourceVersion {
+
+    private final String etag;
+    private final long lastModified;
+
+    public ResourceVersion(String etag, long lastModified) {
+        this.etag = "\"" + etag + "\"";
+        this.lastModified = lastModified;
+    }
+
+    public String getEtag() { return etag; }
+    public long getLastModified() { return lastModified; }
+}
@@ -0,0 +1,103 @@
+package com.PetHubAI.PetHubAIBackend.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+// Collision-free SKUs: a readable prefix from the product name plus a time-ordered 64-bit id
+// (milliseconds | node | sequence), so thousands of SKUs per second from several instances never clash.
+@Component
+public class SkuGenerator {
+
+    private static final long EPOCH = 1704067200000L; // 2024-01-01T00:00:00Z
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long MAX_NODE = (1L << NODE_BITS) - 1;
+    private static final long MAX_SEQUENCE = (1L << SEQUENCE_BITS) - 1;
+
+    // A clock stepped back by up to this much is waited out; more than that is a real jump and fails
+    private static final long MAX_CLOCK_BACKWARDS_MS = 100;
+    // Waiting for the next millisecond spins briefly, then sleeps
+    private static final int MAX_SPINS = 1000;
+
+    // Give each instance its own value (0-1023) when running several; unset, it is derived from the host
+    // name and process id, which differ between containers but may still collide
+    @Value("${sku.node-id:-1}")
+    private long configuredNode;
+
+    private long node;
+
+    private long lastMillis = -1;
+    private long sequence = 0;
+
+    @PostConstruct
+    public void init() {
+        if (configuredNode > MAX_NODE) {
+            throw new IllegalStateException("sku.node-id must be between 0 and " + MAX_NODE + ", got " + configuredNode);
+        }
+        if (configuredNode >= 0) {
+            node = configuredNode;
+        } else {
+            node = Math.floorMod((hostName() + ":" + ProcessHandle.current().pid()).hashCode(), MAX_NODE + 1);
+            System.out.println("⚠️ sku.node-id not set, using derived SKU node id " + node);
+        }
+    }
+
+    public String generate(String productName) {
+        String prefix = productName == null ? "" : productName.toUpperCase().replaceAll("[^A-Z0-9]", "");
+        prefix = prefix.isEmpty() ? "PRD" : prefix.substring(0, Math.min(6, prefix.length()));
+        return prefix + "-" + Long.toString(nextId(), 36).toUpperCase();
+    }
+
+    // Helper methods
+    private synchronized long nextId() {
+        long now = System.currentTimeMillis();
+        if (now < lastMillis) {
+            if (lastMillis - now > MAX_CLOCK_BACKWARDS_MS) {
+                throw new IllegalStateException("Clock moved backwards by " + (lastMillis - now)
+                        + " ms; refusing to generate SKUs");
+            }
+            now = lastMillis; // small step back: keep issuing from the last millisecond
+        }
+        if (now == lastMillis) {
+            sequence = (sequence + 1) & MAX_SEQUENCE;
+            if (sequence == 0) {
+                now = waitPast(lastMillis);
+            }
+        } else {
+            sequence = 0;
+        }
+        lastMillis = now;
+        return ((now - EPOCH) << (NODE_BITS + SEQUENCE_BITS)) | (node << SEQUENCE_BITS) | sequence;
+    }
+
+    // Bounded by MAX_CLOCK_BACKWARDS_MS plus a millisecond, so the monitor is never held for long
+    private static long waitPast(long millis) {
+        int spins = 0;
+        long now;
+        while ((now = System.currentTimeMillis()) <= millis) {
+            if (++spins <= MAX_SPINS) {
+                Thread.onSpinWait();
+                continue;
+            }
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for the next SKU millisecond");
+            }
+        }
+        return now;
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "unknown";
+        }
+    }
+}
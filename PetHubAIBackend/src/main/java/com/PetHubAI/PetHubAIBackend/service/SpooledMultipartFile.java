@@ -0,0 +1,99 @@
+package com.PetHubAI.PetHubAIBackend.service;
+
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+// An upload copied to local disk so it outlives the HTTP request; the image pipeline reads it exactly
+// like the servlet's own temp file
+class SpooledMultipartFile implements MultipartFile {
+
+    private final Path path;
+    private final String name;
+    private final String originalFilename;
+    private final String contentType;
+    private final long size;
+    private final String contentHash;
+
+    private SpooledMultipartFile(Path path, String name, String originalFilename, String contentType, long size,
+                                 String contentHash) {
+        this.path = path;
+        this.name = name;
+        this.originalFilename = originalFilename;
+        this.contentType = contentType;
+        this.size = size;
+        this.contentHash = contentHash;
+    }
+
+    // Streams the upload into the directory, hashing it on the way for ImageAssetService; the request's
+    // own temp file is left for the servlet to clean up
+    static SpooledMultipartFile spool(MultipartFile file, Path directory) throws IOException {
+        Files.createDirectories(directory);
+        Path target = Files.createTempFile(directory, "upload-", ".img");
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+        try (InputStream input = new DigestInputStream(file.getInputStream(), digest)) {
+            Files.copy(input, target, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Files.deleteIfExists(target);
+            throw e;
+        }
+        return new SpooledMultipartFile(target, file.getName(), file.getOriginalFilename(), file.getContentType(),
+                Files.size(target), HexFormat.of().formatHex(digest.digest()));
+    }
+
+    String getContentHash() {
+        return contentHash;
+    }
+
+    void delete() {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            System.err.println("⚠️ Could not delete spooled upload " + path + ": " + e.getMessage());
+        }
+    }
+
+    @Override
+    public String getName() { return name; }
+
+    @Override
+    public String getOriginalFilename() { return originalFilename; }
+
+    @Override
+    public String getContentType() { return contentType; }
+
+    @Override
+    public boolean isEmpty() { return size == 0; }
+
+    @Override
+    public long getSize() { return size; }
+
+    @Override
+    public byte[] getBytes() throws IOException {
+        return Files.readAllBytes(path);
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return Files.newInputStream(path);
+    }
+
+    @Override
+    public void transferTo(File dest) throws IOException {
+        Files.copy(path, dest.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+}
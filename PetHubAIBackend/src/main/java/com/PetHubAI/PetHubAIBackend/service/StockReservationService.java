@@ -0,0 +1,248 @@
+package com.PetHubAI.PetHubAIBackend.service;
+
+import com.PetHubAI.PetHubAIBackend.entity.StockReservation;
+import com.PetHubAI.PetHubAIBackend.repository.StockReservationRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Holds stock for Razorpay orders between checkout and payment. reserve() takes the units with the same
+// conditional batch as a COD checkout and records a ledger line per product; commit() on payment keeps them,
+// release() on cancel and expire() after the TTL give them back. Every transition is guarded by the line's
+// status in the database, so a payment racing the expiry either commits the hold or finds it gone - never
+// both. Deadlines live on a hashed timing wheel (one small entry per order, rebuilt from the table on
+// startup); a periodic sweep catches anything the wheel missed, e.g. holds made by another instance.
+@Service
+public class StockReservationService {
+
+    private static final Duration TICK = Duration.ofSeconds(1);
+    // 4096 one-second buckets: a 15 minute TTL fits in one revolution, so entries never count rounds
+    private static final int WHEEL_SIZE = 4096;
+    private static final int EXPIRE_BATCH_SIZE = 100;
+    private static final int SWEEP_PAGE_SIZE = 500;
+    // The wheel normally handles expiry; the sweep only picks up holds that are overdue by this much
+    private static final Duration SWEEP_GRACE = Duration.ofMinutes(1);
+
+    @Value("${orders.reservation.ttl-minutes:15}")
+    private long ttlMinutes;
+
+    @Autowired
+    private StockReservationRepository stockReservationRepository;
+
+    @Autowired
+    private StockService stockService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // orderId -> pending timeout, so commit and release can take the entry off the wheel
+    private final Map<Long, HashedTimingWheel.Timeout<Long>> timers = new ConcurrentHashMap<>();
+    private final AtomicLong expiredOrders = new AtomicLong();
+    private final AtomicLong releasedOrders = new AtomicLong();
+
+    // Expiry touches the database, so it runs off the wheel thread
+    private final ExecutorService expiryExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "stock-reservation-expiry");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private HashedTimingWheel<Long> wheel;
+
+    @PostConstruct
+    public void start() {
+        wheel = new HashedTimingWheel<>(TICK, WHEEL_SIZE, "stock-reservation-wheel",
+                orderIds -> expiryExecutor.execute(() -> expire(orderIds)));
+        try {
+            List<Object[]> deadlines = stockReservationRepository.findActiveDeadlines();
+            for (Object[] row : deadlines) {
+                schedule((Long) row[0], (LocalDateTime) row[1]);
+            }
+            System.out.println("✅ Stock reservations: " + deadlines.size() + " active holds scheduled for expiry");
+        } catch (Exception e) {
+            // The sweep will still expire them
+            System.err.println("❌ Failed to load active stock reservations: " + e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        wheel.stop();
+        expiryExecutor.shutdown();
+    }
+
+    // Must run inside the order's transaction, after the order is saved. Throws InsufficientStockException
+    // (and takes nothing) if any product cannot cover its units. Returns when the hold runs out.
+    public LocalDateTime reserve(Long orderId, Map<Long, Integer> unitsByProduct) {
+        stockService.reserve(unitsByProduct);
+
+        LocalDateTime expiresAt = LocalDateTime.now().plusMinutes(ttlMinutes);
+        List<StockReservation> lines = new ArrayList<>();
+        unitsByProduct.forEach((productId, quantity) -> {
+            StockReservation line = new StockReservation();
+            line.setOrderId(orderId);
+            line.setProductId(productId);
+            line.setQuantity(quantity);
+            line.setExpiresAt(expiresAt);
+            lines.add(line);
+        });
+        stockReservationRepository.saveAll(lines);
+
+        AfterCommit.run(() -> schedule(orderId, expiresAt));
+        return expiresAt;
+    }
+
+    // Payment arrived: the held units are now sold. LAPSED means there was no hold left (it expired or was
+    // released first) and the caller has to take the stock again; ALREADY_COMMITTED means an earlier
+    // confirmation sold these units already and nothing must be taken.
+    public CommitResult commit(Long orderId) {
+        if (stockReservationRepository.commit(orderId, LocalDateTime.now()) > 0) {
+            AfterCommit.run(() -> cancelTimer(orderId));
+            return CommitResult.COMMITTED;
+        }
+        return stockReservationRepository.existsByOrderIdAndStatus(orderId, StockReservation.Status.COMMITTED)
+                ? CommitResult.ALREADY_COMMITTED : CommitResult.LAPSED;
+    }
+
+    // Cancelled before payment; false if there was nothing to give back
+    public boolean release(Long orderId) {
+        boolean released = restock(List.of(orderId), StockReservation.Status.RELEASED) > 0;
+        if (released) {
+            AfterCommit.run(() -> {
+                releasedOrders.incrementAndGet();
+                cancelTimer(orderId);
+            });
+        }
+        return released;
+    }
+
+    // Safety net for holds the wheel does not know about (made on another instance, scheduling lost)
+    @Scheduled(fixedDelayString = "${orders.reservation.sweep-interval-ms:60000}")
+    public void sweepOverdue() {
+        try {
+            List<Long> orderIds = new TransactionTemplate(transactionManager).execute(status ->
+                    stockReservationRepository.findOverdueOrderIds(LocalDateTime.now().minus(SWEEP_GRACE),
+                            PageRequest.of(0, SWEEP_PAGE_SIZE)));
+            if (orderIds != null && !orderIds.isEmpty()) {
+                System.out.println("⚠️ Expiring " + orderIds.size() + " overdue stock reservations missed by the timer");
+                expire(orderIds);
+            }
+        } catch (Exception e) {
+            System.err.println("❌ Stock reservation sweep failed: " + e.getMessage());
+        }
+    }
+
+    public ReservationStats getStats() {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        return readOnly.execute(status -> new ReservationStats(
+                stockReservationRepository.countByStatus(StockReservation.Status.ACTIVE),
+                stockReservationRepository.sumActiveUnits(),
+                wheel.getPending(),
+                expiredOrders.get(),
+                releasedOrders.get(),
+                ttlMinutes));
+    }
+
+    // Helper methods
+    // Expired holds are processed in small batches, one transaction each, so one bad order cannot keep
+    // the rest of a tick's batch holding stock
+    private void expire(List<Long> orderIds) {
+        for (int from = 0; from < orderIds.size(); from += EXPIRE_BATCH_SIZE) {
+            List<Long> batch = orderIds.subList(from, Math.min(from + EXPIRE_BATCH_SIZE, orderIds.size()));
+            try {
+                Integer expired = new TransactionTemplate(transactionManager).execute(status ->
+                        restock(batch, StockReservation.Status.EXPIRED));
+                batch.forEach(this::cancelTimer);
+                if (expired != null && expired > 0) {
+                    expiredOrders.addAndGet(expired);
+                    System.out.println("♻️ Released stock held by " + expired + " expired reservations");
+                }
+            } catch (Exception e) {
+                // Still ACTIVE in the table, so the sweep retries them
+                System.err.println("❌ Failed to expire stock reservations " + batch + ": " + e.getMessage());
+            }
+        }
+    }
+
+    // Moves the orders' active lines to the given status and puts their units back on the shelf; returns
+    // how many orders actually had an active hold
+    private int restock(Collection<Long> orderIds, StockReservation.Status resolution) {
+        List<StockReservation> lines = stockReservationRepository.findForUpdate(orderIds, StockReservation.Status.ACTIVE);
+        if (lines.isEmpty()) {
+            return 0;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, Integer> units = new TreeMap<>();
+        for (StockReservation line : lines) {
+            line.setStatus(resolution);
+            line.setResolvedAt(now);
+            units.merge(line.getProductId(), line.getQuantity(), Integer::sum);
+        }
+        stockService.restore(units);
+        return (int) lines.stream().map(StockReservation::getOrderId).distinct().count();
+    }
+
+    private void schedule(Long orderId, LocalDateTime expiresAt) {
+        Duration delay = Duration.between(LocalDateTime.now(), expiresAt);
+        HashedTimingWheel.Timeout<Long> previous = timers.put(orderId, wheel.schedule(orderId, delay));
+        if (previous != null) {
+            previous.cancel();
+        }
+    }
+
+    private void cancelTimer(Long orderId) {
+        HashedTimingWheel.Timeout<Long> timeout = timers.remove(orderId);
+        if (timeout != null) {
+            timeout.cancel();
+        }
+    }
+
+    public enum CommitResult {
+        COMMITTED, ALREADY_COMMITTED, LAPSED
+    }
+
+    public static class ReservationStats {
+        private final long activeLines;
+        private final long heldUnits;
+        private final int scheduledTimers;
+        private final long expiredOrders;
+        private final long releasedOrders;
+        private final long ttlMinutes;
+
+        public ReservationStats(long activeLines, long heldUnits, int scheduledTimers, long expiredOrders,
+                                long releasedOrders, long ttlMinutes) {
+            this.activeLines = activeLines;
+            this.heldUnits = heldUnits;
+            this.scheduledTimers = scheduledTimers;
+            this.expiredOrders = expiredOrders;
+            this.releasedOrders = releasedOrders;
+            this.ttlMinutes = ttlMinutes;
+        }
+
+        public long getActiveLines() { return activeLines; }
+        public long getHeldUnits() { return heldUnits; }
+        public int getScheduledTimers() { return scheduledTimers; }
+        public long getExpiredOrders() { return expiredOrders; }
+        public long getReleasedOrders() { return releasedOrders; }
+        public long getTtlMinutes() { return ttlMinutes; }
+    }
+}
@@ -0,0 +1,139 @@
+package com.PetHubAI.PetHubAIBackend.service;
+
+import com.PetHubAI.PetHubAIBackend.exception.InsufficientStockException;
+import com.PetHubAI.PetHubAIBackend.repository.StockReservationRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Checkout stock changes as set-based SQL instead of read-check-save on the entities. The database checks
+// and applies each line atomically (stock >= qty in the WHERE clause), so concurrent checkouts can never
+// oversell, and a whole order costs one JDBC batch instead of a SELECT plus an UPDATE per line.
+// stock_quantity is what can still be sold: on-hand units minus those held by active reservations. Writers
+// that set an absolute on-hand count (warehouse sync, import, admin edits) must subtract the held units, or
+// the hold would be cancelled now and its units added back a second time when it is released.
+@Service
+public class StockService {
+
+    private static final String DECREMENT_STOCK = "UPDATE products SET stock_quantity = stock_quantity - ?, " +
+            "updated_at = ? WHERE id = ? AND stock_quantity >= ?";
+    private static final String RESTORE_STOCK = "UPDATE products SET stock_quantity = stock_quantity + ?, " +
+            "updated_at = ? WHERE id = ?";
+
+    // Units of the products row being updated that active reservations hold; SQL for "on-hand minus held"
+    public static final String HELD_UNITS = "(SELECT COALESCE(SUM(r.quantity), 0) FROM stock_reservations r " +
+            "WHERE r.product_id = products.id AND r.status = 'ACTIVE')";
+
+    private static final String SET_ON_HAND = "UPDATE products SET stock_quantity = ? - " + HELD_UNITS +
+            ", updated_at = ? WHERE id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ProductCatalogService productCatalogService;
+
+    @Autowired
+    private StockReservationRepository stockReservationRepository;
+
+    // Must run inside the order's transaction. All-or-nothing: if any line cannot be covered this puts back
+    // the lines already applied and throws InsufficientStockException, so a caller that handles the exception
+    // (rather than rolling back) is not left with half an order taken. Rows are updated in product id order,
+    // so two orders sharing products lock them in the same order and cannot deadlock.
+    public void decrement(Map<Long, Integer> unitsByProduct) {
+        take(unitsByProduct);
+        unitsByProduct.forEach(productCatalogService::recordSale);
+    }
+
+    // Same as decrement, but the units are only held for an unpaid order (StockReservationService) and do
+    // not count as sold until the reservation is committed
+    public void reserve(Map<Long, Integer> unitsByProduct) {
+        take(unitsByProduct);
+    }
+
+    // Gives held units back (released or expired reservation); products deleted in the meantime are skipped
+    public void restore(Map<Long, Integer> unitsByProduct) {
+        if (unitsByProduct.isEmpty()) {
+            return;
+        }
+        restoreLines(unitsByProduct, Timestamp.valueOf(LocalDateTime.now()));
+        productCatalogService.reload(unitsByProduct.keySet());
+    }
+
+    // Admin stock count: the product has onHand units in the warehouse, some of which may be held
+    public boolean setOnHand(Long productId, int onHand) {
+        int updated = jdbcTemplate.update(SET_ON_HAND, onHand, Timestamp.valueOf(LocalDateTime.now()), productId);
+        if (updated > 0) {
+            productCatalogService.reload(List.of(productId));
+        }
+        return updated > 0;
+    }
+
+    // The sellable stock for an on-hand count, for writers that save the Product entity
+    public int sellable(Long productId, Integer onHand) {
+        if (onHand == null || productId == null) {
+            return onHand != null ? onHand : 0;
+        }
+        return onHand - (int) stockReservationRepository.sumActiveUnitsByProduct(productId);
+    }
+
+    private void take(Map<Long, Integer> unitsByProduct) {
+        if (unitsByProduct.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<Long, Integer>> lines = new ArrayList<>(new TreeMap<>(unitsByProduct).entrySet());
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        int[][] counts = jdbcTemplate.batchUpdate(DECREMENT_STOCK, lines, lines.size(), (ps, line) -> {
+            ps.setInt(1, line.getValue());
+            ps.setTimestamp(2, now);
+            ps.setLong(3, line.getKey());
+            ps.setInt(4, line.getValue());
+        });
+
+        // One batch, so counts[0] lines up with lines; 0 rows means the product lacked stock (or is gone)
+        Long shortProductId = null;
+        Map<Long, Integer> applied = new TreeMap<>();
+        for (int i = 0; i < lines.size(); i++) {
+            if (counts[0][i] == 0) {
+                if (shortProductId == null) {
+                    shortProductId = lines.get(i).getKey();
+                }
+            } else {
+                applied.put(lines.get(i).getKey(), lines.get(i).getValue());
+            }
+        }
+        if (shortProductId != null) {
+            restoreLines(applied, now);
+            throw insufficientStock(shortProductId);
+        }
+
+        // The entities in the persistence context still hold the old stock; re-read after commit
+        productCatalogService.reload(unitsByProduct.keySet());
+    }
+
+    // Helper methods
+    private void restoreLines(Map<Long, Integer> unitsByProduct, Timestamp now) {
+        if (unitsByProduct.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<Long, Integer>> lines = new ArrayList<>(new TreeMap<>(unitsByProduct).entrySet());
+        jdbcTemplate.batchUpdate(RESTORE_STOCK, lines, lines.size(), (ps, line) -> {
+            ps.setInt(1, line.getValue());
+            ps.setTimestamp(2, now);
+            ps.setLong(3, line.getKey());
+        });
+    }
+
+    private InsufficientStockException insufficientStock(Long productId) {
+        List<String> names = jdbcTemplate.queryForList("SELECT name FROM products WHERE id = ?", String.class, productId);
+        String product = names.isEmpty() ? "ID " + productId : names.get(0);
+        return new InsufficientStockException(productId, "Insufficient stock for product: " + product);
+    }
+}
@@ -0,0 +1,367 @@
+package com.PetHubAI.PetHubAIBackend.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Compressed (radix) prefix trie for typeahead. Every node caches the TOP_K heaviest completions of its
+// subtree, so a lookup is a walk down the prefix plus a copy of one cached list - independent of how many
+// entries share the prefix. Entries are contributed by sources (a product, a pet); an entry's weight is the
+// sum of its sources' weights and it disappears when its last source goes away.
+public class SuggestionTrie {
+
+    private static final int TOP_K = 10;
+
+    // Rough per-object sizes for the footprint estimate (compressed oops, 64-bit JVM)
+    private static final int NODE_BYTES = 120;
+    private static final int ENTRY_BYTES = 96;
+    private static final int CONTRIBUTION_BYTES = 80;
+
+    private static final Comparator<Entry> HEAVIEST_FIRST = Comparator
+            .comparingLong((Entry entry) -> entry.weight).reversed()
+            .thenComparing(entry -> entry.key);
+
+    private final Node root = new Node("");
+    private final Map<String, Entry> entries = new HashMap<>();
+    // sourceKey -> keys it contributed to, so a source can be replaced or withdrawn in one call
+    private final Map<String, List<String>> sources = new HashMap<>();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Replaces everything the source contributed before with the given terms
+    public void put(String sourceKey, List<Term> terms, long weight) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(sourceKey);
+            List<String> keys = new ArrayList<>();
+            for (Term term : terms) {
+                String key = normalize(term.text);
+                if (key.isEmpty() || keys.contains(key)) {
+                    continue;
+                }
+                keys.add(key);
+
+                Entry entry = entries.get(key);
+                List<Node> path;
+                if (entry == null) {
+                    entry = new Entry(key);
+                    entries.put(key, entry);
+                    path = insert(key);
+                    path.get(path.size() - 1).entry = entry;
+                } else {
+                    path = find(key);
+                }
+                entry.contributions.put(sourceKey, new Contribution(term.text.trim(), term.type, weight));
+                entry.reweigh();
+                recompute(path);
+            }
+            if (!keys.isEmpty()) {
+                sources.put(sourceKey, keys);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String sourceKey) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(sourceKey);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Top completions of the prefix, heaviest first
+    public List<Suggestion> complete(String prefix, int limit) {
+        String key = normalize(prefix);
+        // A trailing space means the word is finished: "dog " should not complete to "dogfish"
+        if (!key.isEmpty() && Character.isWhitespace(prefix.charAt(prefix.length() - 1))) {
+            key += " ";
+        }
+        if (key.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+
+        lock.readLock().lock();
+        try {
+            Node node = root;
+            int i = 0;
+            while (i < key.length()) {
+                Node child = node.children.get(key.charAt(i));
+                if (child == null) {
+                    return Collections.emptyList();
+                }
+                int common = commonPrefix(child.label, key, i);
+                if (common < child.label.length() && i + common < key.length()) {
+                    return Collections.emptyList();
+                }
+                i += common;
+                node = child;
+            }
+
+            List<Suggestion> suggestions = new ArrayList<>(Math.min(limit, node.top.size()));
+            for (Entry entry : node.top) {
+                if (suggestions.size() == limit) {
+                    break;
+                }
+                Contribution best = entry.best();
+                suggestions.add(new Suggestion(best.text, best.type, entry.weight));
+            }
+            return suggestions;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Stats stats() {
+        lock.readLock().lock();
+        try {
+            long[] counts = new long[3]; // nodes, label chars, cached top refs
+            countNodes(root, counts);
+            long contributions = 0;
+            for (Entry entry : entries.values()) {
+                contributions += entry.contributions.size();
+            }
+            long estimatedBytes = counts[0] * NODE_BYTES + counts[1] * 2 + counts[2] * 4
+                    + entries.size() * (long) ENTRY_BYTES + contributions * CONTRIBUTION_BYTES;
+            return new Stats(counts[0], entries.size(), sources.size(), counts[1], estimatedBytes);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Helper methods
+    private void removeInternal(String sourceKey) {
+        List<String> keys = sources.remove(sourceKey);
+        if (keys == null) {
+            return;
+        }
+        for (String key : keys) {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                continue;
+            }
+            List<Node> path = find(key);
+            entry.contributions.remove(sourceKey);
+            if (entry.contributions.isEmpty()) {
+                entries.remove(key);
+                path.get(path.size() - 1).entry = null;
+                prune(path);
+            } else {
+                entry.reweigh();
+            }
+            recompute(path);
+        }
+    }
+
+    // Walks/creates the nodes for key, splitting edges as needed; returns root..terminal
+    private List<Node> insert(String key) {
+        List<Node> path = new ArrayList<>();
+        path.add(root);
+        Node node = root;
+        int i = 0;
+        while (i < key.length()) {
+            Node child = node.children.get(key.charAt(i));
+            if (child == null) {
+                child = new Node(key.substring(i));
+                node.children.put(key.charAt(i), child);
+                path.add(child);
+                return path;
+            }
+            int common = commonPrefix(child.label, key, i);
+            if (common < child.label.length()) {
+                Node middle = new Node(child.label.substring(0, common));
+                child.label = child.label.substring(common);
+                middle.children.put(child.label.charAt(0), child);
+                middle.top.addAll(child.top);
+                node.children.put(middle.label.charAt(0), middle);
+                child = middle;
+            }
+            i += common;
+            node = child;
+            path.add(node);
+        }
+        return path;
+    }
+
+    // Path to an existing key's terminal node
+    private List<Node> find(String key) {
+        List<Node> path = new ArrayList<>();
+        path.add(root);
+        Node node = root;
+        int i = 0;
+        while (i < key.length()) {
+            node = node.children.get(key.charAt(i));
+            i += node.label.length();
+            path.add(node);
+        }
+        return path;
+    }
+
+    // Drops empty leaves and folds single-child pass-through nodes back into their child
+    private void prune(List<Node> path) {
+        for (int j = path.size() - 1; j > 0; j--) {
+            Node node = path.get(j);
+            Node parent = path.get(j - 1);
+            if (node.entry != null) {
+                return;
+            }
+            if (node.children.isEmpty()) {
+                parent.children.remove(node.label.charAt(0));
+            } else if (node.children.size() == 1) {
+                Node only = node.children.values().iterator().next();
+                only.label = node.label + only.label;
+                parent.children.put(only.label.charAt(0), only);
+                return;
+            } else {
+                return;
+            }
+        }
+    }
+
+    // Rebuilds the cached top-k bottom-up along the path; only ancestors of a changed entry can change
+    private void recompute(List<Node> path) {
+        for (int j = path.size() - 1; j >= 0; j--) {
+            Node node = path.get(j);
+            List<Entry> candidates = new ArrayList<>();
+            if (node.entry != null) {
+                candidates.add(node.entry);
+            }
+            for (Node child : node.children.values()) {
+                candidates.addAll(child.top);
+            }
+            candidates.sort(HEAVIEST_FIRST);
+            node.top = new ArrayList<>(candidates.subList(0, Math.min(TOP_K, candidates.size())));
+        }
+    }
+
+    private void countNodes(Node node, long[] counts) {
+        counts[0]++;
+        counts[1] += node.label.length();
+        counts[2] += node.top.size();
+        for (Node child : node.children.values()) {
+            countNodes(child, counts);
+        }
+    }
+
+    private static int commonPrefix(String label, String key, int offset) {
+        int max = Math.min(label.length(), key.length() - offset);
+        int n = 0;
+        while (n < max && label.charAt(n) == key.charAt(offset + n)) {
+            n++;
+        }
+        return n;
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.trim().toLowerCase(Locale.ROOT).replaceAll("\\s+", " ");
+    }
+
+    private static class Node {
+        private String label;
+        private final Map<Character, Node> children = new TreeMap<>();
+        private Entry entry;
+        private List<Entry> top = new ArrayList<>();
+
+        Node(String label) {
+            this.label = label;
+        }
+    }
+
+    private static class Entry {
+        private final String key;
+        private final Map<String, Contribution> contributions = new HashMap<>();
+        private long weight;
+
+        Entry(String key) {
+            this.key = key;
+        }
+
+        void reweigh() {
+            long total = 0;
+            for (Contribution contribution : contributions.values()) {
+                total += contribution.weight;
+            }
+            weight = total;
+        }
+
+        // The display text and type come from the heaviest source
+        Contribution best() {
+            Contribution best = null;
+            for (Contribution contribution : contributions.values()) {
+                if (best == null || contribution.weight > best.weight) {
+                    best = contribution;
+                }
+            }
+            return best;
+        }
+    }
+
+    private static class Contribution {
+        private final String text;
+        private final String type;
+        private final long weight;
+
+        Contribution(String text, String type, long weight) {
+            this.text = text;
+            this.type = type;
+            this.weight = weight;
+        }
+    }
+
+    public static class Term {
+        private final String text;
+        private final String type;
+
+        public Term(String text, String type) {
+            this.text = text;
+            this.type = type;
+        }
+    }
+
+    public static class Suggestion {
+        private final String text;
+        private final String type;
+        private final long weight;
+
+        public Suggestion(String text, String type, long weight) {
+            this.text = text;
+            this.type = type;
+            this.weight = weight;
+        }
+
+        public String getText() { return text; }
+        public String getType() { return type; }
+        public long getWeight() { return weight; }
+    }
+
+    public static class Stats {
+        private final long nodes;
+        private final long entries;
+        private final long sources;
+        private final long labelChars;
+        private final long estimatedBytes;
+
+        public Stats(long nodes, long entries, long sources, long labelChars, long estimatedBytes) {
+            this.nodes = nodes;
+            this.entries = entries;
+            this.sources = sources;
+            this.labelChars = labelChars;
+            this.estimatedBytes = estimatedBytes;
+        }
+
+        public long getNodes() { return nodes; }
+        public long getEntries() { return entries; }
+        public long getSources() { return sources; }
+        public long getLabelChars() { return labelChars; }
+        public long getEstimatedBytes() { return estimatedBytes; }
+    }
+}
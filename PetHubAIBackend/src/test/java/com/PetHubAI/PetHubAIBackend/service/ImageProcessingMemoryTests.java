@@ -0,0 +1,149 @@
+package com.PetHubAI.PetHubAIBackend.service;
+
+import com.sun.management.ThreadMXBean;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockMultipartFile;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class ImageProcessingMemoryTests {
+
+	private static final int UPLOADERS = 50;
+	private static final long MAX_RASTER_PER_DECODE = 16L * 1024 * 1024;
+	private static final long MAX_RASTER_IN_FLIGHT = 64L * 1024 * 1024;
+	// Heap a worker thread may allocate per upload: validation reads the header only (about 100 KB), and
+	// processing, every scaling step included (about 35 MB), stays under the one full-resolution ARGB
+	// raster of the 12 MP image (4000 x 3000 x 4 bytes) that a decode without subsampling would start with
+	private static final long MAX_ALLOCATED_PER_VALIDATION = 1L * 1024 * 1024;
+	private static final long MAX_ALLOCATED_PER_PROCESS = 4000L * 3000 * 4;
+
+	private static final ThreadMXBean THREADS = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+	@TempDir
+	static Path uploadDirectory;
+
+	// 12 MP of noise barely compresses: a phone-photo sized upload just under the 10 MB limit, on disk
+	// like the servlet's temp file so reading it does not put the whole upload on the heap
+	private static SpooledMultipartFile largeJpeg;
+
+	@Autowired
+	private CloudinaryImageService cloudinaryImageService;
+
+	@Autowired
+	private ImageVariantProcessor imageVariantProcessor;
+
+	@BeforeAll
+	static void createUpload() throws Exception {
+		BufferedImage image = new BufferedImage(4000, 3000, BufferedImage.TYPE_INT_RGB);
+		Random random = new Random(42);
+		for (int y = 0; y < image.getHeight(); y++) {
+			for (int x = 0; x < image.getWidth(); x++) {
+				image.setRGB(x, y, random.nextInt(0x1000000));
+			}
+		}
+		ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+		ImageWriteParam param = writer.getDefaultWriteParam();
+		param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+		param.setCompressionQuality(0.85f);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (ImageOutputStream stream = ImageIO.createImageOutputStream(out)) {
+			writer.setOutput(stream);
+			writer.write(null, new IIOImage(image, null, null), param);
+		} finally {
+			writer.dispose();
+		}
+		largeJpeg = SpooledMultipartFile.spool(
+				new MockMultipartFile("image", "photo.jpg", "image/jpeg", out.toByteArray()), uploadDirectory);
+	}
+
+	@Test
+	void concurrentUploadsStayWithinDecodeBudget() throws Exception {
+		assertTrue(largeJpeg.getSize() > 8 * 1024 * 1024 && largeJpeg.getSize() <= 10 * 1024 * 1024,
+				"Synthetic upload is " + largeJpeg.getSize() + " bytes");
+		assertTrue(THREADS.isThreadAllocatedMemorySupported(), "JVM cannot report per-thread allocation");
+		THREADS.setThreadAllocatedMemoryEnabled(true);
+		// One upload first so class loading and ImageIO plugin registration are not counted against the others
+		upload(new AtomicLong(), new AtomicLong(), new AtomicLong());
+
+		AtomicLong peakPerDecode = new AtomicLong();
+		AtomicLong peakValidationAllocation = new AtomicLong();
+		AtomicLong peakProcessAllocation = new AtomicLong();
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService uploaders = Executors.newFixedThreadPool(UPLOADERS);
+		try {
+			List<Future<?>> uploads = new ArrayList<>();
+			for (int i = 0; i < UPLOADERS; i++) {
+				uploads.add(uploaders.submit(() -> {
+					start.await();
+					upload(peakPerDecode, peakValidationAllocation, peakProcessAllocation);
+					return null;
+				}));
+			}
+			start.countDown();
+			for (Future<?> upload : uploads) {
+				upload.get(5, TimeUnit.MINUTES);
+			}
+		} finally {
+			uploaders.shutdownNow();
+		}
+
+		assertTrue(peakValidationAllocation.get() <= MAX_ALLOCATED_PER_VALIDATION,
+				"Validating one upload allocated " + peakValidationAllocation.get() + " bytes");
+		assertTrue(peakProcessAllocation.get() <= MAX_ALLOCATED_PER_PROCESS,
+				"Processing one upload allocated " + peakProcessAllocation.get() + " bytes");
+		assertTrue(peakPerDecode.get() <= MAX_RASTER_PER_DECODE,
+				"A single decode held " + peakPerDecode.get() + " bytes of raster");
+		assertTrue(imageVariantProcessor.getPeakRasterBytesInFlight() <= MAX_RASTER_IN_FLIGHT,
+				"Concurrent decodes held " + imageVariantProcessor.getPeakRasterBytesInFlight() + " bytes of raster");
+		assertEquals(0, imageVariantProcessor.getRasterBytesInFlight());
+	}
+
+	// Runs on the worker thread, so the allocation counters are that thread's own
+	private void upload(AtomicLong peakPerDecode, AtomicLong peakValidationAllocation,
+						AtomicLong peakProcessAllocation) throws Exception {
+		long thread = Thread.currentThread().getId();
+		long before = THREADS.getThreadAllocatedBytes(thread);
+		ImageVariantProcessor.ImageInfo info = cloudinaryImageService.validateImage(largeJpeg);
+		long validated = THREADS.getThreadAllocatedBytes(thread);
+		assertEquals(ImageVariantProcessor.JPEG, info.getFormat());
+
+		ImageVariantProcessor.ProcessedImage processed;
+		try (InputStream input = largeJpeg.getInputStream()) {
+			processed = imageVariantProcessor.process(input, largeJpeg.getSize(),
+					ImageVariantProcessor.DISPLAY, ImageVariantProcessor.THUMBNAIL);
+		}
+		long after = THREADS.getThreadAllocatedBytes(thread);
+		assertNotNull(processed);
+
+		peakPerDecode.accumulateAndGet(processed.getRasterBytes(), Math::max);
+		peakValidationAllocation.accumulateAndGet(validated - before, Math::max);
+		peakProcessAllocation.accumulateAndGet(after - validated, Math::max);
+	}
+}
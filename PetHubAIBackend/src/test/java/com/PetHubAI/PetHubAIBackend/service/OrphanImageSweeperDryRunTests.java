@@ -0,0 +1,89 @@
+package com.PetHubAI.PetHubAIBackend.service;
+
+import com.PetHubAI.PetHubAIBackend.entity.Product;
+import com.PetHubAI.PetHubAIBackend.entity.ProductImage;
+import com.PetHubAI.PetHubAIBackend.repository.ProductImageRepository;
+import com.PetHubAI.PetHubAIBackend.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class OrphanImageSweeperDryRunTests {
+
+	private static final String LEGACY_ROWS = "SELECT "
+			+ "(SELECT COUNT(*) FROM product_images WHERE storage_key IS NULL) + "
+			+ "(SELECT COUNT(*) FROM pet_images WHERE storage_key IS NULL)";
+
+	@Autowired
+	private OrphanImageSweeper orphanImageSweeper;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private ProductImageRepository productImageRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private Long productId;
+	private Long imageId;
+
+	@AfterEach
+	void cleanUp() {
+		if (imageId != null) {
+			productImageRepository.deleteById(imageId);
+		}
+		if (productId != null) {
+			productRepository.deleteById(productId);
+		}
+	}
+
+	@Test
+	void dryRunChangesNoRows() {
+		createLegacyProductImage();
+		long legacyRows = jdbcTemplate.queryForObject(LEGACY_ROWS, Long.class);
+
+		OrphanImageSweeper.SweepReport report = orphanImageSweeper.sweep(true);
+
+		assertTrue(report.isDryRun());
+		assertTrue(report.getLegacyKeysBackfilled() >= 1, "Dry run should count the legacy row it would backfill");
+		assertEquals(0, report.getDeleted());
+		assertEquals(legacyRows, jdbcTemplate.queryForObject(LEGACY_ROWS, Long.class));
+
+		Map<String, Object> row = jdbcTemplate.queryForMap(
+				"SELECT storage_key, image_source FROM product_images WHERE id = ?", imageId);
+		assertNull(row.get("storage_key"));
+		assertNull(row.get("image_source"));
+	}
+
+	private void createLegacyProductImage() {
+		Product product = new Product();
+		product.setName("Sweeper dry run test product");
+		product.setSku("TEST-" + UUID.randomUUID());
+		product.setPrice(new BigDecimal("10.00"));
+		product.setStockQuantity(10);
+		Product saved = productRepository.save(product);
+		productId = saved.getId();
+
+		ProductImage image = new ProductImage();
+		image.setProduct(saved);
+		image.setImageUrl("https://res.cloudinary.com/demo/image/upload/v1/pethub/products/" + UUID.randomUUID() + ".jpg");
+		image.setIsPrimary(true);
+		image.setSortOrder(0);
+		imageId = productImageRepository.save(image).getId();
+		// As saved before the backend and key were recorded
+		jdbcTemplate.update("UPDATE product_images SET image_source = NULL, storage_key = NULL WHERE id = ?", imageId);
+	}
+}
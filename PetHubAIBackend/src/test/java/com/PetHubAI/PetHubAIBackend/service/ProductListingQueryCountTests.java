@@ -0,0 +1,111 @@
+package com.PetHubAI.PetHubAIBackend.service;
+
+import com.PetHubAI.PetHubAIBackend.dto.product.ProductResponse;
+import com.PetHubAI.PetHubAIBackend.entity.Product;
+import com.PetHubAI.PetHubAIBackend.entity.ProductImage;
+import com.PetHubAI.PetHubAIBackend.repository.ProductImageRepository;
+import com.PetHubAI.PetHubAIBackend.repository.ProductRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class ProductListingQueryCountTests {
+
+	private static final int PAGE_SIZE = 24;
+
+	@Autowired
+	private ProductService productService;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private ProductImageRepository productImageRepository;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private final List<Long> productIds = new ArrayList<>();
+	// The listing is filtered to this brand so rows left by other tests never land on the page
+	private final String brand = "TEST-" + UUID.randomUUID();
+
+	@AfterEach
+	void cleanUp() {
+		productImageRepository.deleteAll(productImageRepository.findByProductIds(productIds));
+		productRepository.deleteAllById(productIds);
+	}
+
+	@Test
+	void listingPageCostsAtMostTwoStatements() {
+		for (int i = 0; i < PAGE_SIZE; i++) {
+			createProduct(i);
+		}
+
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+
+		Slice<ProductResponse> page = productService.getAllProductsForAdmin(brand, PageRequest.of(0, PAGE_SIZE), false);
+
+		long statements = statistics.getPrepareStatementCount();
+		assertTrue(statements <= 2, "Listing page issued " + statements + " SQL statements");
+
+		// The page is exactly the products created above, fully populated
+		assertEquals(PAGE_SIZE, page.getContent().size());
+		for (ProductResponse product : page.getContent()) {
+			assertTrue(productIds.contains(product.getId()));
+			assertEquals(List.of("dog", "toy"), product.getTags());
+			assertEquals(2, product.getImages().size());
+		}
+	}
+
+	@Test
+	void listingPageReportsTotalsByDefault() {
+		for (int i = 0; i < PAGE_SIZE + 1; i++) {
+			createProduct(i);
+		}
+
+		Slice<ProductResponse> page = productService.getAllProductsForAdmin(brand, PageRequest.of(0, PAGE_SIZE), true);
+
+		Page<ProductResponse> counted = assertInstanceOf(Page.class, page);
+		assertEquals(PAGE_SIZE + 1, counted.getTotalElements());
+		assertEquals(2, counted.getTotalPages());
+	}
+
+	private void createProduct(int index) {
+		Product product = new Product();
+		product.setName("Listing test product " + index);
+		product.setSku("TEST-" + UUID.randomUUID());
+		product.setBrand(brand);
+		product.setPrice(new BigDecimal("10.00"));
+		product.setStockQuantity(10);
+		product.setTags(new ArrayList<>(List.of("toy", "dog")));
+		Product saved = productRepository.save(product);
+		productIds.add(saved.getId());
+
+		for (int sortOrder = 0; sortOrder < 2; sortOrder++) {
+			ProductImage image = new ProductImage();
+			image.setProduct(saved);
+			image.setImageUrl("https://example.com/" + saved.getId() + "-" + sortOrder + ".jpg");
+			image.setIsPrimary(sortOrder == 0);
+			image.setSortOrder(sortOrder);
+			productImageRepository.save(image);
+		}
+	}
+}
@@ -0,0 +1,91 @@
+package com.PetHubAI.PetHubAIBackend.service;
+
+import com.PetHubAI.PetHubAIBackend.entity.Product;
+import com.PetHubAI.PetHubAIBackend.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+class StockReservationInventorySyncTests {
+
+	private static final int ON_HAND = 10;
+	private static final int HELD = 3;
+	private static final int SYNCED_ON_HAND = 20;
+
+	@Autowired
+	private StockReservationService stockReservationService;
+
+	@Autowired
+	private ProductInventoryService productInventoryService;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private Long productId;
+	// No order row is needed: reservation lines only carry the id
+	private final Long orderId = ThreadLocalRandom.current().nextLong(1_000_000_000L, Long.MAX_VALUE);
+
+	@AfterEach
+	void cleanUp() {
+		jdbcTemplate.update("DELETE FROM stock_reservations WHERE order_id = ?", orderId);
+		if (productId != null) {
+			productRepository.deleteById(productId);
+		}
+	}
+
+	@Test
+	void inventorySyncDuringAHoldDoesNotCreateStockWhenItExpires() throws Exception {
+		productId = createProduct(ON_HAND);
+
+		new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+				stockReservationService.reserve(orderId, Map.of(productId, HELD)));
+		assertEquals(ON_HAND - HELD, stock());
+
+		// The warehouse counts what is on the shelf, held units included
+		String feed = "[{\"id\": " + productId + ", \"stockQuantity\": " + SYNCED_ON_HAND + "}]";
+		productInventoryService.applyUpdates(new ByteArrayInputStream(feed.getBytes(StandardCharsets.UTF_8)));
+		assertEquals(SYNCED_ON_HAND - HELD, stock());
+
+		// Let the hold run out well past the sweep's grace period, then expire it
+		jdbcTemplate.update("UPDATE stock_reservations SET expires_at = ? WHERE order_id = ?",
+				Timestamp.valueOf(LocalDateTime.now().minusHours(1)), orderId);
+		stockReservationService.sweepOverdue();
+
+		assertEquals(SYNCED_ON_HAND, stock());
+	}
+
+	private int stock() {
+		return jdbcTemplate.queryForObject("SELECT stock_quantity FROM products WHERE id = ?", Integer.class, productId);
+	}
+
+	private Long createProduct(int stock) {
+		Product product = new Product();
+		product.setName("Reservation sync test product");
+		product.setSku("TEST-" + UUID.randomUUID());
+		product.setPrice(new BigDecimal("10.00"));
+		product.setStockQuantity(stock);
+		return productRepository.save(product).getId();
+	}
+}
@@ -0,0 +1,115 @@
+package com.PetHubAI.PetHubAIBackend.service;
+
+import com.PetHubAI.PetHubAIBackend.entity.Product;
+import com.PetHubAI.PetHubAIBackend.exception.InsufficientStockException;
+import com.PetHubAI.PetHubAIBackend.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class StockServiceConcurrencyTests {
+
+	private static final int BUYERS = 200;
+	private static final int STOCK = 10;
+
+	@Autowired
+	private StockService stockService;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private final List<Long> productIds = new ArrayList<>();
+
+	@AfterEach
+	void cleanUp() {
+		productRepository.deleteAllById(productIds);
+	}
+
+	@Test
+	void parallelBuyersNeverOversell() throws Exception {
+		Long productId = createProduct(STOCK);
+
+		TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+		AtomicInteger sold = new AtomicInteger();
+		AtomicInteger rejected = new AtomicInteger();
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService buyers = Executors.newFixedThreadPool(50);
+		try {
+			List<Future<?>> checkouts = new ArrayList<>();
+			for (int i = 0; i < BUYERS; i++) {
+				checkouts.add(buyers.submit(() -> {
+					start.await();
+					try {
+						transaction.executeWithoutResult(status -> stockService.decrement(Map.of(productId, 1)));
+						sold.incrementAndGet();
+					} catch (InsufficientStockException e) {
+						rejected.incrementAndGet();
+					}
+					return null;
+				}));
+			}
+			start.countDown();
+			for (Future<?> checkout : checkouts) {
+				checkout.get(30, TimeUnit.SECONDS);
+			}
+		} finally {
+			buyers.shutdownNow();
+		}
+
+		assertEquals(STOCK, sold.get());
+		assertEquals(BUYERS - STOCK, rejected.get());
+		assertEquals(0, productRepository.findById(productId).orElseThrow().getStockQuantity());
+	}
+
+	@Test
+	void orderIsAllOrNothing() {
+		Long plenty = createProduct(STOCK);
+		Long scarce = createProduct(1);
+
+		TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+		boolean rejected = false;
+		try {
+			// The first line fits, the second does not: neither may be taken
+			transaction.executeWithoutResult(status -> stockService.decrement(Map.of(plenty, 2, scarce, 5)));
+		} catch (InsufficientStockException e) {
+			rejected = true;
+		}
+
+		assertTrue(rejected);
+		assertEquals(STOCK, productRepository.findById(plenty).orElseThrow().getStockQuantity());
+		assertEquals(1, productRepository.findById(scarce).orElseThrow().getStockQuantity());
+	}
+
+	private Long createProduct(int stock) {
+		Product product = new Product();
+		product.setName("Stock test product");
+		product.setSku("TEST-" + UUID.randomUUID());
+		product.setPrice(new BigDecimal("10.00"));
+		product.setStockQuantity(stock);
+		Long id = productRepository.save(product).getId();
+		productIds.add(id);
+		return id;
+	}
+}